@@ -12,12 +12,31 @@ import org.jlinda.core.utils.MathUtils;
 import org.jlinda.core.utils.SarUtils;
 import org.jlinda.core.utils.SpectralUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 public class CoregistrationUtils {
 
     static Logger logger = SystemUtils.LOG;
 
+    // conjugated spectra of the norm block of crossCorrelateFFT indexed by window size, read only once created
+    private static final Map<Long, ComplexDoubleMatrix> blockSpectra = new ConcurrentHashMap<>();
+
+    private static ComplexDoubleMatrix getBlockSpectrum(final int L, final int P) {
+        return blockSpectra.computeIfAbsent(((long) L << 32) | P, key -> {
+            final int halfL = L / 2;
+            final int halfP = P / 2;
+            final ComplexDoubleMatrix block = ComplexDoubleMatrix.zeros(2 * L, 2 * P);
+            for (int l = halfL; l < halfL + L; ++l)
+                for (int p = halfP; p < halfP + P; ++p)
+                    block.put(l, p, new ComplexDouble(1, 0));
+            SpectralUtils.fft2D_inplace(block);
+            block.conji();
+            return block;
+        });
+    }
+
     public static double normalizedCrossCorrelation(final double[] offset,
                                                     final ComplexDoubleMatrix master,
                                                     final ComplexDoubleMatrix mask,
@@ -267,17 +286,8 @@ public class CoregistrationUtils {
             }
         }
 
-        // allocate block for reuse
-        ComplexDoubleMatrix BLOCK = new ComplexDoubleMatrix(0, 0);
-        if (BLOCK.rows != twoL || BLOCK.columns != twoP) {
-//            logger.info("crosscorrelate:changing static block to size [" + twoL + ", " + twoP + "]");
-            BLOCK.resize(twoL, twoP);
-            for (l = halfL; l < halfL + L; ++l)
-                for (p = halfP; p < halfP + P; ++p)
-                    BLOCK.put(l, p, new ComplexDouble(1, 0));
-            SpectralUtils.fft2D_inplace(BLOCK);
-            BLOCK.conji();// static variable: keep this for re-use
-        }
+        // spectrum of the block, kept for re-use
+        final ComplexDoubleMatrix BLOCK = getBlockSpectrum(L, P);
 
         // Compute the cross-products, i.e., the norms for each shift ---
         // Master2(0,0):Master2(N,N) for shifts = -N/2:N/2
@@ -0,0 +1,330 @@
+package org.jlinda.core.delaunay;
+
+/**
+ * Delaunay triangulator on primitive arrays.
+ * <p>
+ * Same incremental algorithm as {@link FastDelaunayTriangulator}: the points are added in (x, y) order to the
+ * convex hull and the new triangles are made Delaunay by flipping edges. Instead of Coordinate and Triangle
+ * objects the vertices and neighbours of the triangles are kept in int arrays, so the triangulation of a tile
+ * allocates a handful of arrays. Vertex and triangle order, and so the triangles, are the same as with
+ * {@link FastDelaunayTriangulator}.
+ * <p>
+ * Triangles are indexed as in {@link Triangle}: vertices A, B, C and neighbours BAO, CBO, ACO along AB, BC, CA.
+ * Triangles out of the convex hull have HORIZON as their C vertex.
+ */
+public final class IndexedDelaunayTriangulator {
+
+    private static final int HORIZON = -1;
+
+    private final double[] x;
+    private final double[] y;
+
+    // vertices and neighbours of all triangles, 3 per triangle
+    private int[] vertex;
+    private int[] neighbour;
+    private int numAllTriangles;
+
+    // triangles of the triangulation in the order they were added
+    private int[] triangles;
+    private int numTriangles;
+
+    private int currentExternalTriangle;
+
+    /**
+     * @param x x coordinates of the points
+     * @param y y coordinates of the points
+     */
+    public IndexedDelaunayTriangulator(final double[] x, final double[] y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Triangulate the first n points. Points with the same coordinates as a previous point are skipped.
+     *
+     * @param n number of points
+     * @throws TriangulationException if there are less than three distinct points
+     */
+    public void triangulate(final int n) throws TriangulationException {
+        final int[] order = sortUniqueVertices(n);
+        final int numVertices = order.length;
+        if (numVertices <= 2) {
+            throw new TriangulationException("A minimum of three distinct " +
+                                                     "points is necessary to triangulate a set of geometries");
+        }
+
+        // every new vertex adds two triangles
+        final int maxTriangles = 2 * numVertices;
+        vertex = new int[3 * maxTriangles];
+        neighbour = new int[3 * maxTriangles];
+        triangles = new int[maxTriangles];
+        numAllTriangles = 0;
+        numTriangles = 0;
+
+        initTriangulation(order[0], order[1]);
+        for (int k = 2; k < numVertices; k++) {
+            addExternalVertex(order[k]);
+        }
+    }
+
+    /**
+     * @return the number of triangles of the triangulation
+     */
+    public int getNumTriangles() {
+        return numTriangles;
+    }
+
+    /**
+     * @param t     the triangle, 0 to getNumTriangles() - 1
+     * @param index 0, 1, 2 for vertex A, B, C
+     * @return the point of the vertex
+     */
+    public int getVertex(final int t, final int index) {
+        return vertex[3 * triangles[t] + index];
+    }
+
+    /**
+     * Points sorted by x then y, the first of points with the same coordinates is kept.
+     */
+    private int[] sortUniqueVertices(final int n) {
+        int[] order = new int[n];
+        int[] tmp = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        // stable bottom up merge sort
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                final int mid = Math.min(lo + width, n);
+                final int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    tmp[k++] = compare(order[j], order[i]) < 0 ? order[j++] : order[i++];
+                }
+                while (i < mid) {
+                    tmp[k++] = order[i++];
+                }
+                while (j < hi) {
+                    tmp[k++] = order[j++];
+                }
+            }
+            final int[] swap = order;
+            order = tmp;
+            tmp = swap;
+        }
+
+        int numUnique = 0;
+        for (int i = 0; i < n; i++) {
+            if (numUnique == 0 || compare(order[numUnique - 1], order[i]) != 0) {
+                order[numUnique++] = order[i];
+            }
+        }
+        final int[] unique = new int[numUnique];
+        System.arraycopy(order, 0, unique, 0, numUnique);
+        return unique;
+    }
+
+    // as Coordinate.compareTo
+    private int compare(final int p, final int q) {
+        if (x[p] < x[q]) return -1;
+        if (x[p] > x[q]) return 1;
+        if (y[p] < y[q]) return -1;
+        if (y[p] > y[q]) return 1;
+        return 0;
+    }
+
+    private int newTriangle(final int a, final int b, final int c) {
+        final int t = numAllTriangles++;
+        vertex[3 * t] = a;
+        vertex[3 * t + 1] = b;
+        vertex[3 * t + 2] = c;
+        neighbour[3 * t] = -1;
+        neighbour[3 * t + 1] = -1;
+        neighbour[3 * t + 2] = -1;
+        return t;
+    }
+
+    private void initTriangulation(final int c0, final int c1) {
+        final int t0 = newTriangle(c0, c1, HORIZON);
+        final int t1 = newTriangle(c1, c0, HORIZON);
+        for (int side = 0; side < 3; side++) {
+            neighbour[3 * t0 + side] = t1;
+            neighbour[3 * t1 + side] = t0;
+        }
+        currentExternalTriangle = t1;
+    }
+
+    private void addExternalVertex(final int c) {
+        final int first = numTriangles;
+        buildTrianglesBetweenNewVertexAndConvexHull(c);
+        for (int k = first; k < numTriangles; k++) {
+            final int t = triangles[k];
+            if (vertex[3 * t + 2] != HORIZON) {
+                delaunay(t, 0);
+            }
+        }
+    }
+
+    private void buildTrianglesBetweenNewVertexAndConvexHull(final int c) {
+
+        int currentT = currentExternalTriangle;
+        int nextExternalTriangle = neighbour[3 * currentExternalTriangle + 2];
+
+        int lastCCW = ccw(currentT, c);
+        int currentCCW;
+        int beforeFirstVisibleT = currentExternalTriangle;
+        int firstVisibleT = -1;
+        int lastVisibleT = -1;
+        int afterLastVisibleT = nextExternalTriangle;
+        boolean oneCycleCompleted = false;
+        while (true) {
+            currentT = neighbour[3 * currentT + 2];
+            currentCCW = ccw(currentT, c);
+            if (currentCCW > 0) {
+                if (lastCCW <= 0) {
+                    firstVisibleT = currentT;
+                    beforeFirstVisibleT = neighbour[3 * currentT + 1];
+                }
+                if (firstVisibleT != -1) {
+                    vertex[3 * currentT + 2] = c;
+                    triangles[numTriangles++] = currentT;
+                }
+            } else if (firstVisibleT != -1 && lastCCW > 0) {
+                lastVisibleT = neighbour[3 * currentT + 1];
+                afterLastVisibleT = currentT;
+            }
+            lastCCW = currentCCW;
+            if (firstVisibleT != -1 && lastVisibleT != -1) break;
+            if (oneCycleCompleted && firstVisibleT == -1 && lastVisibleT == -1) break;
+            if (currentT == currentExternalTriangle) oneCycleCompleted = true;
+        }
+
+        currentExternalTriangle = newTriangle(c, vertex[3 * beforeFirstVisibleT], HORIZON);
+        nextExternalTriangle = newTriangle(vertex[3 * afterLastVisibleT + 1], c, HORIZON);
+        linkExteriorTriangles(beforeFirstVisibleT, currentExternalTriangle);
+        if (firstVisibleT != -1 || lastVisibleT != -1) {
+            link(currentExternalTriangle, 0, firstVisibleT, 1);
+            link(nextExternalTriangle, 0, lastVisibleT, 2);
+        } else link(currentExternalTriangle, 0, nextExternalTriangle, 0);
+        linkExteriorTriangles(nextExternalTriangle, afterLastVisibleT);
+
+        linkExteriorTriangles(currentExternalTriangle, nextExternalTriangle);
+    }
+
+    private void linkExteriorTriangles(final int t1, final int t2) {
+        neighbour[3 * t1 + 2] = t2;
+        neighbour[3 * t2 + 1] = t1;
+    }
+
+    /**
+     * Check the delaunay property of the triangle along one side and flip it with its neighbour if the
+     * circumcircle contains the opposite vertex, as FastDelaunayTriangulator.delaunay.
+     */
+    private void delaunay(final int t, final int side) {
+
+        final int opp = neighbour[3 * t + side];
+        if (vertex[3 * opp + 2] == HORIZON) return;
+        final int i = getOppSide(opp, vertex[3 * t + side]);
+
+        if (inCircle(t, vertex[3 * opp + i]) > 0) {
+            flip(t, side, opp, (i + 1) % 3);
+            delaunay(t, 1);
+            delaunay(t, 2);
+            delaunay(opp, 0);
+            delaunay(opp, 1);
+        }
+    }
+
+    /**
+     * Replace triangles ABC and BAD sharing edge AB by DCA and DBC, as FastDelaunayTriangulator.flip.
+     */
+    private void flip(final int t0, final int side0, final int t1, final int side1) {
+        final int side0_1 = (side0 + 1) % 3;
+        final int side0_2 = (side0 + 2) % 3;
+        final int side1_1 = (side1 + 1) % 3;
+        final int side1_2 = (side1 + 2) % 3;
+
+        final int t0A = vertex[3 * t1 + side1_2];
+        final int t0B = vertex[3 * t0 + side0_2];
+        final int t0C = vertex[3 * t0 + side0];
+        final int t1B = vertex[3 * t0 + side0_1];
+        // New neighbours
+        final int newt0N1 = neighbour[3 * t0 + side0_2];
+        final int newt0N2 = neighbour[3 * t1 + side1_1];
+        final int newt1N0 = neighbour[3 * t1 + side1_2];
+        final int newt1N1 = neighbour[3 * t0 + side0_1];
+        setVertices(t0, t0A, t0B, t0C);
+        neighbour[3 * t0] = t1;
+        link(t0, 1, newt0N1);
+        link(t0, 2, newt0N2);
+        setVertices(t1, t0A, t1B, t0B);
+        link(t1, 0, newt1N0);
+        link(t1, 1, newt1N1);
+        neighbour[3 * t1 + 2] = t0;
+    }
+
+    private void setVertices(final int t, final int a, final int b, final int c) {
+        vertex[3 * t] = a;
+        vertex[3 * t + 1] = b;
+        vertex[3 * t + 2] = c;
+    }
+
+    private void link(final int t1, final int side1, final int t2, final int side2) {
+        neighbour[3 * t1 + side1] = t2;
+        neighbour[3 * t2 + side2] = t1;
+    }
+
+    private void link(final int t1, final int side1, final int t2) {
+        final int p1 = vertex[3 * t1 + side1];
+        if (p1 == vertex[3 * t2 + side1]) {
+            neighbour[3 * t1 + side1] = t2;
+            neighbour[3 * t2 + (side1 + 2) % 3] = t1;
+        } else {
+            final int side2 = (side1 + 1) % 3;
+            if (p1 == vertex[3 * t2 + side2]) {
+                neighbour[3 * t1 + side1] = t2;
+                neighbour[3 * t2 + side1] = t1;
+            } else {
+                final int side3 = (side1 + 2) % 3;
+                if (p1 == vertex[3 * t2 + side3]) {
+                    neighbour[3 * t1 + side1] = t2;
+                    neighbour[3 * t2 + side2] = t1;
+                }
+            }
+        }
+    }
+
+    private int getOppSide(final int t, final int p) {
+        return vertex[3 * t] == p ? 1 : vertex[3 * t + 1] == p ? 2 : vertex[3 * t + 2] == p ? 0 : -1;
+    }
+
+    // as Triangle.ccw
+    private int ccw(final int t, final int c) {
+        final int a = vertex[3 * t], b = vertex[3 * t + 1];
+        final double dx1dy2 = (x[b] - x[a]) * (y[c] - y[a]);
+        final double dy1dx2 = (y[b] - y[a]) * (x[c] - x[a]);
+        return dx1dy2 > dy1dx2 ? 1 : dx1dy2 < dy1dx2 ? -1 : 0;
+    }
+
+    // as Triangle.inCircle
+    private double inCircle(final int t, final int p4) {
+        final int a = vertex[3 * t], b = vertex[3 * t + 1], c = vertex[3 * t + 2];
+
+        final double adx = x[a] - x[p4];
+        final double ady = y[a] - y[p4];
+        final double bdx = x[b] - x[p4];
+        final double bdy = y[b] - y[p4];
+        final double cdx = x[c] - x[p4];
+        final double cdy = y[c] - y[p4];
+
+        final double abdet = adx * bdy - bdx * ady;
+        final double bcdet = bdx * cdy - cdx * bdy;
+        final double cadet = cdx * ady - adx * cdy;
+        final double alift = adx * adx + ady * ady;
+        final double blift = bdx * bdx + bdy * bdy;
+        final double clift = cdx * cdx + cdy * cdy;
+
+        return alift * bcdet + blift * cadet + clift * abdet;
+    }
+}
@@ -33,19 +33,84 @@ public class TriangleInterpolator {
                                       final Window window, final double xyRatio, final int xScale,
                                       final int yScale, final double invalidIndex, final int offset) throws Exception {
 
-        final FastDelaunayTriangulator FDT = triangulate(x_in, y_in, xyRatio, invalidIndex);
-        if(FDT != null) {
-            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, FDT, zList);
+        final int width = x_in[0].length;
+        final int size = x_in.length * width;
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        final int[] index = new int[size];
+        int n = 0;
+        for (int i = 0; i < x_in.length; i++) {
+            for (int j = 0; j < width; j++) {
+                if (x_in[i][j] == invalidIndex || y_in[i][j] == invalidIndex) {
+                    continue;
+                }
+                x[n] = x_in[i][j];
+                y[n] = y_in[i][j] * xyRatio;
+                index[n++] = i * width + j;
+            }
         }
+        gridDataLinear(x, y, index, n, zList, window, xyRatio, xScale, yScale, invalidIndex, offset);
     }
 
     public static void gridDataLinear(final double[] x_in, final double[] y_in, final ZData[] zList,
                                       final Window window, final double xyRatio, final int xScale,
                                       final int yScale, final double invalidIndex, final int offset) throws Exception {
 
-        final FastDelaunayTriangulator FDT = triangulate(x_in, y_in, xyRatio, invalidIndex);
-        if(FDT != null) {
-            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, FDT, zList);
+        final double[] x = new double[x_in.length];
+        final double[] y = new double[x_in.length];
+        final int[] index = new int[x_in.length];
+        int n = 0;
+        for (int i = 0; i < x_in.length; i++) {
+            if (x_in[i] == invalidIndex || y_in[i] == invalidIndex) {
+                continue;
+            }
+            x[n] = x_in[i];
+            y[n] = y_in[i] * xyRatio;
+            index[n++] = i;
+        }
+        gridDataLinear(x, y, index, n, zList, window, xyRatio, xScale, yScale, invalidIndex, offset);
+    }
+
+    /**
+     * Triangulate the valid input points with the IndexedDelaunayTriangulator and interpolate the triangles
+     * onto the grid of the window.
+     *
+     * @param x     x coordinates of the valid points
+     * @param y     y coordinates of the valid points multiplied by xyRatio
+     * @param index index of each point in the z input
+     * @param n     number of valid points
+     */
+    private static void gridDataLinear(final double[] x, final double[] y, final int[] index, final int n,
+                                       final ZData[] zList, final Window window, final double xyRatio,
+                                       final double xScale, final double yScale, final double invalidIndex,
+                                       final double offset) {
+        if (n < 3) {
+            return;
+        }
+
+        final IndexedDelaunayTriangulator triangulator = new IndexedDelaunayTriangulator(x, y);
+        try {
+            triangulator.triangulate(n);
+        } catch (TriangulationException te) {
+            te.printStackTrace();
+            return;
+        }
+
+        final TriangleRasterizer rasterizer = new TriangleRasterizer(window, xScale, yScale, offset, invalidIndex);
+        final double[] vx = new double[4];
+        final double[] vy = new double[4];
+        final double[] vz = new double[3];
+        final int numTriangles = triangulator.getNumTriangles();
+        for (int t = 0; t < numTriangles; t++) {
+            for (int k = 0; k < 3; k++) {
+                final int p = triangulator.getVertex(t, k);
+                vx[k] = x[p];
+                vy[k] = y[p] / xyRatio;
+                vz[k] = index[p];
+            }
+            vx[3] = vx[0];
+            vy[3] = vy[0];
+            rasterizer.fill(vx, vy, vz, zList);
         }
     }
 
@@ -117,24 +182,13 @@ public class TriangleInterpolator {
                                    final double offset, final double invalidIndex,
                                    final FastDelaunayTriangulator FDT, final ZData[] zList) {
 
-        final double x_min = tileWindow.linelo;
-        final double y_min = tileWindow.pixlo;
-
-        long i_min, i_max, j_min, j_max; // minimas/maximas
-        double xp, yp;
-        double xkj, ykj, xlj, ylj;
-        double f; // function
+        final TriangleRasterizer rasterizer = new TriangleRasterizer(tileWindow, xScale, yScale, offset, invalidIndex);
 
         // containers for xy coordinates of Triangles: p1-p2-p3-p1
         final double[] vx = new double[4];
         final double[] vy = new double[4];
         final double[] vz = new double[3];
 
-        final int nx = (int) tileWindow.lines();
-        final int ny = (int) tileWindow.pixels();
-
-        //// interpolate: loop over triangles
-        //long t4 = System.currentTimeMillis();
         for (Triangle triangle : FDT.triangles) {
 
             // store triangle coordinates in local variables
@@ -147,88 +201,12 @@ public class TriangleInterpolator {
             vx[2] = triangle.getC().x;
             vy[2] = triangle.getC().y / xyRatio;
 
-            // skip invalid indices
-            if (vx[0] == invalidIndex || vx[1] == invalidIndex || vx[2] == invalidIndex ||
-                    vy[0] == invalidIndex || vy[1] == invalidIndex || vy[2] == invalidIndex) {
-                continue;
-            }
-
-            // Compute grid indices the current triangle may cover
-            xp = Math.min(Math.min(vx[0], vx[1]), vx[2]);
-            i_min = coordToIndex(xp, x_min, xScale, offset);
-
-            xp = Math.max(Math.max(vx[0], vx[1]), vx[2]);
-            i_max = coordToIndex(xp, x_min, xScale, offset);
-
-            yp = Math.min(Math.min(vy[0], vy[1]), vy[2]);
-            j_min = coordToIndex(yp, y_min, yScale, offset);
-
-            yp = Math.max(Math.max(vy[0], vy[1]), vy[2]);
-            j_max = coordToIndex(yp, y_min, yScale, offset);
-
-            // skip triangle that is above or below the region
-            if ((i_max < 0) || (i_min >= nx)) {
-                continue;
-            }
-
-            // skip triangle that is on the left or right of the region
-            if ((j_max < 0) || (j_min >= ny)) {
-                continue;
-            }
-
-            // triangle covers the upper or lower boundary
-            if (i_min < 0) {
-                i_min = 0;
-            }
-
-            if (i_max >= nx) {
-                i_max = nx - 1;
-            }
-
-            // triangle covers left or right boundary
-            if (j_min < 0) {
-                j_min = 0;
-            }
-
-            if (j_max >= ny) {
-                j_max = ny - 1;
-            }
-
-            // compute plane defined by the three vertices of the triangle: z = ax + by + c
-            xkj = vx[1] - vx[0];
-            ykj = vy[1] - vy[0];
-            xlj = vx[2] - vx[0];
-            ylj = vy[2] - vy[0];
-
-            f = 1.0 / (xkj * ylj - ykj * xlj);
-
             vz[0] = triangle.getA().z;
             vz[1] = triangle.getB().z;
             vz[2] = triangle.getC().z;
 
-            for(ZData data : zList) {
-                getABC(vx, vy, vz, data, f, xkj, ykj, xlj, ylj);
-            }
-
-            final PointInTriangle pointInTriangle = new PointInTriangle(vx, vy);
-
-            for (int i = (int)i_min; i <= i_max; i++) {
-                xp = x_min + i * xScale + offset;
-                for (int j = (int)j_min; j <= j_max; j++) {
-                    yp = y_min + j * yScale + offset;
-
-                    if(!pointInTriangle.test(xp, yp)) {
-                        continue;
-                    }
-
-                    for(ZData d : zList) {
-                        d.z_out[i][j] = d.a * xp + d.b * yp + d.c;
-                    }
-                }
-            }
+            rasterizer.fill(vx, vy, vz, zList);
         }
-        //long t5 = System.currentTimeMillis();
-        //SystemUtils.LOG.info("Data set interpolated in " + (0.001 * (t5 - t4)) + " sec");
     }
 
     private static void getABC(
@@ -266,27 +244,177 @@ public class TriangleInterpolator {
         return (long) Math.floor((((coord - coord0) / (deltaCoord)) - offset) + 0.5);
     }
 
-    private static class PointInTriangle {
-        private final double[] xt, yt;
-        private final double xtd0, xtd1, xtd2, ytd0, ytd1, ytd2;
-
-        public PointInTriangle(double[] xt, double[] yt) {
-            this.xt = xt;
-            this.yt = yt;
-            xtd0 = xt[2] - xt[0];
-            xtd1 = xt[0] - xt[1];
-            xtd2 = xt[1] - xt[2];
-            ytd0 = yt[2] - yt[0];
-            ytd1 = yt[0] - yt[1];
-            ytd2 = yt[1] - yt[2];
+    /**
+     * Fills the grid points inside a triangle with the planes of the z data.
+     * Grid points are those for which the point in triangle test of each edge gives the same sign. Along a grid
+     * line the test of an edge changes sign once, so instead of testing every point of the bounding box the point
+     * where the sign changes is searched from its analytic position and the points in between are filled.
+     */
+    private static final class TriangleRasterizer {
+        private final double x_min, y_min;
+        private final double xScale, yScale, offset, invalidIndex;
+        private final int nx, ny;
+        private final boolean scanline;
+
+        // point in triangle test of each edge: xtd * (y - yt) > (x - xt) * ytd
+        private final double[] xt = new double[3];
+        private final double[] yt = new double[3];
+        private final double[] xtd = new double[3];
+        private final double[] ytd = new double[3];
+
+        TriangleRasterizer(final Window tileWindow, final double xScale, final double yScale,
+                           final double offset, final double invalidIndex) {
+            this.x_min = tileWindow.linelo;
+            this.y_min = tileWindow.pixlo;
+            this.xScale = xScale;
+            this.yScale = yScale;
+            this.offset = offset;
+            this.invalidIndex = invalidIndex;
+            this.nx = (int) tileWindow.lines();
+            this.ny = (int) tileWindow.pixels();
+            // the sign changes once along a grid line only if y increases with j
+            this.scanline = yScale > 0;
         }
 
-        public boolean test(double x, double y) {
-            int iRet0 = (xtd0 * (y - yt[0])) > ((x - xt[0]) * ytd0) ? 1 : -1;
-            int iRet1 = (xtd1 * (y - yt[1])) > ((x - xt[1]) * ytd1) ? 1 : -1;
-            int iRet2 = (xtd2 * (y - yt[2])) > ((x - xt[2]) * ytd2) ? 1 : -1;
+        void fill(final double[] vx, final double[] vy, final double[] vz, final ZData[] zList) {
+
+            // skip invalid indices
+            if (vx[0] == invalidIndex || vx[1] == invalidIndex || vx[2] == invalidIndex ||
+                    vy[0] == invalidIndex || vy[1] == invalidIndex || vy[2] == invalidIndex) {
+                return;
+            }
+
+            // Compute grid indices the current triangle may cover
+            long i_min = coordToIndex(Math.min(Math.min(vx[0], vx[1]), vx[2]), x_min, xScale, offset);
+            long i_max = coordToIndex(Math.max(Math.max(vx[0], vx[1]), vx[2]), x_min, xScale, offset);
+            long j_min = coordToIndex(Math.min(Math.min(vy[0], vy[1]), vy[2]), y_min, yScale, offset);
+            long j_max = coordToIndex(Math.max(Math.max(vy[0], vy[1]), vy[2]), y_min, yScale, offset);
+
+            // skip triangle that is above, below, on the left or on the right of the region
+            if ((i_max < 0) || (i_min >= nx) || (j_max < 0) || (j_min >= ny)) {
+                return;
+            }
+
+            // triangle covers a boundary
+            if (i_min < 0) {
+                i_min = 0;
+            }
+            if (i_max >= nx) {
+                i_max = nx - 1;
+            }
+            if (j_min < 0) {
+                j_min = 0;
+            }
+            if (j_max >= ny) {
+                j_max = ny - 1;
+            }
 
-            return (iRet0 > 0 && iRet1 > 0 && iRet2 > 0) || (iRet0 < 0 && iRet1 < 0 && iRet2 < 0);
+            // compute plane defined by the three vertices of the triangle: z = ax + by + c
+            final double xkj = vx[1] - vx[0];
+            final double ykj = vy[1] - vy[0];
+            final double xlj = vx[2] - vx[0];
+            final double ylj = vy[2] - vy[0];
+
+            final double f = 1.0 / (xkj * ylj - ykj * xlj);
+
+            for (ZData data : zList) {
+                getABC(vx, vy, vz, data, f, xkj, ykj, xlj, ylj);
+            }
+
+            for (int k = 0; k < 3; k++) {
+                final int l = (k + 2) % 3;
+                xt[k] = vx[k];
+                yt[k] = vy[k];
+                xtd[k] = vx[l] - vx[k];
+                ytd[k] = vy[l] - vy[k];
+            }
+
+            final int j0 = (int) j_min;
+            final int j1 = (int) j_max;
+            for (int i = (int) i_min; i <= i_max; i++) {
+                final double xp = x_min + i * xScale + offset;
+                if (!scanline) {
+                    for (int j = j0; j <= j1; j++) {
+                        if (test(xp, j) != 0) {
+                            fill(zList, i, j, j, xp);
+                        }
+                    }
+                    continue;
+                }
+
+                // grid points with all tests positive and with all tests negative
+                int posLo = j0, posHi = j1;
+                int negLo = j0, negHi = j1;
+                for (int k = 0; k < 3; k++) {
+                    final double rhs = (xp - xt[k]) * ytd[k];
+                    if (xtd[k] > 0) {
+                        final int t = findSignChange(k, rhs, true, j0, j1);
+                        posLo = Math.max(posLo, t);
+                        negHi = Math.min(negHi, t - 1);
+                    } else if (xtd[k] < 0) {
+                        final int t = findSignChange(k, rhs, false, j0, j1);
+                        posHi = Math.min(posHi, t - 1);
+                        negLo = Math.max(negLo, t);
+                    } else if (isPositive(k, rhs, j0)) {
+                        negHi = j0 - 1;
+                    } else {
+                        posHi = j0 - 1;
+                    }
+                }
+                fill(zList, i, posLo, posHi, xp);
+                fill(zList, i, negLo, negHi, xp);
+            }
+        }
+
+        private double y(final int j) {
+            return y_min + j * yScale + offset;
+        }
+
+        private boolean isPositive(final int k, final double rhs, final int j) {
+            return (xtd[k] * (y(j) - yt[k])) > rhs;
+        }
+
+        /**
+         * @return 1 if all tests are positive, -1 if all are negative, 0 otherwise
+         */
+        private int test(final double xp, final int j) {
+            final double yp = y(j);
+            final boolean p0 = (xtd[0] * (yp - yt[0])) > ((xp - xt[0]) * ytd[0]);
+            final boolean p1 = (xtd[1] * (yp - yt[1])) > ((xp - xt[1]) * ytd[1]);
+            final boolean p2 = (xtd[2] * (yp - yt[2])) > ((xp - xt[2]) * ytd[2]);
+            return (p0 && p1 && p2) ? 1 : (!p0 && !p1 && !p2) ? -1 : 0;
+        }
+
+        /**
+         * First grid point of [j0, j1] where the test of edge k is equal to target, or j1 + 1.
+         * The test of the edge is monotonic in j.
+         */
+        private int findSignChange(final int k, final double rhs, final boolean target, final int j0, final int j1) {
+            final double jc = (yt[k] + rhs / xtd[k] - offset - y_min) / yScale;
+            int j;
+            if (jc >= j1 + 1) {
+                j = j1 + 1;
+            } else if (jc > j0) {
+                j = (int) Math.ceil(jc);
+            } else {
+                j = j0;
+            }
+            while (j > j0 && isPositive(k, rhs, j - 1) == target) {
+                j--;
+            }
+            while (j <= j1 && isPositive(k, rhs, j) != target) {
+                j++;
+            }
+            return j;
+        }
+
+        private void fill(final ZData[] zList, final int i, final int jLo, final int jHi, final double xp) {
+            for (int j = jLo; j <= jHi; j++) {
+                final double yp = y(j);
+                for (ZData d : zList) {
+                    d.z_out[i][j] = d.a * xp + d.b * yp + d.c;
+                }
+            }
         }
     }
 }
@@ -30,6 +30,9 @@ public class DemTile {
     //// actual demTileData
     double[][] data;
 
+    // master radar coding of data, shared by all slaves using this tile
+    private volatile RadarCodedDem radarCoded;
+
     /// extent : coordinates in radians
     double lambdaExtra;
     double phiExtra;
@@ -102,6 +105,29 @@ public class DemTile {
 
     public void setData(double[][] data) {
         this.data = data;
+        this.radarCoded = null;
+    }
+
+    /**
+     * Radar coding of the tile in the master geometry. It is computed by the first call for a master and reused by
+     * the following calls, so a tile shared by the slaves of a stack is radar coded only once.
+     *
+     * @param masterMeta  master metadata
+     * @param masterOrbit master orbit
+     * @return master line, pixel and flat earth position of the points of the tile
+     */
+    public RadarCodedDem getRadarCoded(final SLCImage masterMeta, final Orbit masterOrbit) throws Exception {
+        RadarCodedDem coded = radarCoded;
+        if (coded == null || !coded.isFor(masterMeta, masterOrbit)) {
+            synchronized (this) {
+                coded = radarCoded;
+                if (coded == null || !coded.isFor(masterMeta, masterOrbit)) {
+                    coded = new RadarCodedDem(this, masterMeta, masterOrbit);
+                    radarCoded = coded;
+                }
+            }
+        }
+        return coded;
     }
 
     // ----- Loop over DEM for stats ------------------------
@@ -0,0 +1,80 @@
+package org.jlinda.core.geom;
+
+import org.jlinda.core.Orbit;
+import org.jlinda.core.Point;
+import org.jlinda.core.SLCImage;
+
+/**
+ * Master radar coding of the points of a DEM tile.
+ * <p>
+ * The master line and pixel of every DEM point and the master point on the ellipsoid at that line and pixel do not
+ * depend on the slave, so they are computed once per DEM tile and shared by the topographic phase of every slave
+ * and by the elevation and lat/lon passes. They are kept in primitive arrays, row major over the DEM tile.
+ */
+public final class RadarCodedDem {
+
+    private final SLCImage masterMeta;
+    private final Orbit masterOrbit;
+
+    final int nCols;
+
+    // master line and pixel of each DEM point, computed at zero height for no data points
+    final double[] line;
+    final double[] pixel;
+
+    // master point on the ellipsoid at line and pixel, for the points with a height
+    final double[] flatEarthX;
+    final double[] flatEarthY;
+    final double[] flatEarthZ;
+
+    RadarCodedDem(final DemTile dem, final SLCImage masterMeta, final Orbit masterOrbit) throws Exception {
+        this.masterMeta = masterMeta;
+        this.masterOrbit = masterOrbit;
+
+        final int nRows = dem.data.length;
+        nCols = dem.data[0].length;
+        final int nPoints = nRows * nCols;
+        line = new double[nPoints];
+        pixel = new double[nPoints];
+        flatEarthX = new double[nPoints];
+        flatEarthY = new double[nPoints];
+        flatEarthZ = new double[nPoints];
+
+        // phi and lambda are stepped as in TopoPhase.radarCode
+        double phi = dem.lat0;
+        for (int i = 0; i < nRows; i++) {
+
+            double lambda = dem.lon0;
+            final double[] heightArray = dem.data[i];
+
+            for (int j = 0; j < nCols; j++) {
+                final int k = i * nCols + j;
+                final double height = heightArray[j];
+
+                if (height != dem.noDataValue) {
+                    final double[] phi_lam_height = {phi, lambda, height};
+                    final Point sarPoint = masterOrbit.ell2lp(phi_lam_height, masterMeta);
+                    line[k] = sarPoint.y;
+                    pixel[k] = sarPoint.x;
+
+                    final Point masterXYZPos = masterOrbit.lp2xyz(line[k], pixel[k], masterMeta);
+                    flatEarthX[k] = masterXYZPos.x;
+                    flatEarthY[k] = masterXYZPos.y;
+                    flatEarthZ[k] = masterXYZPos.z;
+                } else {
+                    final double[] phi_lam_height = {phi, lambda, 0};
+                    final Point sarPoint = masterOrbit.ell2lp(phi_lam_height, masterMeta);
+                    line[k] = sarPoint.y;
+                    pixel[k] = sarPoint.x;
+                }
+
+                lambda += dem.longitudeDelta;
+            }
+            phi -= dem.latitudeDelta;
+        }
+    }
+
+    boolean isFor(final SLCImage masterMeta, final Orbit masterOrbit) {
+        return this.masterMeta == masterMeta && this.masterOrbit == masterOrbit;
+    }
+}
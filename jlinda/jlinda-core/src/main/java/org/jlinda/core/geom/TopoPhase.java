@@ -131,59 +131,39 @@ public class TopoPhase {
         Point pointOnDem;
         Point slaveTime;
 
+        // master line, pixel and flat earth position do not depend on the slave and are shared through the tile
+        final RadarCodedDem radarCoded = dem.getRadarCoded(masterMeta, masterOrbit);
+
         phi = upperLeftPhi;
         for (int i = 0; i < nRows; i++) {
 
-//            if ((i % 100) == 0) {
-//                logger.info("Radarcoding DEM line: " + i + " (" + Math.floor(.5 + (100. * (double) i / (double) (nRows))) + "%");
-//            }
-
             lambda = upperLeftLambda;
             double[] heightArray = dem.data[i];
 
             for (int j = 0; j < nCols; j++) {
 
+                final int k = i * nCols + j;
                 height = heightArray[j];
                 demElevation[i][j] = height;
                 demLatitude[i][j] = phi;
                 demLongitude[i][j] = lambda;
 
-                if (height != dem.noDataValue) {
+                line = radarCoded.line[k];
+                pix = radarCoded.pixel[k];
 
-                    double[] phi_lam_height = {phi, lambda, height};
-                    Point sarPoint = masterOrbit.ell2lp(phi_lam_height, masterMeta);
-
-                    line = sarPoint.y;
-                    pix = sarPoint.x;
+                if (height != dem.noDataValue) {
 
                     demRadarCode_y[i][j] = line;
                     demRadarCode_x[i][j] = pix;
 
+                    double[] phi_lam_height = {phi, lambda, height};
                     pointOnDem = Ellipsoid.ell2xyz(phi_lam_height);
                     slaveTime = slaveOrbit.xyz2t(pointOnDem, slaveMeta);
-/*
-                if (outH2PH == true) {
-
-                    // compute h2ph factor
-                    Point masterSatPos = masterOrbit.getXYZ(masterTime.y);
-                    Point slaveSatpOS = slaveOrbit.getXYZ(slaveTime.y);
-                    double B = masterSatPos.distance(slaveSatpOS);
-                    double Bpar = Constants.SOL * (masterTime.x - masterTime.y);
-                    Point rangeDistToMaster = masterSatPos.min(pointOnDem);
-                    Point rangeDistToSlave = slaveSatpOS.min(pointOnDem);
-                    // double thetaMaster = masterSatPos.angle(rangeDistToMaster);  // look angle - not needed
-                    double thetaMaster = pointOnDem.angle(rangeDistToMaster); // incidence angle
-                    double thetaSlave = pointOnDem.angle(rangeDistToSlave); // incidence angle slave
-                    double Bperp = (thetaMaster > thetaSlave) ? // sign ok
-                            Math.sqrt(MathUtils.sqr(B) - MathUtils.sqr(Bpar))
-                            : -Math.sqrt(MathUtils.sqr(B) - MathUtils.sqr(Bpar));
-
-                    h2phArray[i][j] = Bperp / (masterTime.x * Constants.SOL * Math.sin(thetaMaster));
-                }
-*/
+
                     // do not include flat earth phase
                     if (onlyTopoRefPhase) {
-                        Point masterXYZPos = masterOrbit.lp2xyz(line, pix, masterMeta);
+                        Point masterXYZPos = new Point(radarCoded.flatEarthX[k], radarCoded.flatEarthY[k],
+                                radarCoded.flatEarthZ[k]);
                         Point flatEarthTime = slaveOrbit.xyz2t(masterXYZPos, slaveMeta);
                         if (isBiStaticStack) {
                             ref_phase = slaveMin4piCDivLam * (flatEarthTime.x - slaveTime.x) * 0.5;
@@ -199,12 +179,6 @@ public class TopoPhase {
 
                 } else {
 
-                    double[] phi_lam_height = {phi, lambda, 0};
-                    Point sarPoint = masterOrbit.ell2lp(phi_lam_height, masterMeta);
-
-                    line = sarPoint.y;
-                    pix = sarPoint.x;
-
                     if (useInvalidIndex) {
                         demRadarCode_y[i][j] = invalidIndex;//line;
                         demRadarCode_x[i][j] = invalidIndex;//pix;
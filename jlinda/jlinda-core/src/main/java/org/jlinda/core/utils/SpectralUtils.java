@@ -6,12 +6,65 @@ import org.esa.snap.core.util.SystemUtils;
 import org.jblas.ComplexDoubleMatrix;
 import org.jblas.DoubleMatrix;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class SpectralUtils {
 
     static Logger logger = SystemUtils.LOG;
 
+    private static final int MAX_PLANS_PER_THREAD = 8;
+
+    // FFT plans of the calling thread, planning a transform costs as much as a transform for non power of 2 lengths
+    private static final ThreadLocal<Map<Integer, DoubleFFT_1D>> threadPlans1D =
+            ThreadLocal.withInitial(SpectralUtils::createPlanCache);
+    private static final ThreadLocal<Map<Long, DoubleFFT_2D>> threadPlans2D =
+            ThreadLocal.withInitial(SpectralUtils::createPlanCache);
+
+    private static <K, V> Map<K, V> createPlanCache() {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MAX_PLANS_PER_THREAD;
+            }
+        };
+    }
+
+    /**
+     * Get a 1D FFT plan of the calling thread. The plan must not be shared with other threads.
+     *
+     * @param fftLength the length of the transform
+     * @return the plan
+     */
+    public static DoubleFFT_1D getFFT1D(final int fftLength) {
+        final Map<Integer, DoubleFFT_1D> plans = threadPlans1D.get();
+        DoubleFFT_1D fft = plans.get(fftLength);
+        if (fft == null) {
+            fft = new DoubleFFT_1D(fftLength);
+            plans.put(fftLength, fft);
+        }
+        return fft;
+    }
+
+    /**
+     * Get a 2D FFT plan of the calling thread. The plan must not be shared with other threads.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @return the plan
+     */
+    public static DoubleFFT_2D getFFT2D(final int rows, final int columns) {
+        final Map<Long, DoubleFFT_2D> plans = threadPlans2D.get();
+        final Long key = ((long) rows << 32) | columns;
+        DoubleFFT_2D fft = plans.get(key);
+        if (fft == null) {
+            fft = new DoubleFFT_2D(rows, columns);
+            plans.put(key, fft);
+        }
+        return fft;
+    }
+
     private static void fftTransform1D_inplace(ComplexDoubleMatrix vector, int fftLength, int direction) {
         switch (direction) {
             case 1:
@@ -26,23 +79,23 @@ public class SpectralUtils {
     }
 
     public static void fft1D_inplace(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
+        DoubleFFT_1D fft = getFFT1D(fftLength);
         fft.complexForward(vector.data);
     }
 
     public static void invfft1D_inplace(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
+        DoubleFFT_1D fft = getFFT1D(fftLength);
         fft.complexInverse(vector.data, true);
     }
 
     public static ComplexDoubleMatrix fft1D(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
+        DoubleFFT_1D fft = getFFT1D(fftLength);
         fft.complexForward(vector.data);
         return vector;
     }
 
     public static ComplexDoubleMatrix invfft1D(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
+        DoubleFFT_1D fft = getFFT1D(fftLength);
         fft.complexInverse(vector.data, true);
         return vector;
     }
@@ -99,7 +152,7 @@ public class SpectralUtils {
 
     public static void fft2D_inplace(ComplexDoubleMatrix A) {
         ComplexDoubleMatrix aTemp = A.transpose();
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(aTemp.rows, aTemp.columns);
+        DoubleFFT_2D fft2d = getFFT2D(aTemp.rows, aTemp.columns);
 //        fft2d.complexForward(A.data);
         fft2d.complexForward(aTemp.data);
         A.data = aTemp.transpose().data;
@@ -112,12 +165,12 @@ public class SpectralUtils {
     }
 
     public static void fft2D_inplace(DoubleMatrix A) {
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(A.rows, A.columns);
+        DoubleFFT_2D fft2d = getFFT2D(A.rows, A.columns);
         fft2d.realForwardFull(A.data);
     }
 
     public static void invfft2D_inplace(ComplexDoubleMatrix A) {
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(A.rows, A.columns);
+        DoubleFFT_2D fft2d = getFFT2D(A.rows, A.columns);
 //        fft2d.complexInverse(A.data, true);
         ComplexDoubleMatrix aTemp = A.transpose();
         fft2d.complexInverse(aTemp.data, true);
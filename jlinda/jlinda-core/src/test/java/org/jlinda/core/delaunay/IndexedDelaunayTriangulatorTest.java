@@ -0,0 +1,311 @@
+package org.jlinda.core.delaunay;
+
+import org.jlinda.core.Window;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class IndexedDelaunayTriangulatorTest {
+
+    private static final double NODATA = -32768;
+
+    // DEM points radar coded onto a tile: a sheared grid with noise, duplicates and invalid points
+    private static double[][][] createPoints(final int nRows, final int nCols, final long seed) {
+        final Random random = new Random(seed);
+        final double[][] x = new double[nRows][nCols];
+        final double[][] y = new double[nRows][nCols];
+        final double[][] z = new double[nRows][nCols];
+        for (int i = 0; i < nRows; i++) {
+            for (int j = 0; j < nCols; j++) {
+                x[i][j] = 2.2 * i + 0.1 * j + 0.1 * random.nextGaussian();
+                y[i][j] = 13.0 * j - 0.5 * i + 0.5 * random.nextGaussian();
+                z[i][j] = 1000 * random.nextDouble();
+            }
+        }
+        x[3][4] = x[3][5];
+        y[3][4] = y[3][5];
+        x[7][2] = NODATA;
+        y[9][9] = NODATA;
+        return new double[][][]{x, y, z};
+    }
+
+    @Test
+    public void testSameTrianglesAsFastDelaunayTriangulator() throws Exception {
+        final double xyRatio = 5.25;
+        final double[][][] points = createPoints(30, 20, 1);
+        final double[][] x_in = points[0], y_in = points[1];
+
+        final FastDelaunayTriangulator FDT = TriangleInterpolator.triangulate(x_in, y_in, xyRatio, NODATA);
+
+        final int nCols = x_in[0].length;
+        final double[] x = new double[x_in.length * nCols];
+        final double[] y = new double[x.length];
+        final int[] index = new int[x.length];
+        int n = 0;
+        for (int i = 0; i < x_in.length; i++) {
+            for (int j = 0; j < nCols; j++) {
+                if (x_in[i][j] != NODATA && y_in[i][j] != NODATA) {
+                    x[n] = x_in[i][j];
+                    y[n] = y_in[i][j] * xyRatio;
+                    index[n++] = i * nCols + j;
+                }
+            }
+        }
+        final IndexedDelaunayTriangulator triangulator = new IndexedDelaunayTriangulator(x, y);
+        triangulator.triangulate(n);
+
+        Assert.assertEquals(FDT.triangles.size(), triangulator.getNumTriangles());
+        for (int t = 0; t < triangulator.getNumTriangles(); t++) {
+            final Triangle triangle = FDT.triangles.get(t);
+            Assert.assertEquals((int) triangle.getA().z, index[triangulator.getVertex(t, 0)]);
+            Assert.assertEquals((int) triangle.getB().z, index[triangulator.getVertex(t, 1)]);
+            Assert.assertEquals((int) triangle.getC().z, index[triangulator.getVertex(t, 2)]);
+        }
+    }
+
+    @Test
+    public void testGridDataLinear() throws Exception {
+        final double[][][] points = createPoints(70, 45, 2);
+
+        // inside the points
+        checkGridDataLinear(points, new Window(10, 137, 20, 531), 1, 1, 0);
+        // windows clipping the triangles on every side
+        checkGridDataLinear(points, new Window(-20, 107, -60, 451), 1, 1, 0);
+        checkGridDataLinear(points, new Window(90, 217, 300, 811), 1, 1, 0);
+        checkGridDataLinear(points, new Window(40, 60, 250, 270), 1, 1, 0);
+        // coarser grids and an offset
+        checkGridDataLinear(points, new Window(-5, 58, -40, 215), 2, 3, 0);
+        checkGridDataLinear(points, new Window(10, 137, 20, 531), 1, 1, 1);
+        // y decreasing with the grid index
+        checkGridDataLinear(points, new Window(10, 137, 20, 531), 1, -1, 0);
+        checkGridDataLinear(points, new Window(-20, 107, 600, 855), 2, -2, 0);
+    }
+
+    private static void checkGridDataLinear(final double[][][] points, final Window window,
+                                            final int xScale, final int yScale, final int offset) throws Exception {
+        final double xyRatio = 5.25;
+        final int nx = (int) window.lines();
+        final int ny = (int) window.pixels();
+
+        final double[] z1d = new double[points[2].length * points[2][0].length];
+        for (int i = 0; i < points[2].length; i++) {
+            for (int j = 0; j < points[2][0].length; j++) {
+                z1d[i * points[2][0].length + j] = -points[2][i][j];
+            }
+        }
+
+        final double[][] expected = filled(nx, ny);
+        final double[][] expected1d = filled(nx, ny);
+        final FastDelaunayTriangulator FDT = TriangleInterpolator.triangulate(points[0], points[1], xyRatio, NODATA);
+        OldInterpolator.interpolate(xyRatio, window, xScale, yScale, offset, NODATA, FDT,
+                new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(points[2], expected),
+                        new TriangleInterpolator.ZData(z1d, expected1d)});
+
+        final double[][] actual = filled(nx, ny);
+        final double[][] actual1d = filled(nx, ny);
+        TriangleInterpolator.gridDataLinear(points[0], points[1],
+                new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(points[2], actual),
+                        new TriangleInterpolator.ZData(z1d, actual1d)},
+                window, xyRatio, xScale, yScale, NODATA, offset);
+
+        for (int i = 0; i < nx; i++) {
+            Assert.assertArrayEquals(expected[i], actual[i], 0.0);
+            Assert.assertArrayEquals(expected1d[i], actual1d[i], 0.0);
+        }
+
+        // the same triangles through interpolate()
+        final double[][] fdtActual = filled(nx, ny);
+        TriangleInterpolator.interpolate(xyRatio, window, xScale, yScale, offset, NODATA, FDT,
+                new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(points[2], fdtActual)});
+        for (int i = 0; i < nx; i++) {
+            Assert.assertArrayEquals(expected[i], fdtActual[i], 0.0);
+        }
+    }
+
+    private static double[][] filled(final int nx, final int ny) {
+        final double[][] z = new double[nx][ny];
+        for (double[] row : z) {
+            Arrays.fill(row, NODATA);
+        }
+        return z;
+    }
+
+    /**
+     * TriangleInterpolator.interpolate before the scanline fill: every grid point in the bounding box of a
+     * triangle is tested.
+     */
+    private static final class OldInterpolator {
+
+        static void interpolate(final double xyRatio, final Window tileWindow,
+                                final double xScale, final double yScale,
+                                final double offset, final double invalidIndex,
+                                final FastDelaunayTriangulator FDT, final TriangleInterpolator.ZData[] zList) {
+
+            final double x_min = tileWindow.linelo;
+            final double y_min = tileWindow.pixlo;
+
+            long i_min, i_max, j_min, j_max; // minimas/maximas
+            double xp, yp;
+            double xkj, ykj, xlj, ylj;
+            double f; // function
+
+            // containers for xy coordinates of Triangles: p1-p2-p3-p1
+            final double[] vx = new double[4];
+            final double[] vy = new double[4];
+            final double[] vz = new double[3];
+
+            final int nx = (int) tileWindow.lines();
+            final int ny = (int) tileWindow.pixels();
+
+            for (Triangle triangle : FDT.triangles) {
+
+                // store triangle coordinates in local variables
+                vx[0] = vx[3] = triangle.getA().x;
+                vy[0] = vy[3] = triangle.getA().y / xyRatio;
+
+                vx[1] = triangle.getB().x;
+                vy[1] = triangle.getB().y / xyRatio;
+
+                vx[2] = triangle.getC().x;
+                vy[2] = triangle.getC().y / xyRatio;
+
+                // skip invalid indices
+                if (vx[0] == invalidIndex || vx[1] == invalidIndex || vx[2] == invalidIndex ||
+                        vy[0] == invalidIndex || vy[1] == invalidIndex || vy[2] == invalidIndex) {
+                    continue;
+                }
+
+                // Compute grid indices the current triangle may cover
+                xp = Math.min(Math.min(vx[0], vx[1]), vx[2]);
+                i_min = TriangleInterpolator.coordToIndex(xp, x_min, xScale, offset);
+
+                xp = Math.max(Math.max(vx[0], vx[1]), vx[2]);
+                i_max = TriangleInterpolator.coordToIndex(xp, x_min, xScale, offset);
+
+                yp = Math.min(Math.min(vy[0], vy[1]), vy[2]);
+                j_min = TriangleInterpolator.coordToIndex(yp, y_min, yScale, offset);
+
+                yp = Math.max(Math.max(vy[0], vy[1]), vy[2]);
+                j_max = TriangleInterpolator.coordToIndex(yp, y_min, yScale, offset);
+
+                // skip triangle that is above or below the region
+                if ((i_max < 0) || (i_min >= nx)) {
+                    continue;
+                }
+
+                // skip triangle that is on the left or right of the region
+                if ((j_max < 0) || (j_min >= ny)) {
+                    continue;
+                }
+
+                // triangle covers the upper or lower boundary
+                if (i_min < 0) {
+                    i_min = 0;
+                }
+
+                if (i_max >= nx) {
+                    i_max = nx - 1;
+                }
+
+                // triangle covers left or right boundary
+                if (j_min < 0) {
+                    j_min = 0;
+                }
+
+                if (j_max >= ny) {
+                    j_max = ny - 1;
+                }
+
+                // compute plane defined by the three vertices of the triangle: z = ax + by + c
+                xkj = vx[1] - vx[0];
+                ykj = vy[1] - vy[0];
+                xlj = vx[2] - vx[0];
+                ylj = vy[2] - vy[0];
+
+                f = 1.0 / (xkj * ylj - ykj * xlj);
+
+                vz[0] = triangle.getA().z;
+                vz[1] = triangle.getB().z;
+                vz[2] = triangle.getC().z;
+
+                for (TriangleInterpolator.ZData data : zList) {
+                    getABC(vx, vy, vz, data, f, xkj, ykj, xlj, ylj);
+                }
+
+                final PointInTriangle pointInTriangle = new PointInTriangle(vx, vy);
+
+                for (int i = (int) i_min; i <= i_max; i++) {
+                    xp = x_min + i * xScale + offset;
+                    for (int j = (int) j_min; j <= j_max; j++) {
+                        yp = y_min + j * yScale + offset;
+
+                        if (!pointInTriangle.test(xp, yp)) {
+                            continue;
+                        }
+
+                        for (TriangleInterpolator.ZData d : zList) {
+                            d.z_out[i][j] = d.a * xp + d.b * yp + d.c;
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void getABC(
+                final double[] vx, final double[] vy, final double[] vz, final TriangleInterpolator.ZData data,
+                final double f, final double xkj, final double ykj, final double xlj, final double ylj) {
+
+            double zj, zk, zl;
+            if (data.z_1d_in != null) {
+                zj = data.z_1d_in[(int) vz[0]];
+                zk = data.z_1d_in[(int) vz[1]];
+                zl = data.z_1d_in[(int) vz[2]];
+            } else {
+                final int i0 = (int) (vz[0] / data.z_in[0].length);
+                final int j0 = (int) (vz[0] - i0 * data.z_in[0].length);
+                zj = data.z_in[i0][j0];
+
+                final int i1 = (int) (vz[1] / data.z_in[1].length);
+                final int j1 = (int) (vz[1] - i1 * data.z_in[1].length);
+                zk = data.z_in[i1][j1];
+
+                final int i2 = (int) (vz[2] / data.z_in[2].length);
+                final int j2 = (int) (vz[2] - i2 * data.z_in[2].length);
+                zl = data.z_in[i2][j2];
+            }
+
+            final double zkj = zk - zj;
+            final double zlj = zl - zj;
+
+            data.a = -f * (ykj * zlj - zkj * ylj);
+            data.b = -f * (zkj * xlj - xkj * zlj);
+            data.c = -data.a * vx[1] - data.b * vy[1] + zk;
+        }
+
+        private static class PointInTriangle {
+            private final double[] xt, yt;
+            private final double xtd0, xtd1, xtd2, ytd0, ytd1, ytd2;
+
+            PointInTriangle(double[] xt, double[] yt) {
+                this.xt = xt;
+                this.yt = yt;
+                xtd0 = xt[2] - xt[0];
+                xtd1 = xt[0] - xt[1];
+                xtd2 = xt[1] - xt[2];
+                ytd0 = yt[2] - yt[0];
+                ytd1 = yt[0] - yt[1];
+                ytd2 = yt[1] - yt[2];
+            }
+
+            boolean test(double x, double y) {
+                int iRet0 = (xtd0 * (y - yt[0])) > ((x - xt[0]) * ytd0) ? 1 : -1;
+                int iRet1 = (xtd1 * (y - yt[1])) > ((x - xt[1]) * ytd1) ? 1 : -1;
+                int iRet2 = (xtd2 * (y - yt[2])) > ((x - xt[2]) * ytd2) ? 1 : -1;
+
+                return (iRet0 > 0 && iRet1 > 0 && iRet2 > 0) || (iRet0 < 0 && iRet1 < 0 && iRet2 < 0);
+            }
+        }
+    }
+}
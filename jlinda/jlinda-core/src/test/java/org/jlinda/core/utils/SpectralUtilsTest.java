@@ -295,4 +295,20 @@ public class SpectralUtilsTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testThreadPlans() throws Exception {
+        Assert.assertSame(SpectralUtils.getFFT1D(12), SpectralUtils.getFFT1D(12));
+        Assert.assertNotSame(SpectralUtils.getFFT1D(12), SpectralUtils.getFFT1D(16));
+        Assert.assertSame(SpectralUtils.getFFT2D(4, 2), SpectralUtils.getFFT2D(4, 2));
+        Assert.assertNotSame(SpectralUtils.getFFT2D(4, 2), SpectralUtils.getFFT2D(2, 4));
+
+        // plans are not shared between threads
+        final Object[] otherThreadPlan = new Object[1];
+        final Thread thread = new Thread(() -> otherThreadPlan[0] = SpectralUtils.getFFT1D(12));
+        thread.start();
+        thread.join();
+        Assert.assertNotNull(otherThreadPlan[0]);
+        Assert.assertNotSame(SpectralUtils.getFFT1D(12), otherThreadPlan[0]);
+    }
+
+}
@@ -1,7 +1,7 @@
 package org.jlinda.nest.dataio;
 
 import com.bc.ceres.core.ProgressMonitor;
-import org.esa.s1tbx.commons.io.FileImageOutputStreamExtImpl;
+import org.esa.s1tbx.commons.io.RasterFileChannel;
 import org.esa.snap.core.dataio.AbstractProductWriter;
 import org.esa.snap.core.dataio.ProductReader;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
@@ -21,11 +21,10 @@ import org.jlinda.core.Window;
 import org.jlinda.core.unwrapping.snaphu.SnaphuConfigFile;
 import org.jlinda.core.unwrapping.snaphu.SnaphuParameters;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.io.*;
 import java.nio.ByteOrder;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The SNAPHU product writer based on ENVI products writer.
@@ -36,7 +35,7 @@ public class SnaphuWriter extends AbstractProductWriter {
 
     private File _outputDir;
     private File _outputFile;
-    private Map _bandOutputStreams;
+    private final Map<Band, RasterFileChannel> _bandChannels = new ConcurrentHashMap<>();
     private boolean _incremental = true;
 
     public static final String SNAPHU_HEADER_EXTENSION = ".snaphu"+EnviHeader.FILE_EXTENSION;
@@ -158,15 +157,10 @@ public class SnaphuWriter extends AbstractProductWriter {
         final int sourceBandHeight = sourceBand.getRasterHeight();
         checkSourceRegionInsideBandRegion(sourceWidth, sourceBandWidth, sourceHeight, sourceBandHeight, sourceOffsetX,
                 sourceOffsetY);
-        final ImageOutputStream outputStream = getOrCreateImageOutputStream(sourceBand);
-        long outputPos = sourceOffsetY * sourceBandWidth + sourceOffsetX;
+        final RasterFileChannel channel = getOrCreateRasterFileChannel(sourceBand);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", 1);//sourceHeight);
         try {
-            final long max = sourceHeight * sourceWidth;
-            for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                sourceBuffer.writeTo(sourcePos, sourceWidth, outputStream, outputPos);
-                outputPos += sourceBandWidth;
-            }
+            channel.writeRect(sourceBuffer, sourceBandWidth, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
             pm.worked(1);
         } finally {
             pm.done();
@@ -205,12 +199,9 @@ public class SnaphuWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (_bandOutputStreams == null) {
+        if (_bandChannels.isEmpty()) {
             return;
         }
-        for (Object o : _bandOutputStreams.values()) {
-            ((ImageOutputStream) o).flush();
-        }
 
         // at the very end also save SnaphuConfig file
         try {
@@ -226,39 +217,28 @@ public class SnaphuWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void close() throws IOException {
-        if (_bandOutputStreams == null) {
-            return;
+        for (RasterFileChannel channel : _bandChannels.values()) {
+            channel.close();
         }
-        for (Object o : _bandOutputStreams.values()) {
-            ((ImageOutputStream) o).close();
-        }
-        _bandOutputStreams.clear();
-        _bandOutputStreams = null;
+        _bandChannels.clear();
     }
 
     /**
-     * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
-     * and fed into the hash map
+     * Returns the file channel associated with the given <code>Band</code>. If no channel exists, one is created
+     * and fed into the map
      */
-    private ImageOutputStream getOrCreateImageOutputStream(Band band) throws IOException {
-        ImageOutputStream outputStream = getImageOutputStream(band);
-        if (outputStream == null) {
-            outputStream = createImageOutputStream(band);
-            if (_bandOutputStreams == null) {
-                _bandOutputStreams = new HashMap();
+    private RasterFileChannel getOrCreateRasterFileChannel(Band band) throws IOException {
+        RasterFileChannel channel = _bandChannels.get(band);
+        if (channel == null) {
+            synchronized (_bandChannels) {
+                channel = _bandChannels.get(band);
+                if (channel == null) {
+                    channel = RasterFileChannel.open(getValidImageFile(band), byteOrder);
+                    _bandChannels.put(band, channel);
+                }
             }
-
-            outputStream.setByteOrder(byteOrder);
-            _bandOutputStreams.put(band, outputStream);
         }
-        return outputStream;
-    }
-
-    private ImageOutputStream getImageOutputStream(Band band) {
-        if (_bandOutputStreams != null) {
-            return (ImageOutputStream) _bandOutputStreams.get(band);
-        }
-        return null;
+        return channel;
     }
 
     /**
@@ -290,10 +270,6 @@ public class SnaphuWriter extends AbstractProductWriter {
                 band.getRasterHeight());
     }
 
-    private ImageOutputStream createImageOutputStream(Band band) throws IOException {
-        return new FileImageOutputStreamExtImpl(getValidImageFile(band));
-    }
-
     private static long getImageFileSize(RasterDataNode band) {
         return (long) ProductData.getElemSize(band.getDataType()) *
                 (long) band.getRasterWidth() *
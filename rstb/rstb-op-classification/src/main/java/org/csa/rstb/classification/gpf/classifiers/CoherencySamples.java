@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.esa.snap.runtime.Config;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Mean coherency matrices of the pixels on a regular grid of the scene, kept so that the k-means iterations of the
+ * Wishart classifiers run over the cached matrices instead of reading and averaging the source tiles again.
+ * <p>
+ * A matrix is packed as the 9 floats of its upper triangle: the 3 real diagonal elements, then the real and imaginary
+ * parts of T01, T02 and T12. The grid step keeps the number of matrices under s1tbx.classification.wishartMaxSamples,
+ * so that large scenes are clustered on a sample of their pixels. A cache of every pixel ignores that limit and takes
+ * 36 bytes per pixel of the scene.
+ */
+final class CoherencySamples extends PixelBuffer {
+
+    private static final boolean useStreaming = Config.instance().preferences().getBoolean(
+            "s1tbx.classification.streamingWishart", false);
+    private static final long MAX_SAMPLES = Config.instance().preferences().getLong(
+            "s1tbx.classification.wishartMaxSamples", 50000000L);
+
+    private static final int FLOATS = 9;
+
+    final int step;
+
+    CoherencySamples(final int srcWidth, final int srcHeight, final int step) {
+        super((srcWidth + step - 1) / step, (srcHeight + step - 1) / step, FLOATS * Float.BYTES);
+        this.step = step;
+    }
+
+    /**
+     * @param srcWidth    scene width
+     * @param srcHeight   scene height
+     * @param allPixels   cache every pixel, for classifiers which keep a label per pixel
+     * @return the cache, or null if streaming is not enabled
+     */
+    static CoherencySamples create(final int srcWidth, final int srcHeight, final boolean allPixels) {
+        if (!useStreaming) {
+            return null;
+        }
+        int step = 1;
+        if (!allPixels) {
+            while (((long) (srcWidth + step - 1) / step) * ((srcHeight + step - 1) / step) > MAX_SAMPLES) {
+                ++step;
+            }
+        }
+        return new CoherencySamples(srcWidth, srcHeight, step);
+    }
+
+    boolean isSample(final int x, final int y) {
+        return x % step == 0 && y % step == 0;
+    }
+
+    /**
+     * Store the matrix of a sample pixel.
+     */
+    void put(final int x, final int y, final double[][] Tr, final double[][] Ti) {
+        final ByteBuffer block = block(y / step);
+        final int i = offset(x / step, y / step);
+        block.putFloat(i, (float) Tr[0][0]);
+        block.putFloat(i + 4, (float) Tr[1][1]);
+        block.putFloat(i + 8, (float) Tr[2][2]);
+        block.putFloat(i + 12, (float) Tr[0][1]);
+        block.putFloat(i + 16, (float) Ti[0][1]);
+        block.putFloat(i + 20, (float) Tr[0][2]);
+        block.putFloat(i + 24, (float) Ti[0][2]);
+        block.putFloat(i + 28, (float) Tr[1][2]);
+        block.putFloat(i + 32, (float) Ti[1][2]);
+    }
+
+    /**
+     * Mark a sample pixel as no data.
+     */
+    void putNoData(final int x, final int y) {
+        block(y / step).putFloat(offset(x / step, y / step), Float.NaN);
+    }
+
+    /**
+     * Get the matrix of the sample at the given grid position.
+     *
+     * @return false for a no data sample
+     */
+    boolean get(final int sx, final int sy, final double[][] Tr, final double[][] Ti) {
+        final ByteBuffer block = block(sy);
+        final int i = offset(sx, sy);
+        final float t00 = block.getFloat(i);
+        if (Float.isNaN(t00)) {
+            return false;
+        }
+        Tr[0][0] = t00;
+        Tr[1][1] = block.getFloat(i + 4);
+        Tr[2][2] = block.getFloat(i + 8);
+        Tr[0][1] = Tr[1][0] = block.getFloat(i + 12);
+        Ti[0][1] = block.getFloat(i + 16);
+        Tr[0][2] = Tr[2][0] = block.getFloat(i + 20);
+        Ti[0][2] = block.getFloat(i + 24);
+        Tr[1][2] = Tr[2][1] = block.getFloat(i + 28);
+        Ti[1][2] = block.getFloat(i + 32);
+        Ti[1][0] = -Ti[0][1];
+        Ti[2][0] = -Ti[0][2];
+        Ti[2][1] = -Ti[1][2];
+        Ti[0][0] = Ti[1][1] = Ti[2][2] = 0.0;
+        return true;
+    }
+}
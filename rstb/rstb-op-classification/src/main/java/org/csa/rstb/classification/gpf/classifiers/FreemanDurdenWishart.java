@@ -49,8 +49,10 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
 
     private enum Categories {vol, dbl, suf, mix}
 
-    private Categories[][] category = null; // pixel category index
-    private int[][] cluster = null; // pixel cluster index
+    private static final Categories[] CATEGORIES = Categories.values();
+
+    private PixelLabels category = null; // pixel category index, 0 for none else ordinal + 1
+    private PixelLabels cluster = null; // pixel cluster index
 
     private final double mixedCategoryThreshold;
     private int maxClusterSize = 0;
@@ -158,9 +160,9 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
             return;
         }
 
-        category = new Categories[srcHeight][srcWidth];
-        cluster = new int[srcHeight][srcWidth];
-        final double[][] fdd = new double[srcHeight][srcWidth];
+        category = new PixelLabels(srcWidth, srcHeight, CATEGORIES.length);
+        cluster = new PixelLabels(srcWidth, srcHeight, numInitialClusters);
+        final PixelValues fdd = new PixelValues(srcWidth, srcHeight);
         final java.util.List<ClusterInfo> pvCenterList = new ArrayList<>(numInitialClusters);
         final java.util.List<ClusterInfo> pdCenterList = new ArrayList<>(numInitialClusters);
         final java.util.List<ClusterInfo> psCenterList = new ArrayList<>(numInitialClusters);
@@ -186,7 +188,7 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
      * @param tileRectangles Array of rectangles for all source tiles of the image
      * @param op             the operator
      */
-    private void computeInitialTerrainClusterCenters(final double[][] fdd,
+    private void computeInitialTerrainClusterCenters(final PixelValues fdd,
                                                      final java.util.List<ClusterInfo> pvCenterList,
                                                      final java.util.List<ClusterInfo> pdCenterList,
                                                      final java.util.List<ClusterInfo> psCenterList,
@@ -222,7 +224,7 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
      * @param tileRectangles Array of rectangles for all source tiles of the image
      * @param op             the operator
      */
-    private void createInitialClusters(final double[][] fdd,
+    private void createInitialClusters(final PixelValues fdd,
                                        final PolBandUtils.PolSourceBand srcBandList,
                                        final Rectangle[] tileRectangles,
                                        final PolarimetricClassificationOp op) {
@@ -280,21 +282,22 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                                 synchronized (counter) {
 
                                     if (!Double.isNaN(data.pv) && !Double.isNaN(data.pd) && !Double.isNaN(data.ps)) {
-                                        category[y][x] = getCategory(data.pv, data.pd, data.ps, mixedCategoryThreshold);
-                                        if (category[y][x] == Categories.vol) {
-                                            fdd[y][x] = data.pv;
+                                        final Categories c = getCategory(data.pv, data.pd, data.ps, mixedCategoryThreshold);
+                                        setPixelCategory(x, y, c);
+                                        if (c == Categories.vol) {
+                                            fdd.set(x, y, data.pv);
                                             pv[counter[0]] = data.pv;
                                             counter[0] += 1;
-                                        } else if (category[y][x] == Categories.dbl) {
-                                            fdd[y][x] = data.pd;
+                                        } else if (c == Categories.dbl) {
+                                            fdd.set(x, y, data.pd);
                                             pd[counter[1]] = data.pd;
                                             counter[1] += 1;
-                                        } else if (category[y][x] == Categories.suf) {
-                                            fdd[y][x] = data.ps;
+                                        } else if (c == Categories.suf) {
+                                            fdd.set(x, y, data.ps);
                                             ps[counter[2]] = data.ps;
                                             counter[2] += 1;
                                         } else { // Categories.mix
-                                            fdd[y][x] = (data.pv + data.pd + data.ps) / 3.0;
+                                            fdd.set(x, y, (data.pv + data.pd + data.ps) / 3.0);
                                             counter[3] += 1;
                                         }
                                     }
@@ -343,12 +346,13 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
         // classify pixels into clusters within each category, record number of pixels in each cluster
         for (int y = 0; y < srcHeight; y++) {
             for (int x = 0; x < srcWidth; x++) {
-                if (category[y][x] == Categories.vol) {
-                    cluster[y][x] = computePixelClusterIdx(fdd[y][x], pvThreshold, numInitialClusters);
-                } else if (category[y][x] == Categories.dbl) {
-                    cluster[y][x] = computePixelClusterIdx(fdd[y][x], pdThreshold, numInitialClusters);
-                } else if (category[y][x] == Categories.suf) {
-                    cluster[y][x] = computePixelClusterIdx(fdd[y][x], psThreshold, numInitialClusters);
+                final Categories c = getPixelCategory(x, y);
+                if (c == Categories.vol) {
+                    cluster.set(x, y, computePixelClusterIdx(fdd.get(x, y), pvThreshold, numInitialClusters));
+                } else if (c == Categories.dbl) {
+                    cluster.set(x, y, computePixelClusterIdx(fdd.get(x, y), pdThreshold, numInitialClusters));
+                } else if (c == Categories.suf) {
+                    cluster.set(x, y, computePixelClusterIdx(fdd.get(x, y), psThreshold, numInitialClusters));
                 }
             }
         }
@@ -419,15 +423,17 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
 
                                 synchronized (clusterCounter) {
 
-                                    if (category[y][x] == Categories.vol) { // pv
-                                        computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pvSumRe, pvSumIm);
-                                        clusterCounter[0][cluster[y][x]]++;
-                                    } else if (category[y][x] == Categories.dbl) { // pd
-                                        computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pdSumRe, pdSumIm);
-                                        clusterCounter[1][cluster[y][x]]++;
-                                    } else if (category[y][x] == Categories.suf) { // ps
-                                        computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, psSumRe, psSumIm);
-                                        clusterCounter[2][cluster[y][x]]++;
+                                    final Categories c = getPixelCategory(x, y);
+                                    final int k = cluster.get(x, y);
+                                    if (c == Categories.vol) { // pv
+                                        computeSummationOfT3(k + 1, Tr, Ti, pvSumRe, pvSumIm);
+                                        clusterCounter[0][k]++;
+                                    } else if (c == Categories.dbl) { // pd
+                                        computeSummationOfT3(k + 1, Tr, Ti, pdSumRe, pdSumIm);
+                                        clusterCounter[1][k]++;
+                                    } else if (c == Categories.suf) { // ps
+                                        computeSummationOfT3(k + 1, Tr, Ti, psSumRe, psSumIm);
+                                        clusterCounter[2][k]++;
                                     }
                                 }
                             }
@@ -734,7 +740,7 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
      * @param tileRectangles Array of rectangles for all source tiles of the image
      * @param op             the operator
      */
-    private void computeFinalTerrainClusterCenters(final double[][] fdd,
+    private void computeFinalTerrainClusterCenters(final PixelValues fdd,
                                                    final java.util.List<ClusterInfo> pvCenterList,
                                                    final java.util.List<ClusterInfo> pdCenterList,
                                                    final java.util.List<ClusterInfo> psCenterList,
@@ -810,20 +816,24 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
 
                                     synchronized (clusterCounter) {
 
-                                        if (category[y][x] == Categories.vol) { // pv
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, pvCenterList);
-                                            computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pvSumRe, pvSumIm);
-                                            clusterCounter[0][cluster[y][x]] += 1;
-
-                                        } else if (category[y][x] == Categories.dbl) { // pd
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, pdCenterList);
-                                            computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pdSumRe, pdSumIm);
-                                            clusterCounter[1][cluster[y][x]] += 1;
-
-                                        } else if (category[y][x] == Categories.suf) { // ps
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, psCenterList);
-                                            computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, psSumRe, psSumIm);
-                                            clusterCounter[2][cluster[y][x]] += 1;
+                                        final Categories c = getPixelCategory(x, y);
+                                        if (c == Categories.vol) { // pv
+                                            final int k = findClosestCluster(Tr, Ti, pvCenterList);
+                                            cluster.set(x, y, k);
+                                            computeSummationOfT3(k + 1, Tr, Ti, pvSumRe, pvSumIm);
+                                            clusterCounter[0][k] += 1;
+
+                                        } else if (c == Categories.dbl) { // pd
+                                            final int k = findClosestCluster(Tr, Ti, pdCenterList);
+                                            cluster.set(x, y, k);
+                                            computeSummationOfT3(k + 1, Tr, Ti, pdSumRe, pdSumIm);
+                                            clusterCounter[1][k] += 1;
+
+                                        } else if (c == Categories.suf) { // ps
+                                            final int k = findClosestCluster(Tr, Ti, psCenterList);
+                                            cluster.set(x, y, k);
+                                            computeSummationOfT3(k + 1, Tr, Ti, psSumRe, psSumIm);
+                                            clusterCounter[2][k] += 1;
 
                                         } else { // mixed
 
@@ -841,22 +851,22 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
                                                     Tr, Ti, psCenterList.get(nearestPsCluster));
 
                                             if (dPv <= dPd && dPv <= dPs) { // pv
-                                                cluster[y][x] = nearestPvCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pvSumRe, pvSumIm);
-                                                clusterCounter[0][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.vol;
+                                                cluster.set(x, y, nearestPvCluster);
+                                                computeSummationOfT3(nearestPvCluster + 1, Tr, Ti, pvSumRe, pvSumIm);
+                                                clusterCounter[0][nearestPvCluster] += 1;
+                                                setPixelCategory(x, y, Categories.vol);
 
                                             } else if (dPd <= dPv && dPd <= dPs) { // pd
-                                                cluster[y][x] = nearestPdCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, pdSumRe, pdSumIm);
-                                                clusterCounter[1][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.dbl;
+                                                cluster.set(x, y, nearestPdCluster);
+                                                computeSummationOfT3(nearestPdCluster + 1, Tr, Ti, pdSumRe, pdSumIm);
+                                                clusterCounter[1][nearestPdCluster] += 1;
+                                                setPixelCategory(x, y, Categories.dbl);
 
                                             } else { // ps
-                                                cluster[y][x] = nearestPsCluster;
-                                                computeSummationOfT3(cluster[y][x] + 1, Tr, Ti, psSumRe, psSumIm);
-                                                clusterCounter[2][cluster[y][x]] += 1;
-                                                category[y][x] = Categories.suf;
+                                                cluster.set(x, y, nearestPsCluster);
+                                                computeSummationOfT3(nearestPsCluster + 1, Tr, Ti, psSumRe, psSumIm);
+                                                clusterCounter[2][nearestPsCluster] += 1;
+                                                setPixelCategory(x, y, Categories.suf);
                                             }
                                         }
                                     }
@@ -908,12 +918,13 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
 
             for (int y = 0; y < srcHeight; y++) {
                 for (int x = 0; x < srcWidth; x++) {
-                    if (category[y][x] == Categories.vol) { // pv
-                        pvAvgClusterPower[cluster[y][x]] += fdd[y][x];
-                    } else if (category[y][x] == Categories.dbl) { // pd
-                        pdAvgClusterPower[cluster[y][x]] += fdd[y][x];
+                    final Categories c = getPixelCategory(x, y);
+                    if (c == Categories.vol) { // pv
+                        pvAvgClusterPower[cluster.get(x, y)] += fdd.get(x, y);
+                    } else if (c == Categories.dbl) { // pd
+                        pdAvgClusterPower[cluster.get(x, y)] += fdd.get(x, y);
                     } else { // ps
-                        psAvgClusterPower[cluster[y][x]] += fdd[y][x];
+                        psAvgClusterPower[cluster.get(x, y)] += fdd.get(x, y);
                     }
                 }
             }
@@ -1008,11 +1019,22 @@ public class FreemanDurdenWishart extends PolClassifierBase implements PolClassi
         }
     }
 
+    private Categories getPixelCategory(final int x, final int y) {
+        final int c = category.get(x, y);
+        return c == 0 ? null : CATEGORIES[c - 1];
+    }
+
+    private void setPixelCategory(final int x, final int y, final Categories c) {
+        category.set(x, y, c.ordinal() + 1);
+    }
+
     private int getOutputClusterIndex(final int x, final int y) {
 
-        return category[y][x] == Categories.vol ? pvColourIndexMap[cluster[y][x]] :
-                category[y][x] == Categories.dbl ? pdColourIndexMap[cluster[y][x]] :
-                        psColourIndexMap[cluster[y][x]];
+        final Categories c = getPixelCategory(x, y);
+        final int k = cluster.get(x, y);
+        return c == Categories.vol ? pvColourIndexMap[k] :
+                c == Categories.dbl ? pdColourIndexMap[k] :
+                        psColourIndexMap[k];
     }
 
 }
@@ -35,6 +35,8 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
 
@@ -42,6 +44,7 @@ import java.util.Map;
 public class GeneralWishart extends PolClassifierBase implements PolClassifier, QuadPolProcessor {
 
     private final static String TERRAIN_CLASS = "General_wishart_class";
+    private static final int SAMPLE_ROWS_PER_TASK = 64;
     private int numCategories;
     private int numInitialClusters; // number of initial clusters in each category
 
@@ -52,13 +55,13 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
     private String[] indexName = null;
     private String[] description = null;
 
-    private int[][] category = null; // pixel category index
-    private int[][] cluster = null;  // pixel cluster index
+    private PixelLabels category = null; // pixel category index
+    private PixelLabels cluster = null;  // pixel cluster index
 
     private double mixedCategoryThreshold;
     private int maxClusterSize = 0;
 
-    private ArrayList<ArrayList<Integer>> colourIndexMap = null;
+    private int[][] colourIndexMap = null; // colour index of each cluster in each category
 
     public GeneralWishart(final PolBandUtils.MATRIX srcProductType,
                           final int srcWidth, final int srcHeight, final int windowSize,
@@ -210,9 +213,9 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
             return;
         }
 
-        category = new int[srcHeight][srcWidth];
-        cluster = new int[srcHeight][srcWidth];
-        final double[][] dominantPower = new double[srcHeight][srcWidth];
+        category = new PixelLabels(srcWidth, srcHeight, numCategories);
+        cluster = new PixelLabels(srcWidth, srcHeight, numInitialClusters);
+        final PixelValues dominantPower = new PixelValues(srcWidth, srcHeight);
         final ArrayList<ArrayList<ClusterInfo>> clusterCenterList = new ArrayList<>(numCategories);
         maxClusterSize = 2 * srcHeight * srcWidth / numFinalClasses;
 
@@ -221,7 +224,9 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
 
         computeInitialTerrainClusterCenters(dominantPower, clusterCenterList, srcBandList, tileRectangles, op);
 
-        computeFinalTerrainClusterCenters(dominantPower, clusterCenterList, srcBandList, tileRectangles, op);
+        final CoherencySamples samples = CoherencySamples.create(srcWidth, srcHeight, true);
+
+        computeFinalTerrainClusterCenters(dominantPower, clusterCenterList, srcBandList, tileRectangles, samples, op);
 
         clusterCentersComputed = true;
     }
@@ -235,7 +240,7 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
      * @param tileRectangles    array of rectangles for all source tiles of the image
      * @param op                the operator
      */
-    private void computeInitialTerrainClusterCenters(final double[][] dominantPower,
+    private void computeInitialTerrainClusterCenters(final PixelValues dominantPower,
                                                      final ArrayList<ArrayList<ClusterInfo>> clusterCenterList,
                                                      final PolBandUtils.PolSourceBand srcBandList,
                                                      final Rectangle[] tileRectangles,
@@ -292,7 +297,7 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
      * @param tileRectangles Array of rectangles for all source tiles of the image
      * @param op             the operator
      */
-    private void createInitialClusters(final double[][] dominantPower,
+    private void createInitialClusters(final PixelValues dominantPower,
                                        final PolBandUtils.PolSourceBand srcBandList,
                                        final Rectangle[] tileRectangles,
                                        final PolarimetricClassificationOp op) {
@@ -369,8 +374,8 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
 
                                 synchronized (counter) {
                                     if (validPixel) {
-                                        category[y][x] = pixelCategory;
-                                        dominantPower[y][x] = pixelPower;
+                                        category.set(x, y, pixelCategory);
+                                        dominantPower.set(x, y, pixelPower);
                                         pwr[pixelCategory][counter[pixelCategory]] = pixelPower;
                                         counter[pixelCategory] += 1;
                                     }
@@ -406,10 +411,9 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
         // classify pixels into clusters within each category, record number of pixels in each cluster
         for (int y = 0; y < srcHeight; ++y) {
             for (int x = 0; x < srcWidth; ++x) {
-                for (int i = 0; i < numCategories; ++i) {
-                    if (category[y][x] == i) {
-                        cluster[y][x] = computePixelClusterIdx(dominantPower[y][x], pwrThreshold[i], numInitialClusters);
-                    }
+                final int i = category.get(x, y);
+                if (i < numCategories) {
+                    cluster.set(x, y, computePixelClusterIdx(dominantPower.get(x, y), pwrThreshold[i], numInitialClusters));
                 }
             }
         }
@@ -555,14 +559,15 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                             srcIndex.calculateStride(y);
                             for (int x = x0; x < xMax; ++x) {
 
-                                if (category[y][x] == numCategories) {
+                                final int c = category.get(x, y);
+                                if (c == numCategories) {
                                     continue;
                                 }
 
                                 getCoherencyMatrixT3(srcIndex.getIndex(x), sourceProductType, dataBuffers, Tr, Ti);
 
                                 synchronized (clusterCenters) {
-                                    clusterCenters[category[y][x]][cluster[y][x]].addElem(Tr, Ti);
+                                    clusterCenters[c][cluster.get(x, y)].addElem(Tr, Ti);
                                 }
                             }
                         }
@@ -743,12 +748,15 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
      *
      * @param srcBandList    the input bands
      * @param tileRectangles Array of rectangles for all source tiles of the image
+     * @param samples        cache of the mean coherency matrices of all pixels, filled by the first iteration and
+     *                       used by the following ones instead of the source tiles, or null
      * @param op             the operator
      */
-    private void computeFinalTerrainClusterCenters(final double[][] dominantPower,
+    private void computeFinalTerrainClusterCenters(final PixelValues dominantPower,
                                                    final ArrayList<ArrayList<ClusterInfo>> clusterCenterList,
                                                    final PolBandUtils.PolSourceBand srcBandList,
                                                    final Rectangle[] tileRectangles,
+                                                   final CoherencySamples samples,
                                                    final PolarimetricClassificationOp op) {
 
         boolean endIteration = false;
@@ -764,72 +772,93 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
 //                final long startTime = System.nanoTime();
 //                final long endTime;
 
-                ArrayList<ArrayList<ClusterCenter>> newClusterCenters =
-                        new ArrayList<>(numCategories);
-
-                for (int i = 0; i < numCategories; ++i) {
-                    ArrayList<ClusterCenter> newCenters = new ArrayList<>();
-                    for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
-                        newCenters.add(new ClusterCenter());
+                // each thread sums into its own cluster centers, merged once all tasks are done
+                final Queue<ArrayList<ArrayList<ClusterCenter>>> threadClusterCenters = new ConcurrentLinkedQueue<>();
+                final ThreadLocal<ArrayList<ArrayList<ClusterCenter>>> newClusterCenters =
+                        ThreadLocal.withInitial(() -> {
+                            final ArrayList<ArrayList<ClusterCenter>> centers = createClusterCenters(clusterCenterList);
+                            threadClusterCenters.add(centers);
+                            return centers;
+                        });
+
+                if (samples != null && it > 0) {
+                    final int numTasks = (samples.height + SAMPLE_ROWS_PER_TASK - 1) / SAMPLE_ROWS_PER_TASK;
+                    for (int t = 0; t < numTasks; ++t) {
+                        op.checkIfCancelled();
+
+                        final int y0 = t * SAMPLE_ROWS_PER_TASK;
+                        final int yMax = Math.min(y0 + SAMPLE_ROWS_PER_TASK, samples.height);
+
+                        final ThreadRunnable worker = new ThreadRunnable() {
+
+                            final double[][] Tr = new double[3][3];
+                            final double[][] Ti = new double[3][3];
+
+                            @Override
+                            public void process() {
+                                final ArrayList<ArrayList<ClusterCenter>> centers = newClusterCenters.get();
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = 0; x < samples.width; ++x) {
+                                        if (samples.get(x, y, Tr, Ti)) {
+                                            classifyPixel(x, y, Tr, Ti, clusterCenterList, centers);
+                                        }
+                                    }
+                                }
+                            }
+                        };
+                        executor.execute(worker);
                     }
-                    newClusterCenters.add(newCenters);
-                }
-
-                for (final Rectangle rectangle : tileRectangles) {
+                    status.worked(tileRectangles.length);
 
-                    final ThreadRunnable worker = new ThreadRunnable() {
+                } else {
+                    for (final Rectangle rectangle : tileRectangles) {
 
-                        final Tile[] sourceTiles = new Tile[srcBandList.srcBands.length];
-                        final ProductData[] dataBuffers = new ProductData[srcBandList.srcBands.length];
+                        final ThreadRunnable worker = new ThreadRunnable() {
 
-                        final double[][] Tr = new double[3][3];
-                        final double[][] Ti = new double[3][3];
+                            final Tile[] sourceTiles = new Tile[srcBandList.srcBands.length];
+                            final ProductData[] dataBuffers = new ProductData[srcBandList.srcBands.length];
 
-                        @Override
-                        public void process() {
-                            op.checkIfCancelled();
+                            final double[][] Tr = new double[3][3];
+                            final double[][] Ti = new double[3][3];
 
-                            final int x0 = rectangle.x;
-                            final int y0 = rectangle.y;
-                            final int w = rectangle.width;
-                            final int h = rectangle.height;
-                            final int xMax = x0 + w;
-                            final int yMax = y0 + h;
+                            @Override
+                            public void process() {
+                                op.checkIfCancelled();
 
-                            final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
-                            for (int i = 0; i < sourceTiles.length; ++i) {
-                                sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
-                                dataBuffers[i] = sourceTiles[i].getDataBuffer();
-                            }
-                            final TileIndex srcIndex = new TileIndex(sourceTiles[0]);
+                                final int x0 = rectangle.x;
+                                final int y0 = rectangle.y;
+                                final int w = rectangle.width;
+                                final int h = rectangle.height;
+                                final int xMax = x0 + w;
+                                final int yMax = y0 + h;
 
-                            for (int y = y0; y < yMax; ++y) {
-                                for (int x = x0; x < xMax; ++x) {
-
-                                    getMeanCoherencyMatrix(
-                                            x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
-                                            sourceProductType, srcIndex, dataBuffers, Tr, Ti);
-
-                                    synchronized (newClusterCenters) {
+                                final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
+                                for (int i = 0; i < sourceTiles.length; ++i) {
+                                    sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
+                                    dataBuffers[i] = sourceTiles[i].getDataBuffer();
+                                }
+                                final TileIndex srcIndex = new TileIndex(sourceTiles[0]);
+                                final ArrayList<ArrayList<ClusterCenter>> centers = newClusterCenters.get();
 
-                                        if (category[y][x] != numCategories) {
-                                            cluster[y][x] = findClosestCluster(Tr, Ti, clusterCenterList.get(category[y][x]));
-                                        } else { // mixed
-                                            final int[] CategoryCluster =
-                                                    findNearestCategoryCluster(Tr, Ti, clusterCenterList);
+                                for (int y = y0; y < yMax; ++y) {
+                                    for (int x = x0; x < xMax; ++x) {
 
-                                            category[y][x] = CategoryCluster[0];
-                                            cluster[y][x] = CategoryCluster[1];
+                                        getMeanCoherencyMatrix(
+                                                x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
+                                                sourceProductType, srcIndex, dataBuffers, Tr, Ti);
+                                        if (samples != null) {
+                                            samples.put(x, y, Tr, Ti);
                                         }
-                                        newClusterCenters.get(category[y][x]).get(cluster[y][x]).addElem(Tr, Ti);
+
+                                        classifyPixel(x, y, Tr, Ti, clusterCenterList, centers);
                                     }
                                 }
                             }
-                        }
-                    };
-                    executor.execute(worker);
+                        };
+                        executor.execute(worker);
 
-                    status.worked(1);
+                        status.worked(1);
+                    }
                 }
                 executor.complete();
 
@@ -838,17 +867,36 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
                 final long duration = endTime - startTime;
                 System.out.println("duration = " + duration);
                 */
+                final ArrayList<ArrayList<ClusterCenter>> mergedClusterCenters = createClusterCenters(clusterCenterList);
+                mergeClusterCenters(threadClusterCenters, mergedClusterCenters);
+
                 double[][] centerRe = new double[3][3];
                 double[][] centerIm = new double[3][3];
+                double diff = 0.0;
+                double norm = 0.0;
                 for (int i = 0; i < numCategories; ++i) {
                     for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
-                        if (newClusterCenters.get(i).get(j).size > 0) {
-                            newClusterCenters.get(i).get(j).getCenter(centerRe, centerIm);
-                            clusterCenterList.get(i).get(j).setClusterCenter(
-                                    j, centerRe, centerIm, newClusterCenters.get(i).get(j).size);
+                        if (mergedClusterCenters.get(i).get(j).size > 0) {
+                            mergedClusterCenters.get(i).get(j).getCenter(centerRe, centerIm);
+                            final ClusterInfo clusterInfo = clusterCenterList.get(i).get(j);
+                            for (int m = 0; m < 3; ++m) {
+                                for (int n = 0; n < 3; ++n) {
+                                    final double dRe = clusterInfo.centerRe[m][n] - centerRe[m][n];
+                                    final double dIm = clusterInfo.centerIm[m][n] - centerIm[m][n];
+                                    diff += dRe * dRe + dIm * dIm;
+                                    norm += centerRe[m][n] * centerRe[m][n] + centerIm[m][n] * centerIm[m][n];
+                                }
+                            }
+                            clusterInfo.setClusterCenter(
+                                    j, centerRe, centerIm, mergedClusterCenters.get(i).get(j).size);
                         }
                     }
                 }
+
+                // with unchanged centers a further iteration gives the same clusters
+                if (diff == 0 || diff <= CONVERGENCE_TOLERANCE * norm) {
+                    endIteration = true;
+                }
             }
             /*
             System.out.println("# of clusters in Pv: " + pvNumClusters);
@@ -872,39 +920,32 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
             */
 
             // compute average power for each cluster
-            final ArrayList<ArrayList<Double>> clusterPower = new ArrayList<>(numCategories);
-            colourIndexMap = new ArrayList<>(numCategories);
+            final double[][] clusterPower = new double[numCategories][];
+            colourIndexMap = new int[numCategories][];
             for (int i = 0; i < numCategories; ++i) {
-                ArrayList<Double> tmp1 = new ArrayList<>();
-                ArrayList<Integer> tmp2 = new ArrayList<>();
-                for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
-                    tmp1.add(0.0);
-                    tmp2.add(0);
-                }
-                clusterPower.add(tmp1);
-                colourIndexMap.add(tmp2);
+                clusterPower[i] = new double[clusterCenterList.get(i).size()];
+                colourIndexMap[i] = new int[clusterCenterList.get(i).size()];
             }
 
             for (int y = 0; y < srcHeight; y++) {
                 for (int x = 0; x < srcWidth; x++) {
-                    clusterPower.get(category[y][x]).set(cluster[y][x],
-                            clusterPower.get(category[y][x]).get(cluster[y][x]) + dominantPower[y][x]);
+                    clusterPower[category.get(x, y)][cluster.get(x, y)] += dominantPower.get(x, y);
                 }
             }
 
             for (int i = 0; i < numCategories; ++i) {
                 for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
                     if (clusterCenterList.get(i).get(j).size > 0) {
-                        clusterPower.get(i).set(j, clusterPower.get(i).get(j) / clusterCenterList.get(i).get(j).size);
+                        clusterPower[i][j] /= clusterCenterList.get(i).get(j).size;
                     }
                 }
             }
 
 //            int categoryStartIndex = 0;
             for (int i = 0; i < numCategories; ++i) {
-                for (int j = 0; j < clusterPower.get(i).size(); ++j) {
-                    colourIndexMap.get(i).set(j, i * numInitialClusters +
-                            getColourIndex(j, clusterPower.get(i), numInitialClusters) + 1);
+                for (int j = 0; j < clusterPower[i].length; ++j) {
+                    colourIndexMap[i][j] = i * numInitialClusters +
+                            getColourIndex(j, clusterPower[i], numInitialClusters) + 1;
 //                    colourIndexMap.get(i).set(j, categoryStartIndex +
 //                            getColourIndex(j, clusterPower.get(i), clusterPower.get(i).size()) + 1);
                 }
@@ -918,6 +959,57 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
         }
     }
 
+    private ArrayList<ArrayList<ClusterCenter>> createClusterCenters(
+            final ArrayList<ArrayList<ClusterInfo>> clusterCenterList) {
+
+        final ArrayList<ArrayList<ClusterCenter>> clusterCenters = new ArrayList<>(numCategories);
+        for (int i = 0; i < numCategories; ++i) {
+            ArrayList<ClusterCenter> centers = new ArrayList<>();
+            for (int j = 0; j < clusterCenterList.get(i).size(); ++j) {
+                centers.add(new ClusterCenter());
+            }
+            clusterCenters.add(centers);
+        }
+        return clusterCenters;
+    }
+
+    /**
+     * Add the cluster centers summed by each thread to the merged cluster centers
+     */
+    static void mergeClusterCenters(final Iterable<ArrayList<ArrayList<ClusterCenter>>> threadClusterCenters,
+                                    final ArrayList<ArrayList<ClusterCenter>> mergedClusterCenters) {
+        for (ArrayList<ArrayList<ClusterCenter>> centers : threadClusterCenters) {
+            for (int i = 0; i < mergedClusterCenters.size(); ++i) {
+                for (int j = 0; j < centers.get(i).size(); ++j) {
+                    mergedClusterCenters.get(i).get(j).add(centers.get(i).get(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * Assign a pixel to the nearest cluster of its category, or of all categories for a mixed pixel, and add its
+     * coherency matrix to the new center of that cluster.
+     */
+    private void classifyPixel(final int x, final int y, final double[][] Tr, final double[][] Ti,
+                               final ArrayList<ArrayList<ClusterInfo>> clusterCenterList,
+                               final ArrayList<ArrayList<ClusterCenter>> newClusterCenters) {
+
+        int c = category.get(x, y);
+        final int k;
+        if (c != numCategories) {
+            k = findClosestCluster(Tr, Ti, clusterCenterList.get(c));
+        } else { // mixed
+            final int[] CategoryCluster = findNearestCategoryCluster(Tr, Ti, clusterCenterList);
+
+            c = CategoryCluster[0];
+            k = CategoryCluster[1];
+            category.set(x, y, c);
+        }
+        cluster.set(x, y, k);
+        newClusterCenters.get(c).get(k).addElem(Tr, Ti);
+    }
+
     private int[] findNearestCategoryCluster(final double[][] Tr, final double[][] Ti,
                                              final ArrayList<ArrayList<ClusterInfo>> clusterCenterList) {
 
@@ -940,15 +1032,15 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
     }
 
     private static int getColourIndex(
-            final int clusterIndex, final ArrayList<Double> pAvgClusterPower, final int numInitialClusters) {
+            final int clusterIndex, final double[] pAvgClusterPower, final int numInitialClusters) {
         int n = 0;
         for (double p : pAvgClusterPower) {
-            if (p > pAvgClusterPower.get(clusterIndex)) {
+            if (p > pAvgClusterPower[clusterIndex]) {
                 n++;
             }
         }
 
-        final int d = numInitialClusters / pAvgClusterPower.size();
+        final int d = numInitialClusters / pAvgClusterPower.length;
         return n * d;
     }
 
@@ -977,7 +1069,7 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
     }
 
     private int getOutputClusterIndex(final int x, final int y) {
-        return colourIndexMap.get(category[y][x]).get(cluster[y][x]);
+        return colourIndexMap[category.get(x, y)][cluster.get(x, y)];
     }
 
     public static class ClusterCenter {
@@ -998,6 +1090,16 @@ public class GeneralWishart extends PolClassifierBase implements PolClassifier,
             size++;
         }
 
+        public void add(final ClusterCenter other) {
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    sumRe[i][j] += other.sumRe[i][j];
+                    sumIm[i][j] += other.sumIm[i][j];
+                }
+            }
+            size += other.size;
+        }
+
         public void getCenter(final double[][] Tr, final double[][] Ti) {
             if (size > 0) {
                 for (int i = 0; i < 3; ++i) {
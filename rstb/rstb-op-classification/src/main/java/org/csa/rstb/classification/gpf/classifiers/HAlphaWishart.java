@@ -41,6 +41,7 @@ import java.util.Map;
 public class HAlphaWishart extends PolClassifierBase implements PolClassifier, QuadPolProcessor {
 
     private static final String UNSUPERVISED_WISHART_CLASS = "H_alpha_wishart_class";
+    private static final int SAMPLE_ROWS_PER_TASK = 64;
 
     private ClusterInfo[][] clusterCenters = null;
     private boolean[] clusterCentersComputed = null;
@@ -159,9 +160,11 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
         final Dimension tileSize = new Dimension(256, 256);
         final Rectangle[] tileRectangles = OperatorUtils.getAllTileRectangles(op.getSourceProduct(), tileSize, 0);
 
-        computeInitialClusterCenters(targetBandIndex, srcBandList, tileRectangles, op);
+        final CoherencySamples samples = CoherencySamples.create(srcWidth, srcHeight, false);
 
-        computeFinalClusterCenters(targetBandIndex, srcBandList, tileRectangles, op);
+        computeInitialClusterCenters(targetBandIndex, srcBandList, tileRectangles, samples, op);
+
+        computeFinalClusterCenters(targetBandIndex, srcBandList, tileRectangles, samples, op);
 
         clusterCentersComputed[targetBandIndex] = true;
     }
@@ -172,10 +175,12 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
      * @param srcBandList    the input bands
      * @param op             the operator
      * @param tileRectangles Array of rectangles for all source tiles of the image
+     * @param samples        cache filled with the mean coherency matrices of the samples, or null
      */
     private void computeInitialClusterCenters(final int targetBandIndex,
                                               final PolBandUtils.PolSourceBand srcBandList,
-                                              final Rectangle[] tileRectangles, final PolarimetricClassificationOp op) {
+                                              final Rectangle[] tileRectangles, final CoherencySamples samples,
+                                              final PolarimetricClassificationOp op) {
 
         final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
         status.beginTask("Computing Initial Cluster Centres... ", tileRectangles.length);
@@ -221,11 +226,19 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
                         for (int y = y0; y < yMax; ++y) {
                             srcIndex.calculateStride(y);
                             for (int x = x0; x < xMax; ++x) {
-                                if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x))))
+                                final boolean isSample = samples != null && samples.isSample(x, y);
+                                if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x)))) {
+                                    if (isSample) {
+                                        samples.putNoData(x, y);
+                                    }
                                     continue;
+                                }
 
                                 getMeanCoherencyMatrix(x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
                                         sourceProductType, srcIndex, dataBuffers, Tr, Ti);
+                                if (isSample) {
+                                    samples.put(x, y, Tr, Ti);
+                                }
 
                                 final hAAlpha.HAAlpha data = hAAlpha.computeHAAlpha(Tr, Ti);
                                 if (!Double.isNaN(data.entropy) && !Double.isNaN(data.anisotropy) && !Double.isNaN(data.alpha)) {
@@ -275,19 +288,23 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
      * @param srcBandList    the input bands
      * @param op             the operator
      * @param tileRectangles Array of rectangles for all source tiles of the image
+     * @param samples        cached mean coherency matrices to iterate over instead of the source tiles, or null
      */
     private void computeFinalClusterCenters(final int targetBandIndex,
                                             final PolBandUtils.PolSourceBand srcBandList,
                                             final Rectangle[] tileRectangles,
+                                            final CoherencySamples samples,
                                             final PolarimetricClassificationOp op) {
 
-        final double[][][] centerRe = new double[9][3][3];
-        final double[][][] centerIm = new double[9][3][3];
         boolean endIteration = false;
         final Double noDataValue = srcBandList.srcBands[0].getNoDataValue();
 
+        // each task sums into its own partial sums, merged in task order once all tasks are done
+        final int numTasks = samples != null ?
+                (samples.height + SAMPLE_ROWS_PER_TASK - 1) / SAMPLE_ROWS_PER_TASK : tileRectangles.length;
+
         final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
-        status.beginTask("Computing Final Cluster Centres... ", tileRectangles.length * maxIterations);
+        status.beginTask("Computing Final Cluster Centres... ", numTasks * maxIterations);
 
         final ThreadExecutor executor = new ThreadExecutor();
 
@@ -295,87 +312,100 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
             for (int it = 0; (it < maxIterations && !endIteration); ++it) {
                 //System.out.println("Iteration: " + it);
 
-                final double[][][] sumRe = new double[9][3][3];
-                final double[][][] sumIm = new double[9][3][3];
-                final int[] counter = new int[9];
+                final double[][][][] taskSumRe = new double[numTasks][9][3][3];
+                final double[][][][] taskSumIm = new double[numTasks][9][3][3];
+                final int[][] taskCounter = new int[numTasks][9];
 
-                for (final Rectangle rectangle : tileRectangles) {
+                for (int t = 0; t < numTasks; ++t) {
+                    op.checkIfCancelled();
 
-                    final ThreadRunnable worker = new ThreadRunnable() {
+                    final double[][][] sumRe = taskSumRe[t];
+                    final double[][][] sumIm = taskSumIm[t];
+                    final int[] counter = taskCounter[t];
 
-                        final Tile[] sourceTiles = new Tile[srcBandList.srcBands.length];
-                        final ProductData[] dataBuffers = new ProductData[srcBandList.srcBands.length];
+                    final ThreadRunnable worker;
+                    if (samples != null) {
+                        final int sy0 = t * SAMPLE_ROWS_PER_TASK;
+                        final int syMax = Math.min(sy0 + SAMPLE_ROWS_PER_TASK, samples.height);
 
-                        final double[][] Tr = new double[3][3];
-                        final double[][] Ti = new double[3][3];
+                        worker = new ThreadRunnable() {
 
-                        @Override
-                        public void process() {
-                            op.checkIfCancelled();
+                            final double[][] Tr = new double[3][3];
+                            final double[][] Ti = new double[3][3];
 
-                            final int x0 = rectangle.x;
-                            final int y0 = rectangle.y;
-                            final int w = rectangle.width;
-                            final int h = rectangle.height;
-                            final int xMax = x0 + w;
-                            final int yMax = y0 + h;
-
-                            final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
-                            for (int i = 0; i < sourceTiles.length; ++i) {
-                                sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
-                                dataBuffers[i] = sourceTiles[i].getDataBuffer();
+                            @Override
+                            public void process() {
+                                for (int sy = sy0; sy < syMax; ++sy) {
+                                    for (int sx = 0; sx < samples.width; ++sx) {
+                                        if (samples.get(sx, sy, Tr, Ti)) {
+                                            final int zoneIdx = findZoneIndex(Tr, Ti, clusterCenters[targetBandIndex]);
+                                            counter[zoneIdx - 1]++;
+                                            computeSummationOfT3(zoneIdx, Tr, Ti, sumRe, sumIm);
+                                        }
+                                    }
+                                }
                             }
-                            final TileIndex srcIndex = new TileIndex(sourceTiles[0]);
+                        };
+                    } else {
+                        final Rectangle rectangle = tileRectangles[t];
 
-                            for (int y = y0; y < yMax; ++y) {
-                                srcIndex.calculateStride(y);
-                                for (int x = x0; x < xMax; ++x) {
-                                    if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x))))
-                                        continue;
+                        worker = new ThreadRunnable() {
 
-                                    getMeanCoherencyMatrix(x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
-                                            sourceProductType, srcIndex, dataBuffers, Tr, Ti);
+                            final Tile[] sourceTiles = new Tile[srcBandList.srcBands.length];
+                            final ProductData[] dataBuffers = new ProductData[srcBandList.srcBands.length];
+
+                            final double[][] Tr = new double[3][3];
+                            final double[][] Ti = new double[3][3];
+
+                            @Override
+                            public void process() {
+                                op.checkIfCancelled();
+
+                                final int x0 = rectangle.x;
+                                final int y0 = rectangle.y;
+                                final int w = rectangle.width;
+                                final int h = rectangle.height;
+                                final int xMax = x0 + w;
+                                final int yMax = y0 + h;
+
+                                final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h);
+                                for (int i = 0; i < sourceTiles.length; ++i) {
+                                    sourceTiles[i] = op.getSourceTile(srcBandList.srcBands[i], sourceRectangle);
+                                    dataBuffers[i] = sourceTiles[i].getDataBuffer();
+                                }
+                                final TileIndex srcIndex = new TileIndex(sourceTiles[0]);
+
+                                for (int y = y0; y < yMax; ++y) {
+                                    srcIndex.calculateStride(y);
+                                    for (int x = x0; x < xMax; ++x) {
+                                        if (noDataValue.equals(dataBuffers[0].getElemDoubleAt(srcIndex.getIndex(x))))
+                                            continue;
+
+                                        getMeanCoherencyMatrix(x, y, halfWindowSizeX, halfWindowSizeY, srcWidth, srcHeight,
+                                                sourceProductType, srcIndex, dataBuffers, Tr, Ti);
 
-                                    synchronized (counter) {
                                         final int zoneIdx = findZoneIndex(Tr, Ti, clusterCenters[targetBandIndex]);
                                         counter[zoneIdx - 1]++;
                                         computeSummationOfT3(zoneIdx, Tr, Ti, sumRe, sumIm);
                                     }
                                 }
                             }
-                        }
-                    };
+                        };
+                    }
                     executor.execute(worker);
 
                     status.worked(1);
                 }
+                executor.complete();
 
-                double diff = 0.0;
-                for (int z = 0; z < 9; ++z) {
-                    final int count = counter[z];
-                    //System.out.println("counter[" + z + "] = " + count);
-                    if (counter[z] > 0) {
-                        for (int i = 0; i < 3; ++i) {
-                            for (int j = 0; j < 3; ++j) {
-                                centerRe[z][i][j] = sumRe[z][i][j] / count;
-                                centerIm[z][i][j] = sumIm[z][i][j] / count;
-                                diff += (clusterCenters[targetBandIndex][z].centerRe[i][j] - centerRe[z][i][j]) *
-                                        (clusterCenters[targetBandIndex][z].centerRe[i][j] - centerRe[z][i][j]) +
-                                        (clusterCenters[targetBandIndex][z].centerIm[i][j] - centerIm[z][i][j]) *
-                                                (clusterCenters[targetBandIndex][z].centerIm[i][j] - centerIm[z][i][j]);
-                            }
-                        }
-                        clusterCenters[targetBandIndex][z].setClusterCenter(z + 1, centerRe[z], centerIm[z], counter[z]);
-                    }
-                }
+                final double[][][] sumRe = new double[9][3][3];
+                final double[][][] sumIm = new double[9][3][3];
+                final int[] counter = new int[9];
+                mergeTaskSums(taskSumRe, taskSumIm, taskCounter, sumRe, sumIm, counter);
 
-                if (diff == 0) {
-                    endIteration = true;
-                }
+                endIteration = updateClusterCenters(clusterCenters[targetBandIndex], sumRe, sumIm, counter);
             }
 
-            executor.complete();
-
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(op.getId() + " computeFinalClusterCenters ", e);
         } finally {
@@ -383,6 +413,63 @@ public class HAlphaWishart extends PolClassifierBase implements PolClassifier, Q
         }
     }
 
+    /**
+     * Add up the partial sums of the tasks in task order, so that the result does not depend on the order in which
+     * the tasks ran
+     */
+    static void mergeTaskSums(final double[][][][] taskSumRe, final double[][][][] taskSumIm,
+                              final int[][] taskCounter,
+                              final double[][][] sumRe, final double[][][] sumIm, final int[] counter) {
+        for (int t = 0; t < taskCounter.length; ++t) {
+            for (int z = 0; z < counter.length; ++z) {
+                counter[z] += taskCounter[t][z];
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        sumRe[z][i][j] += taskSumRe[t][z][i][j];
+                        sumIm[z][i][j] += taskSumIm[t][z][i][j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the cluster centers to the mean of the pixels assigned to them
+     *
+     * @param clusterCenters the cluster centers of the 9 zones
+     * @param sumRe          Real part of the sum of the T3 matrices of each zone
+     * @param sumIm          Imaginary part of the sum of the T3 matrices of each zone
+     * @param counter        number of pixels in each zone
+     * @return true if the centers have converged
+     */
+    static boolean updateClusterCenters(final ClusterInfo[] clusterCenters,
+                                        final double[][][] sumRe, final double[][][] sumIm, final int[] counter) {
+
+        final double[][] centerRe = new double[3][3];
+        final double[][] centerIm = new double[3][3];
+        double diff = 0.0;
+        double norm = 0.0;
+        for (int z = 0; z < 9; ++z) {
+            final int count = counter[z];
+            //System.out.println("counter[" + z + "] = " + count);
+            if (count > 0) {
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        centerRe[i][j] = sumRe[z][i][j] / count;
+                        centerIm[i][j] = sumIm[z][i][j] / count;
+                        final double dRe = clusterCenters[z].centerRe[i][j] - centerRe[i][j];
+                        final double dIm = clusterCenters[z].centerIm[i][j] - centerIm[i][j];
+                        diff += dRe * dRe + dIm * dIm;
+                        norm += centerRe[i][j] * centerRe[i][j] + centerIm[i][j] * centerIm[i][j];
+                    }
+                }
+                clusterCenters[z].setClusterCenter(z + 1, centerRe, centerIm, count);
+            }
+        }
+
+        return diff == 0 || diff <= CONVERGENCE_TOLERANCE * norm;
+    }
+
     /**
      * Find the nearest cluster for a given T3 matrix using Wishart distance
      *
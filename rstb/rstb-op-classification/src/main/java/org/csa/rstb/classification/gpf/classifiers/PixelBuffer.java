@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.runtime.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Scene size per pixel storage of the classifiers, kept out of the Java heap.
+ * <p>
+ * The pixels are stored row by row in blocks of whole rows of at most 1 GB, either in direct buffers or, when
+ * s1tbx.classification.spillToDisk is set, in a memory mapped temporary file so that the operating system can page
+ * them out. Both start filled with zeros, as a Java array.
+ */
+abstract class PixelBuffer {
+
+    private static final boolean spillToDisk = Config.instance().preferences().getBoolean(
+            "s1tbx.classification.spillToDisk", false);
+
+    private static final long MAX_BLOCK_BYTES = 1L << 30;
+
+    final int width;
+    final int height;
+    final int bytesPerPixel;
+
+    private final int rowsPerBlock;
+    private final ByteBuffer[] blocks;
+
+    PixelBuffer(final int width, final int height, final int bytesPerPixel) {
+        this.width = width;
+        this.height = height;
+        this.bytesPerPixel = bytesPerPixel;
+
+        final long rowBytes = Math.max(1L, (long) width * bytesPerPixel);
+        rowsPerBlock = (int) Math.max(1L, Math.min(Math.max(height, 1), MAX_BLOCK_BYTES / rowBytes));
+        final int numBlocks = (height + rowsPerBlock - 1) / rowsPerBlock;
+        blocks = new ByteBuffer[numBlocks];
+
+        try {
+            if (spillToDisk) {
+                mapBlocks(rowBytes);
+            } else {
+                for (int b = 0; b < numBlocks; ++b) {
+                    blocks[b] = ByteBuffer.allocateDirect(blockSize(b, rowBytes)).order(ByteOrder.nativeOrder());
+                }
+            }
+        } catch (IOException | OutOfMemoryError e) {
+            throw new OperatorException("Unable to allocate " + width + " x " + height + " pixel buffer: " +
+                                                e.getMessage(), e);
+        }
+    }
+
+    private int blockSize(final int b, final long rowBytes) {
+        return (int) (Math.min(rowsPerBlock, height - b * rowsPerBlock) * rowBytes);
+    }
+
+    private void mapBlocks(final long rowBytes) throws IOException {
+        final File file = File.createTempFile("s1tbx_pixels", ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            final FileChannel channel = raf.getChannel();
+            for (int b = 0; b < blocks.length; ++b) {
+                blocks[b] = channel.map(FileChannel.MapMode.READ_WRITE, b * rowsPerBlock * rowBytes,
+                                        blockSize(b, rowBytes)).order(ByteOrder.nativeOrder());
+            }
+        } finally {
+            // the mapping outlives the file on most systems, otherwise remove it at exit
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    final ByteBuffer block(final int y) {
+        return blocks[y / rowsPerBlock];
+    }
+
+    final int offset(final int x, final int y) {
+        return ((y % rowsPerBlock) * width + x) * bytesPerPixel;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Non negative integer label per pixel, such as a category or cluster index, stored in 1, 2 or 4 bytes depending on
+ * the largest label.
+ */
+final class PixelLabels extends PixelBuffer {
+
+    /**
+     * @param width    scene width
+     * @param height   scene height
+     * @param maxLabel the largest label that will be stored
+     */
+    PixelLabels(final int width, final int height, final int maxLabel) {
+        super(width, height, maxLabel <= 0xFF ? 1 : maxLabel <= 0xFFFF ? 2 : 4);
+    }
+
+    int get(final int x, final int y) {
+        final ByteBuffer block = block(y);
+        final int i = offset(x, y);
+        switch (bytesPerPixel) {
+            case 1:
+                return block.get(i) & 0xFF;
+            case 2:
+                return block.getShort(i) & 0xFFFF;
+            default:
+                return block.getInt(i);
+        }
+    }
+
+    void set(final int x, final int y, final int label) {
+        final ByteBuffer block = block(y);
+        final int i = offset(x, y);
+        switch (bytesPerPixel) {
+            case 1:
+                block.put(i, (byte) label);
+                break;
+            case 2:
+                block.putShort(i, (short) label);
+                break;
+            default:
+                block.putInt(i, label);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+/**
+ * Double value per pixel.
+ */
+final class PixelValues extends PixelBuffer {
+
+    PixelValues(final int width, final int height) {
+        super(width, height, Double.BYTES);
+    }
+
+    double get(final int x, final int y) {
+        return block(y).getDouble(offset(x, y));
+    }
+
+    void set(final int x, final int y, final double value) {
+        block(y).putDouble(offset(x, y), value);
+    }
+}
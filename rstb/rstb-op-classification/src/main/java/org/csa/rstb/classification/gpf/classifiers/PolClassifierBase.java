@@ -20,6 +20,7 @@ import org.esa.s1tbx.commons.polsar.PolBandUtils;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.IndexCoding;
 import org.esa.snap.engine_utilities.eo.Constants;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
 import java.util.Map;
@@ -30,6 +31,10 @@ import java.util.Map;
 public abstract class PolClassifierBase {
 
     public final static int NODATACLASS = 0;
+
+    // k-means stops when the squared change of the cluster centres is at most this fraction of their squared norm
+    protected static final double CONVERGENCE_TOLERANCE = Config.instance().preferences().getDouble(
+            "s1tbx.classification.wishartTolerance", 0.0);
     protected final PolBandUtils.MATRIX sourceProductType;
     protected final int srcWidth;
     protected final int srcHeight;
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit test for CoherencySamples.
+ */
+public class TestCoherencySamples {
+
+    private static final int WIDTH = 53;
+    private static final int HEIGHT = 29;
+
+    /**
+     * Random Hermitian matrix with a real diagonal.
+     */
+    static void randomHermitian(final Random random, final double[][] Tr, final double[][] Ti) {
+        for (int i = 0; i < 3; ++i) {
+            Tr[i][i] = random.nextDouble() * 100.0;
+            Ti[i][i] = 0.0;
+            for (int j = i + 1; j < 3; ++j) {
+                Tr[i][j] = Tr[j][i] = random.nextGaussian() * 10.0;
+                Ti[i][j] = random.nextGaussian() * 10.0;
+                Ti[j][i] = -Ti[i][j];
+            }
+        }
+    }
+
+    private static void assertMatrixEquals(final double[][] Tr, final double[][] Ti,
+                                           final double[][] actualRe, final double[][] actualIm) {
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 3; ++j) {
+                // the matrices are stored as floats
+                assertEquals((float) Tr[i][j], actualRe[i][j], 0.0);
+                assertEquals((float) Ti[i][j], actualIm[i][j], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final CoherencySamples samples = new CoherencySamples(WIDTH, HEIGHT, 1);
+        assertEquals(WIDTH, samples.width);
+        assertEquals(HEIGHT, samples.height);
+
+        final double[][][][] expectedRe = new double[HEIGHT][WIDTH][3][3];
+        final double[][][][] expectedIm = new double[HEIGHT][WIDTH][3][3];
+        final Random random = new Random(1);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                assertTrue(samples.isSample(x, y));
+                randomHermitian(random, expectedRe[y][x], expectedIm[y][x]);
+                samples.put(x, y, expectedRe[y][x], expectedIm[y][x]);
+            }
+        }
+
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                // stale values must be overwritten, including the zero imaginary diagonal
+                randomHermitian(random, Tr, Ti);
+                Ti[1][1] = 1.0;
+                assertTrue(samples.get(x, y, Tr, Ti));
+                assertMatrixEquals(expectedRe[y][x], expectedIm[y][x], Tr, Ti);
+            }
+        }
+    }
+
+    @Test
+    public void testNoData() {
+        final CoherencySamples samples = new CoherencySamples(WIDTH, HEIGHT, 1);
+        final Random random = new Random(2);
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        randomHermitian(random, Tr, Ti);
+        samples.put(3, 4, Tr, Ti);
+        samples.put(4, 4, Tr, Ti);
+        samples.putNoData(3, 4);
+
+        final double[][] actualRe = new double[3][3];
+        final double[][] actualIm = new double[3][3];
+        assertFalse(samples.get(3, 4, actualRe, actualIm));
+        assertTrue(samples.get(4, 4, actualRe, actualIm));
+        assertMatrixEquals(Tr, Ti, actualRe, actualIm);
+
+        // a no data sample may become valid again
+        samples.put(3, 4, Tr, Ti);
+        assertTrue(samples.get(3, 4, actualRe, actualIm));
+        assertMatrixEquals(Tr, Ti, actualRe, actualIm);
+    }
+
+    @Test
+    public void testStep() {
+        final int step = 4;
+        final CoherencySamples samples = new CoherencySamples(WIDTH, HEIGHT, step);
+        assertEquals(14, samples.width);
+        assertEquals(8, samples.height);
+
+        final double[][][][] expectedRe = new double[samples.height][samples.width][3][3];
+        final double[][][][] expectedIm = new double[samples.height][samples.width][3][3];
+        final Random random = new Random(3);
+        int numSamples = 0;
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (samples.isSample(x, y)) {
+                    ++numSamples;
+                    randomHermitian(random, expectedRe[y / step][x / step], expectedIm[y / step][x / step]);
+                    samples.put(x, y, expectedRe[y / step][x / step], expectedIm[y / step][x / step]);
+                }
+            }
+        }
+        assertEquals(samples.width * samples.height, numSamples);
+
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        for (int sy = 0; sy < samples.height; ++sy) {
+            for (int sx = 0; sx < samples.width; ++sx) {
+                assertTrue(samples.get(sx, sy, Tr, Ti));
+                assertMatrixEquals(expectedRe[sy][sx], expectedIm[sy][sx], Tr, Ti);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for PixelLabels and PixelValues.
+ */
+public class TestPixelBuffer {
+
+    private static final int WIDTH = 301;
+    private static final int HEIGHT = 97;
+
+    @Test
+    public void testLabels() {
+        for (int maxLabel : new int[]{4, 300, 70000}) {
+            final PixelLabels labels = new PixelLabels(WIDTH, HEIGHT, maxLabel);
+            final int[][] expected = new int[HEIGHT][WIDTH];
+            final Random random = new Random(maxLabel);
+            for (int i = 0; i < 10000; ++i) {
+                final int x = random.nextInt(WIDTH);
+                final int y = random.nextInt(HEIGHT);
+                final int label = random.nextInt(maxLabel + 1);
+                labels.set(x, y, label);
+                expected[y][x] = label;
+            }
+
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    assertEquals(expected[y][x], labels.get(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testValues() {
+        final PixelValues values = new PixelValues(WIDTH, HEIGHT);
+        final double[][] expected = new double[HEIGHT][WIDTH];
+        final Random random = new Random(1);
+        for (int i = 0; i < 10000; ++i) {
+            final int x = random.nextInt(WIDTH);
+            final int y = random.nextInt(HEIGHT);
+            final double value = random.nextGaussian();
+            values.set(x, y, value);
+            expected[y][x] = value;
+        }
+
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                assertEquals(expected[y][x], values.get(x, y), 0.0);
+            }
+        }
+    }
+}
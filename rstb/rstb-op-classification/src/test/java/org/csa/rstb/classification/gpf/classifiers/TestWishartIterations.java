@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.classification.gpf.classifiers;
+
+import org.csa.rstb.classification.gpf.classifiers.GeneralWishart.ClusterCenter;
+import org.csa.rstb.classification.gpf.classifiers.PolClassifierBase.ClusterInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the k-means iterations of the Wishart classifiers, which sum in parallel tasks, against a single threaded
+ * accumulation as done before the tasks had their own partial sums.
+ */
+public class TestWishartIterations {
+
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 230;
+    private static final int ROWS_PER_TASK = 64;
+    private static final int MAX_ITERATIONS = 20;
+
+    private ExecutorService executor;
+    private double[][][][] pixelRe;
+    private double[][][][] pixelIm;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+
+        // multi-look coherency matrices of a few classes with different scattering powers
+        final double[][] classPower = {{1, 1, 1}, {10, 1, 0.5}, {0.5, 8, 2}, {3, 3, 12}, {40, 20, 10}};
+        final Random random = new Random(42);
+        pixelRe = new double[HEIGHT][WIDTH][3][3];
+        pixelIm = new double[HEIGHT][WIDTH][3][3];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                final double[] power = classPower[((x / 30) + (y / 40)) % classPower.length];
+                multiLook(random, power, 4, pixelRe[y][x], pixelIm[y][x]);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static void multiLook(final Random random, final double[] power, final int looks,
+                                  final double[][] Tr, final double[][] Ti) {
+        final double[] kr = new double[3];
+        final double[] ki = new double[3];
+        for (int l = 0; l < looks; ++l) {
+            for (int i = 0; i < 3; ++i) {
+                kr[i] = random.nextGaussian() * Math.sqrt(power[i] / 2);
+                ki[i] = random.nextGaussian() * Math.sqrt(power[i] / 2);
+            }
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    Tr[i][j] += (kr[i] * kr[j] + ki[i] * ki[j]) / looks;
+                    Ti[i][j] += (ki[i] * kr[j] - kr[i] * ki[j]) / looks;
+                }
+            }
+        }
+    }
+
+    private ClusterInfo[] initialZoneCenters() {
+        final ClusterInfo[] centers = new ClusterInfo[9];
+        for (int z = 0; z < 9; ++z) {
+            centers[z] = new ClusterInfo();
+            final int y = (z * 97) % HEIGHT;
+            final int x = (z * 31) % WIDTH;
+            centers[z].setClusterCenter(z + 1, pixelRe[y][x], pixelIm[y][x], 1);
+        }
+        return centers;
+    }
+
+    private interface PixelSource {
+        /**
+         * @return false for a no data pixel
+         */
+        boolean get(int x, int y, double[][] Tr, double[][] Ti);
+    }
+
+    private PixelSource pixels() {
+        return (x, y, Tr, Ti) -> {
+            if ((x * 7 + y * 3) % 101 == 0) {
+                return false;
+            }
+            for (int i = 0; i < 3; ++i) {
+                System.arraycopy(pixelRe[y][x][i], 0, Tr[i], 0, 3);
+                System.arraycopy(pixelIm[y][x][i], 0, Ti[i], 0, 3);
+            }
+            return true;
+        };
+    }
+
+    private CoherencySamples cache() {
+        final CoherencySamples samples = new CoherencySamples(WIDTH, HEIGHT, 1);
+        final PixelSource source = pixels();
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (source.get(x, y, Tr, Ti)) {
+                    samples.put(x, y, Tr, Ti);
+                } else {
+                    samples.putNoData(x, y);
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * The k-means loop of HAlphaWishart before the partial sums: every pixel is summed in scan order into shared sums.
+     *
+     * @return the number of iterations
+     */
+    private static int serialKMeans(final PixelSource source, final ClusterInfo[] centers, final int[] finalCounter) {
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        final double[][] centerRe = new double[3][3];
+        final double[][] centerIm = new double[3][3];
+        int it = 0;
+        boolean endIteration = false;
+        while (it < MAX_ITERATIONS && !endIteration) {
+            ++it;
+            final double[][][] sumRe = new double[9][3][3];
+            final double[][][] sumIm = new double[9][3][3];
+            final int[] counter = new int[9];
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    if (source.get(x, y, Tr, Ti)) {
+                        final int zoneIdx = HAlphaWishart.findZoneIndex(Tr, Ti, centers);
+                        counter[zoneIdx - 1]++;
+                        PolClassifierBase.computeSummationOfT3(zoneIdx, Tr, Ti, sumRe, sumIm);
+                    }
+                }
+            }
+
+            double diff = 0.0;
+            for (int z = 0; z < 9; ++z) {
+                if (counter[z] > 0) {
+                    for (int i = 0; i < 3; ++i) {
+                        for (int j = 0; j < 3; ++j) {
+                            centerRe[i][j] = sumRe[z][i][j] / counter[z];
+                            centerIm[i][j] = sumIm[z][i][j] / counter[z];
+                            diff += (centers[z].centerRe[i][j] - centerRe[i][j]) *
+                                    (centers[z].centerRe[i][j] - centerRe[i][j]) +
+                                    (centers[z].centerIm[i][j] - centerIm[i][j]) *
+                                            (centers[z].centerIm[i][j] - centerIm[i][j]);
+                        }
+                    }
+                    centers[z].setClusterCenter(z + 1, centerRe, centerIm, counter[z]);
+                }
+            }
+            System.arraycopy(counter, 0, finalCounter, 0, 9);
+            endIteration = diff == 0;
+        }
+        return it;
+    }
+
+    /**
+     * The k-means loop of HAlphaWishart: tasks of a few rows each sum into their own partial sums.
+     *
+     * @return the number of iterations
+     */
+    private int taskKMeans(final PixelSource source, final ClusterInfo[] centers, final int[] finalCounter)
+            throws Exception {
+        final int numTasks = (HEIGHT + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        int it = 0;
+        boolean endIteration = false;
+        while (it < MAX_ITERATIONS && !endIteration) {
+            ++it;
+            final double[][][][] taskSumRe = new double[numTasks][9][3][3];
+            final double[][][][] taskSumIm = new double[numTasks][9][3][3];
+            final int[][] taskCounter = new int[numTasks][9];
+            sumTasks(source, centers, taskSumRe, taskSumIm, taskCounter);
+
+            final double[][][] sumRe = new double[9][3][3];
+            final double[][][] sumIm = new double[9][3][3];
+            final int[] counter = new int[9];
+            HAlphaWishart.mergeTaskSums(taskSumRe, taskSumIm, taskCounter, sumRe, sumIm, counter);
+            System.arraycopy(counter, 0, finalCounter, 0, 9);
+            endIteration = HAlphaWishart.updateClusterCenters(centers, sumRe, sumIm, counter);
+        }
+        return it;
+    }
+
+    private void sumTasks(final PixelSource source, final ClusterInfo[] centers,
+                          final double[][][][] taskSumRe, final double[][][][] taskSumIm, final int[][] taskCounter)
+            throws Exception {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < taskCounter.length; ++t) {
+            final int task = t;
+            futures.add(executor.submit(() -> {
+                final double[][] Tr = new double[3][3];
+                final double[][] Ti = new double[3][3];
+                final int yMax = Math.min((task + 1) * ROWS_PER_TASK, HEIGHT);
+                for (int y = task * ROWS_PER_TASK; y < yMax; ++y) {
+                    for (int x = 0; x < WIDTH; ++x) {
+                        if (source.get(x, y, Tr, Ti)) {
+                            final int zoneIdx = HAlphaWishart.findZoneIndex(Tr, Ti, centers);
+                            taskCounter[task][zoneIdx - 1]++;
+                            PolClassifierBase.computeSummationOfT3(zoneIdx, Tr, Ti,
+                                                                   taskSumRe[task], taskSumIm[task]);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static void assertSumEquals(final double expected, final double actual) {
+        assertEquals(expected, actual, 1e-12 * Math.max(1.0, Math.abs(expected)));
+    }
+
+    private static void assertCentersEqual(final ClusterInfo[] expected, final ClusterInfo[] actual) {
+        for (int z = 0; z < 9; ++z) {
+            assertEquals(expected[z].size, actual[z].size);
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    assertSumEquals(expected[z].centerRe[i][j], actual[z].centerRe[i][j]);
+                    assertSumEquals(expected[z].centerIm[i][j], actual[z].centerIm[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMergedTaskSums() throws Exception {
+        final ClusterInfo[] centers = initialZoneCenters();
+        final PixelSource source = pixels();
+
+        final int numTasks = (HEIGHT + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        final double[][][][] taskSumRe = new double[numTasks][9][3][3];
+        final double[][][][] taskSumIm = new double[numTasks][9][3][3];
+        final int[][] taskCounter = new int[numTasks][9];
+        sumTasks(source, centers, taskSumRe, taskSumIm, taskCounter);
+        final double[][][] sumRe = new double[9][3][3];
+        final double[][][] sumIm = new double[9][3][3];
+        final int[] counter = new int[9];
+        HAlphaWishart.mergeTaskSums(taskSumRe, taskSumIm, taskCounter, sumRe, sumIm, counter);
+
+        final double[][][] serialSumRe = new double[9][3][3];
+        final double[][][] serialSumIm = new double[9][3][3];
+        final int[] serialCounter = new int[9];
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (source.get(x, y, Tr, Ti)) {
+                    final int zoneIdx = HAlphaWishart.findZoneIndex(Tr, Ti, centers);
+                    serialCounter[zoneIdx - 1]++;
+                    PolClassifierBase.computeSummationOfT3(zoneIdx, Tr, Ti, serialSumRe, serialSumIm);
+                }
+            }
+        }
+
+        assertArrayEquals(serialCounter, counter);
+        for (int z = 0; z < 9; ++z) {
+            for (int i = 0; i < 3; ++i) {
+                for (int j = 0; j < 3; ++j) {
+                    assertSumEquals(serialSumRe[z][i][j], sumRe[z][i][j]);
+                    assertSumEquals(serialSumIm[z][i][j], sumIm[z][i][j]);
+                }
+            }
+        }
+
+        // merged in task order, the sums do not depend on the scheduling of the tasks
+        final double[][][] sumRe2 = new double[9][3][3];
+        final double[][][] sumIm2 = new double[9][3][3];
+        final int[] counter2 = new int[9];
+        final double[][][][] taskSumRe2 = new double[numTasks][9][3][3];
+        final double[][][][] taskSumIm2 = new double[numTasks][9][3][3];
+        final int[][] taskCounter2 = new int[numTasks][9];
+        sumTasks(source, centers, taskSumRe2, taskSumIm2, taskCounter2);
+        HAlphaWishart.mergeTaskSums(taskSumRe2, taskSumIm2, taskCounter2, sumRe2, sumIm2, counter2);
+        assertArrayEquals(counter, counter2);
+        for (int z = 0; z < 9; ++z) {
+            for (int i = 0; i < 3; ++i) {
+                assertArrayEquals(sumRe[z][i], sumRe2[z][i], 0.0);
+                assertArrayEquals(sumIm[z][i], sumIm2[z][i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testMergedThreadClusterCenters() throws Exception {
+        final int numCategories = 3;
+        final int[] numClusters = {4, 1, 6};
+        final Random random = new Random(7);
+        final int[] category = new int[WIDTH * HEIGHT];
+        final int[] cluster = new int[WIDTH * HEIGHT];
+        for (int p = 0; p < category.length; ++p) {
+            category[p] = random.nextInt(numCategories);
+            cluster[p] = random.nextInt(numClusters[category[p]]);
+        }
+
+        final ArrayList<ArrayList<ClusterCenter>> serial = createClusterCenters(numClusters);
+        final double[][] Tr = new double[3][3];
+        final double[][] Ti = new double[3][3];
+        final PixelSource source = pixels();
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                if (source.get(x, y, Tr, Ti)) {
+                    final int p = y * WIDTH + x;
+                    serial.get(category[p]).get(cluster[p]).addElem(Tr, Ti);
+                }
+            }
+        }
+
+        // as in GeneralWishart, each thread sums into its own cluster centers
+        final Queue<ArrayList<ArrayList<ClusterCenter>>> threadClusterCenters = new ConcurrentLinkedQueue<>();
+        final ThreadLocal<ArrayList<ArrayList<ClusterCenter>>> newClusterCenters = ThreadLocal.withInitial(() -> {
+            final ArrayList<ArrayList<ClusterCenter>> centers = createClusterCenters(numClusters);
+            threadClusterCenters.add(centers);
+            return centers;
+        });
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t * ROWS_PER_TASK / 4 < HEIGHT; ++t) {
+            final int y0 = t * ROWS_PER_TASK / 4;
+            futures.add(executor.submit(() -> {
+                final double[][] tr = new double[3][3];
+                final double[][] ti = new double[3][3];
+                final ArrayList<ArrayList<ClusterCenter>> centers = newClusterCenters.get();
+                for (int y = y0; y < Math.min(y0 + ROWS_PER_TASK / 4, HEIGHT); ++y) {
+                    for (int x = 0; x < WIDTH; ++x) {
+                        if (source.get(x, y, tr, ti)) {
+                            final int p = y * WIDTH + x;
+                            centers.get(category[p]).get(cluster[p]).addElem(tr, ti);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertTrue(threadClusterCenters.size() > 1);
+
+        final ArrayList<ArrayList<ClusterCenter>> merged = createClusterCenters(numClusters);
+        GeneralWishart.mergeClusterCenters(threadClusterCenters, merged);
+
+        for (int c = 0; c < numCategories; ++c) {
+            for (int k = 0; k < numClusters[c]; ++k) {
+                final ClusterCenter expected = serial.get(c).get(k);
+                final ClusterCenter actual = merged.get(c).get(k);
+                assertEquals(expected.size, actual.size);
+                for (int i = 0; i < 3; ++i) {
+                    for (int j = 0; j < 3; ++j) {
+                        assertSumEquals(expected.sumRe[i][j], actual.sumRe[i][j]);
+                        assertSumEquals(expected.sumIm[i][j], actual.sumIm[i][j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static ArrayList<ArrayList<ClusterCenter>> createClusterCenters(final int[] numClusters) {
+        final ArrayList<ArrayList<ClusterCenter>> clusterCenters = new ArrayList<>();
+        for (int n : numClusters) {
+            final ArrayList<ClusterCenter> centers = new ArrayList<>();
+            for (int k = 0; k < n; ++k) {
+                centers.add(new ClusterCenter());
+            }
+            clusterCenters.add(centers);
+        }
+        return clusterCenters;
+    }
+
+    @Test
+    public void testDefaultPathClusters() throws Exception {
+        final ClusterInfo[] expected = initialZoneCenters();
+        final int[] expectedCounter = new int[9];
+        final int expectedIterations = serialKMeans(pixels(), expected, expectedCounter);
+
+        final ClusterInfo[] actual = initialZoneCenters();
+        final int[] actualCounter = new int[9];
+        final int actualIterations = taskKMeans(pixels(), actual, actualCounter);
+
+        assertTrue(expectedIterations > 1);
+        assertEquals(expectedIterations, actualIterations);
+        assertArrayEquals(expectedCounter, actualCounter);
+        assertCentersEqual(expected, actual);
+    }
+
+    @Test
+    public void testCachedPathClusters() throws Exception {
+        final CoherencySamples samples = cache();
+        final PixelSource cached = samples::get;
+
+        final ClusterInfo[] expected = initialZoneCenters();
+        final int[] expectedCounter = new int[9];
+        final int expectedIterations = serialKMeans(cached, expected, expectedCounter);
+
+        final ClusterInfo[] actual = initialZoneCenters();
+        final int[] actualCounter = new int[9];
+        final int actualIterations = taskKMeans(cached, actual, actualCounter);
+
+        assertEquals(expectedIterations, actualIterations);
+        assertArrayEquals(expectedCounter, actualCounter);
+        assertCentersEqual(expected, actual);
+    }
+}
@@ -15,10 +15,19 @@
  */
 package org.csa.rstb.polarimetric.gpf.decompositions;
 
+import org.esa.snap.runtime.Config;
+
 public class EigenDecomposition {
 
+    private static final boolean useClosedForm = Config.instance().preferences().getBoolean(
+            "s1tbx.polarimetric.closedFormEigen", true);
+
+    private static final ThreadLocal<HermitianEigenSolver.Workspace> workspace =
+            ThreadLocal.withInitial(HermitianEigenSolver.Workspace::new);
+
     /**
-     * Perform eigenvalue decomposition for a given Hermitian matrix
+     * Perform eigenvalue decomposition for a given Hermitian matrix.
+     * 2x2 and 3x3 matrices are decomposed in closed form by {@link HermitianEigenSolver}, others with the Jacobi method
      *
      * @param n           Matrix dimension
      * @param HMr         Real part of the Hermitian matrix
@@ -30,6 +39,41 @@ public class EigenDecomposition {
     public static void eigenDecomposition(final int n, final double[][] HMr, final double[][] HMi,
                                           final double[][] EigenVectRe, final double[][] EigenVectIm, final double[] EigenVal) {
 
+        if (!useClosedForm || (n != 2 && n != 3)) {
+            jacobiEigenDecomposition(n, HMr, HMi, EigenVectRe, EigenVectIm, EigenVal);
+            return;
+        }
+
+        final HermitianEigenSolver.Workspace ws = workspace.get();
+        HermitianEigenSolver.pack(n, HMr, HMi, ws.h);
+        if (n == 2) {
+            HermitianEigenSolver.eigen2(ws.h, ws.val, ws.vecRe, ws.vecIm, ws);
+        } else {
+            HermitianEigenSolver.eigen3(ws.h, ws.val, ws.vecRe, ws.vecIm, ws);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < n; k++) {
+                EigenVectRe[i][k] = ws.vecRe[n * i + k];
+                EigenVectIm[i][k] = ws.vecIm[n * i + k];
+            }
+            EigenVal[i] = ws.val[i];
+        }
+    }
+
+    /**
+     * Perform eigenvalue decomposition for a given Hermitian matrix with the Jacobi method
+     *
+     * @param n           Matrix dimension
+     * @param HMr         Real part of the Hermitian matrix
+     * @param HMi         Imaginary part of the Hermitian matrix
+     * @param EigenVectRe Real part of the eigenvector matrix
+     * @param EigenVectIm Imaginary part of the eigenvector matrix
+     * @param EigenVal    Eigenvalue vector
+     */
+    public static void jacobiEigenDecomposition(final int n, final double[][] HMr, final double[][] HMi,
+                                                final double[][] EigenVectRe, final double[][] EigenVectIm,
+                                                final double[] EigenVal) {
+
         final double[][] ar = new double[n][n];
         final double[][] ai = new double[n][n];
         final double[][] vr = new double[n][n];
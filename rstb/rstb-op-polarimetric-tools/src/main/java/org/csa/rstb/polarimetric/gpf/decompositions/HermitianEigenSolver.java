@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2021 SkyWatch. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.polarimetric.gpf.decompositions;
+
+/**
+ * Eigenvalue decomposition of 2x2 and 3x3 Hermitian matrices in closed form.
+ * <p>
+ * The eigenvalues are the roots of the characteristic polynomial, computed with the trigonometric solution of the
+ * cubic, and the eigenvectors are cross products of the rows of A - lambda I. The eigenvalues are then refined as the
+ * Rayleigh quotients of the normalised eigenvectors and sorted in descending order, as by the Jacobi routine of
+ * {@link EigenDecomposition}. When two eigenvalues are too close for the eigenvectors to be well defined, or the
+ * matrix is not finite, the Jacobi routine is used instead.
+ * <p>
+ * Matrices are passed as their packed upper triangle: {h00, h11, re h01, im h01} for 2x2 and
+ * {h00, h11, h22, re h01, im h01, re h02, im h02, re h12, im h12} for 3x3. Eigenvectors are returned as the
+ * columns of a row major n x n matrix, component i of eigenvector k at index n * i + k. Nothing is allocated
+ * except on the fall back path.
+ */
+public final class HermitianEigenSolver {
+
+    // eigenvalues closer than this fraction of the spectral radius are treated as degenerate
+    private static final double DEGENERACY_TOLERANCE = 1.0e-6;
+
+    private static final double TWO_PI_DIV_3 = 2.0 * Math.PI / 3.0;
+
+    private HermitianEigenSolver() {
+    }
+
+    /**
+     * Scratch space of the solver, to be used by one thread at a time.
+     */
+    public static final class Workspace {
+
+        // rows of A - lambda I and their cross products
+        private final double[][] rowRe = new double[3][3];
+        private final double[][] rowIm = new double[3][3];
+        private final double[] crossRe = new double[3];
+        private final double[] crossIm = new double[3];
+
+        // packed matrix and results for callers using double[][] matrices
+        final double[] h = new double[9];
+        final double[] val = new double[3];
+        final double[] vecRe = new double[9];
+        final double[] vecIm = new double[9];
+
+        public Workspace() {
+        }
+    }
+
+    /**
+     * Eigenvalue decomposition of a 2x2 Hermitian matrix.
+     *
+     * @param h     packed upper triangle of the matrix
+     * @param val   eigenvalues in descending order
+     * @param vecRe real part of the eigenvectors
+     * @param vecIm imaginary part of the eigenvectors
+     * @param ws    scratch space
+     */
+    public static void eigen2(final double[] h, final double[] val, final double[] vecRe, final double[] vecIm,
+                              final Workspace ws) {
+
+        final double a = h[0], b = h[1], dr = h[2], di = h[3];
+        final double dd = dr * dr + di * di;
+
+        final double m = 0.5 * (a + b);
+        final double hd = 0.5 * (a - b);
+        final double r = Math.sqrt(hd * hd + dd);
+        final double l1 = m + r;
+        final double l2 = m - r;
+        final double scale = Math.max(Math.abs(l1), Math.abs(l2));
+        if (!Double.isFinite(r + m) || l1 - l2 <= DEGENERACY_TOLERANCE * scale) {
+            jacobi(2, h, val, vecRe, vecIm);
+            return;
+        }
+
+        // (lambda - b, conj(d)) and (d, lambda - a) both solve (A - lambda I) v = 0, take the larger one
+        double v0r, v0i, v1r, v1i;
+        if (hd >= 0) {
+            v0r = l1 - b;
+            v0i = 0.0;
+            v1r = dr;
+            v1i = -di;
+        } else {
+            v0r = dr;
+            v0i = di;
+            v1r = l1 - a;
+            v1i = 0.0;
+        }
+        final double norm = Math.sqrt(v0r * v0r + v0i * v0i + v1r * v1r + v1i * v1i);
+        v0r /= norm;
+        v0i /= norm;
+        v1r /= norm;
+        v1i /= norm;
+
+        // second eigenvector orthogonal to the first
+        vecRe[0] = v0r;
+        vecIm[0] = v0i;
+        vecRe[2] = v1r;
+        vecIm[2] = v1i;
+        vecRe[1] = -v1r;
+        vecIm[1] = v1i;
+        vecRe[3] = v0r;
+        vecIm[3] = -v0i;
+
+        for (int k = 0; k < 2; ++k) {
+            final double ur = vecRe[k], ui = vecIm[k], wr = vecRe[2 + k], wi = vecIm[2 + k];
+            // Re(conj(u) a u + conj(u) d w + conj(w) conj(d) u + conj(w) b w)
+            val[k] = a * (ur * ur + ui * ui) + b * (wr * wr + wi * wi) +
+                    2.0 * (dr * (ur * wr + ui * wi) + di * (ui * wr - ur * wi));
+        }
+        sort(2, val, vecRe, vecIm);
+    }
+
+    /**
+     * Eigenvalue decomposition of a 3x3 Hermitian matrix.
+     *
+     * @param h     packed upper triangle of the matrix
+     * @param val   eigenvalues in descending order
+     * @param vecRe real part of the eigenvectors
+     * @param vecIm imaginary part of the eigenvectors
+     * @param ws    scratch space
+     */
+    public static void eigen3(final double[] h, final double[] val, final double[] vecRe, final double[] vecIm,
+                              final Workspace ws) {
+
+        final double a = h[0], b = h[1], c = h[2];
+        final double dr = h[3], di = h[4], er = h[5], ei = h[6], fr = h[7], fi = h[8];
+        final double dd = dr * dr + di * di;
+        final double ee = er * er + ei * ei;
+        final double ff = fr * fr + fi * fi;
+
+        // eigenvalues of A = q I + p B from the cubic det(B - x I) = 0, with tr B = 0 and |B| = sqrt(6)
+        final double q = (a + b + c) / 3.0;
+        final double ap = a - q, bp = b - q, cp = c - q;
+        final double p2 = ap * ap + bp * bp + cp * cp + 2.0 * (dd + ee + ff);
+        if (!Double.isFinite(q + p2) || p2 == 0.0) {
+            jacobi(3, h, val, vecRe, vecIm);
+            return;
+        }
+        final double p = Math.sqrt(p2 / 6.0);
+        final double det = ap * bp * cp + 2.0 * ((dr * fr - di * fi) * er + (dr * fi + di * fr) * ei) -
+                ap * ff - bp * ee - cp * dd;
+        final double halfDetB = Math.max(-1.0, Math.min(1.0, det / (2.0 * p * p * p)));
+        final double phi = Math.acos(halfDetB) / 3.0;
+
+        final double l1 = q + 2.0 * p * Math.cos(phi);
+        final double l3 = q + 2.0 * p * Math.cos(phi + TWO_PI_DIV_3);
+        final double l2 = 3.0 * q - l1 - l3;
+        final double tolerance = DEGENERACY_TOLERANCE * Math.max(Math.abs(l1), Math.abs(l3));
+        if (l1 - l2 <= tolerance || l2 - l3 <= tolerance) {
+            jacobi(3, h, val, vecRe, vecIm);
+            return;
+        }
+
+        // eigenvectors of the outer eigenvalues, the middle one is orthogonal to both
+        eigenVector3(h, l1, 0, vecRe, vecIm, ws);
+        eigenVector3(h, l3, 2, vecRe, vecIm, ws);
+        for (int i = 0; i < 3; ++i) {
+            final int i1 = (i + 1) % 3, i2 = (i + 2) % 3;
+            final double xr = vecRe[3 * i1] * vecRe[3 * i2 + 2] - vecIm[3 * i1] * vecIm[3 * i2 + 2] -
+                    vecRe[3 * i2] * vecRe[3 * i1 + 2] + vecIm[3 * i2] * vecIm[3 * i1 + 2];
+            final double xi = vecRe[3 * i1] * vecIm[3 * i2 + 2] + vecIm[3 * i1] * vecRe[3 * i2 + 2] -
+                    vecRe[3 * i2] * vecIm[3 * i1 + 2] - vecIm[3 * i2] * vecRe[3 * i1 + 2];
+            vecRe[3 * i + 1] = xr;
+            vecIm[3 * i + 1] = -xi;
+        }
+        normalise(1, vecRe, vecIm);
+
+        for (int k = 0; k < 3; ++k) {
+            final double ur = vecRe[k], ui = vecIm[k];
+            final double vr = vecRe[3 + k], vi = vecIm[3 + k];
+            final double wr = vecRe[6 + k], wi = vecIm[6 + k];
+            // Re(conj(v_i) A_ij v_j) summed over i and j
+            val[k] = a * (ur * ur + ui * ui) + b * (vr * vr + vi * vi) + c * (wr * wr + wi * wi) +
+                    2.0 * (dr * (ur * vr + ui * vi) + di * (ui * vr - ur * vi)) +
+                    2.0 * (er * (ur * wr + ui * wi) + ei * (ui * wr - ur * wi)) +
+                    2.0 * (fr * (vr * wr + vi * wi) + fi * (vi * wr - vr * wi));
+        }
+        sort(3, val, vecRe, vecIm);
+    }
+
+    /**
+     * Unit eigenvector of a 3x3 Hermitian matrix for a simple eigenvalue, the largest cross product of two rows of
+     * A - lambda I.
+     */
+    private static void eigenVector3(final double[] h, final double lambda, final int k,
+                                     final double[] vecRe, final double[] vecIm, final Workspace ws) {
+
+        final double[][] rowRe = ws.rowRe;
+        final double[][] rowIm = ws.rowIm;
+        rowRe[0][0] = h[0] - lambda;
+        rowIm[0][0] = 0.0;
+        rowRe[0][1] = h[3];
+        rowIm[0][1] = h[4];
+        rowRe[0][2] = h[5];
+        rowIm[0][2] = h[6];
+        rowRe[1][0] = h[3];
+        rowIm[1][0] = -h[4];
+        rowRe[1][1] = h[1] - lambda;
+        rowIm[1][1] = 0.0;
+        rowRe[1][2] = h[7];
+        rowIm[1][2] = h[8];
+        rowRe[2][0] = h[5];
+        rowIm[2][0] = -h[6];
+        rowRe[2][1] = h[7];
+        rowIm[2][1] = -h[8];
+        rowRe[2][2] = h[2] - lambda;
+        rowIm[2][2] = 0.0;
+
+        double maxNorm = -1.0;
+        for (int r = 0; r < 3; ++r) {
+            final double[] uRe = rowRe[r], uIm = rowIm[r];
+            final double[] vRe = rowRe[(r + 1) % 3], vIm = rowIm[(r + 1) % 3];
+            double norm = 0.0;
+            for (int i = 0; i < 3; ++i) {
+                final int i1 = (i + 1) % 3, i2 = (i + 2) % 3;
+                final double xr = uRe[i1] * vRe[i2] - uIm[i1] * vIm[i2] - uRe[i2] * vRe[i1] + uIm[i2] * vIm[i1];
+                final double xi = uRe[i1] * vIm[i2] + uIm[i1] * vRe[i2] - uRe[i2] * vIm[i1] - uIm[i2] * vRe[i1];
+                ws.crossRe[i] = xr;
+                ws.crossIm[i] = xi;
+                norm += xr * xr + xi * xi;
+            }
+            if (norm > maxNorm) {
+                maxNorm = norm;
+                for (int i = 0; i < 3; ++i) {
+                    vecRe[3 * i + k] = ws.crossRe[i];
+                    vecIm[3 * i + k] = ws.crossIm[i];
+                }
+            }
+        }
+        normalise(k, vecRe, vecIm);
+    }
+
+    private static void normalise(final int k, final double[] vecRe, final double[] vecIm) {
+        double norm = 0.0;
+        for (int i = 0; i < 3; ++i) {
+            norm += vecRe[3 * i + k] * vecRe[3 * i + k] + vecIm[3 * i + k] * vecIm[3 * i + k];
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < 3; ++i) {
+            vecRe[3 * i + k] /= norm;
+            vecIm[3 * i + k] /= norm;
+        }
+    }
+
+    private static void sort(final int n, final double[] val, final double[] vecRe, final double[] vecIm) {
+        for (int i = 0; i < n; ++i) {
+            for (int j = i + 1; j < n; ++j) {
+                if (val[j] > val[i]) {
+                    final double x = val[i];
+                    val[i] = val[j];
+                    val[j] = x;
+                    for (int k = 0; k < n; ++k) {
+                        final double tmpRe = vecRe[n * k + i];
+                        final double tmpIm = vecIm[n * k + i];
+                        vecRe[n * k + i] = vecRe[n * k + j];
+                        vecIm[n * k + i] = vecIm[n * k + j];
+                        vecRe[n * k + j] = tmpRe;
+                        vecIm[n * k + j] = tmpIm;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void jacobi(final int n, final double[] h, final double[] val,
+                               final double[] vecRe, final double[] vecIm) {
+
+        final double[][] Hr = new double[n][n];
+        final double[][] Hi = new double[n][n];
+        unpack(n, h, Hr, Hi);
+
+        final double[][] Vr = new double[n][n];
+        final double[][] Vi = new double[n][n];
+        EigenDecomposition.jacobiEigenDecomposition(n, Hr, Hi, Vr, Vi, val);
+        for (int i = 0; i < n; ++i) {
+            for (int k = 0; k < n; ++k) {
+                vecRe[n * i + k] = Vr[i][k];
+                vecIm[n * i + k] = Vi[i][k];
+            }
+        }
+    }
+
+    static void pack(final int n, final double[][] Hr, final double[][] Hi, final double[] h) {
+        if (n == 2) {
+            h[0] = Hr[0][0];
+            h[1] = Hr[1][1];
+            h[2] = Hr[0][1];
+            h[3] = Hi[0][1];
+        } else {
+            h[0] = Hr[0][0];
+            h[1] = Hr[1][1];
+            h[2] = Hr[2][2];
+            h[3] = Hr[0][1];
+            h[4] = Hi[0][1];
+            h[5] = Hr[0][2];
+            h[6] = Hi[0][2];
+            h[7] = Hr[1][2];
+            h[8] = Hi[1][2];
+        }
+    }
+
+    static void unpack(final int n, final double[] h, final double[][] Hr, final double[][] Hi) {
+        if (n == 2) {
+            Hr[0][0] = h[0];
+            Hr[1][1] = h[1];
+            Hr[0][1] = Hr[1][0] = h[2];
+            Hi[0][1] = h[3];
+            Hi[1][0] = -h[3];
+            Hi[0][0] = Hi[1][1] = 0.0;
+        } else {
+            Hr[0][0] = h[0];
+            Hr[1][1] = h[1];
+            Hr[2][2] = h[2];
+            Hr[0][1] = Hr[1][0] = h[3];
+            Hr[0][2] = Hr[2][0] = h[5];
+            Hr[1][2] = Hr[2][1] = h[7];
+            Hi[0][1] = h[4];
+            Hi[1][0] = -h[4];
+            Hi[0][2] = h[6];
+            Hi[2][0] = -h[6];
+            Hi[1][2] = h[8];
+            Hi[2][1] = -h[8];
+            Hi[0][0] = Hi[1][1] = Hi[2][2] = 0.0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.csa.rstb.polarimetric.gpf;
+
+import org.csa.rstb.polarimetric.gpf.decompositions.EigenDecomposition;
+import org.csa.rstb.polarimetric.gpf.decompositions.HermitianEigenSolver;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit test for HermitianEigenSolver, against the Jacobi eigenvalue decomposition.
+ */
+public class TestHermitianEigenSolver {
+
+    private static final double EPS = 1.0e-9;
+
+    private final HermitianEigenSolver.Workspace ws = new HermitianEigenSolver.Workspace();
+
+    @Test
+    public void testRandom3x3() {
+        final Random random = new Random(42);
+        for (int t = 0; t < 1000; t++) {
+            check(3, randomT3(random, 3));
+        }
+    }
+
+    @Test
+    public void testRandom2x2() {
+        final Random random = new Random(42);
+        for (int t = 0; t < 1000; t++) {
+            final double[] h = new double[4];
+            final double[] k = new double[4];
+            for (int l = 0; l < 3; l++) {
+                for (int i = 0; i < 4; i++) {
+                    k[i] = random.nextGaussian();
+                }
+                h[0] += k[0] * k[0] + k[1] * k[1];
+                h[1] += k[2] * k[2] + k[3] * k[3];
+                h[2] += k[0] * k[2] + k[1] * k[3];
+                h[3] += k[1] * k[2] - k[0] * k[3];
+            }
+            check(2, h);
+        }
+    }
+
+    @Test
+    public void testDegenerate() {
+        // rank one, a single look pure target
+        check(3, randomT3(new Random(1), 1));
+        // repeated eigenvalues
+        check(3, new double[]{2, 2, 1, 0, 0, 0, 0, 0, 0});
+        check(3, new double[]{1, 1, 1, 0, 0, 0, 0, 0, 0});
+        check(3, new double[]{0, 0, 0, 0, 0, 0, 0, 0, 0});
+        check(2, new double[]{1, 1, 0, 0});
+        // nearly diagonal
+        check(3, new double[]{3, 2, 1, 1e-12, -1e-12, 0, 1e-13, 0, 0});
+    }
+
+    /**
+     * Packed coherency matrix averaged over a number of looks of random scattering vectors.
+     */
+    private static double[] randomT3(final Random random, final int looks) {
+        final double[] h = new double[9];
+        final double[] kr = new double[3];
+        final double[] ki = new double[3];
+        for (int l = 0; l < looks; l++) {
+            for (int i = 0; i < 3; i++) {
+                kr[i] = random.nextGaussian();
+                ki[i] = random.nextGaussian();
+            }
+            for (int i = 0; i < 3; i++) {
+                h[i] += kr[i] * kr[i] + ki[i] * ki[i];
+            }
+            final int[][] offDiagonal = {{0, 1}, {0, 2}, {1, 2}};
+            for (int e = 0; e < 3; e++) {
+                final int i = offDiagonal[e][0], j = offDiagonal[e][1];
+                // k_i conj(k_j)
+                h[3 + 2 * e] += kr[i] * kr[j] + ki[i] * ki[j];
+                h[4 + 2 * e] += ki[i] * kr[j] - kr[i] * ki[j];
+            }
+        }
+        return h;
+    }
+
+    private void check(final int n, final double[] h) {
+        final double[][] Hr = new double[n][n];
+        final double[][] Hi = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            Hr[i][i] = h[i];
+        }
+        int e = n;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                Hr[i][j] = Hr[j][i] = h[e++];
+                Hi[i][j] = h[e++];
+                Hi[j][i] = -Hi[i][j];
+            }
+        }
+
+        final double[] val = new double[n];
+        final double[] vecRe = new double[n * n];
+        final double[] vecIm = new double[n * n];
+        if (n == 2) {
+            HermitianEigenSolver.eigen2(h, val, vecRe, vecIm, ws);
+        } else {
+            HermitianEigenSolver.eigen3(h, val, vecRe, vecIm, ws);
+        }
+
+        final double[][] Vr = new double[n][n];
+        final double[][] Vi = new double[n][n];
+        final double[] expVal = new double[n];
+        EigenDecomposition.jacobiEigenDecomposition(n, Hr, Hi, Vr, Vi, expVal);
+
+        double scale = 1.0;
+        for (int i = 0; i < n; i++) {
+            scale = Math.max(scale, Math.abs(expVal[i]));
+        }
+        for (int k = 0; k < n; k++) {
+            assertEquals(expVal[k], val[k], EPS * scale);
+
+            // A v = lambda v
+            for (int i = 0; i < n; i++) {
+                double re = -val[k] * vecRe[n * i + k];
+                double im = -val[k] * vecIm[n * i + k];
+                for (int j = 0; j < n; j++) {
+                    re += Hr[i][j] * vecRe[n * j + k] - Hi[i][j] * vecIm[n * j + k];
+                    im += Hr[i][j] * vecIm[n * j + k] + Hi[i][j] * vecRe[n * j + k];
+                }
+                assertEquals(0.0, re, 1.0e-8 * scale);
+                assertEquals(0.0, im, 1.0e-8 * scale);
+            }
+
+            // orthonormal
+            for (int l = k; l < n; l++) {
+                double re = 0.0, im = 0.0;
+                for (int i = 0; i < n; i++) {
+                    re += vecRe[n * i + k] * vecRe[n * i + l] + vecIm[n * i + k] * vecIm[n * i + l];
+                    im += vecRe[n * i + k] * vecIm[n * i + l] - vecIm[n * i + k] * vecRe[n * i + l];
+                }
+                assertEquals(k == l ? 1.0 : 0.0, re, 1.0e-9);
+                assertEquals(0.0, im, 1.0e-9);
+            }
+        }
+    }
+}
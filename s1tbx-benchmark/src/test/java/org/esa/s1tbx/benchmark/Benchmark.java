@@ -24,12 +24,17 @@ import org.json.simple.JSONObject;
 import java.io.File;
 import java.nio.file.Files;
 
+/**
+ * Times whole runs of a product based benchmark on the real test data.
+ * Disabled unless the system property s1tbx.benchmark.enabled is set to true.
+ * Kernel and operator benchmarks on synthetic products are in the org.esa.s1tbx.benchmark.jmh package.
+ */
 public abstract class Benchmark {
 
-    private final static boolean DISABLE_BENCHMARKS = true;
+    private final static boolean DISABLE_BENCHMARKS = !Boolean.getBoolean("s1tbx.benchmark.enabled");
     private final static int iterations = 5;
     private final String name;
-    private final File resultsFile = new File("e:\\out\\results.json");
+    private final File resultsFile = new File(System.getProperty("s1tbx.benchmark.results", "target/results.json"));
     protected File outputFolder;
 
     public Benchmark(final String name) {
@@ -68,6 +73,9 @@ public abstract class Benchmark {
         SystemUtils.LOG.warning(name + " average time " + avgTime);
 
         final JSONObject json = readJSON(resultsFile);
+        if (resultsFile.getParentFile() != null) {
+            resultsFile.getParentFile().mkdirs();
+        }
         json.put(name, avgTime);
         JSON.write(json, resultsFile);
     }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.VirtualBand;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the tiles of an uncompressed IW SLC with an increasing number of threads
+ * to show how the reader scales with concurrent tile requests.
+ */
+public class TestBenchmark_ConcurrentRead extends BaseBenchmarks {
+
+    private final static int tileSize = 512;
+    private final static int[] threadCounts = {1, 2, 4, 8, 16, 32};
+
+    @Test
+    public void testSLC_concurrent_read() throws Exception {
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int numThreads : threadCounts) {
+            if (numThreads > maxThreads) {
+                break;
+            }
+            Benchmark b = new Benchmark("SLC_concurrent_read_" + numThreads + "_threads") {
+                @Override
+                protected void execute() throws Exception {
+                    final Product srcProduct = read(slcFile);
+                    readTiles(srcProduct, rect, numThreads);
+                    srcProduct.dispose();
+                }
+            };
+            b.run();
+        }
+    }
+
+    private static void readTiles(final Product product, final Rectangle region, final int numThreads) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (Band band : product.getBands()) {
+                if (band instanceof VirtualBand) {
+                    continue;
+                }
+                final Rectangle bounds = region.intersection(new Rectangle(band.getRasterWidth(), band.getRasterHeight()));
+                for (int y = bounds.y; y < bounds.y + bounds.height; y += tileSize) {
+                    for (int x = bounds.x; x < bounds.x + bounds.width; x += tileSize) {
+                        final Rectangle tile = new Rectangle(x, y, tileSize, tileSize).intersection(bounds);
+                        futures.add(executor.submit(() -> {
+                            final ProductData data = ProductData.createInstance(band.getDataType(), tile.width * tile.height);
+                            band.readRasterData(tile.x, tile.y, tile.width, tile.height, data);
+                            return null;
+                        }));
+                    }
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
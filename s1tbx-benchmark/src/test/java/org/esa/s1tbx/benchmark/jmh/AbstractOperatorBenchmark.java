@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.internal.OperatorExecutor;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.media.jai.JAI;
+import javax.media.jai.TileCache;
+import javax.media.jai.TileScheduler;
+
+/**
+ * Common state of the operator benchmarks. Every invocation computes all tiles of the target product of
+ * a freshly created operator, with the tile cache flushed, through the JAI tile scheduler so that the
+ * threads parameter gives the thread scaling.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractOperatorBenchmark {
+
+    static final int width = 2048;
+    static final int height = 2048;
+    static final int numPixels = width * height;
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private int defaultParallelism;
+
+    @Setup(Level.Trial)
+    public void setUpScheduler() {
+        final TileScheduler scheduler = JAI.getDefaultInstance().getTileScheduler();
+        defaultParallelism = scheduler.getParallelism();
+        scheduler.setParallelism(threads);
+        scheduler.setPrefetchParallelism(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownScheduler() {
+        final TileScheduler scheduler = JAI.getDefaultInstance().getTileScheduler();
+        scheduler.setParallelism(defaultParallelism);
+        scheduler.setPrefetchParallelism(defaultParallelism);
+    }
+
+    @Setup(Level.Invocation)
+    public void flushTileCache() {
+        final TileCache tileCache = JAI.getDefaultInstance().getTileCache();
+        if (tileCache != null) {
+            tileCache.flush();
+        }
+    }
+
+    /**
+     * Computes every band of the target product of the operator and disposes of it.
+     */
+    protected static void execute(final Operator op) {
+        op.getTargetProduct();
+        OperatorExecutor.create(op).execute(ProgressMonitor.NULL);
+        op.dispose();
+    }
+}
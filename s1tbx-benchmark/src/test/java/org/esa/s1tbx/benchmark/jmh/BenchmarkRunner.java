@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks of this package with the GC profiler, which adds the allocation rate per operation
+ * to the scores, and writes the results as JSON so that runs of different commits can be compared.
+ * <p>
+ * System properties:
+ * <ul>
+ * <li>s1tbx.benchmark.include - regular expression of the benchmarks to run, all of this package by default</li>
+ * <li>s1tbx.benchmark.results - the JSON results file, target/jmh-results.json by default</li>
+ * <li>s1tbx.benchmark.threads - comma separated thread counts of the operator benchmarks</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+    public static void main(final String[] args) throws RunnerException {
+        final File resultsFile = new File(System.getProperty("s1tbx.benchmark.results", "target/jmh-results.json"));
+        if (resultsFile.getParentFile() != null) {
+            resultsFile.getParentFile().mkdirs();
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("s1tbx.benchmark.include",
+                        BenchmarkRunner.class.getPackage().getName() + ".*"))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultsFile.getAbsolutePath());
+
+        final String threads = System.getProperty("s1tbx.benchmark.threads");
+        if (threads != null) {
+            options.param("threads", threads.split(","));
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.commons.io.ImageIOFile;
+import org.esa.s1tbx.io.geotiffxml.GeoTiffUtils;
+import org.esa.snap.core.datamodel.ProductData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the tiles of a synthetic Sentinel-1 SLC measurement, an uncompressed TIFF of complex int16 samples,
+ * from a pool of threads as the Sentinel-1 reader does, once with a reader per thread and once through the
+ * shared reader. Like TestBenchmark_ConcurrentRead without the need for a product on disk.
+ * Scores are in ns per pixel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConcurrentReadBenchmarks {
+
+    private final static int width = 4096;
+    private final static int height = 4096;
+    private final static int numPixels = width * height;
+    private final static int tileSize = 512;
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private File imageFile;
+    private ImageIOFile concurrentImage;
+    private ImageIOFile sharedImage;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        imageFile = Files.createTempFile("s1tbx-benchmark", ".tiff").toFile();
+        writeSLC(imageFile);
+
+        concurrentImage = openImage(imageFile);
+        concurrentImage.setImageFile(imageFile);
+        if (!concurrentImage.canReadConcurrently()) {
+            throw new IllegalStateException("Concurrent reads are turned off by s1tbx.readers.useConcurrentReads");
+        }
+        sharedImage = openImage(imageFile);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        concurrentImage.close();
+        sharedImage.close();
+        imageFile.delete();
+    }
+
+    /**
+     * Opens the image as Sentinel1Level1Directory does for a measurement.
+     */
+    private static ImageIOFile openImage(final File file) throws IOException {
+        final ImageInputStream imgStream = ImageIO.createImageInputStream(file);
+        return new ImageIOFile(file.getName(), imgStream, GeoTiffUtils.getTiffIIOReader(imgStream),
+                1, 1, ProductData.TYPE_INT32, file);
+    }
+
+    /**
+     * Writes i and q as the two int16 samples of each pixel, in strips like the measurement of an SLC.
+     */
+    private static void writeSLC(final File file) throws IOException {
+        final WritableRaster raster = Raster.createWritableRaster(new PixelInterleavedSampleModel(
+                DataBuffer.TYPE_SHORT, width, height, 2, 2 * width, new int[]{0, 1}), null);
+        final Random random = new Random(42);
+        final int[] line = new int[2 * width];
+        for (int y = 0; y < height; ++y) {
+            for (int i = 0; i < line.length; ++i) {
+                line[i] = (int) (random.nextGaussian() * 100.0);
+            }
+            raster.setPixels(0, y, width, 1, line);
+        }
+
+        final ComponentColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_SHORT);
+        if (!ImageIO.write(new BufferedImage(colorModel, raster, false, null), "TIFF", file)) {
+            throw new IOException("No TIFF writer found");
+        }
+    }
+
+    /**
+     * Reads i and q of every tile as separate tasks, as the product reader is asked for both bands of a tile.
+     */
+    private void readTiles(final ImageIOFile img) throws Exception {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                final Rectangle tile = new Rectangle(x, y, tileSize, tileSize);
+                for (int bandSampleOffset = 0; bandSampleOffset < 2; ++bandSampleOffset) {
+                    final int sampleOffset = bandSampleOffset;
+                    futures.add(executor.submit(() -> {
+                        final ProductData data = ProductData.createInstance(ProductData.TYPE_INT32,
+                                tile.width * tile.height);
+                        img.readImageIORasterBand(tile.x, tile.y, 1, 1, data,
+                                tile.x, tile.y, tile.width, tile.height, 0, sampleOffset);
+                        return null;
+                    }));
+                }
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void readerPerThread() throws Exception {
+        readTiles(concurrentImage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void sharedReader() throws Exception {
+        readTiles(sharedImage);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.calibration.gpf.CalibrationOp;
+import org.esa.s1tbx.sar.gpf.MultilookOp;
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilterOp;
+import org.esa.snap.core.datamodel.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calibration and multilooking of a synthetic GRD product, alone and chained with a Lee Sigma speckle filter
+ * as in a graph. Scores are in ns per source pixel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GRDOperatorBenchmarks extends AbstractOperatorBenchmark {
+
+    private Product sourceProduct;
+
+    @Setup(Level.Trial)
+    public void setUpProduct() {
+        sourceProduct = SyntheticProducts.createGRD(width, height);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownProduct() {
+        sourceProduct.dispose();
+    }
+
+    private CalibrationOp createCalibration(final Product source) {
+        final CalibrationOp op = new CalibrationOp();
+        op.setSourceProduct(source);
+        return op;
+    }
+
+    private SpeckleFilterOp createSpeckleFilter(final Product source) {
+        final SpeckleFilterOp op = new SpeckleFilterOp();
+        op.setSourceProduct(source);
+        op.SetFilter(SpeckleFilterOp.LEE_SIGMA_FILTER);
+        return op;
+    }
+
+    private MultilookOp createMultilook(final Product source) {
+        final MultilookOp op = new MultilookOp();
+        op.setSourceProduct(source);
+        op.setParameter("nRgLooks", 2);
+        op.setParameter("nAzLooks", 2);
+        return op;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void calibration() {
+        execute(createCalibration(sourceProduct));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void multilook() {
+        execute(createMultilook(sourceProduct));
+    }
+
+    /**
+     * Calibration, speckle filter and multilook computed through the chain of target products, as GPF does
+     * for a graph without the reader and writer.
+     */
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void calibrateFilterMultilook() {
+        final CalibrationOp calibration = createCalibration(sourceProduct);
+        final SpeckleFilterOp speckleFilter = createSpeckleFilter(calibration.getTargetProduct());
+        execute(createMultilook(speckleFilter.getTargetProduct()));
+        speckleFilter.dispose();
+        calibration.dispose();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.csa.rstb.polarimetric.gpf.decompositions.EigenDecomposition;
+import org.csa.rstb.polarimetric.gpf.decompositions.HermitianEigenSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the closed form HermitianEigenSolver with the Jacobi eigenvalue decomposition on random 3x3 coherency
+ * matrices averaged over a few looks, as found in a polarimetric decomposition window.
+ * Scores are in ns per matrix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class HermitianEigenBenchmarks {
+
+    private final static int numMatrices = 10_000;
+    private final static int looks = 5;
+
+    // packed upper triangles, 9 doubles per matrix
+    private final double[] packed = createMatrices();
+
+    private static double[] createMatrices() {
+        final Random random = new Random(42);
+        final double[] packed = new double[9 * numMatrices];
+        final double[] kr = new double[3];
+        final double[] ki = new double[3];
+        for (int m = 0; m < numMatrices; ++m) {
+            final int o = 9 * m;
+            for (int l = 0; l < looks; ++l) {
+                for (int i = 0; i < 3; ++i) {
+                    kr[i] = random.nextGaussian();
+                    ki[i] = random.nextGaussian();
+                }
+                for (int i = 0; i < 3; ++i) {
+                    packed[o + i] += kr[i] * kr[i] + ki[i] * ki[i];
+                }
+                packed[o + 3] += kr[0] * kr[1] + ki[0] * ki[1];
+                packed[o + 4] += ki[0] * kr[1] - kr[0] * ki[1];
+                packed[o + 5] += kr[0] * kr[2] + ki[0] * ki[2];
+                packed[o + 6] += ki[0] * kr[2] - kr[0] * ki[2];
+                packed[o + 7] += kr[1] * kr[2] + ki[1] * ki[2];
+                packed[o + 8] += ki[1] * kr[2] - kr[1] * ki[2];
+            }
+        }
+        return packed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numMatrices)
+    public double jacobi() {
+        final double[][] Hr = new double[3][3];
+        final double[][] Hi = new double[3][3];
+        final double[][] Vr = new double[3][3];
+        final double[][] Vi = new double[3][3];
+        final double[] val = new double[3];
+        double sum = 0;
+        for (int m = 0; m < numMatrices; ++m) {
+            final int o = 9 * m;
+            for (int i = 0; i < 3; ++i) {
+                Hr[i][i] = packed[o + i];
+            }
+            Hr[0][1] = Hr[1][0] = packed[o + 3];
+            Hi[0][1] = packed[o + 4];
+            Hi[1][0] = -packed[o + 4];
+            Hr[0][2] = Hr[2][0] = packed[o + 5];
+            Hi[0][2] = packed[o + 6];
+            Hi[2][0] = -packed[o + 6];
+            Hr[1][2] = Hr[2][1] = packed[o + 7];
+            Hi[1][2] = packed[o + 8];
+            Hi[2][1] = -packed[o + 8];
+            EigenDecomposition.jacobiEigenDecomposition(3, Hr, Hi, Vr, Vi, val);
+            sum += val[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numMatrices)
+    public double closedForm() {
+        final HermitianEigenSolver.Workspace ws = new HermitianEigenSolver.Workspace();
+        final double[] h = new double[9];
+        final double[] vecRe = new double[9];
+        final double[] vecIm = new double[9];
+        final double[] val = new double[3];
+        double sum = 0;
+        for (int m = 0; m < numMatrices; ++m) {
+            System.arraycopy(packed, 9 * m, h, 0, 9);
+            HermitianEigenSolver.eigen3(h, val, vecRe, vecIm, ws);
+            sum += val[0];
+        }
+        return sum;
+    }
+}
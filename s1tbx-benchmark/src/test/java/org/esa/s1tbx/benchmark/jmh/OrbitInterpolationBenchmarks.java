@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.commons.OrbitInterpolator;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the precomputed OrbitInterpolator with a Lagrange interpolation done from scratch for every query,
+ * as OrbitStateVectors did before. The interpolator is shared between the benchmark threads.
+ * Scores are in ns per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class OrbitInterpolationBenchmarks {
+
+    private final static int numQueries = 100_000;
+    private final static int nv = 8;
+    private final static double secondsPerDay = 86400.0;
+
+    private final OrbitStateVector[] osv = createOrbit();
+    private final OrbitInterpolator interpolator = new OrbitInterpolator(osv);
+    private final double startTime = osv[0].time_mjd;
+    private final double timeSpan = osv[osv.length - 1].time_mjd - startTime;
+
+    private static OrbitStateVector[] createOrbit() {
+        final double radius = 7071000.0;
+        final double omega = Math.sqrt(3.986004418e14 / (radius * radius * radius));
+        final OrbitStateVector[] osv = new OrbitStateVector[60];
+        for (int i = 0; i < osv.length; ++i) {
+            final double t = i * 10.0;
+            final double a = omega * t;
+            osv[i] = new OrbitStateVector(new ProductData.UTC(7000.0 + t / secondsPerDay),
+                    radius * Math.cos(a), radius * 0.2 * Math.sin(a), radius * 0.98 * Math.sin(a),
+                    -radius * omega * Math.sin(a), radius * omega * 0.2 * Math.cos(a), radius * omega * 0.98 * Math.cos(a));
+        }
+        return osv;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numQueries)
+    public double lagrange() {
+        final double[] p = new double[3];
+        double sum = 0;
+        for (int i = 0; i < numQueries; ++i) {
+            lagrangePosition(startTime + timeSpan * i / numQueries, p);
+            sum += p[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numQueries)
+    public double interpolator() {
+        final double[] p = new double[3];
+        double sum = 0;
+        for (int i = 0; i < numQueries; ++i) {
+            interpolator.position(startTime + timeSpan * i / numQueries, p);
+            sum += p[0];
+        }
+        return sum;
+    }
+
+    private void lagrangePosition(final double time, final double[] out) {
+        final double dt = timeSpan / (osv.length - 1);
+        int i0 = Math.max((int) ((time - startTime) / dt) - nv / 2 + 1, 0);
+        final int iN = Math.min(i0 + nv - 1, osv.length - 1);
+        i0 = (iN < osv.length - 1 ? i0 : iN - nv + 1);
+
+        out[0] = out[1] = out[2] = 0;
+        for (int i = i0; i <= iN; ++i) {
+            double weight = 1;
+            for (int j = i0; j <= iN; ++j) {
+                if (j != i) {
+                    weight *= (time - osv[j].time_mjd) / (osv[i].time_mjd - osv[j].time_mjd);
+                }
+            }
+            out[0] += weight * osv[i].x_pos;
+            out[1] += weight * osv[i].y_pos;
+            out[2] += weight * osv[i].z_pos;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.csa.rstb.polarimetric.gpf.PolarimetricSpeckleFilterOp;
+import org.esa.snap.core.datamodel.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polarimetric speckle filters on a synthetic quad pol SLC product. Scores are in ns per pixel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PolarimetricSpeckleFilterBenchmarks extends AbstractOperatorBenchmark {
+
+    @Param({PolarimetricSpeckleFilterOp.BOXCAR_SPECKLE_FILTER, PolarimetricSpeckleFilterOp.REFINED_LEE_FILTER,
+            PolarimetricSpeckleFilterOp.IDAN_FILTER, PolarimetricSpeckleFilterOp.LEE_SIGMA_FILTER})
+    public String filter;
+
+    private Product sourceProduct;
+
+    @Setup(Level.Trial)
+    public void setUpProduct() {
+        sourceProduct = SyntheticProducts.createQuadPolSLC(width, height);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownProduct() {
+        sourceProduct.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void speckleFilter() {
+        final PolarimetricSpeckleFilterOp op = new PolarimetricSpeckleFilterOp();
+        op.setSourceProduct(sourceProduct);
+        op.SetFilter(filter);
+        execute(op);
+    }
+}
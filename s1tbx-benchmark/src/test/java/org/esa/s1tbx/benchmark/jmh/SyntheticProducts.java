@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.commons.io.SARReader;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.TiePointGeoCoding;
+import org.esa.snap.core.datamodel.TiePointGrid;
+import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.esa.snap.engine_utilities.eo.GeoUtils;
+import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Generated SAR products for the benchmarks, so that they need no test data.
+ * Pixel values are fully developed speckle over a smooth texture, generated from a fixed seed so that
+ * every run of a benchmark processes the same data.
+ */
+public final class SyntheticProducts {
+
+    private final static int tileSize = 512;
+    private final static int gridSize = 11;
+    private final static double nearIncidenceAngle = 30.0;
+    private final static double farIncidenceAngle = 45.0;
+    private final static double nearSlantRange = 800000.0;
+    private final static double rangeSpacing = 10.0;
+    private final static double azimuthSpacing = 10.0;
+    private final static double lineTimeInterval = 0.0015;
+    private final static ProductData.UTC firstLineTime = new ProductData.UTC(7000.0);
+
+    private final static double orbitRadius = 7071000.0;
+    private final static double orbitAngularVelocity = Math.sqrt(3.986004418e14 / (orbitRadius * orbitRadius * orbitRadius));
+    private final static double orbitLongitude = 10.0;
+    private final static double firstOrbitAngle = 46.0;
+
+    private SyntheticProducts() {
+    }
+
+    /**
+     * Ground range detected product with one amplitude band and its virtual intensity band.
+     */
+    public static Product createGRD(final int width, final int height) {
+        final Product product = createProduct("GRD", "DETECTED", width, height, true);
+        addTiePointGrids(product);
+        addAmplitudeBand(product);
+        return product;
+    }
+
+    /**
+     * Slant range detected product with one amplitude band and its virtual intensity band, seen from a
+     * synthetic orbit. Its tie point grids are located on the ellipsoid by the zero Doppler geometry of the
+     * orbit, so that the terrain correction finds every pixel where the product says it is.
+     */
+    public static Product createSlantRangeDetected(final int width, final int height) {
+        final Product product = createProduct("SRD", "DETECTED", width, height, false);
+        addOrbit(product);
+        addAmplitudeBand(product);
+        return product;
+    }
+
+    /**
+     * Quad pol single look complex product with i and q bands for HH, HV, VH and VV.
+     */
+    public static Product createQuadPolSLC(final int width, final int height) {
+        final Product product = createProduct("SLC", "COMPLEX", width, height, false);
+        addTiePointGrids(product);
+        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(product);
+        final String[] polarisations = {"HH", "HV", "VH", "VV"};
+        final double[] power = {1.0, 0.2, 0.2, 0.8};
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds1_tx_rx_polar, polarisations[0]);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds2_tx_rx_polar, polarisations[1]);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds3_tx_rx_polar, polarisations[2]);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds4_tx_rx_polar, polarisations[3]);
+
+        final Random random = new Random(42);
+        for (int p = 0; p < polarisations.length; ++p) {
+            final Band iBand = createBand(product, "i_" + polarisations[p], Unit.REAL);
+            final Band qBand = createBand(product, "q_" + polarisations[p], Unit.IMAGINARY);
+            final float[] iData = new float[width * height];
+            final float[] qData = new float[width * height];
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    final double sigma = Math.sqrt(power[p] * texture(x, y) / 2.0);
+                    iData[y * width + x] = (float) (sigma * random.nextGaussian());
+                    qData[y * width + x] = (float) (sigma * random.nextGaussian());
+                }
+            }
+            iBand.setData(ProductData.createInstance(iData));
+            qBand.setData(ProductData.createInstance(qData));
+        }
+        return product;
+    }
+
+    private static void addAmplitudeBand(final Product product) {
+        final int width = product.getSceneRasterWidth();
+        final int height = product.getSceneRasterHeight();
+        final Random random = new Random(42);
+
+        final Band band = createBand(product, "Amplitude_VV", Unit.AMPLITUDE);
+        final float[] data = new float[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                final double intensity = texture(x, y) * -Math.log(1.0 - random.nextDouble());
+                data[y * width + x] = (float) Math.sqrt(intensity);
+            }
+        }
+        band.setData(ProductData.createInstance(data));
+        SARReader.createVirtualIntensityBand(product, band, "_VV");
+    }
+
+    private static double texture(final int x, final int y) {
+        return 100.0 * (1.5 + Math.sin(x * 0.01) * Math.cos(y * 0.013));
+    }
+
+    private static Band createBand(final Product product, final String name, final String unit) {
+        final Band band = new Band(name, ProductData.TYPE_FLOAT32,
+                product.getSceneRasterWidth(), product.getSceneRasterHeight());
+        band.setUnit(unit);
+        band.setNoDataValue(0);
+        band.setNoDataValueUsed(true);
+        product.addBand(band);
+        return band;
+    }
+
+    private static Product createProduct(final String type, final String sampleType,
+                                         final int width, final int height, final boolean srgrFlag) {
+        final Product product = new Product("Synthetic_" + type, type, width, height);
+        product.setPreferredTileSize(new Dimension(tileSize, tileSize));
+        product.setStartTime(firstLineTime);
+        product.setEndTime(new ProductData.UTC(firstLineTime.getMJD() +
+                (height - 1) * lineTimeInterval / Constants.secondsInDay));
+
+        final MetadataElement root = product.getMetadataRoot();
+        final MetadataElement absRoot = AbstractMetadata.addAbstractedMetadataHeader(root);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.PRODUCT, product.getName());
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.PRODUCT_TYPE, type);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.MISSION, "ICEYE");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.SAMPLE_TYPE, sampleType);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.PASS, "ASCENDING");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.antenna_pointing, "right");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.mds1_tx_rx_polar, "VV");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.srgr_flag, srgrFlag ? 1 : 0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.radar_frequency, 9650.0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.range_spacing, rangeSpacing);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.azimuth_spacing, azimuthSpacing);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.range_looks, 1);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.azimuth_looks, 1);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.num_output_lines, height);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.num_samples_per_line, width);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.first_line_time, product.getStartTime());
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.last_line_time, product.getEndTime());
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.line_time_interval, lineTimeInterval);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.slant_range_to_first_pixel, nearSlantRange);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.incidence_near, nearIncidenceAngle);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.incidence_far, farIncidenceAngle);
+
+        final MetadataElement origRoot = AbstractMetadata.addOriginalProductMetadata(root);
+        origRoot.setAttributeDouble("calibration_factor", 1.0);
+        return product;
+    }
+
+    private static void addTiePointGrids(final Product product) {
+        final int width = product.getSceneRasterWidth();
+        final int height = product.getSceneRasterHeight();
+        final double subSamplingX = (double) (width - 1) / (gridSize - 1);
+        final double subSamplingY = (double) (height - 1) / (gridSize - 1);
+
+        final float[] lat = new float[gridSize * gridSize];
+        final float[] lon = new float[gridSize * gridSize];
+        final float[] incidenceAngle = new float[gridSize * gridSize];
+        final float[] slantRangeTime = new float[gridSize * gridSize];
+        for (int j = 0; j < gridSize; ++j) {
+            for (int i = 0; i < gridSize; ++i) {
+                final int k = j * gridSize + i;
+                final double x = i * subSamplingX;
+                final double y = j * subSamplingY;
+                lat[k] = (float) (46.0 + y * azimuthSpacing / 111000.0);
+                lon[k] = (float) (10.0 + x * rangeSpacing / 77000.0 + y * 0.000005);
+                incidenceAngle[k] = (float) (nearIncidenceAngle +
+                        (farIncidenceAngle - nearIncidenceAngle) * i / (gridSize - 1));
+                final double slantRange = nearSlantRange + x * rangeSpacing * Math.sin(incidenceAngle[k] * Constants.DTOR);
+                slantRangeTime[k] = (float) (slantRange / Constants.halfLightSpeed * Constants.oneBillion);
+            }
+        }
+
+        final TiePointGrid latGrid = createGrid(OperatorUtils.TPG_LATITUDE, subSamplingX, subSamplingY, lat, Unit.DEGREES);
+        final TiePointGrid lonGrid = createGrid(OperatorUtils.TPG_LONGITUDE, subSamplingX, subSamplingY, lon, Unit.DEGREES);
+        product.addTiePointGrid(latGrid);
+        product.addTiePointGrid(lonGrid);
+        product.addTiePointGrid(createGrid(OperatorUtils.TPG_INCIDENT_ANGLE, subSamplingX, subSamplingY,
+                incidenceAngle, Unit.DEGREES));
+        product.addTiePointGrid(createGrid(OperatorUtils.TPG_SLANT_RANGE_TIME, subSamplingX, subSamplingY,
+                slantRangeTime, Unit.NANOSECONDS));
+        product.setSceneGeoCoding(new TiePointGeoCoding(latGrid, lonGrid));
+    }
+
+    /**
+     * Adds the state vectors of a circular polar orbit in the meridian plane of orbitLongitude, going north
+     * over the scene and looking east, and the tie point grids of the ground points it sees at zero Doppler.
+     */
+    private static void addOrbit(final Product product) {
+        final int width = product.getSceneRasterWidth();
+        final int height = product.getSceneRasterHeight();
+        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(product);
+
+        // state vectors every 10 seconds from a minute before the first line to a minute after it
+        final OrbitStateVector[] orbitStateVectors = new OrbitStateVector[13];
+        for (int i = 0; i < orbitStateVectors.length; ++i) {
+            final double time = (i - 6) * 10.0;
+            final double[] position = getSensorPosition(time);
+            final double[] velocity = getSensorVelocity(time);
+            orbitStateVectors[i] = new OrbitStateVector(
+                    new ProductData.UTC(firstLineTime.getMJD() + time / Constants.secondsInDay),
+                    position[0], position[1], position[2], velocity[0], velocity[1], velocity[2]);
+        }
+        AbstractMetadata.setOrbitStateVectors(absRoot, orbitStateVectors);
+
+        final double subSamplingX = (double) (width - 1) / (gridSize - 1);
+        final double subSamplingY = (double) (height - 1) / (gridSize - 1);
+        final float[] lat = new float[gridSize * gridSize];
+        final float[] lon = new float[gridSize * gridSize];
+        final float[] incidenceAngle = new float[gridSize * gridSize];
+        final float[] slantRangeTime = new float[gridSize * gridSize];
+        final GeoPos geoPos = new GeoPos();
+        for (int j = 0; j < gridSize; ++j) {
+            for (int i = 0; i < gridSize; ++i) {
+                final int k = j * gridSize + i;
+                final double time = j * subSamplingY * lineTimeInterval;
+                final double slantRange = nearSlantRange + i * subSamplingX * rangeSpacing;
+                final double[] sensorPos = getSensorPosition(time);
+                final double[] earthPoint = getEarthPoint(time, slantRange);
+
+                GeoUtils.xyz2geo(earthPoint, geoPos, GeoUtils.EarthModel.WGS84);
+                lat[k] = (float) geoPos.lat;
+                lon[k] = (float) geoPos.lon;
+                incidenceAngle[k] = (float) getIncidenceAngle(earthPoint, sensorPos);
+                slantRangeTime[k] = (float) (slantRange / Constants.halfLightSpeed * Constants.oneBillion);
+            }
+        }
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.incidence_near, incidenceAngle[0]);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.incidence_far, incidenceAngle[gridSize - 1]);
+
+        final TiePointGrid latGrid = createGrid(OperatorUtils.TPG_LATITUDE, subSamplingX, subSamplingY, lat, Unit.DEGREES);
+        final TiePointGrid lonGrid = createGrid(OperatorUtils.TPG_LONGITUDE, subSamplingX, subSamplingY, lon, Unit.DEGREES);
+        product.addTiePointGrid(latGrid);
+        product.addTiePointGrid(lonGrid);
+        product.addTiePointGrid(createGrid(OperatorUtils.TPG_INCIDENT_ANGLE, subSamplingX, subSamplingY,
+                incidenceAngle, Unit.DEGREES));
+        product.addTiePointGrid(createGrid(OperatorUtils.TPG_SLANT_RANGE_TIME, subSamplingX, subSamplingY,
+                slantRangeTime, Unit.NANOSECONDS));
+        product.setSceneGeoCoding(new TiePointGeoCoding(latGrid, lonGrid));
+    }
+
+    /**
+     * Angle of the orbit from the equator at the time in seconds from the first line.
+     */
+    private static double getOrbitAngle(final double time) {
+        return firstOrbitAngle * Constants.DTOR + orbitAngularVelocity * time;
+    }
+
+    private static double[] getSensorPosition(final double time) {
+        final double a = getOrbitAngle(time);
+        final double lambda = orbitLongitude * Constants.DTOR;
+        return new double[]{orbitRadius * Math.cos(a) * Math.cos(lambda), orbitRadius * Math.cos(a) * Math.sin(lambda),
+                orbitRadius * Math.sin(a)};
+    }
+
+    private static double[] getSensorVelocity(final double time) {
+        final double a = getOrbitAngle(time);
+        final double lambda = orbitLongitude * Constants.DTOR;
+        final double speed = orbitRadius * orbitAngularVelocity;
+        return new double[]{-speed * Math.sin(a) * Math.cos(lambda), -speed * Math.sin(a) * Math.sin(lambda),
+                speed * Math.cos(a)};
+    }
+
+    /**
+     * Point of the ellipsoid at the slant range east of the sensor, in the zero Doppler plane of the time.
+     * The plane holds the centre of the earth, so the point is p * u + q * e with u the direction of the sensor
+     * and e the east of the orbit plane, and p solves the quadratic from the ellipsoid and the slant range.
+     */
+    private static double[] getEarthPoint(final double time, final double slantRange) {
+        final double a = getOrbitAngle(time);
+        final double lambda = orbitLongitude * Constants.DTOR;
+        final double a2 = Constants.semiMajorAxis * Constants.semiMajorAxis;
+        final double b2 = Constants.semiMinorAxis * Constants.semiMinorAxis;
+        final double sinA = Math.sin(a);
+
+        final double c2 = sinA * sinA * (1.0 / b2 - 1.0 / a2);
+        final double c1 = 2.0 * orbitRadius / a2;
+        final double c0 = (slantRange * slantRange - orbitRadius * orbitRadius) / a2 - 1.0;
+        final double p = -2.0 * c0 / (c1 + Math.sqrt(c1 * c1 - 4.0 * c2 * c0));
+        final double q = Math.sqrt(slantRange * slantRange - (orbitRadius - p) * (orbitRadius - p));
+
+        return new double[]{p * Math.cos(a) * Math.cos(lambda) - q * Math.sin(lambda),
+                p * Math.cos(a) * Math.sin(lambda) + q * Math.cos(lambda),
+                p * sinA};
+    }
+
+    /**
+     * Angle in degrees between the normal of the ellipsoid at the earth point and the direction to the sensor.
+     */
+    private static double getIncidenceAngle(final double[] earthPoint, final double[] sensorPos) {
+        final double a2 = Constants.semiMajorAxis * Constants.semiMajorAxis;
+        final double b2 = Constants.semiMinorAxis * Constants.semiMinorAxis;
+        final double[] normal = {earthPoint[0] / a2, earthPoint[1] / a2, earthPoint[2] / b2};
+        final double[] look = {sensorPos[0] - earthPoint[0], sensorPos[1] - earthPoint[1], sensorPos[2] - earthPoint[2]};
+        final double dot = normal[0] * look[0] + normal[1] * look[1] + normal[2] * look[2];
+        final double normalLength = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+        final double lookLength = Math.sqrt(look[0] * look[0] + look[1] * look[1] + look[2] * look[2]);
+        return Math.acos(dot / (normalLength * lookLength)) * Constants.RTOD;
+    }
+
+    private static TiePointGrid createGrid(final String name, final double subSamplingX, final double subSamplingY,
+                                           final float[] data, final String unit) {
+        final TiePointGrid grid = new TiePointGrid(name, gridSize, gridSize, 0.5, 0.5, subSamplingX, subSamplingY, data);
+        grid.setUnit(unit);
+        return grid;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.OrbitStateVectors;
+import org.esa.s1tbx.commons.SARGeocoding;
+import org.esa.s1tbx.commons.ZeroDopplerSolver;
+import org.esa.s1tbx.sar.gpf.geometric.RangeDopplerGeocodingOp;
+import org.esa.snap.core.dataio.ProductIO;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.VirtualBand;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.esa.snap.engine_utilities.eo.GeoUtils;
+import org.esa.snap.engine_utilities.eo.LocalGeometry;
+import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+import org.esa.snap.engine_utilities.gpf.TileGeoreferencing;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per pixel kernels of the terrain correction on one 512x512 output tile: the local incidence angle with
+ * LocalGeometry and with the allocation free workspace, and the zero Doppler time by the scene wide search
+ * and by the per tile solver. The whole tile loop of RangeDopplerGeocodingOp runs on a tile of the same size,
+ * over a synthetic slant range product and a synthetic DEM written as GeoTIFF.
+ * Scores are in ns per pixel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TerrainCorrectionKernelBenchmarks {
+
+    private static final int tileSize = 512;
+    private static final int numPixels = tileSize * tileSize;
+    private static final double demNoDataValue = 0.0;
+
+    private static final double secondsPerDay = 86400.0;
+    private static final double orbitRadius = 7071000.0;
+    private static final double earthRadius = 6371000.0;
+    private static final double omega = Math.sqrt(3.986004418e14 / (orbitRadius * orbitRadius * orbitRadius));
+    private static final double t0 = 7000.0;
+    private static final double wavelength = 0.0555;
+    private static final double firstLineUTC = t0 + 50.0 / secondsPerDay;
+    private static final double lineTimeInterval = 0.01 / secondsPerDay;
+    private static final int numLines = 10000;
+    private static final int firstTileLine = 4000;
+
+    private TileGeoreferencing tileGeoRef;
+    private final double[][] localDEM = new double[tileSize + 2][tileSize + 2];
+
+    private OrbitStateVectors orbit;
+    private final PosVector[] earthPoints = new PosVector[numPixels];
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final Product product = new Product("kernel", "kernel", tileSize + 2, tileSize + 2);
+        product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, tileSize + 2, tileSize + 2,
+                10.0, 46.0, 0.0002, 0.0002));
+        tileGeoRef = new TileGeoreferencing(product, 0, 0, tileSize + 2, tileSize + 2);
+
+        final Random random = new Random(42);
+        for (double[] line : localDEM) {
+            for (int x = 0; x < line.length; ++x) {
+                line[x] = 200.0 + 800.0 * random.nextDouble();
+            }
+        }
+
+        // circular orbit in the x-z plane with state vectors every 10 seconds
+        final OrbitStateVector[] osv = new OrbitStateVector[21];
+        for (int i = 0; i < osv.length; ++i) {
+            final double t = i * 10.0;
+            final double a = omega * t;
+            osv[i] = new OrbitStateVector(new ProductData.UTC(t0 + t / secondsPerDay),
+                    orbitRadius * Math.cos(a), 0.0, orbitRadius * Math.sin(a),
+                    -orbitRadius * omega * Math.sin(a), 0.0, orbitRadius * omega * Math.cos(a));
+        }
+        orbit = new OrbitStateVectors(osv, firstLineUTC, lineTimeInterval, numLines);
+
+        // earth points of the tile in scan order, seen at zero Doppler from the lines of the tile
+        for (int y = 0; y < tileSize; ++y) {
+            for (int x = 0; x < tileSize; ++x) {
+                final double a = omega * (50.0 + (firstTileLine + y) * 0.01);
+                final double lateralAngle = 0.05 + x * 0.00005;
+                final int i = y * tileSize + x;
+                earthPoints[i] = new PosVector(earthRadius * Math.cos(a) * Math.cos(lateralAngle),
+                        earthRadius * Math.sin(lateralAngle),
+                        earthRadius * Math.sin(a) * Math.cos(lateralAngle));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public double localIncidenceAngle_localGeometry() {
+        return computeLocalIncidenceAngles(false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public double localIncidenceAngle_workspace() {
+        return computeLocalIncidenceAngles(true);
+    }
+
+    private double computeLocalIncidenceAngles(final boolean useWorkspace) {
+        final SARGeocoding.LocalIncidenceAngleWorkspace ws = new SARGeocoding.LocalIncidenceAngleWorkspace();
+        final double[] localIncidenceAngles = new double[2];
+        final GeoPos geoPos = new GeoPos();
+        final PosVector earthPoint = new PosVector();
+        final PosVector sensorPos = new PosVector();
+        final int x0 = 1, y0 = 1;
+
+        double sum = 0;
+        for (int y = y0; y < y0 + tileSize; ++y) {
+            for (int x = x0; x < x0 + tileSize; ++x) {
+                tileGeoRef.getGeoPos(x, y, geoPos);
+                GeoUtils.geo2xyzWGS84(geoPos.lat, geoPos.lon, localDEM[y - y0 + 1][x - x0 + 1], earthPoint);
+                GeoUtils.geo2xyzWGS84(geoPos.lat + 0.5, geoPos.lon - 4.0, 700000.0, sensorPos);
+
+                localIncidenceAngles[0] = SARGeocoding.NonValidIncidenceAngle;
+                localIncidenceAngles[1] = SARGeocoding.NonValidIncidenceAngle;
+                if (useWorkspace) {
+                    SARGeocoding.computeLocalIncidenceAngle(x, y, tileGeoRef, earthPoint, sensorPos, demNoDataValue,
+                            true, true, true, x0, y0, localDEM, localIncidenceAngles, ws);
+                } else {
+                    final LocalGeometry lg = new LocalGeometry(x, y, tileGeoRef, earthPoint, sensorPos);
+                    SARGeocoding.computeLocalIncidenceAngle(lg, demNoDataValue, true, true, true,
+                            x0, y0, x, y, localDEM, localIncidenceAngles);
+                }
+                sum += localIncidenceAngles[1];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public double zeroDopplerTime_search() {
+        final PosVector sensorPos = new PosVector();
+        double sum = 0;
+        for (PosVector earthPoint : earthPoints) {
+            final double time = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval,
+                    wavelength, earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
+            sum += SARGeocoding.computeSlantRange(time, orbit, earthPoint, sensorPos);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public double zeroDopplerTime_solver() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + firstTileLine * lineTimeInterval,
+                firstLineUTC + (firstTileLine + tileSize) * lineTimeInterval);
+        final PosVector sensorPos = new PosVector();
+        double sum = 0;
+        for (PosVector earthPoint : earthPoints) {
+            final double time = solver.getZeroDopplerTime(earthPoint);
+            sum += solver.computeSlantRange(time, earthPoint, sensorPos);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(numPixels)
+    public void rangeDopplerTile(final RangeDopplerTile state) {
+        state.op.computeTileStack(state.targetTiles, state.targetRectangle, ProgressMonitor.NULL);
+    }
+
+    /**
+     * Range-Doppler terrain correction of a synthetic slant range product on a synthetic external DEM, with the
+     * local and projected local incidence angles. The target tiles of one 512x512 rectangle in the middle of the
+     * target product are computed by the operator directly, without the tile cache and scheduler of GPF.
+     */
+    @State(Scope.Thread)
+    public static class RangeDopplerTile {
+
+        private static final int sourceWidth = 1024;
+        private static final int sourceHeight = 2048;
+        private static final double demSpacing = 0.0005;
+        private static final double demMargin = 0.05;
+
+        private File demFile;
+        private Product sourceProduct;
+        private RangeDopplerGeocodingOp op;
+        private Rectangle targetRectangle;
+        private final Map<Band, Tile> targetTiles = new HashMap<>();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            sourceProduct = SyntheticProducts.createSlantRangeDetected(sourceWidth, sourceHeight);
+            demFile = Files.createTempFile("s1tbx-benchmark-dem", ".tif").toFile();
+            writeDEM(sourceProduct, demFile);
+
+            op = new RangeDopplerGeocodingOp();
+            op.setSourceProduct(sourceProduct);
+            op.setParameter("demName", "External DEM");
+            op.setParameter("externalDEMFile", demFile);
+            op.setParameter("externalDEMApplyEGM", false);
+            op.setParameter("saveLocalIncidenceAngle", true);
+            op.setParameter("saveProjectedLocalIncidenceAngle", true);
+            final Product targetProduct = op.getTargetProduct();
+
+            targetRectangle = new Rectangle((targetProduct.getSceneRasterWidth() - tileSize) / 2,
+                    (targetProduct.getSceneRasterHeight() - tileSize) / 2, tileSize, tileSize);
+            for (Band band : targetProduct.getBands()) {
+                if (band instanceof VirtualBand) {
+                    continue;
+                }
+                final SampleModel sampleModel = band.getSourceImage().getSampleModel()
+                        .createCompatibleSampleModel(tileSize, tileSize);
+                targetTiles.put(band, new TileImpl(band,
+                        Raster.createWritableRaster(sampleModel, targetRectangle.getLocation())));
+            }
+
+            // the middle of the target product has to be seen by the synthetic orbit
+            op.computeTileStack(targetTiles, targetRectangle, ProgressMonitor.NULL);
+            final int x = targetRectangle.x + tileSize / 2;
+            final int y = targetRectangle.y + tileSize / 2;
+            for (Map.Entry<Band, Tile> entry : targetTiles.entrySet()) {
+                if (entry.getValue().getSampleDouble(x, y) == entry.getKey().getNoDataValue()) {
+                    throw new IllegalStateException("No " + entry.getKey().getName() + " in the middle of the tile");
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            op.dispose();
+            sourceProduct.dispose();
+            demFile.delete();
+        }
+
+        /**
+         * Writes a DEM of smooth hills covering the tie point grids of the product with a margin.
+         */
+        private static void writeDEM(final Product product, final File file) throws Exception {
+            double latMin = 90.0, latMax = -90.0, lonMin = 180.0, lonMax = -180.0;
+            final float[] lats = product.getTiePointGrid(OperatorUtils.TPG_LATITUDE).getTiePoints();
+            final float[] lons = product.getTiePointGrid(OperatorUtils.TPG_LONGITUDE).getTiePoints();
+            for (int i = 0; i < lats.length; ++i) {
+                latMin = Math.min(latMin, lats[i]);
+                latMax = Math.max(latMax, lats[i]);
+                lonMin = Math.min(lonMin, lons[i]);
+                lonMax = Math.max(lonMax, lons[i]);
+            }
+            latMax += demMargin;
+            lonMin -= demMargin;
+            final int w = (int) Math.ceil((lonMax - lonMin + demMargin) / demSpacing);
+            final int h = (int) Math.ceil((latMax - latMin + demMargin) / demSpacing);
+
+            final Product dem = new Product("dem", "DEM", w, h);
+            dem.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, w, h, lonMin, latMax,
+                    demSpacing, demSpacing));
+            final float[] elevation = new float[w * h];
+            for (int y = 0; y < h; ++y) {
+                for (int x = 0; x < w; ++x) {
+                    elevation[y * w + x] = (float) (500.0 + 300.0 * Math.sin(x * 0.02) * Math.cos(y * 0.015));
+                }
+            }
+            final Band band = dem.addBand("elevation", ProductData.TYPE_FLOAT32);
+            band.setData(ProductData.createInstance(elevation));
+            ProductIO.writeProduct(dem, file, "GeoTIFF", false);
+            dem.dispose();
+        }
+    }
+}
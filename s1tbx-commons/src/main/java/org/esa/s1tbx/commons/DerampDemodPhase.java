@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.apache.commons.math3.util.FastMath;
+import org.esa.snap.engine_utilities.eo.Constants;
+
+import java.awt.*;
+
+/**
+ * Deramp and demodulation phase of a TOPS burst.
+ * The deramp phase -pi * kt(x) * (ta - tref(x))^2 and the demodulation phase -2pi * fdc(x) * ta are quadratic in the
+ * azimuth time ta within the burst, so the phase of the burst is held as three range dependent coefficients
+ * phase(x, y) = (a(x) * ta + b(x)) * ta + c(x) instead of a phase plane.
+ * <p>
+ * Deramp and demodulation is applied in place to I/Q arrays. Along azimuth the phase increment of a quadratic
+ * phase changes by a constant, so the complex rotation of a line is updated from the previous line by two complex
+ * multiplications and is only computed with sin/cos every {@value #ANCHOR_LINES} lines.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class DerampDemodPhase {
+
+    private static final int ANCHOR_LINES = 32;
+
+    private final int firstLineInBurst;
+    private final double azimuthTimeInterval;
+    private final double[] a;
+    private final double[] b;
+    private final double[] c;
+
+    /**
+     * @param subSwath   the sub-swath with the Doppler rate, reference time and Doppler centroid of its bursts
+     * @param burstIndex the burst
+     * @param deramp     include the deramp phase
+     * @param demod      include the demodulation phase
+     */
+    public DerampDemodPhase(final Sentinel1Utils.SubSwathInfo subSwath, final int burstIndex,
+                            final boolean deramp, final boolean demod) {
+        this.firstLineInBurst = burstIndex * subSwath.linesPerBurst;
+        this.azimuthTimeInterval = subSwath.azimuthTimeInterval;
+
+        final int width = subSwath.samplesPerBurst;
+        a = new double[width];
+        b = new double[width];
+        c = new double[width];
+        for (int x = 0; x < width; x++) {
+            if (deramp) {
+                // -pi * kt * (ta - tref)^2
+                final double kt = subSwath.dopplerRate[burstIndex][x];
+                final double tref = subSwath.referenceTime[burstIndex][x];
+                a[x] = -Constants.PI * kt;
+                b[x] = Constants.TWO_PI * kt * tref;
+                c[x] = -Constants.PI * kt * tref * tref;
+            }
+            if (demod) {
+                // -2pi * fdc * ta
+                b[x] += -Constants.TWO_PI * subSwath.dopplerCentroid[burstIndex][x];
+            }
+        }
+    }
+
+    private double getAzimuthTime(final int y) {
+        return (y - firstLineInBurst) * azimuthTimeInterval;
+    }
+
+    /**
+     * @return the phase at the given pixel of the sub-swath
+     */
+    public double getPhase(final int x, final int y) {
+        final double ta = getAzimuthTime(y);
+        return (a[x] * ta + b[x]) * ta + c[x];
+    }
+
+    /**
+     * @return the phase of the pixels of a rectangle
+     */
+    public double[][] getPhase(final Rectangle rectangle) {
+        final int x0 = rectangle.x;
+        final int w = rectangle.width;
+        final double[][] phase = new double[rectangle.height][w];
+        for (int yy = 0; yy < rectangle.height; yy++) {
+            final double ta = getAzimuthTime(rectangle.y + yy);
+            final double[] line = phase[yy];
+            for (int xx = 0; xx < w; xx++) {
+                final int x = x0 + xx;
+                line[xx] = (a[x] * ta + b[x]) * ta + c[x];
+            }
+        }
+        return phase;
+    }
+
+    /**
+     * Deramp and demodulate the samples of a rectangle in place, (i + jq) * exp(j * phase).
+     *
+     * @param rectangle the rectangle of the samples in the sub-swath
+     * @param i         the real part [line][pixel] of the rectangle
+     * @param q         the imaginary part [line][pixel] of the rectangle
+     */
+    public void apply(final Rectangle rectangle, final double[][] i, final double[][] q) {
+        rotate(rectangle, i, q, 1.0);
+    }
+
+    /**
+     * Reramp and remodulate the samples of a rectangle in place, (i + jq) * exp(-j * phase).
+     *
+     * @param rectangle the rectangle of the samples in the sub-swath
+     * @param i         the real part [line][pixel] of the rectangle
+     * @param q         the imaginary part [line][pixel] of the rectangle
+     */
+    public void remove(final Rectangle rectangle, final double[][] i, final double[][] q) {
+        rotate(rectangle, i, q, -1.0);
+    }
+
+    private void rotate(final Rectangle rectangle, final double[][] i, final double[][] q, final double sign) {
+        final int x0 = rectangle.x;
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        final double dt = azimuthTimeInterval;
+
+        // rotation of the current line, its increment to the next line and the constant change of the increment
+        final double[] rotRe = new double[w], rotIm = new double[w];
+        final double[] stepRe = new double[w], stepIm = new double[w];
+        final double[] ddRe = new double[w], ddIm = new double[w];
+        for (int xx = 0; xx < w; xx++) {
+            final double dd = sign * 2.0 * a[x0 + xx] * dt * dt;
+            ddRe[xx] = FastMath.cos(dd);
+            ddIm[xx] = FastMath.sin(dd);
+        }
+
+        for (int yy = 0; yy < h; yy++) {
+            if (yy % ANCHOR_LINES == 0) {
+                final double ta = getAzimuthTime(rectangle.y + yy);
+                for (int xx = 0; xx < w; xx++) {
+                    final int x = x0 + xx;
+                    final double phase = sign * ((a[x] * ta + b[x]) * ta + c[x]);
+                    final double step = sign * (a[x] * (2.0 * ta + dt) + b[x]) * dt;
+                    rotRe[xx] = FastMath.cos(phase);
+                    rotIm[xx] = FastMath.sin(phase);
+                    stepRe[xx] = FastMath.cos(step);
+                    stepIm[xx] = FastMath.sin(step);
+                }
+            }
+
+            final double[] lineI = i[yy];
+            final double[] lineQ = q[yy];
+            for (int xx = 0; xx < w; xx++) {
+                final double re = rotRe[xx], im = rotIm[xx];
+                final double valueI = lineI[xx];
+                final double valueQ = lineQ[xx];
+                lineI[xx] = valueI * re - valueQ * im;
+                lineQ[xx] = valueI * im + valueQ * re;
+
+                final double sRe = stepRe[xx], sIm = stepIm[xx];
+                rotRe[xx] = re * sRe - im * sIm;
+                rotIm[xx] = re * sIm + im * sRe;
+                stepRe[xx] = sRe * ddRe[xx] - sIm * ddIm[xx];
+                stepIm[xx] = sRe * ddIm[xx] + sIm * ddRe[xx];
+            }
+        }
+    }
+}
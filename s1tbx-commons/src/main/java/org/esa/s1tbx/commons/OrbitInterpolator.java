@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+
+/**
+ * Immutable Lagrange interpolator of orbit state vectors.
+ * For every window of nv consecutive state vectors the interpolating polynomials of the position and velocity
+ * are computed once, in the monomial basis of a normalised time, so that an interpolation is a Horner evaluation.
+ * The window used for a given time is the same as in the original OrbitStateVectors interpolation.
+ * <p>
+ * Instances hold no mutable state and can be shared between threads.
+ */
+public final class OrbitInterpolator {
+
+    static final int nv = 8;
+
+    private final double firstTime;
+    private final double dt;
+    private final int numVectors;
+    private final int order;              // number of coefficients per polynomial
+    private final double[] windowCentre;  // centre time of each window
+    private final double[] windowScale;   // 1 / half span of each window
+    private final double[][] coef;        // [window][component * order + k], components x, y, z, vx, vy, vz
+
+    public OrbitInterpolator(final OrbitStateVector[] orbitStateVectors) {
+        this.numVectors = orbitStateVectors.length;
+        this.firstTime = orbitStateVectors[0].time_mjd;
+        this.dt = numVectors > 1 ?
+                (orbitStateVectors[numVectors - 1].time_mjd - firstTime) / (numVectors - 1) : 0.0;
+        this.order = Math.min(nv, numVectors);
+
+        final int numWindows = numVectors <= nv ? 1 : numVectors - nv + 1;
+        windowCentre = new double[numWindows];
+        windowScale = new double[numWindows];
+        coef = new double[numWindows][6 * order];
+
+        final double[] s = new double[order];
+        final double[] values = new double[order];
+        for (int w = 0; w < numWindows; ++w) {
+            final double t0 = orbitStateVectors[w].time_mjd;
+            final double tN = orbitStateVectors[w + order - 1].time_mjd;
+            windowCentre[w] = (t0 + tN) / 2.0;
+            windowScale[w] = order > 1 ? 2.0 / (tN - t0) : 1.0;
+            for (int i = 0; i < order; ++i) {
+                s[i] = (orbitStateVectors[w + i].time_mjd - windowCentre[w]) * windowScale[w];
+            }
+
+            for (int c = 0; c < 6; ++c) {
+                for (int i = 0; i < order; ++i) {
+                    values[i] = component(orbitStateVectors[w + i], c);
+                }
+                toMonomial(s, values, coef[w], c * order);
+            }
+        }
+    }
+
+    private static double component(final OrbitStateVector osv, final int c) {
+        switch (c) {
+            case 0:
+                return osv.x_pos;
+            case 1:
+                return osv.y_pos;
+            case 2:
+                return osv.z_pos;
+            case 3:
+                return osv.x_vel;
+            case 4:
+                return osv.y_vel;
+            default:
+                return osv.z_vel;
+        }
+    }
+
+    /**
+     * Interpolating polynomial through (s[i], values[i]) in the monomial basis, from the Newton divided differences.
+     */
+    private static void toMonomial(final double[] s, final double[] values, final double[] out, final int offset) {
+        final int n = s.length;
+        final double[] dd = values.clone();
+        for (int j = 1; j < n; ++j) {
+            for (int i = n - 1; i >= j; --i) {
+                dd[i] = (dd[i] - dd[i - 1]) / (s[i] - s[i - j]);
+            }
+        }
+
+        // expand dd[0] + (x - s0)(dd[1] + (x - s1)(dd[2] + ...)) from the innermost term
+        final double[] p = new double[n];
+        p[0] = dd[n - 1];
+        int degree = 0;
+        for (int i = n - 2; i >= 0; --i) {
+            // p = p * (x - s[i]) + dd[i]
+            for (int k = degree + 1; k > 0; --k) {
+                p[k] = p[k - 1] - s[i] * p[k];
+            }
+            p[0] = dd[i] - s[i] * p[0];
+            ++degree;
+        }
+        System.arraycopy(p, 0, out, offset, n);
+    }
+
+    private int getWindow(final double time) {
+        if (numVectors <= nv) {
+            return 0;
+        }
+        int i0 = Math.max((int) ((time - firstTime) / dt) - nv / 2 + 1, 0);
+        final int iN = Math.min(i0 + nv - 1, numVectors - 1);
+        i0 = (iN < numVectors - 1 ? i0 : iN - nv + 1);
+        return i0;
+    }
+
+    private double evaluate(final double[] c, final double s, final int component) {
+        final int offset = component * order;
+        double v = c[offset + order - 1];
+        for (int k = order - 2; k >= 0; --k) {
+            v = v * s + c[offset + k];
+        }
+        return v;
+    }
+
+    /**
+     * Sensor position at the given time.
+     *
+     * @param time The time in days (MJD).
+     * @param out  The x, y, z position in meters.
+     */
+    public void position(final double time, final double[] out) {
+        final int w = getWindow(time);
+        final double s = (time - windowCentre[w]) * windowScale[w];
+        out[0] = evaluate(coef[w], s, 0);
+        out[1] = evaluate(coef[w], s, 1);
+        out[2] = evaluate(coef[w], s, 2);
+    }
+
+    /**
+     * Sensor velocity at the given time.
+     *
+     * @param time The time in days (MJD).
+     * @param out  The x, y, z velocity in meters per second.
+     */
+    public void velocity(final double time, final double[] out) {
+        final int w = getWindow(time);
+        final double s = (time - windowCentre[w]) * windowScale[w];
+        out[0] = evaluate(coef[w], s, 3);
+        out[1] = evaluate(coef[w], s, 4);
+        out[2] = evaluate(coef[w], s, 5);
+    }
+
+    public PosVector position(final double time, final PosVector out) {
+        final int w = getWindow(time);
+        final double s = (time - windowCentre[w]) * windowScale[w];
+        out.x = evaluate(coef[w], s, 0);
+        out.y = evaluate(coef[w], s, 1);
+        out.z = evaluate(coef[w], s, 2);
+        return out;
+    }
+
+    public PosVector velocity(final double time, final PosVector out) {
+        final int w = getWindow(time);
+        final double s = (time - windowCentre[w]) * windowScale[w];
+        out.x = evaluate(coef[w], s, 3);
+        out.y = evaluate(coef[w], s, 4);
+        out.z = evaluate(coef[w], s, 5);
+        return out;
+    }
+}
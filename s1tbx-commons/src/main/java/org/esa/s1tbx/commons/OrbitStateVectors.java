@@ -4,27 +4,20 @@ import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public final class OrbitStateVectors {
 
     public OrbitStateVector[] orbitStateVectors = null;
     public PosVector[] sensorPosition = null; // sensor position for all range lines
     public PosVector[] sensorVelocity = null; // sensor velocity for all range lines
-    private double dt = 0.0;
-    private final Map<Double, PositionVelocity> timeMap = new HashMap<>();
-
-    private static final int nv = 8;
+    private OrbitInterpolator interpolator = null;
 
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors,
                              final double firstLineUTC, final double lineTimeInterval, final int sourceImageHeight) {
         if(orbitStateVectors != null && orbitStateVectors.length > 0) {
             this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
-
-            this.dt = (this.orbitStateVectors[this.orbitStateVectors.length - 1].time_mjd -
-                    this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+            this.interpolator = new OrbitInterpolator(this.orbitStateVectors);
 
             this.sensorPosition = new PosVector[sourceImageHeight];
             this.sensorVelocity = new PosVector[sourceImageHeight];
@@ -40,9 +33,14 @@ public final class OrbitStateVectors {
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors) {
 
         this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
+        this.interpolator = new OrbitInterpolator(this.orbitStateVectors);
+    }
 
-        this.dt = (this.orbitStateVectors[orbitStateVectors.length - 1].time_mjd -
-                this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+    /**
+     * @return the immutable interpolator of the orbit, safe to share between threads
+     */
+    public OrbitInterpolator getInterpolator() {
+        return interpolator;
     }
 
     private static OrbitStateVector[] removeRedundantVectors(OrbitStateVector[] orbitStateVectors) {
@@ -62,114 +60,19 @@ public final class OrbitStateVectors {
         return vectorList.toArray(new OrbitStateVector[0]);
     }
 
-    public PositionVelocity getPositionVelocity(final Double time) {
-
-        PositionVelocity cachedPosVel = timeMap.get(time);
-        if(cachedPosVel != null) {
-            return cachedPosVel;
-        }
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
+    public PositionVelocity getPositionVelocity(final double time) {
         final PositionVelocity pv = new PositionVelocity();
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-
-            pv.position.x += weight * orbI.x_pos;
-            pv.position.y += weight * orbI.y_pos;
-            pv.position.z += weight * orbI.z_pos;
-
-            pv.velocity.x += weight * orbI.x_vel;
-            pv.velocity.y += weight * orbI.y_vel;
-            pv.velocity.z += weight * orbI.z_vel;
-        }
-
-        timeMap.put(time, pv);
+        interpolator.position(time, pv.position);
+        interpolator.velocity(time, pv.velocity);
         return pv;
     }
 
     PosVector getPosition(final double time, final PosVector position) {
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        position.x = 0;
-        position.y = 0;
-        position.z = 0;
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-            position.x += weight * orbI.x_pos;
-            position.y += weight * orbI.y_pos;
-            position.z += weight * orbI.z_pos;
-        }
-        return position;
+        return interpolator.position(time, position);
     }
 
     PosVector getVelocity(final double time) {
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        final PosVector velocity = new PosVector();
-
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
-            }
-            velocity.x += weight * orbI.x_vel;
-            velocity.y += weight * orbI.y_vel;
-            velocity.z += weight * orbI.z_vel;
-        }
-        return velocity;
+        return interpolator.velocity(time, new PosVector());
     }
 
     private int[] findAdjacentVectors(final double time) {
@@ -647,6 +647,142 @@ public final class SARGeocoding {
         }
     }
 
+    /**
+     * Compute local incidence angle and projected local incidence angle (in degree) without allocating.
+     * Gives the same result as computeLocalIncidenceAngle(LocalGeometry, ...) with a LocalGeometry built
+     * for pixel (x, y), but takes the neighbouring geo positions straight from the tile georeferencing and
+     * keeps all intermediate vectors in the given workspace so that it can be called once per output pixel.
+     *
+     * @param x                                The x coordinate of the current pixel.
+     * @param y                                The y coordinate of the current pixel.
+     * @param tileGeoRef                       The tile georeferencing.
+     * @param earthPoint                       The earth point of the current pixel.
+     * @param sensorPos                        The sensor position for the current pixel.
+     * @param demNoDataValue                   The DEM no data value.
+     * @param saveLocalIncidenceAngle          Boolean flag indicating saving local incidence angle.
+     * @param saveProjectedLocalIncidenceAngle Boolean flag indicating saving projected local incidence angle.
+     * @param saveSigmaNought                  Boolean flag indicating applying radiometric calibration.
+     * @param x0                               The x coordinate of the pixel at the upper left corner of current tile.
+     * @param y0                               The y coordinate of the pixel at the upper left corner of current tile.
+     * @param localDEM                         The local DEM.
+     * @param localIncidenceAngles             The local incidence angle and projected local incidence angle.
+     * @param ws                               Scratch space, one per thread.
+     */
+    public static void computeLocalIncidenceAngle(
+            final int x, final int y, final TileGeoreferencing tileGeoRef, final PosVector earthPoint,
+            final PosVector sensorPos, final double demNoDataValue, final boolean saveLocalIncidenceAngle,
+            final boolean saveProjectedLocalIncidenceAngle, final boolean saveSigmaNought, final int x0,
+            final int y0, final double[][] localDEM, final double[] localIncidenceAngles,
+            final LocalIncidenceAngleWorkspace ws) {
+
+        for (int i = 0; i < 3; i++) {
+            final double[] demLine = localDEM[y - y0 + i];
+            for (int j = 0; j < 3; j++) {
+                if (isNoDataValue(demLine[x - x0 + j], demNoDataValue)) {
+                    return;
+                }
+            }
+        }
+
+        final int yy = y - y0;
+        final int xx = x - x0;
+        final double rightPointHeight = (localDEM[yy][xx + 2] +
+                localDEM[yy + 1][xx + 2] +
+                localDEM[yy + 2][xx + 2]) / 3.0;
+
+        final double leftPointHeight = (localDEM[yy][xx] +
+                localDEM[yy + 1][xx] +
+                localDEM[yy + 2][xx]) / 3.0;
+
+        final double upPointHeight = (localDEM[yy][xx] +
+                localDEM[yy][xx + 1] +
+                localDEM[yy][xx + 2]) / 3.0;
+
+        final double downPointHeight = (localDEM[yy + 2][xx] +
+                localDEM[yy + 2][xx + 1] +
+                localDEM[yy + 2][xx + 2]) / 3.0;
+
+        final GeoPos geo = ws.geo;
+        final PosVector rightPoint = ws.rightPoint;
+        final PosVector leftPoint = ws.leftPoint;
+        final PosVector upPoint = ws.upPoint;
+        final PosVector downPoint = ws.downPoint;
+
+        tileGeoRef.getGeoPos(x + 1, y, geo);
+        GeoUtils.geo2xyzWGS84(geo.lat, geo.lon, rightPointHeight, rightPoint);
+        tileGeoRef.getGeoPos(x - 1, y, geo);
+        GeoUtils.geo2xyzWGS84(geo.lat, geo.lon, leftPointHeight, leftPoint);
+        tileGeoRef.getGeoPos(x, y - 1, geo);
+        GeoUtils.geo2xyzWGS84(geo.lat, geo.lon, upPointHeight, upPoint);
+        tileGeoRef.getGeoPos(x, y + 1, geo);
+        GeoUtils.geo2xyzWGS84(geo.lat, geo.lon, downPointHeight, downPoint);
+
+        final double ax = rightPoint.x - leftPoint.x, ay = rightPoint.y - leftPoint.y, az = rightPoint.z - leftPoint.z;
+        final double bx = downPoint.x - upPoint.x, by = downPoint.y - upPoint.y, bz = downPoint.z - upPoint.z;
+        final PosVector c = earthPoint;
+
+        final PosVector n = ws.n; // ground plane normal
+        n.x = ay * bz - az * by;
+        n.y = az * bx - ax * bz;
+        n.z = ax * by - ay * bx;
+
+        Maths.normalizeVector(n);
+        if (Maths.innerProduct(n, c) < 0) {
+            n.x = -n.x;
+            n.y = -n.y;
+            n.z = -n.z;
+        }
+
+        final PosVector s = ws.s;
+        s.x = sensorPos.x - c.x;
+        s.y = sensorPos.y - c.y;
+        s.z = sensorPos.z - c.z;
+        Maths.normalizeVector(s);
+
+        if (saveLocalIncidenceAngle) { // local incidence angle
+            final double nsInnerProduct = Maths.innerProduct(n, s);
+            localIncidenceAngles[0] = FastMath.acos(nsInnerProduct) * Constants.RTOD;
+        }
+
+        if (saveProjectedLocalIncidenceAngle || saveSigmaNought) { // projected local incidence angle
+            final PosVector m = ws.m; // range plane normal
+            m.x = s.y * c.z - s.z * c.y;
+            m.y = s.z * c.x - s.x * c.z;
+            m.z = s.x * c.y - s.y * c.x;
+            Maths.normalizeVector(m);
+            final double mnInnerProduct = Maths.innerProduct(m, n);
+            final PosVector n1 = ws.n1;
+            n1.x = n.x - m.x * mnInnerProduct;
+            n1.y = n.y - m.y * mnInnerProduct;
+            n1.z = n.z - m.z * mnInnerProduct;
+            Maths.normalizeVector(n1);
+            localIncidenceAngles[1] = FastMath.acos(Maths.innerProduct(n1, s)) * Constants.RTOD;
+        }
+    }
+
+    /**
+     * Same test as Double.equals so that the primitive code paths treat NaN and signed zero no data
+     * values exactly as the boxed ones did.
+     */
+    public static boolean isNoDataValue(final double value, final double demNoDataValue) {
+        return Double.doubleToLongBits(value) == Double.doubleToLongBits(demNoDataValue);
+    }
+
+    /**
+     * Reusable scratch vectors for computeLocalIncidenceAngle. Not thread safe.
+     */
+    public static final class LocalIncidenceAngleWorkspace {
+        private final GeoPos geo = new GeoPos();
+        private final PosVector rightPoint = new PosVector();
+        private final PosVector leftPoint = new PosVector();
+        private final PosVector upPoint = new PosVector();
+        private final PosVector downPoint = new PosVector();
+        private final PosVector n = new PosVector();
+        private final PosVector s = new PosVector();
+        private final PosVector m = new PosVector();
+        private final PosVector n1 = new PosVector();
+    }
+
     public static void computeLocalIncidenceAngle(
             final LocalGeometry lg, final double demNoDataValue, final boolean saveLocalIncidenceAngle,
             final boolean saveProjectedLocalIncidenceAngle, final boolean saveSigmaNought, final int x0,
@@ -22,6 +22,7 @@ import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
 import java.io.IOException;
@@ -42,6 +43,17 @@ public final class Sentinel1Utils {
     private boolean isDopplerCentroidAvailable = false;
     private boolean isRangeDependDopplerRateAvailable = false;
 
+    // deramp/demodulation phases of bursts, by sub-swath, burst and phase components
+    private static final int MAX_BURST_PHASES = Config.instance().preferences().getInt(
+            "s1tbx.sentinel1.burstPhaseCacheSize", 64);
+    private final Map<Integer, DerampDemodPhase> burstPhases =
+            new LinkedHashMap<Integer, DerampDemodPhase>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Integer, DerampDemodPhase> eldest) {
+                    return size() > MAX_BURST_PHASES;
+                }
+            };
+
     public double firstLineUTC = 0.0; // in days
     public double lastLineUTC = 0.0; // in days
     public double lineTimeInterval = 0.0; // in days
@@ -676,6 +688,7 @@ public final class Sentinel1Utils {
             computeRangeDependentDopplerRate();
         }
 
+        clearBurstPhases();
         final double waveLength = Constants.lightSpeed / subSwath[0].radarFrequency;
         for (int s = 0; s < numOfSubSwath; s++) {
             final double azTime = (subSwath[s].firstLineTime + subSwath[s].lastLineTime)/2.0;
@@ -711,6 +724,7 @@ public final class Sentinel1Utils {
             computeRangeDependentDopplerRate();
         }
 
+        clearBurstPhases();
         for (int s = 0; s < numOfSubSwath; s++) {
             subSwath[s].referenceTime = new double[subSwath[s].numOfBursts][subSwath[s].samplesPerBurst];
             final double tmp1 = subSwath[s].linesPerBurst * subSwath[s].azimuthTimeInterval / 2.0;
@@ -844,87 +858,60 @@ public final class Sentinel1Utils {
         return dcPolynomial;
     }
 
-    public double[][] computeDerampDemodPhase(
-            Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex, final int sBurstIndex,
-            final Rectangle rectangle) {
+    /**
+     * Get the deramp and demodulation phase of a burst. Phases are computed once per burst and cached.
+     * computeDopplerRate() and computeReferenceTime() must have been called.
+     *
+     * @param subSwathIndex the sub-swath index, starting at 1
+     * @param burstIndex    the burst index
+     * @return the phase
+     */
+    public DerampDemodPhase getDerampDemodPhase(final int subSwathIndex, final int burstIndex) {
+        return getBurstPhase(subSwath, subSwathIndex, burstIndex, true, true);
+    }
+
+    private DerampDemodPhase getBurstPhase(final SubSwathInfo[] subSwath, final int subSwathIndex,
+                                           final int burstIndex, final boolean deramp, final boolean demod) {
+        if (subSwath != this.subSwath) {
+            return new DerampDemodPhase(subSwath[subSwathIndex - 1], burstIndex, deramp, demod);
+        }
 
-        final int x0 = rectangle.x;
-        final int y0 = rectangle.y;
-        final int w = rectangle.width;
-        final int h = rectangle.height;
-        final int xMax = x0 + w;
-        final int yMax = y0 + h;
-        final int s = subSwathIndex - 1;
-
-        final double[][] phase = new double[h][w];
-        final int firstLineInBurst = sBurstIndex*subSwath[s].linesPerBurst;
-        for (int y = y0; y < yMax; y++) {
-            final int yy = y - y0;
-            final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
-            for (int x = x0; x < xMax; x++) {
-                final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
-                final double deramp = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[sBurstIndex][x], 2);
-                final double demod = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
-                phase[yy][xx] = deramp + demod;
+        final int key = ((subSwathIndex * 1024 + burstIndex) << 2) | (deramp ? 1 : 0) | (demod ? 2 : 0);
+        synchronized (burstPhases) {
+            DerampDemodPhase phase = burstPhases.get(key);
+            if (phase == null) {
+                phase = new DerampDemodPhase(subSwath[subSwathIndex - 1], burstIndex, deramp, demod);
+                burstPhases.put(key, phase);
             }
+            return phase;
         }
+    }
 
-        return phase;
+    private void clearBurstPhases() {
+        synchronized (burstPhases) {
+            burstPhases.clear();
+        }
+    }
+
+    public double[][] computeDerampDemodPhase(
+            Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex, final int sBurstIndex,
+            final Rectangle rectangle) {
+
+        return getBurstPhase(subSwath, subSwathIndex, sBurstIndex, true, true).getPhase(rectangle);
     }
 
     public double[][] computeDerampPhase(
             Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex, final int burstIndex,
             final Rectangle rectangle) {
 
-        final int x0 = rectangle.x;
-        final int y0 = rectangle.y;
-        final int w = rectangle.width;
-        final int h = rectangle.height;
-        final int xMax = x0 + w;
-        final int yMax = y0 + h;
-        final int s = subSwathIndex - 1;
-
-        final double[][] phase = new double[h][w];
-        final int firstLineInBurst = burstIndex*subSwath[s].linesPerBurst;
-        for (int y = y0; y < yMax; y++) {
-            final int yy = y - y0;
-            final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
-            for (int x = x0; x < xMax; x++) {
-                final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[burstIndex][x];
-                phase[yy][xx] = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[burstIndex][x], 2);
-            }
-        }
-
-        return phase;
+        return getBurstPhase(subSwath, subSwathIndex, burstIndex, true, false).getPhase(rectangle);
     }
 
     public double[][] computeDemodPhase(
             Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex, final int sBurstIndex,
             final Rectangle rectangle) {
 
-        final int x0 = rectangle.x;
-        final int y0 = rectangle.y;
-        final int w = rectangle.width;
-        final int h = rectangle.height;
-        final int xMax = x0 + w;
-        final int yMax = y0 + h;
-        final int s = subSwathIndex - 1;
-
-        final double[][] phase = new double[h][w];
-        final int firstLineInBurst = sBurstIndex*subSwath[s].linesPerBurst;
-        for (int y = y0; y < yMax; y++) {
-            final int yy = y - y0;
-            final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
-            for (int x = x0; x < xMax; x++) {
-                final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
-                phase[yy][xx] = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
-            }
-        }
-
-        return phase;
+        return getBurstPhase(subSwath, subSwathIndex, sBurstIndex, false, true).getPhase(rectangle);
     }
 
     // =================================================================================
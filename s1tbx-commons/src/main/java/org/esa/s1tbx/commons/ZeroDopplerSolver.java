@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+
+/**
+ * Zero Doppler time solver for the earth points of one tile.
+ * The orbit is approximated over the time window of the tile by Chebyshev polynomials for the sensor position
+ * and velocity, and the zero Doppler time of each point is found by Newton iterations starting from the
+ * solution of the previous point. The window is clamped to the lines of the scene. Points whose solution falls
+ * outside of the window are solved by the scene wide search, SARGeocoding.getEarthPointZeroDopplerTime unless
+ * the caller gives its own, so that the solver keeps the validity rules of that search.
+ * <p>
+ * An instance holds scratch state and must only be used by one thread.
+ */
+public final class ZeroDopplerSolver {
+
+    /**
+     * Scene wide zero Doppler time search for the points that are not solved inside the window.
+     */
+    public interface Search {
+
+        /**
+         * @param earthPoint The earth point in xyz coordinate.
+         * @return The zero Doppler time in days if it is found, SARGeocoding.NonValidZeroDopplerTime otherwise.
+         */
+        double getZeroDopplerTime(PosVector earthPoint);
+    }
+
+    private static final int numNodes = 8;
+    private static final int maxIterations = 10;
+    private static final double windowMargin = 1.0e-3;
+
+    private final OrbitStateVectors orbit;
+    private final Search search;
+
+    private final double windowStart;
+    private final double windowEnd;
+    private final double midTime;
+    private final double halfWindow;
+    private final double tolerance;
+
+    // Chebyshev coefficients of x, y, z position and velocity and of their derivatives over the window
+    private final double[][] coef = new double[6][numNodes];
+    private final double[][] derivCoef = new double[6][numNodes];
+
+    private final double[] cheb = new double[numNodes];
+    private final double[] state = new double[6];
+    private final double[] derivState = new double[6];
+    private double lastU = 0.0;
+    private int numFallbacks = 0;
+
+    /**
+     * Creates a solver falling back to SARGeocoding.getEarthPointZeroDopplerTime.
+     *
+     * @param orbit            The orbit. Must have been created with the per line sensor positions to solve
+     *                         points outside of the window.
+     * @param firstLineUTC     The zero Doppler time of the first range line in days.
+     * @param lineTimeInterval The line time interval in days.
+     * @param wavelength       The radar wavelength.
+     * @param startTime        Start of the time window in days.
+     * @param endTime          End of the time window in days.
+     */
+    public ZeroDopplerSolver(final OrbitStateVectors orbit, final double firstLineUTC, final double lineTimeInterval,
+                             final double wavelength, final double startTime, final double endTime) {
+        this(orbit, firstLineUTC, lineTimeInterval, startTime, endTime, earthPoint -> orbit.sensorPosition == null ?
+                SARGeocoding.NonValidZeroDopplerTime :
+                SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval, wavelength, earthPoint,
+                        orbit.sensorPosition, orbit.sensorVelocity));
+    }
+
+    /**
+     * @param orbit            The orbit.
+     * @param firstLineUTC     The zero Doppler time of the first range line in days.
+     * @param lineTimeInterval The line time interval in days.
+     * @param startTime        Start of the time window in days.
+     * @param endTime          End of the time window in days.
+     * @param search           The search for the points that are not solved inside the window.
+     */
+    public ZeroDopplerSolver(final OrbitStateVectors orbit, final double firstLineUTC, final double lineTimeInterval,
+                             final double startTime, final double endTime, final Search search) {
+        this.orbit = orbit;
+        this.search = search;
+
+        double start = Math.min(startTime, endTime);
+        double end = Math.max(startTime, endTime);
+        if (orbit.sensorPosition != null) {
+            final double lastLineUTC = firstLineUTC + (orbit.sensorPosition.length - 1) * lineTimeInterval;
+            start = Math.max(start, Math.min(firstLineUTC, lastLineUTC));
+            end = Math.min(end, Math.max(firstLineUTC, lastLineUTC));
+        }
+        // a window outside of the scene is left empty and all of its points go to the search
+        this.windowStart = start;
+        this.windowEnd = end;
+
+        final double absLineTimeInterval = Math.abs(lineTimeInterval);
+        this.midTime = (start + end) / 2.0;
+        this.halfWindow = Math.max(Math.abs(end - start) / 2.0, absLineTimeInterval);
+        this.tolerance = 1.0e-6 * absLineTimeInterval / halfWindow;
+
+        fitOrbit();
+    }
+
+    private void fitOrbit() {
+        final double[][] values = new double[6][numNodes];
+        final PosVector position = new PosVector();
+        for (int j = 0; j < numNodes; ++j) {
+            final double time = midTime + halfWindow * Math.cos(Math.PI * (j + 0.5) / numNodes);
+            orbit.getPosition(time, position);
+            final PosVector velocity = orbit.getVelocity(time);
+            values[0][j] = position.x;
+            values[1][j] = position.y;
+            values[2][j] = position.z;
+            values[3][j] = velocity.x;
+            values[4][j] = velocity.y;
+            values[5][j] = velocity.z;
+        }
+
+        for (int c = 0; c < 6; ++c) {
+            for (int k = 0; k < numNodes; ++k) {
+                double sum = 0.0;
+                for (int j = 0; j < numNodes; ++j) {
+                    sum += values[c][j] * Math.cos(Math.PI * k * (j + 0.5) / numNodes);
+                }
+                coef[c][k] = 2.0 * sum / numNodes;
+            }
+
+            final double[] d = derivCoef[c];
+            d[numNodes - 1] = 0.0;
+            d[numNodes - 2] = 2.0 * (numNodes - 1) * coef[c][numNodes - 1];
+            for (int k = numNodes - 3; k >= 0; --k) {
+                d[k] = d[k + 2] + 2.0 * (k + 1) * coef[c][k + 1];
+            }
+
+            // fold the factor 1/2 of the first term into the coefficient
+            coef[c][0] *= 0.5;
+            d[0] *= 0.5;
+        }
+    }
+
+    private void evaluate(final double u) {
+        cheb[0] = 1.0;
+        cheb[1] = u;
+        for (int k = 2; k < numNodes; ++k) {
+            cheb[k] = 2.0 * u * cheb[k - 1] - cheb[k - 2];
+        }
+        for (int c = 0; c < 6; ++c) {
+            final double[] cc = coef[c];
+            final double[] dc = derivCoef[c];
+            double v = 0.0, dv = 0.0;
+            for (int k = 0; k < numNodes; ++k) {
+                v += cc[k] * cheb[k];
+                dv += dc[k] * cheb[k];
+            }
+            state[c] = v;
+            derivState[c] = dv;
+        }
+    }
+
+    /**
+     * Newton iterations on the normalised time of the window.
+     *
+     * @return the normalised time or NaN if there is no solution inside the window
+     */
+    private double solveNormalised(final double x, final double y, final double z, final double initialU) {
+        double u = initialU;
+        for (int i = 0; i < maxIterations; ++i) {
+            evaluate(u);
+            final double dx = x - state[0];
+            final double dy = y - state[1];
+            final double dz = z - state[2];
+
+            // Doppler frequency up to a constant factor and its derivative
+            final double f = state[3] * dx + state[4] * dy + state[5] * dz;
+            final double df = derivState[3] * dx + derivState[4] * dy + derivState[5] * dz -
+                    (state[3] * derivState[0] + state[4] * derivState[1] + state[5] * derivState[2]);
+            if (df == 0.0) {
+                return Double.NaN;
+            }
+
+            final double du = f / df;
+            u -= du;
+            if (Math.abs(u) > 1.0 + windowMargin) {
+                return Double.NaN;
+            }
+            if (Math.abs(du) < tolerance) {
+                return u;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Compute zero Doppler time for given earth point, using the previous solution as initial guess.
+     *
+     * @param earthPoint The earth point in xyz coordinate.
+     * @return The zero Doppler time in days if it is found, SARGeocoding.NonValidZeroDopplerTime otherwise.
+     */
+    public double getZeroDopplerTime(final PosVector earthPoint) {
+        if (windowStart <= windowEnd) {
+            final double u = solveNormalised(earthPoint.x, earthPoint.y, earthPoint.z, lastU);
+            if (!Double.isNaN(u)) {
+                final double time = midTime + halfWindow * u;
+                if (time >= windowStart && time <= windowEnd) {
+                    lastU = u;
+                    return time;
+                }
+            }
+        }
+        ++numFallbacks;
+        return search.getZeroDopplerTime(earthPoint);
+    }
+
+    /**
+     * Compute slant range distance for given earth point and given time.
+     *
+     * @param time       The given time in days.
+     * @param earthPoint The earth point in xyz coordinate.
+     * @param sensorPos  The sensor position at the given time.
+     * @return The slant range distance in meters.
+     */
+    public double computeSlantRange(final double time, final PosVector earthPoint, final PosVector sensorPos) {
+        getPosition(time, sensorPos);
+
+        final double xDiff = sensorPos.x - earthPoint.x;
+        final double yDiff = sensorPos.y - earthPoint.y;
+        final double zDiff = sensorPos.z - earthPoint.z;
+
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff + zDiff * zDiff);
+    }
+
+    /**
+     * Sensor position at the given time, from the local fit inside the window and from the orbit outside.
+     */
+    public PosVector getPosition(final double time, final PosVector position) {
+        final double u = (time - midTime) / halfWindow;
+        if (Math.abs(u) > 1.0 + windowMargin) {
+            return orbit.getPosition(time, position);
+        }
+        evaluate(u);
+        position.x = state[0];
+        position.y = state[1];
+        position.z = state[2];
+        return position;
+    }
+
+    /**
+     * @return the number of points that could not be solved inside the window
+     */
+    public int getNumFallbacks() {
+        return numFallbacks;
+    }
+}
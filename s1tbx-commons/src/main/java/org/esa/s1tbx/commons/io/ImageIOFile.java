@@ -33,7 +33,9 @@ import java.awt.image.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Reader for ImageIO File
@@ -54,7 +56,15 @@ public class ImageIOFile {
     private ImageInputStream stream;
     private ImageReader reader;
 
+    private File imageFile = null;
+    private final ThreadLocal<ImageReader> threadReader = new ThreadLocal<>();
+    // guards the creation of the thread readers against close, so that no reader is added after close
+    private final Object threadReaderLock = new Object();
+    private final List<ImageReader> threadReaderList = new ArrayList<>();
+    private volatile boolean isClosed = false;
+
     private static final boolean useFileCache = Config.instance().preferences().getBoolean("s1tbx.readers.useFileCache", false);
+    private static final boolean useConcurrentReads = Config.instance().preferences().getBoolean("s1tbx.readers.useConcurrentReads", true);
 
     public ImageIOFile(final File inputFile, final ImageReader iioReader,
                        final File productInputFile) throws IOException {
@@ -147,6 +157,51 @@ public class ImageIOFile {
         return reader;
     }
 
+    /**
+     * Set the uncompressed file on disk holding the image so that worker threads can open their own readers
+     *
+     * @param file the image file
+     */
+    public void setImageFile(final File file) {
+        this.imageFile = file;
+    }
+
+    /**
+     * @return true if independent readers can be opened per thread, avoiding a lock on the shared reader
+     */
+    public boolean canReadConcurrently() {
+        return useConcurrentReads && imageFile != null && reader != null && reader.getOriginatingProvider() != null;
+    }
+
+    /**
+     * Get an ImageReader with its own ImageInputStream for the calling thread.
+     * If concurrent reading is not possible the shared reader is returned and the caller must synchronize.
+     *
+     * @return the reader for the current thread
+     * @throws IOException if the image file can not be opened
+     */
+    public ImageReader getThreadReader() throws IOException {
+        if (!canReadConcurrently()) {
+            return getReader();
+        }
+        if (isClosed) {
+            throw new IOException(name + " is closed");
+        }
+        ImageReader iioReader = threadReader.get();
+        if (iioReader == null) {
+            synchronized (threadReaderLock) {
+                if (isClosed) {
+                    throw new IOException(name + " is closed");
+                }
+                iioReader = reader.getOriginatingProvider().createReaderInstance();
+                iioReader.setInput(FileImageInputStreamExtImpl.createInputStream(imageFile), true, true);
+                threadReaderList.add(iioReader);
+            }
+            threadReader.set(iioReader);
+        }
+        return iioReader;
+    }
+
     private static int bufferImageTypeToProductType(int biType) {
         switch (biType) {
             case BufferedImage.TYPE_CUSTOM:
@@ -198,6 +253,19 @@ public class ImageIOFile {
     }
 
     public void close() throws IOException {
+        synchronized (threadReaderLock) {
+            isClosed = true;
+            for (ImageReader iioReader : threadReaderList) {
+                final Object input = iioReader.getInput();
+                if (input instanceof ImageInputStream) {
+                    ((ImageInputStream) input).close();
+                }
+                iioReader.dispose();
+            }
+            threadReaderList.clear();
+        }
+        threadReader.remove();
+
         if (stream != null)
             stream.close();
         if (reader != null)
@@ -289,11 +357,22 @@ public class ImageIOFile {
         }
     }
 
-    private synchronized Raster getData(final ImageReadParam param,
-                                        final int destOffsetX, final int destOffsetY,
-                                        final int destWidth, final int destHeight) throws IOException {
+    private Raster getData(final ImageReadParam param,
+                           final int destOffsetX, final int destOffsetY,
+                           final int destWidth, final int destHeight) throws IOException {
+        if (canReadConcurrently()) {
+            return getData(getThreadReader(), param, destOffsetX, destOffsetY, destWidth, destHeight);
+        }
+        synchronized (this) {
+            return getData(reader, param, destOffsetX, destOffsetY, destWidth, destHeight);
+        }
+    }
+
+    private Raster getData(final ImageReader iioReader, final ImageReadParam param,
+                           final int destOffsetX, final int destOffsetY,
+                           final int destWidth, final int destHeight) throws IOException {
         try {
-            final RenderedImage image = reader.readAsRenderedImage(0, param);
+            final RenderedImage image = iioReader.readAsRenderedImage(0, param);
             return image.getData(new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight));
         } catch (Exception e) {
             if(ZipUtils.isZip(productInputFile) && !ZipUtils.isValid(productInputFile)) {
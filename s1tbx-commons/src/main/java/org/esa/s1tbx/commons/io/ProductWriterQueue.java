@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordered queue of the writes to one output product, executed by a worker thread of its own.
+ * Operators writing several output products give each product its own queue, so that the products are
+ * written in parallel and computing threads hold no monitor while a product is written.
+ * Writes are executed one at a time in the order they were submitted, so the product writer needs no locking.
+ * The number of pending writes is bounded and submitting blocks when the bound is reached.
+ */
+public final class ProductWriterQueue implements Closeable {
+
+    public interface WriteTask {
+        void write() throws IOException;
+    }
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    private final AtomicLong numWrites = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final long startTime = System.nanoTime();
+    private volatile long endTime;
+
+    /**
+     * @param name       the name of the output, used for the worker thread and in messages
+     * @param maxPending the number of writes that can be pending before submitting blocks
+     */
+    public ProductWriterQueue(final String name, final int maxPending) {
+        this.name = name;
+        this.pending = new Semaphore(maxPending);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "ProductWriter " + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a write. The data of the write must not be modified by the caller afterwards.
+     *
+     * @param numBytes the number of bytes written, for the statistics
+     * @param task     the write
+     * @throws IOException if a previous write failed or the thread is interrupted
+     */
+    public void submit(final long numBytes, final WriteTask task) throws IOException {
+        checkFailure();
+        if (!pending.tryAcquire()) {
+            final long start = System.nanoTime();
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to write " + name);
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        executor.execute(() -> {
+            try {
+                if (failure == null) {
+                    final long start = System.nanoTime();
+                    task.write();
+                    writeNanos.addAndGet(System.nanoTime() - start);
+                    bytesWritten.addAndGet(numBytes);
+                    numWrites.incrementAndGet();
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    /**
+     * Wait until everything queued so far is written
+     *
+     * @throws IOException if a write failed
+     */
+    public void flush() throws IOException {
+        if (!executor.isShutdown()) {
+            try {
+                executor.submit(() -> {
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing " + name);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Wait until everything queued is written and stop the worker thread
+     *
+     * @throws IOException if a write failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing " + name);
+            } finally {
+                endTime = System.nanoTime();
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Check the writes done so far without waiting for the pending ones
+     *
+     * @throws IOException if a write failed
+     */
+    public void checkFailure() throws IOException {
+        final Throwable t = failure;
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new IOException("Unable to write " + name, t);
+        }
+    }
+
+    /**
+     * @return the throughput statistics so far
+     */
+    public Statistics getStatistics() {
+        final long end = endTime != 0 ? endTime : System.nanoTime();
+        return new Statistics(name, numWrites.get(), bytesWritten.get(), writeNanos.get(), blockedNanos.get(),
+                end - startTime);
+    }
+
+    /**
+     * Throughput statistics of one output
+     */
+    public static final class Statistics {
+        public final String name;
+        public final long numWrites;
+        public final long bytesWritten;
+        public final long writeNanos;
+        public final long blockedNanos;
+        public final long elapsedNanos;
+
+        Statistics(final String name, final long numWrites, final long bytesWritten, final long writeNanos,
+                   final long blockedNanos, final long elapsedNanos) {
+            this.name = name;
+            this.numWrites = numWrites;
+            this.bytesWritten = bytesWritten;
+            this.writeNanos = writeNanos;
+            this.blockedNanos = blockedNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the write speed while writing in MB/s
+         */
+        public double getThroughput() {
+            return writeNanos > 0 ? bytesWritten / 1048576.0 / (writeNanos / 1.0e9) : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d writes of %d MB at %.1f MB/s, busy %d of %d ms, submitters blocked %d ms",
+                    name, numWrites, bytesWritten >> 20, getThroughput(), writeNanos / 1000000,
+                    elapsedNanos / 1000000, blockedNanos / 1000000);
+        }
+    }
+}
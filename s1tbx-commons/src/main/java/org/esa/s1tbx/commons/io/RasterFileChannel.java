@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Positional writer of a flat binary raster file, such as the band files of the Gamma, ENVI, PolSARPro and
+ * SNAPHU formats. The byte offset of every raster line is known, so lines are written with positional writes
+ * on a FileChannel and tiles of the same file can be written concurrently without a lock.
+ * Samples are converted to the byte order of the file in a direct buffer reused by each thread.
+ */
+public final class RasterFileChannel implements Closeable {
+
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> threadBuffer = new ThreadLocal<>();
+
+    private final FileChannel channel;
+    private final ByteOrder byteOrder;
+
+    private RasterFileChannel(final FileChannel channel, final ByteOrder byteOrder) {
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+    }
+
+    /**
+     * Open a raster file for writing. The file is created if it does not exist, its content and size are kept.
+     *
+     * @param file      the raster file
+     * @param byteOrder the byte order of the samples in the file
+     * @return the channel
+     * @throws IOException if the file can not be opened
+     */
+    public static RasterFileChannel open(final File file, final ByteOrder byteOrder) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new RasterFileChannel(channel, byteOrder);
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * A direct buffer of the calling thread in the byte order of the file, cleared and limited to the given size.
+     * It is only valid until the next call from the same thread.
+     *
+     * @param numBytes the number of bytes needed
+     * @return the buffer
+     */
+    public ByteBuffer getBuffer(final int numBytes) {
+        ByteBuffer buffer = threadBuffer.get();
+        if (buffer == null || buffer.capacity() < numBytes) {
+            buffer = ByteBuffer.allocateDirect(Math.max(numBytes, 64 * 1024));
+            threadBuffer.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(numBytes);
+        buffer.order(byteOrder);
+        return buffer;
+    }
+
+    /**
+     * Write the remaining bytes of a buffer at the given position of the file
+     *
+     * @param buffer   the bytes to write
+     * @param position the byte offset in the file
+     * @throws IOException on write failure
+     */
+    public void write(final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Write consecutive samples at the given position of the file
+     *
+     * @param position the byte offset in the file
+     * @param data     the samples
+     * @param offset   the index of the first sample to write
+     * @param length   the number of samples to write
+     * @throws IOException on write failure
+     */
+    public void write(long position, final ProductData data, int offset, int length) throws IOException {
+        final int elemSize = data.getElemSize();
+        final int maxLength = Math.max(MAX_BUFFER_SIZE / elemSize, 1);
+        while (length > 0) {
+            final int n = Math.min(length, maxLength);
+            final ByteBuffer buffer = getBuffer(n * elemSize);
+            putSamples(buffer, data, offset, n);
+            buffer.flip();
+            write(buffer, position);
+
+            position += (long) n * elemSize;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Write a rectangle of samples into a raster stored line by line
+     *
+     * @param data         the samples of the rectangle
+     * @param rasterWidth  the width of the raster in the file
+     * @param offsetX      the x offset of the rectangle
+     * @param offsetY      the y offset of the rectangle
+     * @param width        the width of the rectangle
+     * @param height       the height of the rectangle
+     * @throws IOException on write failure
+     */
+    public void writeRect(final ProductData data, final int rasterWidth,
+                          final int offsetX, final int offsetY, final int width, final int height) throws IOException {
+        final long elemSize = data.getElemSize();
+        if (offsetX == 0 && width == rasterWidth) {
+            write(elemSize * offsetY * rasterWidth, data, 0, width * height);
+            return;
+        }
+        for (int y = 0; y < height; ++y) {
+            write(elemSize * ((long) (offsetY + y) * rasterWidth + offsetX), data, y * width, width);
+        }
+    }
+
+    /**
+     * Put consecutive samples into a buffer in the byte order of the buffer
+     *
+     * @param buffer the buffer, its position is advanced by the size of the samples
+     * @param data   the samples
+     * @param offset the index of the first sample
+     * @param length the number of samples
+     */
+    public static void putSamples(final ByteBuffer buffer, final ProductData data, final int offset, final int length) {
+        final Object elems = data.getElems();
+        if (elems instanceof byte[]) {
+            buffer.put((byte[]) elems, offset, length);
+        } else if (elems instanceof short[]) {
+            buffer.asShortBuffer().put((short[]) elems, offset, length);
+            buffer.position(buffer.position() + length * 2);
+        } else if (elems instanceof int[]) {
+            buffer.asIntBuffer().put((int[]) elems, offset, length);
+            buffer.position(buffer.position() + length * 4);
+        } else if (elems instanceof long[]) {
+            buffer.asLongBuffer().put((long[]) elems, offset, length);
+            buffer.position(buffer.position() + length * 8);
+        } else if (elems instanceof float[]) {
+            buffer.asFloatBuffer().put((float[]) elems, offset, length);
+            buffer.position(buffer.position() + length * 4);
+        } else if (elems instanceof double[]) {
+            buffer.asDoubleBuffer().put((double[]) elems, offset, length);
+            buffer.position(buffer.position() + length * 8);
+        } else {
+            throw new IllegalArgumentException("Unsupported sample type " + elems.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
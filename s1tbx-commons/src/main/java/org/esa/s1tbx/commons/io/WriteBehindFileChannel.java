@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind writer of a file preallocated to its final size.
+ * Callers hand over buffers with the file positions of their runs of bytes and return as soon as the
+ * buffer is queued. A dedicated I/O thread takes everything that is queued, sorts the runs by position and
+ * writes adjacent runs with a single gathering write. The queue is bounded in bytes, so callers block when
+ * the disk can not keep up; how often and how long they block is kept in the statistics.
+ * <p>
+ * Every region of the file is expected to be written once between two flushes.
+ */
+public final class WriteBehindFileChannel implements Closeable {
+
+    private static final int MAX_GATHER = 512;
+    private static final Request STOP = new Request(null, null, null, 0, 0, null);
+
+    private final File file;
+    private final FileChannel channel;
+    private final int maxQueuedBytes;
+    private final Semaphore queueCapacity;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread ioThread;
+    private volatile IOException failure;
+    private boolean closed;
+
+    private final AtomicLong numRequests = new AtomicLong();
+    private final AtomicLong numBlocked = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong peakQueuedBytes = new AtomicLong();
+    private volatile long numWrites;
+    private volatile long bytesWritten;
+
+    /**
+     * @param file           the file, created if it does not exist
+     * @param fileSize       the final size of the file
+     * @param maxQueuedBytes the number of bytes that can be queued before callers block
+     * @throws IOException if the file can not be created
+     */
+    public WriteBehindFileChannel(final File file, final long fileSize, final int maxQueuedBytes) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(fileSize);
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.queueCapacity = new Semaphore(maxQueuedBytes);
+
+        ioThread = new Thread(this::run, "WriteBehind " + file.getName());
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Queue a buffer holding consecutive runs of bytes. The buffer must not be modified by the caller afterwards.
+     *
+     * @param data      the bytes from its position to its limit
+     * @param positions the file position of each run
+     * @param lengths   the length of each run
+     * @param numRuns   the number of runs
+     * @throws IOException if a previous write failed or the thread is interrupted
+     */
+    public void write(final ByteBuffer data, final long[] positions, final int[] lengths, final int numRuns)
+            throws IOException {
+        checkFailure();
+        final int size = data.remaining();
+        final int permits = Math.min(size, maxQueuedBytes);
+        if (!queueCapacity.tryAcquire(permits)) {
+            numBlocked.incrementAndGet();
+            final long start = System.nanoTime();
+            try {
+                queueCapacity.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to write " + file.getName());
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        final long queued = queuedBytes.addAndGet(size);
+        long peak;
+        while (queued > (peak = peakQueuedBytes.get()) && !peakQueuedBytes.compareAndSet(peak, queued)) {
+            // retry
+        }
+        numRequests.incrementAndGet();
+        queue.add(new Request(data, positions, lengths, numRuns, permits, null));
+    }
+
+    /**
+     * Queue one run of bytes
+     *
+     * @param position the file position
+     * @param data     the bytes from its position to its limit
+     * @throws IOException if a previous write failed or the thread is interrupted
+     */
+    public void write(final long position, final ByteBuffer data) throws IOException {
+        write(data, new long[]{position}, new int[]{data.remaining()}, 1);
+    }
+
+    /**
+     * Read bytes of the file. Queued writes are only visible after a flush.
+     *
+     * @param position the file position
+     * @param dst      the buffer to fill up to its limit
+     * @throws IOException on read failure
+     */
+    public void read(long position, final ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            final int n = channel.read(dst, position);
+            if (n < 0) {
+                break;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Wait until everything queued so far is written
+     *
+     * @throws IOException if a write failed
+     */
+    public void flush() throws IOException {
+        if (!ioThread.isAlive()) {
+            checkFailure();
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(1);
+        queue.add(new Request(null, null, null, 0, 0, latch));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while flushing " + file.getName());
+        }
+        checkFailure();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            queue.add(STOP);
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Unable to write " + file.getName(), failure);
+        }
+    }
+
+    private void run() {
+        final List<Request> batch = new ArrayList<>();
+        final List<Run> runs = new ArrayList<>();
+        final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+
+            runs.clear();
+            for (Request request : batch) {
+                request.addRuns(runs);
+            }
+            runs.sort((a, b) -> Long.compare(a.position, b.position));
+            if (failure == null) {
+                try {
+                    writeRuns(runs, gather);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+
+            for (Request request : batch) {
+                if (request == STOP) {
+                    stop = true;
+                } else if (request.latch != null) {
+                    request.latch.countDown();
+                } else {
+                    queuedBytes.addAndGet(-request.data.remaining());
+                    queueCapacity.release(request.permits);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeRuns(final List<Run> runs, final ByteBuffer[] gather) throws IOException {
+        int i = 0;
+        while (i < runs.size()) {
+            final long start = runs.get(i).position;
+            long end = start;
+            int n = 0;
+            do {
+                final Run run = runs.get(i++);
+                gather[n++] = run.bytes;
+                end += run.bytes.remaining();
+            } while (i < runs.size() && n < gather.length && runs.get(i).position == end);
+
+            channel.position(start);
+            long remaining = end - start;
+            while (remaining > 0) {
+                remaining -= channel.write(gather, 0, n);
+            }
+            Arrays.fill(gather, 0, n, null);
+            ++numWrites;
+            bytesWritten += end - start;
+        }
+    }
+
+    /**
+     * @return the write and back-pressure statistics so far
+     */
+    public Statistics getStatistics() {
+        return new Statistics(numRequests.get(), numWrites, bytesWritten, numBlocked.get(),
+                blockedNanos.get(), peakQueuedBytes.get(), maxQueuedBytes);
+    }
+
+    private static final class Run {
+        final long position;
+        final ByteBuffer bytes;
+
+        Run(final long position, final ByteBuffer bytes) {
+            this.position = position;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Request {
+        final ByteBuffer data;
+        final long[] positions;
+        final int[] lengths;
+        final int numRuns;
+        final int permits;
+        final CountDownLatch latch;
+
+        Request(final ByteBuffer data, final long[] positions, final int[] lengths, final int numRuns,
+                final int permits, final CountDownLatch latch) {
+            this.data = data;
+            this.positions = positions;
+            this.lengths = lengths;
+            this.numRuns = numRuns;
+            this.permits = permits;
+            this.latch = latch;
+        }
+
+        void addRuns(final List<Run> runs) {
+            int offset = numRuns == 0 ? 0 : data.position();
+            for (int i = 0; i < numRuns; ++i) {
+                final ByteBuffer bytes = data.duplicate();
+                bytes.position(offset);
+                bytes.limit(offset + lengths[i]);
+                runs.add(new Run(positions[i], bytes));
+                offset += lengths[i];
+            }
+        }
+    }
+
+    /**
+     * Write and back-pressure statistics
+     */
+    public static final class Statistics {
+        public final long numRequests;
+        public final long numWrites;
+        public final long bytesWritten;
+        public final long numBlocked;
+        public final long blockedNanos;
+        public final long peakQueuedBytes;
+        public final long maxQueuedBytes;
+
+        Statistics(final long numRequests, final long numWrites, final long bytesWritten, final long numBlocked,
+                   final long blockedNanos, final long peakQueuedBytes, final long maxQueuedBytes) {
+            this.numRequests = numRequests;
+            this.numWrites = numWrites;
+            this.bytesWritten = bytesWritten;
+            this.numBlocked = numBlocked;
+            this.blockedNanos = blockedNanos;
+            this.peakQueuedBytes = peakQueuedBytes;
+            this.maxQueuedBytes = maxQueuedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d writes of %d MB, %d blocked for %d ms, peak queue %d of %d MB",
+                    numRequests, numWrites, bytesWritten >> 20, numBlocked, blockedNanos / 1000000,
+                    peakQueuedBytes >> 20, maxQueuedBytes >> 20);
+        }
+    }
+}
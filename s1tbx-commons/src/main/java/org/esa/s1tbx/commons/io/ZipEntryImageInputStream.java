@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A seekable ImageInputStream over a single entry of a zip file that does not extract or cache the entry to disk.
+ * STORED entries are read with positional reads on the entry's byte range within the zip.
+ * DEFLATED entries keep a set of parked inflaters as checkpoints so that a seek only inflates from the
+ * nearest checkpoint before the requested position instead of from the start of the entry.
+ * java.util.zip.Inflater can not be resumed at an arbitrary bit offset, so the checkpoints are live
+ * inflater states rather than saved dictionaries.
+ */
+public class ZipEntryImageInputStream extends ImageInputStreamImpl {
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CHECKPOINTS = 16;
+
+    private final FileChannel channel;
+    private final Entry entry;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+    private ZipEntryImageInputStream(final FileChannel channel, final Entry entry) {
+        this.channel = channel;
+        this.entry = entry;
+    }
+
+    /**
+     * Open an entry of a zip file for random access
+     *
+     * @param zipFile   the zip file
+     * @param entryName the full path of the entry within the zip
+     * @return the stream or null if the entry is not found or is neither STORED nor DEFLATED
+     */
+    public static ZipEntryImageInputStream create(final File zipFile, final String entryName) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ);
+            final Entry entry = findEntry(channel, entryName);
+            if (entry != null && (entry.method == METHOD_STORED || entry.method == METHOD_DEFLATED)) {
+                return new ZipEntryImageInputStream(channel, entry);
+            }
+        } catch (Exception e) {
+            SystemUtils.LOG.fine("Unable to open " + entryName + " in " + zipFile.getName() + ": " + e.getMessage());
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the entry is STORED and its bytes are contiguous in the zip file
+     */
+    public boolean isStored() {
+        return entry.method == METHOD_STORED;
+    }
+
+    /**
+     * @return the position of the first byte of the entry data within the zip file
+     */
+    public long getDataOffset() {
+        return entry.dataOffset;
+    }
+
+    @Override
+    public long length() {
+        return entry.size;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (streamPos >= entry.size) {
+            return -1;
+        }
+        if (streamPos < bufferStart || streamPos >= bufferStart + bufferLength) {
+            fillBuffer(streamPos);
+        }
+        bitOffset = 0;
+        return buffer[(int) (streamPos++ - bufferStart)] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        checkClosed();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= entry.size) {
+            return -1;
+        }
+        bitOffset = 0;
+        final int n = (int) Math.min(len, entry.size - streamPos);
+
+        if (streamPos >= bufferStart && streamPos < bufferStart + bufferLength) {
+            final int available = Math.min(n, (int) (bufferStart + bufferLength - streamPos));
+            System.arraycopy(buffer, (int) (streamPos - bufferStart), b, off, available);
+            streamPos += available;
+            return available;
+        }
+        if (n >= BUFFER_SIZE) {
+            readEntry(streamPos, b, off, n);
+            streamPos += n;
+            return n;
+        }
+        fillBuffer(streamPos);
+        final int available = Math.min(n, bufferLength);
+        System.arraycopy(buffer, 0, b, off, available);
+        streamPos += available;
+        return available;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        for (Checkpoint checkpoint : checkpoints) {
+            checkpoint.inflater.end();
+        }
+        checkpoints.clear();
+        channel.close();
+    }
+
+    private void fillBuffer(final long pos) throws IOException {
+        final int len = (int) Math.min(BUFFER_SIZE, entry.size - pos);
+        readEntry(pos, buffer, 0, len);
+        bufferStart = pos;
+        bufferLength = len;
+    }
+
+    private void readEntry(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        if (entry.method == METHOD_STORED) {
+            readAt(entry.dataOffset + pos, ByteBuffer.wrap(b, off, len));
+        } else {
+            inflate(pos, b, off, len);
+        }
+    }
+
+    private void readAt(long position, final ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            final int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+    }
+
+    private void inflate(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        final Checkpoint checkpoint = getCheckpoint(pos);
+        try {
+            checkpoint.skipTo(pos);
+            checkpoint.inflateFully(b, off, len);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt zip entry " + entry.name, e);
+        }
+    }
+
+    /**
+     * Finds the parked inflater nearest before the position. If every checkpoint is past the position a new
+     * one is started from the beginning of the entry, replacing the least recently used one when full.
+     */
+    private Checkpoint getCheckpoint(final long pos) {
+        Checkpoint nearest = null;
+        for (Checkpoint checkpoint : checkpoints) {
+            if (checkpoint.position <= pos && (nearest == null || checkpoint.position > nearest.position)) {
+                nearest = checkpoint;
+            }
+        }
+        if (nearest == null) {
+            if (checkpoints.size() >= MAX_CHECKPOINTS) {
+                Checkpoint lru = checkpoints.get(0);
+                for (Checkpoint checkpoint : checkpoints) {
+                    if (checkpoint.lastUsed < lru.lastUsed)
+                        lru = checkpoint;
+                }
+                lru.inflater.end();
+                checkpoints.remove(lru);
+            }
+            nearest = new Checkpoint();
+            checkpoints.add(nearest);
+        }
+        nearest.lastUsed = System.nanoTime();
+        return nearest;
+    }
+
+    private class Checkpoint {
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private long compressedPos = 0;
+        private long position = 0;
+        private long lastUsed = 0;
+
+        void skipTo(final long pos) throws IOException, DataFormatException {
+            final byte[] scratch = new byte[BUFFER_SIZE];
+            while (position < pos) {
+                final int n = (int) Math.min(scratch.length, pos - position);
+                inflateFully(scratch, 0, n);
+            }
+        }
+
+        void inflateFully(final byte[] b, int off, int len) throws IOException, DataFormatException {
+            while (len > 0) {
+                if (inflater.needsInput()) {
+                    final int n = (int) Math.min(input.length, entry.compressedSize - compressedPos);
+                    if (n <= 0) {
+                        throw new EOFException("Unexpected end of zip entry " + entry.name);
+                    }
+                    readAt(entry.dataOffset + compressedPos, ByteBuffer.wrap(input, 0, n));
+                    compressedPos += n;
+                    inflater.setInput(input, 0, n);
+                }
+                final int n = inflater.inflate(b, off, len);
+                if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new EOFException("Unexpected end of zip entry " + entry.name);
+                }
+                off += n;
+                len -= n;
+                position += n;
+            }
+        }
+    }
+
+    private static class Entry {
+        String name;
+        int method;
+        long compressedSize;
+        long size;
+        long dataOffset;
+    }
+
+    private static Entry findEntry(final FileChannel channel, final String entryName) throws IOException {
+        final long fileSize = channel.size();
+
+        // end of central directory record, possibly followed by a comment of up to 64K
+        final int tailSize = (int) Math.min(fileSize, 22 + 0xFFFF);
+        final ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+        int eocd = -1;
+        for (int i = tailSize - 22; i >= 0; --i) {
+            if (tail.getInt(i) == 0x06054b50) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("End of central directory not found");
+        }
+        long numEntries = tail.getShort(eocd + 10) & 0xFFFF;
+        long cdSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long cdOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+        if (numEntries == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) {
+            // zip64 end of central directory locator precedes the end of central directory record
+            final long locatorPos = fileSize - tailSize + eocd - 20;
+            final ByteBuffer locator = read(channel, locatorPos, 20);
+            if (locator.getInt(0) != 0x07064b50) {
+                throw new IOException("Zip64 locator not found");
+            }
+            final ByteBuffer eocd64 = read(channel, locator.getLong(8), 56);
+            if (eocd64.getInt(0) != 0x06064b50) {
+                throw new IOException("Zip64 end of central directory not found");
+            }
+            numEntries = eocd64.getLong(32);
+            cdSize = eocd64.getLong(40);
+            cdOffset = eocd64.getLong(48);
+        }
+        if (cdSize > Integer.MAX_VALUE) {
+            throw new IOException("Central directory too large");
+        }
+
+        final byte[] nameBytes = entryName.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer cd = read(channel, cdOffset, (int) cdSize);
+        int pos = 0;
+        for (long e = 0; e < numEntries && pos + 46 <= cdSize; ++e) {
+            if (cd.getInt(pos) != 0x02014b50) {
+                throw new IOException("Corrupt central directory");
+            }
+            final int flags = cd.getShort(pos + 8) & 0xFFFF;
+            final int method = cd.getShort(pos + 10) & 0xFFFF;
+            long compressedSize = cd.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = cd.getInt(pos + 24) & 0xFFFFFFFFL;
+            final int nameLen = cd.getShort(pos + 28) & 0xFFFF;
+            final int extraLen = cd.getShort(pos + 30) & 0xFFFF;
+            final int commentLen = cd.getShort(pos + 32) & 0xFFFF;
+            long localOffset = cd.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            if (nameMatches(cd, pos + 46, nameLen, nameBytes)) {
+                if ((flags & 1) != 0) {
+                    throw new IOException("Encrypted zip entries are not supported");
+                }
+                // zip64 extended information holds the fields that overflowed, in this order
+                int extraPos = pos + 46 + nameLen;
+                final int extraEnd = extraPos + extraLen;
+                while (extraPos + 4 <= extraEnd) {
+                    final int id = cd.getShort(extraPos) & 0xFFFF;
+                    final int len = cd.getShort(extraPos + 2) & 0xFFFF;
+                    if (id == 0x0001) {
+                        int p = extraPos + 4;
+                        if (size == 0xFFFFFFFFL) {
+                            size = cd.getLong(p);
+                            p += 8;
+                        }
+                        if (compressedSize == 0xFFFFFFFFL) {
+                            compressedSize = cd.getLong(p);
+                            p += 8;
+                        }
+                        if (localOffset == 0xFFFFFFFFL) {
+                            localOffset = cd.getLong(p);
+                        }
+                    }
+                    extraPos += 4 + len;
+                }
+
+                final ByteBuffer local = read(channel, localOffset, 30);
+                if (local.getInt(0) != 0x04034b50) {
+                    throw new IOException("Corrupt local header for " + entryName);
+                }
+                final Entry entry = new Entry();
+                entry.name = entryName;
+                entry.method = method;
+                entry.compressedSize = compressedSize;
+                entry.size = size;
+                entry.dataOffset = localOffset + 30 + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+                return entry;
+            }
+            pos += 46 + nameLen + extraLen + commentLen;
+        }
+        return null;
+    }
+
+    private static boolean nameMatches(final ByteBuffer cd, final int pos, final int len, final byte[] name) {
+        if (len != name.length) {
+            return false;
+        }
+        for (int i = 0; i < len; ++i) {
+            if (cd.get(pos + i) != name[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static ByteBuffer read(final FileChannel channel, long position, final int length) throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            final int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            position += n;
+        }
+        buf.flip();
+        return buf;
+    }
+}
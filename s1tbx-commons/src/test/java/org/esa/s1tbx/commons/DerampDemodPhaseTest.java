@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class DerampDemodPhaseTest {
+
+    private static final int numBursts = 2;
+    private static final int linesPerBurst = 300;
+    private static final int samplesPerBurst = 200;
+
+    private static Sentinel1Utils.SubSwathInfo createSubSwath() {
+        final Sentinel1Utils.SubSwathInfo subSwath = new Sentinel1Utils.SubSwathInfo();
+        subSwath.linesPerBurst = linesPerBurst;
+        subSwath.samplesPerBurst = samplesPerBurst;
+        subSwath.azimuthTimeInterval = 0.002055556;
+        subSwath.dopplerRate = new double[numBursts][samplesPerBurst];
+        subSwath.referenceTime = new double[numBursts][samplesPerBurst];
+        subSwath.dopplerCentroid = new double[numBursts][samplesPerBurst];
+        for (int b = 0; b < numBursts; b++) {
+            for (int x = 0; x < samplesPerBurst; x++) {
+                subSwath.dopplerRate[b][x] = -1700.0 + 0.5 * x + 10.0 * b;
+                subSwath.referenceTime[b][x] = 0.31 + 1.0e-4 * x;
+                subSwath.dopplerCentroid[b][x] = 25.0 - 0.05 * x;
+            }
+        }
+        return subSwath;
+    }
+
+    // the phase as computed by Sentinel1Utils before the phase was factorised
+    private static double expectedPhase(final Sentinel1Utils.SubSwathInfo subSwath, final int burstIndex,
+                                        final int x, final int y, final boolean deramp, final boolean demod) {
+        final double ta = (y - burstIndex * subSwath.linesPerBurst) * subSwath.azimuthTimeInterval;
+        final double kt = subSwath.dopplerRate[burstIndex][x];
+        final double dt = ta - subSwath.referenceTime[burstIndex][x];
+        double phase = 0.0;
+        if (deramp) {
+            phase += -Constants.PI * kt * dt * dt;
+        }
+        if (demod) {
+            phase += -Constants.TWO_PI * subSwath.dopplerCentroid[burstIndex][x] * ta;
+        }
+        return phase;
+    }
+
+    @Test
+    public void testPhase() {
+        final Sentinel1Utils.SubSwathInfo subSwath = createSubSwath();
+        final Rectangle rect = new Rectangle(20, linesPerBurst + 10, 150, 250);
+        final boolean[][] components = {{true, true}, {true, false}, {false, true}};
+        for (boolean[] component : components) {
+            final DerampDemodPhase phase = new DerampDemodPhase(subSwath, 1, component[0], component[1]);
+            final double[][] plane = phase.getPhase(rect);
+            for (int yy = 0; yy < rect.height; yy++) {
+                for (int xx = 0; xx < rect.width; xx++) {
+                    final double expected = expectedPhase(subSwath, 1, rect.x + xx, rect.y + yy,
+                            component[0], component[1]);
+                    assertEquals(expected, plane[yy][xx], 1.0e-9);
+                    assertEquals(expected, phase.getPhase(rect.x + xx, rect.y + yy), 1.0e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testApplyAndRemove() {
+        final Sentinel1Utils.SubSwathInfo subSwath = createSubSwath();
+        final DerampDemodPhase phase = new DerampDemodPhase(subSwath, 0, true, true);
+        final Rectangle rect = new Rectangle(5, 3, 180, 290);
+
+        final double[][] i = new double[rect.height][rect.width];
+        final double[][] q = new double[rect.height][rect.width];
+        for (int yy = 0; yy < rect.height; yy++) {
+            for (int xx = 0; xx < rect.width; xx++) {
+                i[yy][xx] = Math.sin(0.1 * xx + 0.03 * yy) * 100.0;
+                q[yy][xx] = Math.cos(0.07 * xx - 0.02 * yy) * 100.0;
+            }
+        }
+        final double[][] i0 = new double[rect.height][];
+        final double[][] q0 = new double[rect.height][];
+        for (int yy = 0; yy < rect.height; yy++) {
+            i0[yy] = i[yy].clone();
+            q0[yy] = q[yy].clone();
+        }
+
+        phase.apply(rect, i, q);
+        for (int yy = 0; yy < rect.height; yy++) {
+            for (int xx = 0; xx < rect.width; xx++) {
+                final double p = expectedPhase(subSwath, 0, rect.x + xx, rect.y + yy, true, true);
+                final double expectedI = i0[yy][xx] * Math.cos(p) - q0[yy][xx] * Math.sin(p);
+                final double expectedQ = i0[yy][xx] * Math.sin(p) + q0[yy][xx] * Math.cos(p);
+                assertEquals(expectedI, i[yy][xx], 1.0e-6);
+                assertEquals(expectedQ, q[yy][xx], 1.0e-6);
+            }
+        }
+
+        phase.remove(rect, i, q);
+        for (int yy = 0; yy < rect.height; yy++) {
+            for (int xx = 0; xx < rect.width; xx++) {
+                assertEquals(i0[yy][xx], i[yy][xx], 1.0e-6);
+                assertEquals(q0[yy][xx], q[yy][xx], 1.0e-6);
+            }
+        }
+    }
+}
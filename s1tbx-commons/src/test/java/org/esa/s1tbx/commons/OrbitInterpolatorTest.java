@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class OrbitInterpolatorTest {
+
+    private static final double secondsPerDay = 86400.0;
+    private static final double t0 = 7000.0;
+
+    static OrbitStateVector[] createOrbit(final int numVectors, final double spacing) {
+        final double radius = 7071000.0;
+        final double omega = Math.sqrt(3.986004418e14 / (radius * radius * radius));
+        final OrbitStateVector[] osv = new OrbitStateVector[numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * spacing;
+            final double a = omega * t;
+            // inclined circular orbit
+            osv[i] = new OrbitStateVector(new ProductData.UTC(t0 + t / secondsPerDay),
+                    radius * Math.cos(a), radius * 0.2 * Math.sin(a), radius * 0.98 * Math.sin(a),
+                    -radius * omega * Math.sin(a), radius * omega * 0.2 * Math.cos(a), radius * omega * 0.98 * Math.cos(a));
+        }
+        return osv;
+    }
+
+    /**
+     * Lagrange interpolation of one time over the window of nv state vectors, as OrbitStateVectors used to do it
+     */
+    static void lagrange(final OrbitStateVector[] osv, final double time, final PosVector pos, final PosVector vel) {
+        final int nv = OrbitInterpolator.nv;
+        final double dt = (osv[osv.length - 1].time_mjd - osv[0].time_mjd) / (osv.length - 1);
+        int i0, iN;
+        if (osv.length <= nv) {
+            i0 = 0;
+            iN = osv.length - 1;
+        } else {
+            i0 = Math.max((int) ((time - osv[0].time_mjd) / dt) - nv / 2 + 1, 0);
+            iN = Math.min(i0 + nv - 1, osv.length - 1);
+            i0 = (iN < osv.length - 1 ? i0 : iN - nv + 1);
+        }
+
+        pos.x = pos.y = pos.z = 0;
+        vel.x = vel.y = vel.z = 0;
+        for (int i = i0; i <= iN; ++i) {
+            final OrbitStateVector orbI = osv[i];
+            double weight = 1;
+            for (int j = i0; j <= iN; ++j) {
+                if (j != i) {
+                    final double time2 = osv[j].time_mjd;
+                    weight *= (time - time2) / (orbI.time_mjd - time2);
+                }
+            }
+            pos.x += weight * orbI.x_pos;
+            pos.y += weight * orbI.y_pos;
+            pos.z += weight * orbI.z_pos;
+            vel.x += weight * orbI.x_vel;
+            vel.y += weight * orbI.y_vel;
+            vel.z += weight * orbI.z_vel;
+        }
+    }
+
+    private static void checkAgainstLagrange(final OrbitStateVector[] osv, final double spacing) {
+        final OrbitInterpolator interpolator = new OrbitInterpolator(osv);
+        final PosVector pos = new PosVector(), vel = new PosVector();
+        final double[] p = new double[3], v = new double[3];
+        final double span = (osv.length - 1) * spacing;
+
+        final Random random = new Random(7);
+        for (int i = 0; i < 2000; ++i) {
+            // include a little extrapolation at both ends
+            final double time = t0 + (-5.0 + (span + 10.0) * random.nextDouble()) / secondsPerDay;
+            lagrange(osv, time, pos, vel);
+            interpolator.position(time, p);
+            interpolator.velocity(time, v);
+
+            assertEquals(pos.x, p[0], 1.0e-3);
+            assertEquals(pos.y, p[1], 1.0e-3);
+            assertEquals(pos.z, p[2], 1.0e-3);
+            assertEquals(vel.x, v[0], 1.0e-6);
+            assertEquals(vel.y, v[1], 1.0e-6);
+            assertEquals(vel.z, v[2], 1.0e-6);
+        }
+    }
+
+    @Test
+    public void testMatchesLagrange() {
+        checkAgainstLagrange(createOrbit(30, 10.0), 10.0);
+    }
+
+    @Test
+    public void testFewVectors() {
+        checkAgainstLagrange(createOrbit(5, 60.0), 60.0);
+    }
+
+    @Test
+    public void testInterpolatesStateVectors() {
+        final OrbitStateVector[] osv = createOrbit(17, 10.0);
+        final OrbitInterpolator interpolator = new OrbitInterpolator(osv);
+        final double[] p = new double[3];
+        for (OrbitStateVector orb : osv) {
+            interpolator.position(orb.time_mjd, p);
+            assertEquals(orb.x_pos, p[0], 1.0e-3);
+            assertEquals(orb.y_pos, p[1], 1.0e-3);
+            assertEquals(orb.z_pos, p[2], 1.0e-3);
+        }
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final OrbitStateVector[] osv = createOrbit(30, 10.0);
+        final OrbitInterpolator interpolator = new OrbitInterpolator(osv);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Double>> futures = new ArrayList<>();
+            for (int n = 0; n < 8; ++n) {
+                futures.add(executor.submit(() -> {
+                    final double[] p = new double[3];
+                    final PosVector pos = new PosVector(), vel = new PosVector();
+                    double maxError = 0;
+                    for (int i = 0; i < 10000; ++i) {
+                        final double time = t0 + (i * 0.029) / secondsPerDay;
+                        interpolator.position(time, p);
+                        lagrange(osv, time, pos, vel);
+                        maxError = Math.max(maxError, Math.abs(p[0] - pos.x));
+                    }
+                    return maxError;
+                }));
+            }
+            for (Future<Double> future : futures) {
+                assertTrue(future.get() < 1.0e-3);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
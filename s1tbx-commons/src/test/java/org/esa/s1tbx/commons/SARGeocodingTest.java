@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.esa.snap.engine_utilities.eo.GeoUtils;
+import org.esa.snap.engine_utilities.eo.LocalGeometry;
+import org.esa.snap.engine_utilities.gpf.TileGeoreferencing;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SARGeocodingTest {
+
+    private static final double demNoDataValue = 0.0;
+
+    @Test
+    public void testIsNoDataValue() {
+        assertTrue(SARGeocoding.isNoDataValue(0.0, 0.0));
+        assertFalse(SARGeocoding.isNoDataValue(-0.0, 0.0));
+        assertTrue(SARGeocoding.isNoDataValue(Double.NaN, Double.NaN));
+        assertTrue(SARGeocoding.isNoDataValue(-32768.0, -32768.0));
+        assertFalse(SARGeocoding.isNoDataValue(12.5, -32768.0));
+    }
+
+    /**
+     * The allocation free local incidence angle must give bit identical results to the LocalGeometry version
+     */
+    @Test
+    public void testLocalIncidenceAngleMatchesLocalGeometry() throws Exception {
+        final int width = 64, height = 64;
+        final Product product = new Product("test", "test", width, height);
+        product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, width, height,
+                10.0, 46.0, 0.0002, 0.0002));
+
+        final int x0 = 16, y0 = 8, w = 32, h = 24;
+        final TileGeoreferencing tileGeoRef = new TileGeoreferencing(product, x0 - 1, y0 - 1, w + 2, h + 2);
+
+        final Random random = new Random(42);
+        final double[][] localDEM = new double[h + 2][w + 2];
+        for (int y = 0; y < h + 2; ++y) {
+            for (int x = 0; x < w + 2; ++x) {
+                localDEM[y][x] = random.nextInt(50) == 0 ? demNoDataValue : 200.0 + 800.0 * random.nextDouble();
+            }
+        }
+
+        final SARGeocoding.LocalIncidenceAngleWorkspace ws = new SARGeocoding.LocalIncidenceAngleWorkspace();
+        final GeoPos geoPos = new GeoPos();
+        final PosVector earthPoint = new PosVector();
+        final PosVector sensorPos = new PosVector();
+        final double[] expected = new double[2];
+        final double[] actual = new double[2];
+
+        int validCount = 0;
+        for (int y = y0; y < y0 + h; ++y) {
+            for (int x = x0; x < x0 + w; ++x) {
+                tileGeoRef.getGeoPos(x, y, geoPos);
+                GeoUtils.geo2xyzWGS84(geoPos.lat, geoPos.lon, localDEM[y - y0 + 1][x - x0 + 1], earthPoint);
+                GeoUtils.geo2xyzWGS84(geoPos.lat + 0.5, geoPos.lon - 4.0, 700000.0, sensorPos);
+
+                expected[0] = expected[1] = SARGeocoding.NonValidIncidenceAngle;
+                actual[0] = actual[1] = SARGeocoding.NonValidIncidenceAngle;
+
+                final LocalGeometry lg = new LocalGeometry(x, y, tileGeoRef, earthPoint, sensorPos);
+                SARGeocoding.computeLocalIncidenceAngle(lg, demNoDataValue, true, true, true,
+                        x0, y0, x, y, localDEM, expected);
+                SARGeocoding.computeLocalIncidenceAngle(x, y, tileGeoRef, earthPoint, sensorPos, demNoDataValue,
+                        true, true, true, x0, y0, localDEM, actual, ws);
+
+                assertEquals(expected[0], actual[0], 0.0);
+                assertEquals(expected[1], actual[1], 0.0);
+                if (actual[0] != SARGeocoding.NonValidIncidenceAngle) {
+                    ++validCount;
+                }
+            }
+        }
+        assertTrue(validCount > 0);
+        assertTrue(validCount < w * h);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZeroDopplerSolverTest {
+
+    private static final double secondsPerDay = 86400.0;
+    private static final double orbitRadius = 7071000.0;
+    private static final double earthRadius = 6371000.0;
+    private static final double omega = Math.sqrt(3.986004418e14 / (orbitRadius * orbitRadius * orbitRadius));
+    private static final double t0 = 7000.0;
+    private static final double wavelength = 0.0555;
+
+    private static final double firstLineUTC = t0 + 50.0 / secondsPerDay;
+    private static final double lineTimeInterval = 0.01 / secondsPerDay;
+    private static final int numLines = 10000;
+
+    private OrbitStateVectors orbit;
+
+    @Before
+    public void setUp() {
+        // circular orbit in the x-z plane with state vectors every 10 seconds
+        final OrbitStateVector[] osv = new OrbitStateVector[21];
+        for (int i = 0; i < osv.length; ++i) {
+            final double t = i * 10.0;
+            final double a = omega * t;
+            osv[i] = new OrbitStateVector(new ProductData.UTC(t0 + t / secondsPerDay),
+                    orbitRadius * Math.cos(a), 0.0, orbitRadius * Math.sin(a),
+                    -orbitRadius * omega * Math.sin(a), 0.0, orbitRadius * omega * Math.cos(a));
+        }
+        orbit = new OrbitStateVectors(osv, firstLineUTC, lineTimeInterval, numLines);
+    }
+
+    // earth point seen at zero Doppler at the given line, off track by the given angle
+    private static PosVector earthPoint(final double line, final double lateralAngle) {
+        final double a = omega * (50.0 + line * 0.01);
+        return new PosVector(earthRadius * Math.cos(a) * Math.cos(lateralAngle),
+                earthRadius * Math.sin(lateralAngle),
+                earthRadius * Math.sin(a) * Math.cos(lateralAngle));
+    }
+
+    private static double toLine(final double time) {
+        return (time - firstLineUTC) / lineTimeInterval;
+    }
+
+    @Test
+    public void testMatchesExactSolution() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + 4000 * lineTimeInterval, firstLineUTC + 4512 * lineTimeInterval);
+
+        final PosVector sensorPos = new PosVector();
+        final PosVector orbitSensorPos = new PosVector();
+        for (int i = 0; i <= 100; ++i) {
+            final double line = 4000.0 + i * 5.12;
+            final PosVector point = earthPoint(line, 0.05 + i * 0.0001);
+
+            final double time = solver.getZeroDopplerTime(point);
+            assertEquals(line, toLine(time), 1.0e-4);
+
+            final double slantRange = solver.computeSlantRange(time, point, sensorPos);
+            final double expectedSlantRange = SARGeocoding.computeSlantRange(time, orbit, point, orbitSensorPos);
+            assertEquals(expectedSlantRange, slantRange, 1.0e-3);
+        }
+        assertEquals(0, solver.getNumFallbacks());
+    }
+
+    @Test
+    public void testAgreesWithBisection() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + 1000 * lineTimeInterval, firstLineUTC + 1600 * lineTimeInterval);
+
+        for (int i = 0; i < 50; ++i) {
+            final PosVector point = earthPoint(1000.0 + i * 12.3, -0.04);
+            final double expected = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval,
+                    wavelength, point, orbit.sensorPosition, orbit.sensorVelocity);
+            assertEquals(toLine(expected), toLine(solver.getZeroDopplerTime(point)), 1.0e-2);
+        }
+    }
+
+    private double bisection(final PosVector point) {
+        return SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC, lineTimeInterval, wavelength, point,
+                orbit.sensorPosition, orbit.sensorVelocity);
+    }
+
+    @Test
+    public void testOutsideWindow() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + 2000 * lineTimeInterval, firstLineUTC + 2100 * lineTimeInterval);
+
+        final PosVector sensorPos = new PosVector();
+        for (int i = 0; i < 64; ++i) {
+            final PosVector point = earthPoint(2050.0 + 0.1 * i, 0.05 + i * 0.001);
+            final double time = solver.getZeroDopplerTime(point);
+            assertEquals(2050.0 + 0.1 * i, toLine(time), 1.0e-4);
+            assertTrue(solver.computeSlantRange(time, point, sensorPos) > orbitRadius - earthRadius);
+        }
+        assertEquals(0, solver.getNumFallbacks());
+
+        // a point far outside the window is solved by the scene wide search
+        final PosVector outside = earthPoint(8000.0, 0.05);
+        assertEquals(8000.0, toLine(solver.getZeroDopplerTime(outside)), 1.0e-2);
+        assertEquals(1, solver.getNumFallbacks());
+
+        // beyond the last line of the scene there is no solution
+        final PosVector beyond = earthPoint(numLines + 2000.0, 0.05);
+        assertEquals(SARGeocoding.NonValidZeroDopplerTime, solver.getZeroDopplerTime(beyond), 0.0);
+    }
+
+    @Test
+    public void testSceneEdges() {
+        // windows reaching past the first and the last line of the scene
+        final ZeroDopplerSolver firstSolver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC - 200 * lineTimeInterval, firstLineUTC + 300 * lineTimeInterval);
+        final ZeroDopplerSolver lastSolver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + (numLines - 300) * lineTimeInterval, firstLineUTC + (numLines + 200) * lineTimeInterval);
+
+        final double[] offsets = {-50.0, -3.0, -0.5, -0.01, 0.01, 0.5, 3.0, 50.0};
+        for (double offset : offsets) {
+            final PosVector first = earthPoint(offset, 0.05);
+            final PosVector last = earthPoint(numLines - 1 + offset, 0.05);
+            final double expectedFirst = bisection(first);
+            final double expectedLast = bisection(last);
+
+            // off the scene the solver returns what the scene wide search returns, inside it the exact line,
+            // where the search snaps lines close to the end of the scene to it
+            final double first1 = firstSolver.getZeroDopplerTime(first);
+            final double last1 = lastSolver.getZeroDopplerTime(last);
+            if (offset < 0.0) {
+                assertEquals("first line " + offset, expectedFirst, first1, 0.0);
+            } else {
+                assertTrue("first line " + offset, expectedFirst != SARGeocoding.NonValidZeroDopplerTime);
+                assertEquals("first line " + offset, offset, toLine(first1), 1.0e-4);
+            }
+            if (offset > 0.0) {
+                assertEquals("last line " + offset, expectedLast, last1, 0.0);
+            } else {
+                assertTrue("last line " + offset, expectedLast != SARGeocoding.NonValidZeroDopplerTime);
+                assertEquals("last line " + offset, numLines - 1 + offset, toLine(last1), 1.0e-4);
+            }
+        }
+
+        // lines before the first and after the last line have no solution
+        assertEquals(SARGeocoding.NonValidZeroDopplerTime, firstSolver.getZeroDopplerTime(earthPoint(-3.0, 0.05)), 0.0);
+        assertEquals(SARGeocoding.NonValidZeroDopplerTime,
+                lastSolver.getZeroDopplerTime(earthPoint(numLines + 2.0, 0.05)), 0.0);
+    }
+
+    @Test
+    public void testSearch() {
+        final int[] numSearches = {0};
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval,
+                firstLineUTC - 100 * lineTimeInterval, firstLineUTC + 100 * lineTimeInterval, point -> {
+                    ++numSearches[0];
+                    return 1.0;
+                });
+
+        assertEquals(20.0, toLine(solver.getZeroDopplerTime(earthPoint(20.0, 0.05))), 1.0e-4);
+        assertEquals(0, numSearches[0]);
+
+        // off the scene the solver goes to the given search
+        assertEquals(1.0, solver.getZeroDopplerTime(earthPoint(-20.0, 0.05)), 0.0);
+        assertEquals(1, numSearches[0]);
+        assertEquals(1, solver.getNumFallbacks());
+    }
+
+    @Test
+    public void testWindowOutsideScene() {
+        final ZeroDopplerSolver solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength,
+                firstLineUTC + (numLines + 100) * lineTimeInterval, firstLineUTC + (numLines + 600) * lineTimeInterval);
+
+        assertEquals(SARGeocoding.NonValidZeroDopplerTime,
+                solver.getZeroDopplerTime(earthPoint(numLines + 300.0, 0.05)), 0.0);
+        final PosVector inside = earthPoint(numLines - 100.0, 0.05);
+        assertEquals(bisection(inside), solver.getZeroDopplerTime(inside), 0.0);
+        assertEquals(2, solver.getNumFallbacks());
+
+        // the sensor positions are still those of the orbit
+        final double time = firstLineUTC + (numLines + 60) * lineTimeInterval;
+        final PosVector expected = orbit.getPosition(time, new PosVector());
+        final PosVector position = solver.getPosition(time, new PosVector());
+        assertEquals(expected.x, position.x, 1.0e-3);
+        assertEquals(expected.y, position.y, 1.0e-3);
+        assertEquals(expected.z, position.z, 1.0e-3);
+    }
+}
@@ -1,9 +1,17 @@
 package org.esa.s1tbx.commons.io;
 
 import java.awt.Dimension;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
 import javax.imageio.stream.FileCacheImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 
@@ -17,4 +25,38 @@ public class ImageIOFileTest {
     ImageInputStream imageInputStream = ImageIOFile.createImageInputStream(new ByteArrayInputStream(new byte[0]), new Dimension(60000, 60000));
     Assert.assertTrue("For large files we expect a FileCacheImageInputStream", imageInputStream instanceof FileCacheImageInputStream);
   }
+
+  @Test
+  public void threadReadersAreClosedWithTheFile() throws Exception {
+    final File file = File.createTempFile("ImageIOFileTest", ".png");
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY), "png", file);
+      final ImageIOFile imageFile = new ImageIOFile(file, ImageIO.getImageReadersByFormatName("png").next(), file);
+      imageFile.setImageFile(file);
+      Assert.assertTrue(imageFile.canReadConcurrently());
+
+      final Future<ImageReader> poolReader = executor.submit(imageFile::getThreadReader);
+      final ImageReader reader = imageFile.getThreadReader();
+      Assert.assertSame(reader, imageFile.getThreadReader());
+      Assert.assertNotSame(reader, poolReader.get());
+      Assert.assertEquals(8, reader.getWidth(0));
+
+      imageFile.close();
+      try {
+        imageFile.getThreadReader();
+        Assert.fail("IOException expected after close");
+      } catch (IOException expected) {
+      }
+      try {
+        executor.submit(imageFile::getThreadReader).get();
+        Assert.fail("IOException expected after close");
+      } catch (ExecutionException expected) {
+        Assert.assertTrue(expected.getCause() instanceof IOException);
+      }
+    } finally {
+      executor.shutdown();
+      file.delete();
+    }
+  }
 }
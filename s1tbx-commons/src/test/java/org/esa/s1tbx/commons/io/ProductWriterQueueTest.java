@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ProductWriterQueueTest {
+
+    @Test
+    public void testWritesInSubmissionOrder() throws Exception {
+        final List<Integer> written = new ArrayList<>();
+        final ProductWriterQueue queue = new ProductWriterQueue("ordered", 2);
+        for (int i = 0; i < 100; ++i) {
+            final int n = i;
+            queue.submit(10, () -> written.add(n));
+        }
+        queue.close();
+
+        assertEquals(100, written.size());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, (int) written.get(i));
+        }
+        final ProductWriterQueue.Statistics stats = queue.getStatistics();
+        assertEquals(100, stats.numWrites);
+        assertEquals(1000, stats.bytesWritten);
+    }
+
+    @Test
+    public void testOneWriteAtATime() throws Exception {
+        final ProductWriterQueue queue = new ProductWriterQueue("single", 4);
+        final List<Integer> active = Collections.synchronizedList(new ArrayList<>());
+        final int[] maxActive = new int[1];
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; ++i) {
+                futures.add(executor.submit(() -> {
+                    queue.submit(1, () -> {
+                        active.add(1);
+                        maxActive[0] = Math.max(maxActive[0], active.size());
+                        Thread.yield();
+                        active.remove(0);
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            queue.close();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, maxActive[0]);
+        assertEquals(50, queue.getStatistics().numWrites);
+    }
+
+    @Test
+    public void testFailureIsReported() throws Exception {
+        final ProductWriterQueue queue = new ProductWriterQueue("failing", 2);
+        queue.submit(1, () -> {
+            throw new IOException("disk full");
+        });
+        try {
+            queue.flush();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        try {
+            queue.submit(1, () -> {
+            });
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        try {
+            queue.close();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureOfLastBatchIsReportedByFlush() throws Exception {
+        // all writes of a product submitted at once, nothing is submitted afterwards
+        final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        final ProductWriterQueue queue = new ProductWriterQueue("batch", 8);
+        final CountDownLatch queued = new CountDownLatch(1);
+        queue.submit(0, () -> written.add(0));
+        queue.submit(1, () -> {
+            try {
+                queued.await();
+            } catch (InterruptedException ignore) {
+            }
+            throw new IllegalStateException("writer failed");
+        });
+        for (int i = 2; i < 6; ++i) {
+            final int n = i;
+            queue.submit(1, () -> written.add(n));
+        }
+        queued.countDown();
+        try {
+            queue.flush();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // the writes after the failed one are skipped
+        assertEquals(1, written.size());
+        assertEquals(1, queue.getStatistics().numWrites);
+        try {
+            queue.close();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("writer failed", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testCheckFailureDoesNotWait() throws Exception {
+        // StackSplitWriter checks the queues of the earlier products before writing the next one
+        final ProductWriterQueue queue = new ProductWriterQueue("check", 4);
+        final CountDownLatch release = new CountDownLatch(1);
+        queue.submit(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+            }
+            throw new IOException("disk full");
+        });
+        queue.checkFailure();
+
+        release.countDown();
+        try {
+            queue.close();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        try {
+            queue.checkFailure();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RasterFileChannelTest {
+
+    private static final int width = 300;
+    private static final int height = 200;
+    private static final int tileSize = 64;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("raster", ".img");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static float value(final int x, final int y) {
+        return y * 1000.0f + x + 0.25f;
+    }
+
+    @Test
+    public void testConcurrentTilesBigEndian() throws Exception {
+        writeTilesConcurrently(ByteOrder.BIG_ENDIAN);
+        assertFile(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testConcurrentTilesLittleEndian() throws Exception {
+        writeTilesConcurrently(ByteOrder.LITTLE_ENDIAN);
+        assertFile(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void testFullWidthRect() throws Exception {
+        try (RasterFileChannel channel = RasterFileChannel.open(file, ByteOrder.BIG_ENDIAN)) {
+            channel.writeRect(createTile(0, 0, width, height), width, 0, 0, width, height);
+        }
+        assertFile(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testShortSamples() throws Exception {
+        final short[] samples = {1, -2, 300, Short.MAX_VALUE, Short.MIN_VALUE};
+        try (RasterFileChannel channel = RasterFileChannel.open(file, ByteOrder.BIG_ENDIAN)) {
+            channel.write(10, ProductData.createInstance(samples), 1, 3);
+        }
+        final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.BIG_ENDIAN);
+        assertEquals(16, bytes.limit());
+        assertEquals(-2, bytes.getShort(10));
+        assertEquals(300, bytes.getShort(12));
+        assertEquals(Short.MAX_VALUE, bytes.getShort(14));
+    }
+
+    private void writeTilesConcurrently(final ByteOrder byteOrder) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (RasterFileChannel channel = RasterFileChannel.open(file, byteOrder)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int y = 0; y < height; y += tileSize) {
+                for (int x = 0; x < width; x += tileSize) {
+                    final int x0 = x, y0 = y;
+                    final int w = Math.min(tileSize, width - x0), h = Math.min(tileSize, height - y0);
+                    futures.add(executor.submit(() -> {
+                        channel.writeRect(createTile(x0, y0, w, h), width, x0, y0, w, h);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ProductData createTile(final int x0, final int y0, final int w, final int h) {
+        final float[] samples = new float[w * h];
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                samples[y * w + x] = value(x0 + x, y0 + y);
+            }
+        }
+        return ProductData.createInstance(samples);
+    }
+
+    private void assertFile(final ByteOrder byteOrder) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(byteOrder);
+        assertEquals(width * height * 4, bytes.limit());
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                assertEquals(value(x, y), bytes.getFloat((y * width + x) * 4), 0.0f);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindFileChannelTest {
+
+    private static final int lineSize = 1000;
+    private static final int numLines = 64;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("writeBehind", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static byte value(final long position) {
+        return (byte) (position * 31 + position / 7);
+    }
+
+    private static ByteBuffer createLines(final int firstLine, final int count) {
+        final ByteBuffer data = ByteBuffer.allocate(count * lineSize);
+        for (int i = 0; i < data.capacity(); ++i) {
+            data.put(i, value((long) firstLine * lineSize + i));
+        }
+        return data;
+    }
+
+    @Test
+    public void testPreallocatedSize() throws Exception {
+        try (WriteBehindFileChannel channel = new WriteBehindFileChannel(file, 12345, 1024)) {
+            assertEquals(12345, file.length());
+        }
+        assertEquals(12345, file.length());
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final WriteBehindFileChannel.Statistics stats;
+        try (WriteBehindFileChannel channel = new WriteBehindFileChannel(file, lineSize * numLines, 4 * lineSize)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int line = numLines - 1; line >= 0; --line) {
+                final int y = line;
+                futures.add(executor.submit(() -> {
+                    channel.write((long) y * lineSize, createLines(y, 1));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            channel.flush();
+            stats = channel.getStatistics();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(numLines, stats.numRequests);
+        assertEquals(lineSize * numLines, stats.bytesWritten);
+        assertTrue(stats.numWrites <= numLines);
+        assertTrue(stats.peakQueuedBytes <= 4 * lineSize);
+        assertFile();
+    }
+
+    @Test
+    public void testAdjacentRunsAreCoalesced() throws Exception {
+        final WriteBehindFileChannel.Statistics stats;
+        try (WriteBehindFileChannel channel = new WriteBehindFileChannel(file, lineSize * numLines, lineSize * numLines)) {
+            // one buffer holding the lines in reverse order, each a run of its own
+            final ByteBuffer data = ByteBuffer.allocate(lineSize * numLines);
+            final long[] positions = new long[numLines];
+            final int[] lengths = new int[numLines];
+            for (int i = 0; i < numLines; ++i) {
+                final int y = numLines - 1 - i;
+                data.put(createLines(y, 1));
+                positions[i] = (long) y * lineSize;
+                lengths[i] = lineSize;
+            }
+            data.flip();
+            channel.write(data, positions, lengths, numLines);
+            channel.flush();
+            stats = channel.getStatistics();
+        }
+
+        assertEquals(1, stats.numWrites);
+        assertEquals(0, stats.numBlocked);
+        assertFile();
+    }
+
+    @Test
+    public void testBackPressure() throws Exception {
+        final WriteBehindFileChannel.Statistics stats;
+        try (WriteBehindFileChannel channel = new WriteBehindFileChannel(file, lineSize * numLines, lineSize)) {
+            for (int y = 0; y < numLines; ++y) {
+                channel.write((long) y * lineSize, createLines(y, 1));
+            }
+            channel.flush();
+            stats = channel.getStatistics();
+        }
+
+        assertEquals(lineSize, stats.peakQueuedBytes);
+        assertFile();
+    }
+
+    @Test
+    public void testReadAfterFlush() throws Exception {
+        try (WriteBehindFileChannel channel = new WriteBehindFileChannel(file, lineSize * numLines, 1024 * 1024)) {
+            channel.write(5L * lineSize, createLines(5, 2));
+            channel.flush();
+
+            final ByteBuffer line = ByteBuffer.allocate(lineSize);
+            channel.read(6L * lineSize, line);
+            assertFalse(line.hasRemaining());
+            for (int i = 0; i < lineSize; ++i) {
+                assertEquals(value(6L * lineSize + i), line.get(i));
+            }
+        }
+    }
+
+    private void assertFile() throws IOException {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        assertEquals(lineSize * numLines, bytes.length);
+        for (int i = 0; i < bytes.length; ++i) {
+            assertEquals(value(i), bytes[i]);
+        }
+    }
+}
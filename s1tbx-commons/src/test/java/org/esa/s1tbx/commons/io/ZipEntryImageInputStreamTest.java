@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ZipEntryImageInputStreamTest {
+
+    private static final String STORED_ENTRY = "product/measurement/stored.tiff";
+    private static final String DEFLATED_ENTRY = "product/measurement/deflated.tiff";
+
+    private static File zipFile;
+    private static byte[] data;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        final Random random = new Random(42);
+        data = new byte[1000000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) (random.nextInt(8) + i % 11);
+        }
+
+        zipFile = File.createTempFile("entry", ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            zip.putNextEntry(new ZipEntry("product/manifest.safe"));
+            zip.write("manifest".getBytes());
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(DEFLATED_ENTRY));
+            zip.write(data);
+            zip.closeEntry();
+
+            final ZipEntry stored = new ZipEntry(STORED_ENTRY);
+            final CRC32 crc = new CRC32();
+            crc.update(data);
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(data.length);
+            stored.setCompressedSize(data.length);
+            stored.setCrc(crc.getValue());
+            zip.putNextEntry(stored);
+            zip.write(data);
+            zip.closeEntry();
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        zipFile.delete();
+    }
+
+    @Test
+    public void testStoredEntry() throws IOException {
+        final ZipEntryImageInputStream stream = ZipEntryImageInputStream.create(zipFile, STORED_ENTRY);
+        assertNotNull(stream);
+        assertTrue(stream.isStored());
+        assertTrue(stream.getDataOffset() > 0);
+        assertEquals(data.length, stream.length());
+        checkRandomReads(stream);
+        stream.close();
+    }
+
+    @Test
+    public void testDeflatedEntry() throws IOException {
+        final ZipEntryImageInputStream stream = ZipEntryImageInputStream.create(zipFile, DEFLATED_ENTRY);
+        assertNotNull(stream);
+        assertFalse(stream.isStored());
+        assertEquals(data.length, stream.length());
+        checkRandomReads(stream);
+        stream.close();
+    }
+
+    @Test
+    public void testMissingEntry() {
+        assertNull(ZipEntryImageInputStream.create(zipFile, "product/measurement/missing.tiff"));
+    }
+
+    private static void checkRandomReads(final ZipEntryImageInputStream stream) throws IOException {
+        final Random random = new Random(7);
+        for (int i = 0; i < 50; ++i) {
+            final int pos = random.nextInt(data.length - 100000);
+            final byte[] buf = new byte[random.nextInt(100000) + 1];
+            stream.seek(pos);
+            stream.readFully(buf);
+            for (int b = 0; b < buf.length; ++b) {
+                assertEquals(data[pos + b], buf[b]);
+            }
+            stream.seek(pos + 3);
+            assertEquals(data[pos + 3] & 0xFF, stream.read());
+        }
+        stream.seek(data.length);
+        assertEquals(-1, stream.read());
+    }
+}
@@ -1,72 +1,275 @@
 package org.esa.s1tbx.io;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import org.esa.s1tbx.commons.io.ImageIOFile;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Tile cache for the ImageIOFile based readers.
+ * The cache is bounded by the number of bytes held rather than by the number of tiles and keeps a
+ * per image grid index of the cached rectangles so that a request for a sub-rectangle of an already
+ * cached tile can be served without going back to the reader.
+ *
  * Created by lveci on 20/05/2014.
  */
 public class DataCache {
 
-    private final LoadingCache<DataKey, Data> cache;
+    private static final long MB = 1024L * 1024L;
+    // size of the cells of the grid indexing the cached rectangles of an image
+    private static final int INDEX_CELL_SIZE = 256;
+    private static final long DEFAULT_MAX_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.readers.tileCacheSizeMB", Math.min(Runtime.getRuntime().maxMemory() / 8 / MB, 1024L)) * MB;
+
+    private final Cache<DataKey, Data> cache;
+    private final Map<ImageIOFile, ImageIndex> spatialIndex = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    private final AtomicLong sizeInBytes = new AtomicLong();
+    private final AtomicLong subRectHits = new AtomicLong();
 
     public DataCache() {
-        cache = CacheBuilder.newBuilder().maximumSize(500).initialCapacity(500)
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public DataCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Weigher<DataKey, Data>) (key, value) -> value.sizeInBytes())
                 .expireAfterAccess(10, TimeUnit.MINUTES)
-                //.recordStats()
-                .build(new CacheLoader<DataKey, Data>() {
-                           @Override
-                           public Data load(DataKey key) throws Exception {
-                               return new Data();
-                           }
-                       }
-        );
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+    }
+
+    private void onRemoval(final RemovalNotification<DataKey, Data> notification) {
+        final Data value = notification.getValue();
+        if (value != null) {
+            sizeInBytes.addAndGet(-value.sizeInBytes());
+        }
+        final DataKey key = notification.getKey();
+        if (key != null && notification.getCause() != RemovalCause.REPLACED) {
+            final ImageIndex index = spatialIndex.get(key.img);
+            if (index != null) {
+                index.remove(key);
+            }
+        }
     }
 
     public long size() {
         return cache.size();
     }
 
+    public long sizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    public long maxSizeInBytes() {
+        return maxBytes;
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount() + subRectHits.get();
+    }
+
+    public long subRectHitCount() {
+        return subRectHits.get();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount() - subRectHits.get();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
     public String stats() {
-        return cache.stats().toString();
+        final CacheStats s = cache.stats();
+        return "DataCache{hits=" + hitCount() + ", subRectHits=" + subRectHitCount() + ", misses=" + missCount() +
+                ", evictions=" + s.evictionCount() + ", tiles=" + size() +
+                ", bytes=" + sizeInBytes() + '/' + maxBytes + '}';
     }
 
-    public Data get(DataKey key) {
-        return cache.getUnchecked(key);
+    /**
+     * Get the data for a tile, either cached under the same key or cut out of a cached tile
+     * of the same image that fully contains the requested rectangle.
+     *
+     * @param key the image and rectangle requested
+     * @return the cached data or null if not available
+     */
+    public Data get(final DataKey key) {
+        final Data data = cache.getIfPresent(key);
+        if (data != null) {
+            return data;
+        }
+        return getFromEnclosingTile(key);
     }
 
-    public synchronized void put(DataKey key, Data value) {
+    public void put(final DataKey key, final Data value) {
+        if (!value.valid) {
+            return;
+        }
+        sizeInBytes.addAndGet(value.sizeInBytes());
         cache.put(key, value);
+        spatialIndex.computeIfAbsent(key.img, k -> new ImageIndex()).add(key);
+    }
+
+    public void invalidate(final ImageIOFile img) {
+        final ImageIndex index = spatialIndex.remove(img);
+        if (index != null) {
+            cache.invalidateAll(index.keys);
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+        spatialIndex.clear();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * @return the number of cached rectangles inspected when looking for a rectangle enclosing the key
+     */
+    int getNumCandidates(final DataKey key) {
+        final ImageIndex index = spatialIndex.get(key.img);
+        return index == null ? 0 : index.getCandidates(key.rect).size();
+    }
+
+    private Data getFromEnclosingTile(final DataKey key) {
+        final ImageIndex index = spatialIndex.get(key.img);
+        if (index == null) {
+            return null;
+        }
+        final Rectangle rect = key.rect;
+        for (DataKey candidate : index.getCandidates(rect)) {
+            if (candidate.equals(key) || !candidate.rect.contains(rect)) {
+                continue;
+            }
+            final Data enclosing = cache.getIfPresent(candidate);
+            if (enclosing == null) {
+                index.remove(candidate);
+                continue;
+            }
+            final int[] srcArray = enclosing.intArray;
+            if (srcArray == null || srcArray.length != candidate.rect.width * candidate.rect.height) {
+                // tile was clipped at the image border, the layout is unknown
+                continue;
+            }
+            final int srcWidth = candidate.rect.width;
+            final int[] subArray = new int[rect.width * rect.height];
+            int srcIndex = (rect.y - candidate.rect.y) * srcWidth + (rect.x - candidate.rect.x);
+            for (int y = 0, destIndex = 0; y < rect.height; ++y, srcIndex += srcWidth, destIndex += rect.width) {
+                System.arraycopy(srcArray, srcIndex, subArray, destIndex, rect.width);
+            }
+            subRectHits.incrementAndGet();
+            return new Data(subArray);
+        }
+        return null;
+    }
+
+    /**
+     * The cached rectangles of one image. Every rectangle is listed in the grid cells it covers, so a rectangle
+     * enclosing a request is listed in the cell of the first pixel of the request.
+     */
+    private static final class ImageIndex {
+        private final Set<DataKey> keys = ConcurrentHashMap.newKeySet();
+        private final Map<Long, Set<DataKey>> cells = new ConcurrentHashMap<>();
+
+        private static long cellKey(final int cellX, final int cellY) {
+            return ((long) cellY << 32) | (cellX & 0xffffffffL);
+        }
+
+        void add(final DataKey key) {
+            if (keys.add(key)) {
+                for (long cellKey : getCellKeys(key.rect)) {
+                    cells.computeIfAbsent(cellKey, k -> ConcurrentHashMap.newKeySet()).add(key);
+                }
+            }
+        }
+
+        void remove(final DataKey key) {
+            if (keys.remove(key)) {
+                for (long cellKey : getCellKeys(key.rect)) {
+                    final Set<DataKey> cell = cells.get(cellKey);
+                    if (cell != null) {
+                        cell.remove(key);
+                    }
+                }
+            }
+        }
+
+        private static long[] getCellKeys(final Rectangle rect) {
+            final int cellX0 = Math.floorDiv(rect.x, INDEX_CELL_SIZE);
+            final int cellY0 = Math.floorDiv(rect.y, INDEX_CELL_SIZE);
+            final int numCellsX = Math.floorDiv(rect.x + rect.width - 1, INDEX_CELL_SIZE) - cellX0 + 1;
+            final int numCellsY = Math.floorDiv(rect.y + rect.height - 1, INDEX_CELL_SIZE) - cellY0 + 1;
+            final long[] cellKeys = new long[numCellsX * numCellsY];
+            for (int j = 0; j < numCellsY; ++j) {
+                for (int i = 0; i < numCellsX; ++i) {
+                    cellKeys[j * numCellsX + i] = cellKey(cellX0 + i, cellY0 + j);
+                }
+            }
+            return cellKeys;
+        }
+
+        Set<DataKey> getCandidates(final Rectangle rect) {
+            final Set<DataKey> cell = cells.get(cellKey(Math.floorDiv(rect.x, INDEX_CELL_SIZE),
+                    Math.floorDiv(rect.y, INDEX_CELL_SIZE)));
+            return cell != null ? cell : Collections.emptySet();
+        }
     }
 
     public static class DataKey {
         private final ImageIOFile img;
         private final Rectangle rect;
+        private final int hash;
 
         public DataKey(final ImageIOFile img, final Rectangle rect) {
             this.img = img;
-            this.rect = rect;
+            this.rect = new Rectangle(rect);
+
+            int h = System.identityHashCode(img);
+            h = 31 * h + rect.x;
+            h = 31 * h + rect.y;
+            h = 31 * h + rect.width;
+            h = 31 * h + rect.height;
+            this.hash = h;
         }
 
         @Override
         public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof DataKey))
+                return false;
 
-            DataKey key = (DataKey) obj;
-            return (rect.x == key.rect.x &&
+            final DataKey key = (DataKey) obj;
+            return (img == key.img &&
+                    rect.x == key.rect.x &&
                     rect.y == key.rect.y &&
                     rect.width == key.rect.width &&
-                    rect.height == key.rect.height &&
-                    img == key.img);
+                    rect.height == key.rect.height);
         }
 
         @Override
         public int hashCode() {
-            return img.hashCode();
+            return hash;
         }
 
         @Override
@@ -88,5 +291,9 @@ public class DataCache {
             this.intArray = srcArray;
             this.valid = true;
         }
+
+        int sizeInBytes() {
+            return intArray == null ? 0 : intArray.length * 4;
+        }
     }
 }
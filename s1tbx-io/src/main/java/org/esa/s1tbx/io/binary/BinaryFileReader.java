@@ -15,10 +15,15 @@
  */
 package org.esa.s1tbx.io.binary;
 
+import org.esa.s1tbx.commons.io.FileImageInputStreamExtImpl;
+
 import javax.imageio.stream.ImageInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 
 /**
@@ -32,14 +37,40 @@ public final class BinaryFileReader {
 
     private final ImageInputStream stream;
 
+    // positional reads for streams backed by a file, shared by all threads without a cursor
+    private final FileChannel channel;
+    private final ThreadLocal<ByteBuffer> threadBuffer = new ThreadLocal<>();
+
     public BinaryFileReader(final ImageInputStream stream) {
         this.stream = stream;
+        this.channel = openChannel(stream);
+    }
+
+    private static FileChannel openChannel(final ImageInputStream stream) {
+        if (stream instanceof FileImageInputStreamExtImpl) {
+            try {
+                return FileChannel.open(((FileImageInputStreamExtImpl) stream).getFile().toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return null;
     }
 
     public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
         stream.close();
     }
 
+    /**
+     * @return true if the read methods taking a position can be called concurrently without locking
+     */
+    public boolean isPositionalReadSupported() {
+        return channel != null;
+    }
+
     public void setByteOrder(ByteOrder order) {
         stream.setByteOrder(order);
     }
@@ -140,6 +171,74 @@ public final class BinaryFileReader {
         stream.readFully(array, 0, array.length);
     }
 
+    /**
+     * Positional reads do not move the stream position. For file based streams they read through a
+     * FileChannel and may be called from several threads at once, otherwise the stream is locked while seeking.
+     */
+    public void read(final long pos, final byte[] array) throws IOException {
+        if (channel == null) {
+            synchronized (this) {
+                stream.seek(pos);
+                read(array);
+            }
+            return;
+        }
+        readChannel(pos, array.length).get(array);
+    }
+
+    public void read(final long pos, final short[] array) throws IOException {
+        if (channel == null) {
+            synchronized (this) {
+                stream.seek(pos);
+                read(array);
+            }
+            return;
+        }
+        readChannel(pos, array.length * 2).asShortBuffer().get(array);
+    }
+
+    public void read(final long pos, final int[] array) throws IOException {
+        if (channel == null) {
+            synchronized (this) {
+                stream.seek(pos);
+                read(array);
+            }
+            return;
+        }
+        readChannel(pos, array.length * 4).asIntBuffer().get(array);
+    }
+
+    public void read(final long pos, final float[] array) throws IOException {
+        if (channel == null) {
+            synchronized (this) {
+                stream.seek(pos);
+                read(array);
+            }
+            return;
+        }
+        readChannel(pos, array.length * 4).asFloatBuffer().get(array);
+    }
+
+    private ByteBuffer readChannel(long pos, final int length) throws IOException {
+        ByteBuffer buffer = threadBuffer.get();
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocateDirect(length);
+            threadBuffer.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, pos);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            pos += n;
+        }
+        buffer.flip();
+        buffer.order(stream.getByteOrder());
+        return buffer;
+    }
+
     public long readIn(final int n) throws IOException, IllegalBinaryFormatException {
         final long streamPosition = stream.getStreamPosition();
         final String longStr = readAn(n).trim();
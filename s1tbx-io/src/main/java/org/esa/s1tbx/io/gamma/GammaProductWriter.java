@@ -17,7 +17,7 @@ package org.esa.s1tbx.io.gamma;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
-import org.esa.s1tbx.commons.io.FileImageOutputStreamExtImpl;
+import org.esa.s1tbx.commons.io.RasterFileChannel;
 import org.esa.s1tbx.io.gamma.header.GammaConstants;
 import org.esa.s1tbx.io.gamma.header.HeaderDEMWriter;
 import org.esa.s1tbx.io.gamma.header.HeaderDiffWriter;
@@ -30,25 +30,28 @@ import org.esa.snap.core.gpf.internal.TileImpl;
 import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.HashMap;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The product writer for Gamma products.
+ * Band files are written with positional writes so that tiles can be written concurrently.
  */
 public class GammaProductWriter extends AbstractProductWriter {
 
     private File outputDir;
     private File outputFile;
     private Product srcProduct;
-    private Map<Band, ImageOutputStream> bandOutputStreams;
+    private final Map<Band, RasterFileChannel> bandChannels = new ConcurrentHashMap<>();
     private HeaderWriter headerWriter;
 
     public GammaProductWriter(final ProductWriterPlugIn writerPlugIn) {
@@ -89,74 +92,57 @@ public class GammaProductWriter extends AbstractProductWriter {
         headerWriter.writeParFile();
     }
 
-    private ImageOutputStream createImageOutputStream(final Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.BIG_ENDIAN);
-        return out;
+    private RasterFileChannel createRasterFileChannel(final Band band) throws IOException {
+        return RasterFileChannel.open(getValidImageFile(band), ByteOrder.BIG_ENDIAN);
     }
 
     /**
      * {@inheritDoc}
      */
-    public synchronized void writeBandRasterData(Band sourceBand,
-                                                 int sourceOffsetX, int sourceOffsetY,
-                                                 int sourceWidth, int sourceHeight,
-                                                 ProductData sourceBuffer,
-                                                 ProgressMonitor pm) throws IOException {
+    public void writeBandRasterData(Band sourceBand,
+                                    int sourceOffsetX, int sourceOffsetY,
+                                    int sourceWidth, int sourceHeight,
+                                    ProductData sourceBuffer,
+                                    ProgressMonitor pm) throws IOException {
         Guardian.assertNotNull("sourceBand", sourceBand);
         Guardian.assertNotNull("sourceBuffer", sourceBuffer);
         final int sourceBandWidth = sourceBand.getRasterWidth();
         final int elemSize = headerWriter.getHighestElemSize();
 
-        final ImageOutputStream outputStream = getOrCreateImageOutputStream(sourceBand);
+        final RasterFileChannel channel = getOrCreateRasterFileChannel(sourceBand);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
             if (isComplex(sourceBand)) {
-                int numInterleaved = 2;
+                final int numInterleaved = 2;
                 final Rectangle rect = new Rectangle(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
                 final Tile sourceTile = getSourceTile(getComplexSrcBand(sourceBand), rect);
                 final ProductData qSourceBuffer = sourceTile.getRawSamples();
+                final int sampleSize = elemSize >= 4 ? 4 : 2;
+                final int lineSize = sampleSize * sourceWidth * numInterleaved;
                 int srcCnt = 0;
 
-                if (elemSize >= 4) {
-                    final float[] destBuffer = new float[sourceWidth * numInterleaved];
-                    for (long y = sourceOffsetY; y < sourceOffsetY + sourceHeight; ++y) {
-                        int dstCnt = 0;
-                        for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; ++x) {
-
-                            destBuffer[dstCnt++] = sourceBuffer.getElemFloatAt(srcCnt);
-                            destBuffer[dstCnt++] = qSourceBuffer.getElemFloatAt(srcCnt);
+                for (long y = sourceOffsetY; y < sourceOffsetY + sourceHeight; ++y) {
+                    final ByteBuffer buffer = channel.getBuffer(lineSize);
+                    if (sampleSize == 4) {
+                        final FloatBuffer destBuffer = buffer.asFloatBuffer();
+                        for (int x = 0; x < sourceWidth; ++x) {
+                            destBuffer.put(sourceBuffer.getElemFloatAt(srcCnt));
+                            destBuffer.put(qSourceBuffer.getElemFloatAt(srcCnt));
                             srcCnt++;
                         }
-
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeFloats(destBuffer, 0, destBuffer.length);
-                    }
-                } else {
-                    final short[] destBuffer = new short[sourceWidth * numInterleaved];
-                    for (long y = sourceOffsetY; y < sourceOffsetY + sourceHeight; ++y) {
-                        int dstCnt = 0;
-                        for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; ++x) {
-
-                            destBuffer[dstCnt++] = (short) sourceBuffer.getElemFloatAt(srcCnt);
-                            destBuffer[dstCnt++] = (short) qSourceBuffer.getElemFloatAt(srcCnt);
+                    } else {
+                        final ShortBuffer destBuffer = buffer.asShortBuffer();
+                        for (int x = 0; x < sourceWidth; ++x) {
+                            destBuffer.put((short) sourceBuffer.getElemFloatAt(srcCnt));
+                            destBuffer.put((short) qSourceBuffer.getElemFloatAt(srcCnt));
                             srcCnt++;
                         }
-
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeShorts(destBuffer, 0, destBuffer.length);
                     }
-                }
 
-                //System.out.println(rect.toString());
-            } else {
-                //todo
-                long outputPos = (long) sourceOffsetY * (long) sourceBandWidth + sourceOffsetX;
-                final long max = sourceHeight * sourceWidth;
-                for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                    sourceBuffer.writeTo(sourcePos, sourceWidth, outputStream, outputPos);
-                    outputPos += sourceBandWidth;
+                    channel.write(buffer, elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
                 }
+            } else {
+                channel.writeRect(sourceBuffer, sourceBandWidth, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
             }
             pm.worked(1);
         } finally {
@@ -188,12 +174,7 @@ public class GammaProductWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
-        }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).flush();
-        }
+        // positional writes are not buffered
     }
 
     /**
@@ -202,14 +183,10 @@ public class GammaProductWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void close() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
+        for (RasterFileChannel channel : bandChannels.values()) {
+            channel.close();
         }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).close();
-        }
-        bandOutputStreams.clear();
-        bandOutputStreams = null;
+        bandChannels.clear();
     }
 
     /**
@@ -224,26 +201,21 @@ public class GammaProductWriter extends AbstractProductWriter {
     }
 
     /**
-     * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
-     * and fed into the hash map
+     * Returns the file channel associated with the given <code>Band</code>. If no channel exists, one is created
+     * and fed into the map
      */
-    private ImageOutputStream getOrCreateImageOutputStream(final Band band) throws IOException {
-        ImageOutputStream outputStream = getImageOutputStream(band);
-        if (outputStream == null) {
-            outputStream = createImageOutputStream(band);
-            if (bandOutputStreams == null) {
-                bandOutputStreams = new HashMap<>();
+    private RasterFileChannel getOrCreateRasterFileChannel(final Band band) throws IOException {
+        RasterFileChannel channel = bandChannels.get(band);
+        if (channel == null) {
+            synchronized (bandChannels) {
+                channel = bandChannels.get(band);
+                if (channel == null) {
+                    channel = createRasterFileChannel(band);
+                    bandChannels.put(band, channel);
+                }
             }
-            bandOutputStreams.put(band, outputStream);
-        }
-        return outputStream;
-    }
-
-    private ImageOutputStream getImageOutputStream(final Band band) {
-        if (bandOutputStreams != null) {
-            return bandOutputStreams.get(band);
         }
-        return null;
+        return channel;
     }
 
     @Override
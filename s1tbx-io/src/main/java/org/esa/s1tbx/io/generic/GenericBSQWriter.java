@@ -16,31 +16,64 @@
 package org.esa.s1tbx.io.generic;
 
 import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.io.RasterFileChannel;
+import org.esa.s1tbx.commons.io.WriteBehindFileChannel;
 import org.esa.snap.core.dataio.AbstractProductWriter;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.ProductNode;
 import org.esa.snap.core.datamodel.VirtualBand;
 import org.esa.snap.core.util.Guardian;
+import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
+import org.esa.snap.runtime.Config;
 
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-
+/**
+ * Writes all bands that are not virtual into one flat binary file in native byte order.
+ * The file is preallocated to its final size and tiles are handed to a write-behind queue, so callers only
+ * block on the disk when the queue is full.
+ * The layout is band sequential (BSQ), band interleaved by line (BIL) or band interleaved by pixel (BIP),
+ * from the preference s1tbx.genericWriter.interleave, BIL by default.
+ */
 public class GenericBSQWriter extends AbstractProductWriter {
 
-    private ImageOutputStream _outputStream = null;
+    public enum Interleave {BSQ, BIL, BIP}
+
+    private static final Interleave DEFAULT_INTERLEAVE = parseInterleave(
+            Config.instance().preferences().get("s1tbx.genericWriter.interleave", Interleave.BIL.name()));
+    private static final int WRITE_BEHIND_BYTES = 1024 * 1024 *
+            Config.instance().preferences().getInt("s1tbx.genericWriter.writeBehindMB", 64);
+
+    private final ByteOrder byteOrder = ByteOrder.nativeOrder();
+    private Interleave interleave = DEFAULT_INTERLEAVE;
 
-    private String bandName = null;
-    private int bandCounter = 0;
-    private int numOfWriteBands = 0; // number of bands that are written (no virtual bands)
+    private File outputFile;
+    private WriteBehindFileChannel outputChannel = null;
+
+    private final Map<String, Integer> bandIndex = new HashMap<>();
+    private int rasterWidth;
+    private int rasterHeight;
+    private int[] elemSize;         // element size of each written band
+    private long[] bandOffset;      // BSQ: offset of the band in the file, BIL: in a line, BIP: in a pixel
+    private long lineSize;          // BIL: size of a line of all bands
+    private int pixelSize;          // BIP: size of a pixel of all bands
+
+    // BIP tiles waiting for the other bands, guarded by itself
+    private final Map<Rectangle, InterleavedTile> interleavedTiles = new HashMap<>();
 
     /**
      * Construct a new instance of a product writer for the given product writer plug-in.
@@ -52,6 +85,35 @@ public class GenericBSQWriter extends AbstractProductWriter {
 
     }
 
+    /**
+     * @param value the name of a layout, in any case
+     * @return the layout, BIL if the name is not known
+     */
+    static Interleave parseInterleave(final String value) {
+        if (value != null) {
+            try {
+                return Interleave.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // fall through to the default
+            }
+        }
+        SystemUtils.LOG.warning("Unknown s1tbx.genericWriter.interleave '" + value + "', using " + Interleave.BIL);
+        return Interleave.BIL;
+    }
+
+    /**
+     * Set the layout of the bands in the file. Must be called before the product nodes are written.
+     *
+     * @param interleave the layout
+     */
+    public void setInterleave(final Interleave interleave) {
+        this.interleave = interleave;
+    }
+
+    public Interleave getInterleave() {
+        return interleave;
+    }
+
     /**
      * Writes the in-memory representation of a data product. This method was called by <code>writeProductNodes(product,
      * output)</code> of the AbstractProductWriter.
@@ -62,28 +124,51 @@ public class GenericBSQWriter extends AbstractProductWriter {
     @Override
     protected void writeProductNodesImpl() throws IOException {
 
-//        _outputStream = null;
-        final File file;
         if (getOutput() instanceof String) {
-            file = new File((String) getOutput());
+            outputFile = new File((String) getOutput());
         } else {
-            file = (File) getOutput();
+            outputFile = (File) getOutput();
         }
 
-        _outputStream = new FileImageOutputStream(file);
-        // Default to nativeOrder
-        _outputStream.setByteOrder(ByteOrder.nativeOrder());
+        final Product product = getSourceProduct();
+        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(product);
+        AbstractMetadataIO.saveExternalMetadata(product, absRoot, outputFile);
 
-        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(getSourceProduct());
-        AbstractMetadataIO.saveExternalMetadata(getSourceProduct(), absRoot, file);
+        // Layout of the Real (not Virtual) bands
+        rasterWidth = product.getSceneRasterWidth();
+        rasterHeight = product.getSceneRasterHeight();
+        final List<Band> writeBands = new ArrayList<>();
+        for (Band band : product.getBands()) {
+            if (!(band instanceof VirtualBand)) {
+                bandIndex.put(band.getName(), writeBands.size());
+                writeBands.add(band);
+            }
+        }
 
-        // Get number of Real (not Virtual) bands
-        final int numOfBands = getSourceProduct().getNumBands();
-        for (int i = 0; i < numOfBands; i++) {
-            if (!(getSourceProduct().getBandAt(i) instanceof VirtualBand)) {
-                numOfWriteBands++;
+        final int numOfWriteBands = writeBands.size();
+        elemSize = new int[numOfWriteBands];
+        bandOffset = new long[numOfWriteBands];
+        long offset = 0;
+        for (int b = 0; b < numOfWriteBands; b++) {
+            elemSize[b] = ProductData.getElemSize(writeBands.get(b).getDataType());
+            bandOffset[b] = offset;
+            switch (interleave) {
+                case BSQ:
+                    offset += (long) elemSize[b] * rasterWidth * rasterHeight;
+                    break;
+                case BIL:
+                    offset += (long) elemSize[b] * rasterWidth;
+                    break;
+                default:
+                    offset += elemSize[b];
             }
         }
+        lineSize = interleave == Interleave.BIL ? offset : 0;
+        pixelSize = interleave == Interleave.BIP ? (int) offset : 0;
+        final long fileSize = interleave == Interleave.BSQ ? offset :
+                interleave == Interleave.BIL ? offset * rasterHeight : offset * rasterWidth * rasterHeight;
+
+        outputChannel = new WriteBehindFileChannel(outputFile, fileSize, WRITE_BEHIND_BYTES);
     }
 
     /**
@@ -107,22 +192,27 @@ public class GenericBSQWriter extends AbstractProductWriter {
 
         checkSourceRegionInsideBandRegion(sourceWidth, sourceBandWidth, sourceHeight, sourceBandHeight, sourceOffsetX, sourceOffsetY);
 
-        // Define order number of Band that is being saved
-        if (bandName == null) {
-            bandName = sourceBand.getName();
-        } else if (!bandName.equals(sourceBand.getName())) {
-            bandName = sourceBand.getName();
-            bandCounter++;
+        final Integer b = bandIndex.get(sourceBand.getName());
+        if (b == null) {
+            throw new IOException("Band " + sourceBand.getName() + " is not part of " + outputFile.getName());
         }
 
-        // Write all source NOT VIRTUAL bands in BSQ : Band Sequential Format
-        long outputPos = sourceOffsetY * (numOfWriteBands * sourceBandWidth) + sourceOffsetX + (bandCounter * sourceBandWidth);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
-            final long max = sourceHeight * sourceWidth;
-            for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                sourceBuffer.writeTo(sourcePos, sourceWidth, _outputStream, outputPos);
-                outputPos += (numOfWriteBands * sourceBandWidth);
+            final ByteBuffer data = ByteBuffer.allocate(sourceWidth * sourceHeight * elemSize[b]).order(byteOrder);
+            RasterFileChannel.putSamples(data, sourceBuffer, 0, sourceWidth * sourceHeight);
+            data.flip();
+
+            if (interleave == Interleave.BIP) {
+                writeInterleavedTile(b, new Rectangle(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight), data);
+            } else {
+                final long[] positions = new long[sourceHeight];
+                final int[] lengths = new int[sourceHeight];
+                for (int y = 0; y < sourceHeight; y++) {
+                    positions[y] = getPosition(b, sourceOffsetX, sourceOffsetY + y);
+                    lengths[y] = sourceWidth * elemSize[b];
+                }
+                outputChannel.write(data, positions, lengths, sourceHeight);
             }
             pm.worked(1);
         } finally {
@@ -131,6 +221,101 @@ public class GenericBSQWriter extends AbstractProductWriter {
 
     }
 
+    private long getPosition(final int b, final int x, final int y) {
+        switch (interleave) {
+            case BSQ:
+                return bandOffset[b] + elemSize[b] * ((long) y * rasterWidth + x);
+            case BIL:
+                return lineSize * y + bandOffset[b] + (long) elemSize[b] * x;
+            default:
+                return pixelSize * ((long) y * rasterWidth + x) + bandOffset[b];
+        }
+    }
+
+    /**
+     * Band interleaved by pixel lines of a tile are only contiguous in the file once the tile of every band
+     * is known, so the bands are gathered per tile and the tile is queued when it is complete.
+     */
+    private void writeInterleavedTile(final int b, final Rectangle rect, final ByteBuffer data) throws IOException {
+        InterleavedTile tile;
+        synchronized (interleavedTiles) {
+            tile = interleavedTiles.get(rect);
+            if (tile == null) {
+                tile = new InterleavedTile(rect, bandIndex.size(), pixelSize);
+                interleavedTiles.put(rect, tile);
+            }
+        }
+
+        final int numPixels = rect.width * rect.height;
+        final int size = elemSize[b];
+        final int offset = (int) bandOffset[b];
+        for (int i = 0; i < numPixels; i++) {
+            for (int k = 0; k < size; k++) {
+                tile.data.put(i * pixelSize + offset + k, data.get(i * size + k));
+            }
+        }
+
+        // a band written again for the same tile does not count, so the tile is complete once, with every band
+        boolean complete = false;
+        synchronized (tile) {
+            if (!tile.hasBand[b]) {
+                tile.hasBand[b] = true;
+                complete = ++tile.numBands == tile.hasBand.length;
+            }
+        }
+        if (complete) {
+            synchronized (interleavedTiles) {
+                interleavedTiles.remove(rect);
+            }
+            final long[] positions = new long[rect.height];
+            final int[] lengths = new int[rect.height];
+            for (int y = 0; y < rect.height; y++) {
+                positions[y] = getPosition(0, rect.x, rect.y + y);
+                lengths[y] = rect.width * pixelSize;
+            }
+            outputChannel.write(tile.data, positions, lengths, rect.height);
+        }
+    }
+
+    /**
+     * Band interleaved by pixel tiles for which not every band was written are merged into the file
+     */
+    private void writeIncompleteTiles() throws IOException {
+        final List<InterleavedTile> tiles;
+        synchronized (interleavedTiles) {
+            tiles = new ArrayList<>(interleavedTiles.values());
+            interleavedTiles.clear();
+        }
+        if (tiles.isEmpty()) {
+            return;
+        }
+        outputChannel.flush();
+
+        for (InterleavedTile tile : tiles) {
+            final Rectangle rect = tile.rect;
+            final int lineLength = rect.width * pixelSize;
+            for (int y = 0; y < rect.height; y++) {
+                final long position = getPosition(0, rect.x, rect.y + y);
+                final ByteBuffer line = ByteBuffer.allocate(lineLength);
+                outputChannel.read(position, line);
+                for (int b = 0; b < tile.hasBand.length; b++) {
+                    if (!tile.hasBand[b]) {
+                        continue;
+                    }
+                    for (int x = 0; x < rect.width; x++) {
+                        final int pos = x * pixelSize + (int) bandOffset[b];
+                        for (int k = 0; k < elemSize[b]; k++) {
+                            line.put(pos + k, tile.data.get(y * lineLength + pos + k));
+                        }
+                    }
+                }
+                line.clear();
+                outputChannel.write(position, line);
+            }
+        }
+        outputChannel.flush();
+    }
+
     private static void checkSourceRegionInsideBandRegion(int sourceWidth, final int sourceBandWidth, int sourceHeight,
                                                           final int sourceBandHeight, int sourceOffsetX,
                                                           int sourceOffsetY) {
@@ -162,8 +347,8 @@ public class GenericBSQWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (_outputStream != null) {
-            _outputStream.flush();
+        if (outputChannel != null) {
+            outputChannel.flush();
         }
     }
 
@@ -173,13 +358,24 @@ public class GenericBSQWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void close() throws IOException {
-        if (_outputStream != null) {
-            _outputStream.flush();
-            _outputStream.close();
-            _outputStream = null;
+        if (outputChannel != null) {
+            try {
+                writeIncompleteTiles();
+            } finally {
+                outputChannel.close();
+                SystemUtils.LOG.fine(outputFile.getName() + ": " + outputChannel.getStatistics());
+                outputChannel = null;
+            }
         }
     }
 
+    /**
+     * @return the write and back-pressure statistics of the write-behind queue, null if the file is not open
+     */
+    public WriteBehindFileChannel.Statistics getWriteStatistics() {
+        return outputChannel != null ? outputChannel.getStatistics() : null;
+    }
+
     /**
      * Returns wether the given product node is to be written.
      *
@@ -190,4 +386,17 @@ public class GenericBSQWriter extends AbstractProductWriter {
     public boolean shouldWrite(ProductNode node) {
         return !(node instanceof VirtualBand) && super.shouldWrite(node);
     }
+
+    private static final class InterleavedTile {
+        final Rectangle rect;
+        final ByteBuffer data;
+        final boolean[] hasBand;
+        int numBands;
+
+        InterleavedTile(final Rectangle rect, final int numOfWriteBands, final int pixelSize) {
+            this.rect = rect;
+            this.data = ByteBuffer.allocate(rect.width * rect.height * pixelSize);
+            this.hasBand = new boolean[numOfWriteBands];
+        }
+    }
 }
@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.geotiffxml;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memory mapped access to uncompressed, strip organised TIFF files such as the Sentinel-1 measurement files.
+ * The strip layout is parsed once and rows are copied straight from the mapped file into the destination buffer
+ * without going through ImageIO. Use open() which returns null when the layout is not simple enough,
+ * in which case the caller should fall back to ImageIO.
+ */
+public class MappedTiffFile {
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_SAMPLE_FORMAT = 339;
+
+    private static final int FORMAT_UINT = 1;
+    private static final int FORMAT_INT = 2;
+    private static final int FORMAT_FLOAT = 3;
+    private static final int FORMAT_COMPLEX_INT = 5;
+
+    // chunks overlap by one row so that every row is contained within a single mapping
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteOrder byteOrder;
+    private final int width, height;
+    private final int rowsPerStrip;
+    private final long[] stripOffsets;
+    private final int sampleFormat;
+    private final int componentBytes;
+    private final int numComponents;
+    private final int pixelBytes;
+    private final int rowBytes;
+    private final AtomicReferenceArray<MappedByteBuffer> chunks;
+
+    private MappedTiffFile(final File file, final FileChannel channel, final ByteOrder byteOrder,
+                           final int width, final int height, final int rowsPerStrip, final long[] stripOffsets,
+                           final int sampleFormat, final int componentBytes, final int numComponents) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.width = width;
+        this.height = height;
+        this.rowsPerStrip = rowsPerStrip;
+        this.stripOffsets = stripOffsets;
+        this.sampleFormat = sampleFormat;
+        this.componentBytes = componentBytes;
+        this.numComponents = numComponents;
+        this.pixelBytes = componentBytes * numComponents;
+        this.rowBytes = width * pixelBytes;
+        this.chunks = new AtomicReferenceArray<>((int) (channel.size() / CHUNK_SIZE) + 1);
+    }
+
+    /**
+     * Open a TIFF file for memory mapped reading
+     *
+     * @param file the TIFF file
+     * @return the mapped file or null if the layout is compressed, tiled, planar or of an unsupported data type
+     */
+    public static MappedTiffFile open(final File file) {
+        return open(file, 0);
+    }
+
+    /**
+     * Open a TIFF file embedded at an offset within another file, such as a STORED entry of a zip file
+     *
+     * @param file   the file containing the TIFF
+     * @param offset the position of the TIFF header within the file
+     * @return the mapped file or null if the layout is compressed, tiled, planar or of an unsupported data type
+     */
+    public static MappedTiffFile open(final File file, final long offset) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            final MappedTiffFile mappedFile = parse(file, channel, offset);
+            if (mappedFile == null) {
+                channel.close();
+            }
+            return mappedFile;
+        } catch (Exception e) {
+            SystemUtils.LOG.fine("Unable to memory map " + file.getName() + ": " + e.getMessage());
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignore) {
+                }
+            }
+            return null;
+        }
+    }
+
+    private static MappedTiffFile parse(final File file, final FileChannel channel, final long offset) throws IOException {
+        final IFDReader ifd = new IFDReader(channel, offset);
+        if (ifd.getValue(TAG_COMPRESSION, 1) != 1 || ifd.getValue(TAG_PLANAR_CONFIGURATION, 1) != 1 ||
+                ifd.has(TAG_TILE_WIDTH) || !ifd.has(TAG_STRIP_OFFSETS)) {
+            return null;
+        }
+
+        final int width = (int) ifd.getValue(TAG_IMAGE_WIDTH, 0);
+        final int height = (int) ifd.getValue(TAG_IMAGE_LENGTH, 0);
+        final int samplesPerPixel = (int) ifd.getValue(TAG_SAMPLES_PER_PIXEL, 1);
+        final int bitsPerSample = (int) ifd.getValue(TAG_BITS_PER_SAMPLE, 1);
+        final int sampleFormat = (int) ifd.getValue(TAG_SAMPLE_FORMAT, FORMAT_UINT);
+        final int rowsPerStrip = (int) Math.min(ifd.getValue(TAG_ROWS_PER_STRIP, height), height);
+        final long[] stripOffsets = ifd.getValues(TAG_STRIP_OFFSETS);
+        final long[] stripByteCounts = ifd.getValues(TAG_STRIP_BYTE_COUNTS);
+        if (width <= 0 || height <= 0 || rowsPerStrip <= 0 || bitsPerSample % 8 != 0) {
+            return null;
+        }
+
+        final int componentBytes;
+        final int numComponents;
+        switch (sampleFormat) {
+            case FORMAT_UINT:
+            case FORMAT_INT:
+                if (bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 32)
+                    return null;
+                componentBytes = bitsPerSample / 8;
+                numComponents = samplesPerPixel;
+                break;
+            case FORMAT_FLOAT:
+                if (bitsPerSample != 32 && bitsPerSample != 64)
+                    return null;
+                componentBytes = bitsPerSample / 8;
+                numComponents = samplesPerPixel;
+                break;
+            case FORMAT_COMPLEX_INT:
+                // CInt16 with the real part first
+                if (bitsPerSample != 32 || samplesPerPixel != 1)
+                    return null;
+                componentBytes = 2;
+                numComponents = 2;
+                break;
+            default:
+                return null;
+        }
+
+        final long rowBytes = (long) width * componentBytes * numComponents;
+        final int numStrips = (height + rowsPerStrip - 1) / rowsPerStrip;
+        if (rowBytes > Integer.MAX_VALUE / 2 || stripOffsets.length < numStrips || stripByteCounts.length < numStrips) {
+            return null;
+        }
+        final long fileSize = channel.size();
+        for (int s = 0; s < stripOffsets.length; ++s) {
+            stripOffsets[s] += offset;
+        }
+        for (int s = 0; s < numStrips; ++s) {
+            final int rowsInStrip = Math.min(rowsPerStrip, height - s * rowsPerStrip);
+            if (stripByteCounts[s] < rowsInStrip * rowBytes || stripOffsets[s] + rowsInStrip * rowBytes > fileSize) {
+                return null;
+            }
+        }
+
+        return new MappedTiffFile(file, channel, ifd.byteOrder, width, height, rowsPerStrip, stripOffsets,
+                                  sampleFormat, componentBytes, numComponents);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isComplex() {
+        return sampleFormat == FORMAT_COMPLEX_INT;
+    }
+
+    public void close() throws IOException {
+        for (int i = 0; i < chunks.length(); ++i) {
+            chunks.set(i, null);
+        }
+        channel.close();
+    }
+
+    private long getRowOffset(final int y) {
+        return stripOffsets[y / rowsPerStrip] + (long) (y % rowsPerStrip) * rowBytes;
+    }
+
+    private ByteBuffer getChunk(final int index) throws IOException {
+        MappedByteBuffer chunk = chunks.get(index);
+        if (chunk == null) {
+            final long start = index * CHUNK_SIZE;
+            final long length = Math.min(CHUNK_SIZE + rowBytes, channel.size() - start);
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            chunk.order(byteOrder);
+            if (!chunks.compareAndSet(index, null, chunk)) {
+                chunk = chunks.get(index);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Copy a subsampled region of one component into the destination buffer.
+     * The region follows the ImageIO convention of a source region in subsampled coordinates
+     * with the subsampling grid offset taken from the source offset.
+     *
+     * @param component for complex data 0 for the real and 1 for the imaginary part, otherwise the sample index
+     * @return false if the request can not be served and the caller should fall back to ImageIO
+     */
+    public boolean readRasterBand(final int sourceOffsetX, final int sourceOffsetY,
+                                  final int sourceStepX, final int sourceStepY,
+                                  final ProductData destBuffer,
+                                  final int destOffsetX, final int destOffsetY,
+                                  final int destWidth, final int destHeight,
+                                  final int component) throws IOException {
+        if (component < 0 || component >= numComponents) {
+            return false;
+        }
+        final int gridX = sourceOffsetX % sourceStepX;
+        final int gridY = sourceOffsetY % sourceStepY;
+        final int x0 = gridX + destOffsetX * sourceStepX;
+        final int y0 = gridY + destOffsetY * sourceStepY;
+        final long xEnd = x0 + (long) (destWidth - 1) * sourceStepX;
+        final long yEnd = y0 + (long) (destHeight - 1) * sourceStepY;
+        if (x0 < 0 || y0 < 0 || xEnd >= width || yEnd >= height || destBuffer.getNumElems() < destWidth * destHeight) {
+            return false;
+        }
+
+        final Object dest = destBuffer.getElems();
+        final int stride = sourceStepX * pixelBytes;
+        final int componentOffset = x0 * pixelBytes + component * componentBytes;
+
+        for (int dy = 0; dy < destHeight; ++dy) {
+            final long rowOffset = getRowOffset(y0 + dy * sourceStepY);
+            final int chunkIndex = (int) (rowOffset / CHUNK_SIZE);
+            final ByteBuffer chunk = getChunk(chunkIndex);
+            int pos = (int) (rowOffset - chunkIndex * CHUNK_SIZE) + componentOffset;
+            final int destStart = dy * destWidth;
+            final int destEnd = destStart + destWidth;
+
+            if (componentBytes == 2 && dest instanceof short[]) {
+                final short[] array = (short[]) dest;
+                for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                    array[i] = chunk.getShort(pos);
+                }
+            } else if (componentBytes == 2 && dest instanceof int[]) {
+                final int[] array = (int[]) dest;
+                if (sampleFormat == FORMAT_UINT) {
+                    for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                        array[i] = chunk.getShort(pos) & 0xFFFF;
+                    }
+                } else {
+                    for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                        array[i] = chunk.getShort(pos);
+                    }
+                }
+            } else if (componentBytes == 4 && sampleFormat == FORMAT_FLOAT && dest instanceof float[]) {
+                final float[] array = (float[]) dest;
+                for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                    array[i] = chunk.getFloat(pos);
+                }
+            } else if (componentBytes == 4 && sampleFormat != FORMAT_FLOAT && dest instanceof int[]) {
+                final int[] array = (int[]) dest;
+                for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                    array[i] = chunk.getInt(pos);
+                }
+            } else {
+                for (int i = destStart; i < destEnd; ++i, pos += stride) {
+                    destBuffer.setElemDoubleAt(i, getValue(chunk, pos));
+                }
+            }
+        }
+        return true;
+    }
+
+    private double getValue(final ByteBuffer chunk, final int pos) {
+        switch (componentBytes) {
+            case 1:
+                return sampleFormat == FORMAT_UINT ? chunk.get(pos) & 0xFF : chunk.get(pos);
+            case 2:
+                return sampleFormat == FORMAT_UINT ? chunk.getShort(pos) & 0xFFFF : chunk.getShort(pos);
+            case 4:
+                if (sampleFormat == FORMAT_FLOAT)
+                    return chunk.getFloat(pos);
+                return sampleFormat == FORMAT_UINT ? chunk.getInt(pos) & 0xFFFFFFFFL : chunk.getInt(pos);
+            default:
+                return chunk.getDouble(pos);
+        }
+    }
+
+    /**
+     * Reads the entries of the first image file directory of a classic or BigTIFF file
+     */
+    private static class IFDReader {
+
+        private final FileChannel channel;
+        private final long baseOffset;
+        private final ByteOrder byteOrder;
+        private final boolean isBigTiff;
+        private final long[] tags;
+        private final int[] types;
+        private final long[] counts;
+        private final ByteBuffer[] values;
+
+        IFDReader(final FileChannel channel, final long baseOffset) throws IOException {
+            this.channel = channel;
+            this.baseOffset = baseOffset;
+
+            final ByteBuffer header = read(0, 16, ByteOrder.LITTLE_ENDIAN);
+            final int order = header.getShort(0);
+            if (order == 0x4949) {
+                byteOrder = ByteOrder.LITTLE_ENDIAN;
+            } else if (order == 0x4D4D) {
+                byteOrder = ByteOrder.BIG_ENDIAN;
+            } else {
+                throw new IOException("Not a TIFF file");
+            }
+            header.order(byteOrder);
+            final int version = header.getShort(2);
+            if (version == 42) {
+                isBigTiff = false;
+            } else if (version == 43) {
+                isBigTiff = true;
+            } else {
+                throw new IOException("Unknown TIFF version " + version);
+            }
+
+            final long ifdOffset = isBigTiff ? header.getLong(8) : header.getInt(4) & 0xFFFFFFFFL;
+            final int countSize = isBigTiff ? 8 : 2;
+            final int entrySize = isBigTiff ? 20 : 12;
+            final int valueSize = isBigTiff ? 8 : 4;
+
+            final ByteBuffer countBuf = read(ifdOffset, countSize, byteOrder);
+            final int numEntries = (int) (isBigTiff ? countBuf.getLong(0) : countBuf.getShort(0) & 0xFFFF);
+            final ByteBuffer entries = read(ifdOffset + countSize, numEntries * entrySize, byteOrder);
+
+            tags = new long[numEntries];
+            types = new int[numEntries];
+            counts = new long[numEntries];
+            values = new ByteBuffer[numEntries];
+            for (int i = 0; i < numEntries; ++i) {
+                final int pos = i * entrySize;
+                tags[i] = entries.getShort(pos) & 0xFFFF;
+                types[i] = entries.getShort(pos + 2) & 0xFFFF;
+                counts[i] = isBigTiff ? entries.getLong(pos + 4) : entries.getInt(pos + 4) & 0xFFFFFFFFL;
+                final int valuePos = pos + (isBigTiff ? 12 : 8);
+                final long size = counts[i] * typeSize(types[i]);
+                if (size <= valueSize) {
+                    final ByteBuffer inline = read(entries, valuePos, valueSize);
+                    values[i] = inline;
+                } else if (isIntegerType(types[i]) && size < Integer.MAX_VALUE) {
+                    final long offset = isBigTiff ? entries.getLong(valuePos) : entries.getInt(valuePos) & 0xFFFFFFFFL;
+                    values[i] = read(offset, (int) size, byteOrder);
+                }
+            }
+        }
+
+        private ByteBuffer read(final ByteBuffer src, final int pos, final int length) {
+            final ByteBuffer buf = ByteBuffer.allocate(length).order(byteOrder);
+            for (int i = 0; i < length; ++i) {
+                buf.put(i, src.get(pos + i));
+            }
+            return buf;
+        }
+
+        private ByteBuffer read(final long position, final int length, final ByteOrder order) throws IOException {
+            final ByteBuffer buf = ByteBuffer.allocate(length).order(order);
+            long pos = baseOffset + position;
+            while (buf.hasRemaining()) {
+                final int n = channel.read(buf, pos);
+                if (n < 0) {
+                    throw new IOException("Unexpected end of TIFF file");
+                }
+                pos += n;
+            }
+            buf.flip();
+            return buf;
+        }
+
+        private static int typeSize(final int type) {
+            switch (type) {
+                case 1:  // BYTE
+                case 2:  // ASCII
+                case 6:  // SBYTE
+                case 7:  // UNDEFINED
+                    return 1;
+                case 3:  // SHORT
+                case 8:  // SSHORT
+                    return 2;
+                case 4:  // LONG
+                case 9:  // SLONG
+                case 11: // FLOAT
+                case 13: // IFD
+                    return 4;
+                default: // RATIONAL, DOUBLE, LONG8
+                    return 8;
+            }
+        }
+
+        private static boolean isIntegerType(final int type) {
+            return type == 1 || type == 3 || type == 4 || type == 16;
+        }
+
+        private int find(final int tag) {
+            for (int i = 0; i < tags.length; ++i) {
+                if (tags[i] == tag)
+                    return i;
+            }
+            return -1;
+        }
+
+        boolean has(final int tag) {
+            return find(tag) >= 0;
+        }
+
+        long getValue(final int tag, final long defaultValue) {
+            final long[] v = getValues(tag);
+            return v.length > 0 ? v[0] : defaultValue;
+        }
+
+        long[] getValues(final int tag) {
+            final int i = find(tag);
+            if (i < 0 || values[i] == null || !isIntegerType(types[i])) {
+                return new long[0];
+            }
+            final ByteBuffer buf = values[i];
+            final int count = (int) counts[i];
+            final long[] result = new long[count];
+            for (int n = 0; n < count; ++n) {
+                switch (types[i]) {
+                    case 1:
+                        result[n] = buf.get(n) & 0xFF;
+                        break;
+                    case 3:
+                        result[n] = buf.getShort(n * 2) & 0xFFFF;
+                        break;
+                    case 4:
+                        result[n] = buf.getInt(n * 4) & 0xFFFFFFFFL;
+                        break;
+                    default:
+                        result[n] = buf.getLong(n * 8);
+                }
+            }
+            return result;
+        }
+    }
+}
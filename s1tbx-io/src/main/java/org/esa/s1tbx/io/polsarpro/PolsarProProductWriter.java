@@ -15,32 +15,39 @@
  */
 package org.esa.s1tbx.io.polsarpro;
 
-import org.esa.s1tbx.commons.io.FileImageOutputStreamExtImpl;
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.io.RasterFileChannel;
 import org.esa.s1tbx.commons.polsar.PolBandUtils;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
 import org.esa.snap.core.dataio.dimap.EnviHeader;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.Guardian;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.dataio.envi.EnviProductWriter;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The product writer for PolSARPro products.
+ * Band files are written with positional writes so that tiles can be written concurrently.
  */
 public class PolsarProProductWriter extends EnviProductWriter {
 
     private final static String BIN_EXTENSION = ".bin";
 
+    private final Map<Band, RasterFileChannel> bandChannels = new ConcurrentHashMap<>();
+
     /**
      * Construct a new instance of a product writer for the given ENVI product writer plug-in.
      *
@@ -74,10 +81,75 @@ public class PolsarProProductWriter extends EnviProductWriter {
                                       band.getRasterHeight(), 0);
     }
 
-    protected ImageOutputStream createImageOutputStream(Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.LITTLE_ENDIAN);
-        return out;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeBandRasterData(Band sourceBand,
+                                    int sourceOffsetX, int sourceOffsetY,
+                                    int sourceWidth, int sourceHeight,
+                                    ProductData sourceBuffer,
+                                    ProgressMonitor pm) throws IOException {
+        Guardian.assertNotNull("sourceBand", sourceBand);
+        Guardian.assertNotNull("sourceBuffer", sourceBuffer);
+        checkBufferSize(sourceWidth, sourceHeight, sourceBuffer);
+        checkSourceRegionInsideBandRegion(sourceWidth, sourceBand.getRasterWidth(), sourceHeight,
+                                          sourceBand.getRasterHeight(), sourceOffsetX, sourceOffsetY);
+
+        final RasterFileChannel channel = getOrCreateRasterFileChannel(sourceBand);
+        pm.beginTask("Writing band '" + sourceBand.getName() + "'...", 1);
+        try {
+            channel.writeRect(sourceBuffer, sourceBand.getRasterWidth(),
+                              sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
+            pm.worked(1);
+        } finally {
+            pm.done();
+        }
+    }
+
+    // from BEAM EnviProductWriter
+    private static void checkSourceRegionInsideBandRegion(int sourceWidth, final int sourceBandWidth, int sourceHeight,
+                                                          final int sourceBandHeight, int sourceOffsetX,
+                                                          int sourceOffsetY) {
+        Guardian.assertWithinRange("sourceWidth", sourceWidth, 1, sourceBandWidth);
+        Guardian.assertWithinRange("sourceHeight", sourceHeight, 1, sourceBandHeight);
+        Guardian.assertWithinRange("sourceOffsetX", sourceOffsetX, 0, sourceBandWidth - sourceWidth);
+        Guardian.assertWithinRange("sourceOffsetY", sourceOffsetY, 0, sourceBandHeight - sourceHeight);
+    }
+
+    // from BEAM EnviProductWriter
+    private static void checkBufferSize(int sourceWidth, int sourceHeight, ProductData sourceBuffer) {
+        final int expectedBufferSize = (sourceWidth * sourceHeight);
+        final int actualBufferSize = sourceBuffer.getNumElems();
+        Guardian.assertEquals("sourceWidth * sourceHeight", actualBufferSize, expectedBufferSize);  /*I18N*/
+    }
+
+    private RasterFileChannel getOrCreateRasterFileChannel(final Band band) throws IOException {
+        RasterFileChannel channel = bandChannels.get(band);
+        if (channel == null) {
+            synchronized (bandChannels) {
+                channel = bandChannels.get(band);
+                if (channel == null) {
+                    channel = RasterFileChannel.open(getValidImageFile(band), ByteOrder.LITTLE_ENDIAN);
+                    bandChannels.put(band, channel);
+                }
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Closes all output streams currently open.
+     *
+     * @throws IOException on failure
+     */
+    @Override
+    public void close() throws IOException {
+        for (RasterFileChannel channel : bandChannels.values()) {
+            channel.close();
+        }
+        bandChannels.clear();
+        super.close();
     }
 
     /**
@@ -16,10 +16,12 @@
 package org.esa.s1tbx.io.sentinel1;
 
 import org.esa.s1tbx.commons.io.ImageIOFile;
+import org.esa.s1tbx.commons.io.ZipEntryImageInputStream;
 import org.esa.s1tbx.commons.io.JSONProductDirectory;
 import org.esa.s1tbx.commons.io.SARReader;
 import org.esa.s1tbx.commons.io.XMLProductDirectory;
 import org.esa.s1tbx.io.geotiffxml.GeoTiffUtils;
+import org.esa.s1tbx.io.geotiffxml.MappedTiffFile;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.GeoPos;
@@ -39,6 +41,7 @@ import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
+import org.esa.snap.runtime.Config;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.json.simple.JSONObject;
@@ -62,9 +65,12 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
 
     private final Map<Band, TiePointGeoCoding> bandGeocodingMap = new HashMap<>(5);
     private final transient Map<String, String> imgBandMetadataMap = new HashMap<>(4);
+    private final transient Map<ImageIOFile, MappedTiffFile> mappedImageMap = new HashMap<>(4);
     private String acqMode = "";
 
     private final static Double NoDataValue = 0.0;//-9999.0;
+    private final static boolean useMemoryMapping = Config.instance().preferences().getBoolean("s1tbx.readers.useMemoryMappedTiff", true);
+    private final static boolean useZipRandomAccess = Config.instance().preferences().getBoolean("s1tbx.readers.useZipRandomAccess", true);
 
     public Sentinel1Level1Directory(final File inputFile) {
         super(inputFile);
@@ -82,6 +88,10 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         final String name = getBandFileNameFromImage(imgPath);
         if ((name.endsWith("tiff"))) {
             try {
+                if (isCompressed() && useZipRandomAccess && addZipEntryImageFile(imgPath, name)) {
+                    return;
+                }
+
                 final Dimension bandDimensions = getBandDimensions(newRoot, imgBandMetadataMap.get(name));
                 final InputStream inStream = getInputStream(imgPath);
                 if(inStream.available() > 0) {
@@ -89,6 +99,13 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
 
                     final ImageIOFile img = new ImageIOFile(name, imgStream, GeoTiffUtils.getTiffIIOReader(imgStream),
                                 1, 1, ProductData.TYPE_INT32, productInputFile);
+                    if (!isCompressed()) {
+                        final File imgFile = getFile(imgPath);
+                        img.setImageFile(imgFile);
+                        if (useMemoryMapping) {
+                            addMappedFile(img, MappedTiffFile.open(imgFile));
+                        }
+                    }
                     bandImageFileMap.put(img.getName(), img);
                 } else {
                     inStream.close();
@@ -99,6 +116,35 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         }
     }
 
+    /**
+     * Reads the image straight from its byte range within the zip file instead of caching the entry
+     *
+     * @return false if the entry can not be accessed randomly and should be read as a stream
+     */
+    private boolean addZipEntryImageFile(final String imgPath, final String name) throws IOException {
+        final ZipEntryImageInputStream zipStream = ZipEntryImageInputStream.create(getBaseDir(), imgPath);
+        if (zipStream == null) {
+            return false;
+        }
+        if (zipStream.length() > 0) {
+            final ImageIOFile img = new ImageIOFile(name, zipStream, GeoTiffUtils.getTiffIIOReader(zipStream),
+                    1, 1, ProductData.TYPE_INT32, productInputFile);
+            if (useMemoryMapping && zipStream.isStored()) {
+                addMappedFile(img, MappedTiffFile.open(getBaseDir(), zipStream.getDataOffset()));
+            }
+            bandImageFileMap.put(img.getName(), img);
+        } else {
+            zipStream.close();
+        }
+        return true;
+    }
+
+    private void addMappedFile(final ImageIOFile img, final MappedTiffFile mappedFile) {
+        if (mappedFile != null) {
+            mappedImageMap.put(img, mappedFile);
+        }
+    }
+
     public static ImageInputStream createImageInputStream(final InputStream inStream, final Dimension bandDimensions,
                                                           final boolean isSLC) throws IOException {
         final long maxMemory = Runtime.getRuntime().maxMemory() / 1024 / 1024;
@@ -109,6 +155,25 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         return ImageIOFile.createImageInputStream(inStream, bandDimensions);
     }
 
+    /**
+     * Get the memory mapped view of an uncompressed measurement file
+     *
+     * @param img the image file
+     * @return the mapped file or null if the image must be read through ImageIO
+     */
+    public MappedTiffFile getMappedFile(final ImageIOFile img) {
+        return mappedImageMap.get(img);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedTiffFile mappedFile : mappedImageMap.values()) {
+            mappedFile.close();
+        }
+        mappedImageMap.clear();
+        super.close();
+    }
+
     @Override
     protected void addBands(final Product product) {
 
@@ -19,6 +19,7 @@ import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s1tbx.commons.io.ImageIOFile;
 import org.esa.s1tbx.commons.io.SARReader;
 import org.esa.s1tbx.io.DataCache;
+import org.esa.s1tbx.io.geotiffxml.MappedTiffFile;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
@@ -75,6 +76,9 @@ public class Sentinel1ProductReader extends SARReader {
             dataDir.close();
             dataDir = null;
         }
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     /**
@@ -154,6 +158,17 @@ public class Sentinel1ProductReader extends SARReader {
 
         final ImageIOFile.BandInfo bandInfo = dataDir.getBandInfo(destBand);
         if (bandInfo != null && bandInfo.img != null) {
+            final MappedTiffFile mappedFile = getMappedFile(bandInfo.img);
+            if (mappedFile != null) {
+                // copy straight from the mapped measurement file, splitting I/Q for complex data
+                final int component = mappedFile.isComplex() ? (bandInfo.isImaginary ? 1 : 0) :
+                        bandInfo.imageID + bandInfo.bandSampleOffset;
+                if (mappedFile.readRasterBand(sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY,
+                                              destBuffer, destOffsetX, destOffsetY, destWidth, destHeight, component)) {
+                    return;
+                }
+            }
+
             if (dataDir.isSLC()) {
 
                 readSLCRasterBand(sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY,
@@ -176,6 +191,13 @@ public class Sentinel1ProductReader extends SARReader {
         }
     }
 
+    private MappedTiffFile getMappedFile(final ImageIOFile img) {
+        if (dataDir instanceof Sentinel1Level1Directory) {
+            return ((Sentinel1Level1Directory) dataDir).getMappedFile(img);
+        }
+        return null;
+    }
+
     private void readSLCRasterBand(final int sourceOffsetX, final int sourceOffsetY,
                                   final int sourceStepX, final int sourceStepY,
                                   final ProductData destBuffer,
@@ -257,11 +279,23 @@ public class Sentinel1ProductReader extends SARReader {
         }
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                         int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                         final Rectangle destRect) {
+    private DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
+                                    int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                    final Rectangle destRect) {
+        if (bandInfo.img.canReadConcurrently()) {
+            // each thread decodes with its own reader and stream
+            return decodeRect(datakey, bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
+        }
+        synchronized (this) {
+            return decodeRect(datakey, bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
+        }
+    }
+
+    private DataCache.Data decodeRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
+                                      int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                      final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
+            final ImageReader imageReader = bandInfo.img.getThreadReader();
             final ImageReadParam readParam = imageReader.getDefaultReadParam();
             if (sourceStepX == 1 && sourceStepY == 1) {
                 readParam.setSourceRegion(destRect);
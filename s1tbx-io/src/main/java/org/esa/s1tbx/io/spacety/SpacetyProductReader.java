@@ -76,6 +76,9 @@ public class SpacetyProductReader extends SARReader {
             dataDir.close();
             dataDir = null;
         }
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     /**
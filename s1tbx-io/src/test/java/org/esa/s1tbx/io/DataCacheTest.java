@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io;
+
+import org.esa.s1tbx.commons.io.ImageIOFile;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class DataCacheTest {
+
+    private ImageIOFile img1, img2;
+
+    @Before
+    public void setUp() throws IOException {
+        img1 = createImageIOFile("img1");
+        img2 = createImageIOFile("img2");
+    }
+
+    private static ImageIOFile createImageIOFile(final String name) throws IOException {
+        return new ImageIOFile(name, new MemoryCacheImageInputStream(new ByteArrayInputStream(new byte[0])),
+                null, 1, 1, ProductData.TYPE_INT32, null);
+    }
+
+    private static int[] createData(final Rectangle rect) {
+        final int[] data = new int[rect.width * rect.height];
+        for (int y = 0; y < rect.height; ++y) {
+            for (int x = 0; x < rect.width; ++x) {
+                data[y * rect.width + x] = (rect.y + y) * 10000 + rect.x + x;
+            }
+        }
+        return data;
+    }
+
+    @Test
+    public void testKeyHashing() {
+        final DataCache.DataKey key1 = new DataCache.DataKey(img1, new Rectangle(0, 0, 100, 100));
+        final DataCache.DataKey key2 = new DataCache.DataKey(img1, new Rectangle(0, 0, 100, 100));
+        final DataCache.DataKey key3 = new DataCache.DataKey(img1, new Rectangle(100, 0, 100, 100));
+        final DataCache.DataKey key4 = new DataCache.DataKey(img2, new Rectangle(0, 0, 100, 100));
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertNotEquals(key1, key3);
+        assertNotEquals(key1.hashCode(), key3.hashCode());
+        assertNotEquals(key1, key4);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        final DataCache cache = new DataCache(1024 * 1024);
+        final Rectangle rect = new Rectangle(0, 0, 10, 10);
+        final DataCache.DataKey key = new DataCache.DataKey(img1, rect);
+
+        assertNull(cache.get(key));
+        assertEquals(1, cache.missCount());
+
+        cache.put(key, new DataCache.Data(createData(rect)));
+        final DataCache.Data data = cache.get(key);
+        assertNotNull(data);
+        assertTrue(data.valid);
+        assertEquals(1, cache.hitCount());
+        assertEquals(400, cache.sizeInBytes());
+
+        assertNull(cache.get(new DataCache.DataKey(img2, rect)));
+    }
+
+    @Test
+    public void testSubRectangle() {
+        final DataCache cache = new DataCache(1024 * 1024);
+        final Rectangle rect = new Rectangle(100, 200, 50, 40);
+        cache.put(new DataCache.DataKey(img1, rect), new DataCache.Data(createData(rect)));
+
+        final Rectangle subRect = new Rectangle(110, 215, 20, 10);
+        final DataCache.Data data = cache.get(new DataCache.DataKey(img1, subRect));
+        assertNotNull(data);
+        assertArrayEquals(createData(subRect), data.intArray);
+        assertEquals(1, cache.subRectHitCount());
+
+        assertNull(cache.get(new DataCache.DataKey(img1, new Rectangle(140, 215, 20, 10))));
+        assertNull(cache.get(new DataCache.DataKey(img2, subRect)));
+    }
+
+    @Test
+    public void testSubRectangleAcrossIndexCells() {
+        final DataCache cache = new DataCache(64 * 1024 * 1024);
+        // a row of the image, as read for a full width band, spanning many index cells
+        final Rectangle row = new Rectangle(0, 1000, 3000, 20);
+        cache.put(new DataCache.DataKey(img1, row), new DataCache.Data(createData(row)));
+        // a grid of small tiles
+        for (int y = 0; y < 1000; y += 100) {
+            for (int x = 0; x < 3000; x += 100) {
+                final Rectangle rect = new Rectangle(x, y, 100, 100);
+                cache.put(new DataCache.DataKey(img1, rect), new DataCache.Data(createData(rect)));
+            }
+        }
+
+        final Rectangle subRect = new Rectangle(2500, 1005, 300, 10);
+        final DataCache.DataKey subKey = new DataCache.DataKey(img1, subRect);
+        final DataCache.Data data = cache.get(subKey);
+        assertNotNull(data);
+        assertArrayEquals(createData(subRect), data.intArray);
+
+        // of the 301 rectangles only those listed in the cell of the first pixel are inspected
+        assertEquals(10, cache.getNumCandidates(subKey));
+        final Rectangle tileRect = new Rectangle(520, 530, 50, 50);
+        final DataCache.DataKey tileKey = new DataCache.DataKey(img1, tileRect);
+        assertEquals(9, cache.getNumCandidates(tileKey));
+        assertArrayEquals(createData(tileRect), cache.get(tileKey).intArray);
+
+        // the rectangles removed from the cache are removed from the index
+        cache.invalidate(img1);
+        assertNull(cache.get(subKey));
+        assertEquals(0, cache.getNumCandidates(subKey));
+    }
+
+    @Test
+    public void testEvictedTilesLeaveTheIndex() {
+        final DataCache cache = new DataCache(10 * 100 * 100 * 4);
+        // one tile per index cell
+        for (int i = 0; i < 50; ++i) {
+            final Rectangle rect = new Rectangle(0, i * 300, 100, 100);
+            cache.put(new DataCache.DataKey(img1, rect), new DataCache.Data(createData(rect)));
+        }
+        cache.cleanUp();
+
+        int numIndexed = 0;
+        for (int i = 0; i < 50; ++i) {
+            final DataCache.DataKey subKey = new DataCache.DataKey(img1, new Rectangle(10, i * 300 + 10, 10, 10));
+            if (cache.getNumCandidates(subKey) > 0) {
+                assertNotNull(cache.get(subKey));
+                ++numIndexed;
+            }
+        }
+        assertEquals(cache.size(), numIndexed);
+        assertTrue(numIndexed < 50);
+    }
+
+    @Test
+    public void testEvictionByWeight() {
+        final DataCache cache = new DataCache(10 * 100 * 100 * 4);
+        for (int i = 0; i < 50; ++i) {
+            final Rectangle rect = new Rectangle(i * 100, 0, 100, 100);
+            cache.put(new DataCache.DataKey(img1, rect), new DataCache.Data(createData(rect)));
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.sizeInBytes() <= cache.maxSizeInBytes());
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.evictionCount() >= 40);
+    }
+}
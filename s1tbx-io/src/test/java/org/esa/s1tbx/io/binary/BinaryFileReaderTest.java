@@ -15,14 +15,25 @@
  */
 package org.esa.s1tbx.io.binary;
 
+import org.esa.s1tbx.commons.io.FileImageInputStreamExtImpl;
 import org.junit.Test;
 
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class BinaryFileReaderTest {
@@ -445,4 +456,59 @@ public class BinaryFileReaderTest {
         assertEquals(prefix.length() + 9 * 1, _ios.getStreamPosition());
     }
 
+    @Test
+    public void testPositionalReadFromMemory() throws IOException {
+        for (short i = 0; i < 16; ++i) {
+            _ios.writeShort(i);
+        }
+
+        final BinaryFileReader ceosReader = new BinaryFileReader(_ios);
+        assertFalse(ceosReader.isPositionalReadSupported());
+
+        final short[] shorts = new short[4];
+        ceosReader.read(6, shorts);
+        assertEquals(3, shorts[0]);
+        assertEquals(6, shorts[3]);
+    }
+
+    @Test
+    public void testConcurrentPositionalRead() throws Exception {
+        final int recordLength = 1000;
+        final int numRecords = 200;
+        final File file = File.createTempFile("ceos", ".dat");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+                for (int r = 0; r < numRecords; ++r) {
+                    for (int i = 0; i < recordLength; ++i) {
+                        out.writeShort(r + i);
+                    }
+                }
+            }
+
+            final BinaryFileReader ceosReader = new BinaryFileReader(new FileImageInputStreamExtImpl(file));
+            assertTrue(ceosReader.isPositionalReadSupported());
+
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int r = 0; r < numRecords; ++r) {
+                final int record = r;
+                results.add(executor.submit(() -> {
+                    final short[] line = new short[recordLength - 10];
+                    ceosReader.read((long) record * recordLength * 2 + 20, line);
+                    for (int i = 0; i < line.length; ++i) {
+                        if (line[i] != record + i + 10)
+                            return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            executor.shutdown();
+            ceosReader.close();
+        } finally {
+            file.delete();
+        }
+    }
 }
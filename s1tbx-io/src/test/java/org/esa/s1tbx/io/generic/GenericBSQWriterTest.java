@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.generic;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes tiles out of order with every layout and checks where the samples end up in the file.
+ */
+public class GenericBSQWriterTest {
+
+    private static final int width = 23;
+    private static final int height = 17;
+    private static final int tileSize = 8;
+
+    private File outputDir;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDir = Files.createTempDirectory("genericWriter").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = outputDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    private static short shortValue(final int x, final int y) {
+        return (short) (1000 + y * 100 + x);
+    }
+
+    private static float floatValue(final int x, final int y) {
+        return y * 10.0f + x + 0.5f;
+    }
+
+    @Test
+    public void testParseInterleave() {
+        assertEquals(GenericBSQWriter.Interleave.BSQ, GenericBSQWriter.parseInterleave("BSQ"));
+        assertEquals(GenericBSQWriter.Interleave.BIP, GenericBSQWriter.parseInterleave(" bip "));
+        assertEquals(GenericBSQWriter.Interleave.BIL, GenericBSQWriter.parseInterleave("band sequential"));
+        assertEquals(GenericBSQWriter.Interleave.BIL, GenericBSQWriter.parseInterleave(null));
+    }
+
+    @Test
+    public void testBSQ() throws IOException {
+        final ByteBuffer file = write(GenericBSQWriter.Interleave.BSQ);
+        assertEquals(width * height * (2 + 4), file.capacity());
+        final int floatBandOffset = width * height * 2;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                final int pixel = y * width + x;
+                assertEquals(shortValue(x, y), file.getShort(pixel * 2));
+                assertEquals(floatValue(x, y), file.getFloat(floatBandOffset + pixel * 4), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testBIL() throws IOException {
+        final ByteBuffer file = write(GenericBSQWriter.Interleave.BIL);
+        assertEquals(width * height * (2 + 4), file.capacity());
+        final int lineSize = width * (2 + 4);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                assertEquals(shortValue(x, y), file.getShort(y * lineSize + x * 2));
+                assertEquals(floatValue(x, y), file.getFloat(y * lineSize + width * 2 + x * 4), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testBIP() throws IOException {
+        checkBIP(write(GenericBSQWriter.Interleave.BIP, false));
+    }
+
+    @Test
+    public void testBIPBandWrittenTwice() throws IOException {
+        checkBIP(write(GenericBSQWriter.Interleave.BIP, true));
+    }
+
+    private static void checkBIP(final ByteBuffer file) {
+        assertEquals(width * height * (2 + 4), file.capacity());
+        final int pixelSize = 2 + 4;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                final int pixel = y * width + x;
+                assertEquals(shortValue(x, y), file.getShort(pixel * pixelSize));
+                assertEquals(floatValue(x, y), file.getFloat(pixel * pixelSize + 2), 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Write an int16 and a float32 band in tiles, last tile first and the bands of a tile apart.
+     *
+     * @return the content of the written file in native byte order
+     */
+    private ByteBuffer write(final GenericBSQWriter.Interleave interleave) throws IOException {
+        return write(interleave, false);
+    }
+
+    /**
+     * @param repeatShortBand write the int16 band twice, first with wrong samples, before the float32 band
+     */
+    private ByteBuffer write(final GenericBSQWriter.Interleave interleave, final boolean repeatShortBand)
+            throws IOException {
+        final Product product = new Product("test", "type", width, height);
+        final Band shortBand = product.addBand("short", ProductData.TYPE_INT16);
+        final Band floatBand = product.addBand("float", ProductData.TYPE_FLOAT32);
+
+        final GenericBSQWriter writer = new GenericBSQWriter(new GenericBSQWriterPlugIn());
+        writer.setInterleave(interleave);
+        final File file = new File(outputDir, "test.bin");
+        writer.writeProductNodes(product, file);
+
+        final List<Rectangle> tiles = new ArrayList<>();
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                tiles.add(new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y)));
+            }
+        }
+        Collections.reverse(tiles);
+
+        if (repeatShortBand) {
+            for (Rectangle rect : tiles) {
+                final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, rect.width * rect.height);
+                writer.writeBandRasterData(shortBand, rect.x, rect.y, rect.width, rect.height, data,
+                        ProgressMonitor.NULL);
+            }
+        }
+        for (Rectangle rect : tiles) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, rect.width * rect.height);
+            for (int y = 0; y < rect.height; ++y) {
+                for (int x = 0; x < rect.width; ++x) {
+                    data.setElemIntAt(y * rect.width + x, shortValue(rect.x + x, rect.y + y));
+                }
+            }
+            writer.writeBandRasterData(shortBand, rect.x, rect.y, rect.width, rect.height, data, ProgressMonitor.NULL);
+        }
+        Collections.reverse(tiles);
+        for (Rectangle rect : tiles) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_FLOAT32, rect.width * rect.height);
+            for (int y = 0; y < rect.height; ++y) {
+                for (int x = 0; x < rect.width; ++x) {
+                    data.setElemFloatAt(y * rect.width + x, floatValue(rect.x + x, rect.y + y));
+                }
+            }
+            writer.writeBandRasterData(floatBand, rect.x, rect.y, rect.width, rect.height, data, ProgressMonitor.NULL);
+        }
+        writer.close();
+
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.geotiffxml;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class MappedTiffFileTest {
+
+    private static final int width = 37;
+    private static final int height = 23;
+    private static final int rowsPerStrip = 5;
+
+    private File tiffFile;
+
+    @After
+    public void tearDown() {
+        if (tiffFile != null) {
+            tiffFile.delete();
+        }
+    }
+
+    private static short real(final int x, final int y) {
+        return (short) (y * 100 + x);
+    }
+
+    private static short imag(final int x, final int y) {
+        return (short) -(y * 100 + x);
+    }
+
+    /**
+     * Writes a little endian, uncompressed, strip organised TIFF of CInt16 or UInt16 samples
+     */
+    private static File writeTiff(final boolean complex, final int compression) throws IOException {
+        final int numEntries = 9;
+        final int numStrips = (height + rowsPerStrip - 1) / rowsPerStrip;
+        final int pixelBytes = complex ? 4 : 2;
+        final int rowBytes = width * pixelBytes;
+        final int ifdOffset = 8;
+        final int arraysOffset = ifdOffset + 2 + numEntries * 12 + 4;
+        final int dataOffset = arraysOffset + numStrips * 8;
+
+        final ByteBuffer buf = ByteBuffer.allocate(dataOffset + height * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+        buf.putShort((short) numEntries);
+        putEntry(buf, 256, 3, 1, width);
+        putEntry(buf, 257, 3, 1, height);
+        putEntry(buf, 258, 3, 1, complex ? 32 : 16);
+        putEntry(buf, 259, 3, 1, compression);
+        putEntry(buf, 273, 4, numStrips, arraysOffset);
+        putEntry(buf, 277, 3, 1, 1);
+        putEntry(buf, 278, 3, 1, rowsPerStrip);
+        putEntry(buf, 279, 4, numStrips, arraysOffset + numStrips * 4);
+        putEntry(buf, 339, 3, 1, complex ? 5 : 1);
+        buf.putInt(0);
+
+        for (int s = 0; s < numStrips; ++s) {
+            buf.putInt(arraysOffset + s * 4, dataOffset + s * rowsPerStrip * rowBytes);
+            buf.putInt(arraysOffset + (numStrips + s) * 4, Math.min(rowsPerStrip, height - s * rowsPerStrip) * rowBytes);
+        }
+        buf.position(dataOffset);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                buf.putShort(real(x, y));
+                if (complex) {
+                    buf.putShort(imag(x, y));
+                }
+            }
+        }
+
+        final File file = File.createTempFile("mapped", ".tiff");
+        Files.write(file.toPath(), buf.array());
+        return file;
+    }
+
+    private static void putEntry(final ByteBuffer buf, final int tag, final int type, final int count, final int value) {
+        buf.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value).putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+
+    @Test
+    public void testReadComplex() throws IOException {
+        tiffFile = writeTiff(true, 1);
+        final MappedTiffFile mappedFile = MappedTiffFile.open(tiffFile);
+        assertNotNull(mappedFile);
+        assertTrue(mappedFile.isComplex());
+        assertEquals(width, mappedFile.getWidth());
+        assertEquals(height, mappedFile.getHeight());
+
+        final int w = 20, h = 12, x0 = 7, y0 = 3;
+        final ProductData iData = ProductData.createInstance(ProductData.TYPE_INT16, w * h);
+        final ProductData qData = ProductData.createInstance(ProductData.TYPE_INT16, w * h);
+        assertTrue(mappedFile.readRasterBand(x0, y0, 1, 1, iData, x0, y0, w, h, 0));
+        assertTrue(mappedFile.readRasterBand(x0, y0, 1, 1, qData, x0, y0, w, h, 1));
+
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                assertEquals(real(x0 + x, y0 + y), iData.getElemIntAt(y * w + x));
+                assertEquals(imag(x0 + x, y0 + y), qData.getElemIntAt(y * w + x));
+            }
+        }
+        mappedFile.close();
+    }
+
+    @Test
+    public void testReadSubsampled() throws IOException {
+        tiffFile = writeTiff(false, 1);
+        final MappedTiffFile mappedFile = MappedTiffFile.open(tiffFile);
+        assertNotNull(mappedFile);
+        assertFalse(mappedFile.isComplex());
+
+        final int step = 3, w = 8, h = 5, destX = 2, destY = 1, offX = 1, offY = 2;
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_FLOAT32, w * h);
+        assertTrue(mappedFile.readRasterBand(offX, offY, step, step, data, destX, destY, w, h, 0));
+
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final int srcX = offX + (destX + x) * step;
+                final int srcY = offY + (destY + y) * step;
+                assertEquals(real(srcX, srcY), data.getElemIntAt(y * w + x));
+            }
+        }
+
+        // outside of the image falls back to ImageIO
+        assertFalse(mappedFile.readRasterBand(0, 0, 1, 1, data, width - 2, 0, w, h, 0));
+        mappedFile.close();
+    }
+
+    @Test
+    public void testCompressedNotMapped() throws IOException {
+        tiffFile = writeTiff(false, 5);
+        assertNull(MappedTiffFile.open(tiffFile));
+    }
+}
@@ -16,6 +16,7 @@
 package org.esa.s1tbx.insar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.io.ProductWriterQueue;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.dataio.ProductSubsetBuilder;
 import org.esa.snap.core.dataio.ProductSubsetDef;
@@ -30,6 +31,7 @@ import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.subset.PixelSubsetRegion;
+import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.gpf.InputProductValidator;
 import org.esa.snap.engine_utilities.gpf.StackUtils;
@@ -41,9 +43,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Split a stack product into individual products
+ * Split a stack product into individual products.
+ * Every product is written by a queue of its own, so the products of a stack are written in parallel
+ * while the source tiles of the next products are computed.
+ * A failed write is reported by the next product written or, at the latest, when the operator is disposed.
  */
 @OperatorMetadata(alias = "Stack-Split",
         description = "Writes all bands to files.",
@@ -67,6 +73,8 @@ public class StackSplitWriter extends Operator {
             description = "The name of the output file format.")
     private String formatName;
 
+    private static final int MAX_PENDING_WRITES = 4;
+
     private final Map<Band, SubsetInfo> bandMap = new HashMap<>();
 
     public StackSplitWriter() {
@@ -165,6 +173,7 @@ public class StackSplitWriter extends Operator {
         subsetInfo.productWriter.setFormatName(formatName);
         subsetInfo.productWriter.setIncrementalMode(false);
         subsetInfo.subsetProduct.setProductWriter(subsetInfo.productWriter);
+        subsetInfo.writerQueue = new ProductWriterQueue(productName, MAX_PENDING_WRITES);
         for (String bandName : bandNames) {
             Band band = targetProduct.getBand(bandName);
             if (!(band instanceof VirtualBand)) {
@@ -179,15 +188,15 @@ public class StackSplitWriter extends Operator {
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
         try {
             final SubsetInfo subsetInfo = bandMap.get(targetBand);
-            if(subsetInfo == null)
+            if (subsetInfo == null || !subsetInfo.written.compareAndSet(false, true))
                 return;
 
-            subsetInfo.productWriter.writeProductNodes(subsetInfo.subsetProduct, subsetInfo.file);
+            for (SubsetInfo info : bandMap.values()) {
+                info.writerQueue.checkFailure();
+            }
 
             final Rectangle trgRect = subsetInfo.subsetBuilder.getSubsetDef().getRegion();
-            if (!subsetInfo.written) {
-                writeTile(subsetInfo, trgRect);
-            }
+            writeTile(subsetInfo, trgRect);
         } catch (Exception e) {
             if (e instanceof OperatorException) {
                 throw (OperatorException) e;
@@ -197,9 +206,9 @@ public class StackSplitWriter extends Operator {
         }
     }
 
-    private synchronized void writeTile(final SubsetInfo info, final Rectangle trgRect)
-            throws IOException {
-        if (info.written) return;
+    private void writeTile(final SubsetInfo info, final Rectangle trgRect) throws IOException {
+
+        info.writerQueue.submit(0, () -> info.productWriter.writeProductNodes(info.subsetProduct, info.file));
 
         for(Band trgBand : info.subsetProduct.getBands()) {
             final String oldBandName = info.newBandNamingMap.get(trgBand.getName());
@@ -207,22 +216,33 @@ public class StackSplitWriter extends Operator {
             final ProductData rawSamples = sourceTile.getRawSamples();
 
             //final String newBandName = StackUtils.getBandNameWithoutDate(bandName);
-            info.productWriter.writeBandRasterData(trgBand,
-                    0, 0, trgBand.getRasterWidth(), trgBand.getRasterHeight(), rawSamples, ProgressMonitor.NULL);
+            final long numBytes = (long) rawSamples.getNumElems() * rawSamples.getElemSize();
+            info.writerQueue.submit(numBytes, () -> info.productWriter.writeBandRasterData(trgBand,
+                    0, 0, trgBand.getRasterWidth(), trgBand.getRasterHeight(), rawSamples, ProgressMonitor.NULL));
         }
-        info.written = true;
     }
 
     @Override
     public void dispose() {
-        try {
-            for (Band band : bandMap.keySet()) {
-                SubsetInfo info = bandMap.get(band);
+        IOException failure = null;
+        for (SubsetInfo info : bandMap.values()) {
+            try {
+                info.writerQueue.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            SystemUtils.LOG.info(info.writerQueue.getStatistics().toString());
+            try {
                 info.productWriter.close();
+            } catch (IOException ignore) {
             }
-        } catch (IOException ignore) {
         }
         super.dispose();
+        if (failure != null) {
+            throw new OperatorException(failure);
+        }
     }
 
     private static class SubsetInfo {
@@ -230,7 +250,8 @@ public class StackSplitWriter extends Operator {
         ProductSubsetBuilder subsetBuilder;
         File file;
         ProductWriter productWriter;
-        boolean written = false;
+        ProductWriterQueue writerQueue;
+        final AtomicBoolean written = new AtomicBoolean();
         final Map<String, String> newBandNamingMap = new HashMap<>();
     }
 
@@ -17,15 +17,20 @@ package org.esa.s1tbx.insar.gpf.support;
 
 import org.esa.s1tbx.commons.OrbitStateVectors;
 import org.esa.s1tbx.commons.SARGeocoding;
+import org.esa.s1tbx.commons.ZeroDopplerSolver;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.util.Maths;
+import org.esa.snap.runtime.Config;
 
 /**
  * Compute azimuth and range indices in SAR image for a given target point on the Earth's surface.
  */
 public class SARPosition {
 
+    private static final boolean useZeroDopplerSolver = Config.instance().preferences().getBoolean(
+            "s1tbx.terrainCorrection.useZeroDopplerSolver", true);
+
     private final double firstLineTime;
     private final double lastLineTime; // in days
     private final double lineTimeInterval;
@@ -39,6 +44,7 @@ public class SARPosition {
     private final AbstractMetadata.SRGRCoefficientList[] srgrConvParams;
 
     private int x0, y0, w, h;
+    private ZeroDopplerSolver solver = null;
 
     public static class PositionData {
         public final PosVector earthPoint = new PosVector();
@@ -80,20 +86,26 @@ public class SARPosition {
         this.y0 = y0;
         this.w = w;
         this.h = h;
+
+        // only points seen from the lines of the tile are kept, so the orbit is fitted over them
+        solver = h > 0 && useZeroDopplerSolver ? new ZeroDopplerSolver(orbit, firstLineTime, lineTimeInterval,
+                wavelength, firstLineTime + (y0 - 1) * lineTimeInterval, firstLineTime + (y0 + h) * lineTimeInterval) :
+                null;
     }
 
     public boolean getPosition(final PositionData data) {
 
-        final double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(
-                firstLineTime, lineTimeInterval, wavelength, data.earthPoint,
-                orbit.sensorPosition, orbit.sensorVelocity);
+        final double zeroDopplerTime = solver != null ? solver.getZeroDopplerTime(data.earthPoint) :
+                SARGeocoding.getEarthPointZeroDopplerTime(
+                        firstLineTime, lineTimeInterval, wavelength, data.earthPoint,
+                        orbit.sensorPosition, orbit.sensorVelocity);
 
         if (zeroDopplerTime == SARGeocoding.NonValidZeroDopplerTime) {
             return false;
         }
 
-        data.slantRange = SARGeocoding.computeSlantRange(
-                zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
+        data.slantRange = solver != null ? solver.computeSlantRange(zeroDopplerTime, data.earthPoint, data.sensorPos) :
+                SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
 
         data.azimuthIndex = (zeroDopplerTime - firstLineTime) / lineTimeInterval;
 
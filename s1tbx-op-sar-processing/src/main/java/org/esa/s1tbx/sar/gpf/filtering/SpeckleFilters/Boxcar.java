@@ -122,6 +122,7 @@ public class Boxcar implements SpeckleFilter {
         final TileIndex srcIndex = new TileIndex(sourceTile1);
         final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+        final WindowStatistics stats = new WindowStatistics(sourceTile1, sourceTile2, noDataValue, isComplex);
 
         final int xMax = x0 + w;
         final int yMax = y0 + h;
@@ -130,12 +131,14 @@ public class Boxcar implements SpeckleFilter {
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
-
-                if (numSamples > 0) {
-                    filteredTile[yy][xx] = getMeanValue(neighborValues, numSamples, noDataValue);
+                final int numSamples = stats.computeWindow(x, y, windowSizeX, windowSizeY);
+                if (stats.hasNonFiniteSamples()) {
+                    final int n = getNeighborValues(
+                            x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
+                            windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                    filteredTile[yy][xx] = getMeanValue(neighborValues, n, noDataValue);
+                } else if (numSamples > 0) {
+                    filteredTile[yy][xx] = stats.getMean();
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
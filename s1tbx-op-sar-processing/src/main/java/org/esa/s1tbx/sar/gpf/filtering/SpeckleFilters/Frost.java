@@ -132,17 +132,23 @@ public class Frost implements SpeckleFilter {
         final double[] mask = new double[windowSizeX * windowSizeY];
         getFrostMask(mask);
 
+        // the weights of a square window only depend on the distance to the centre, so they are applied per ring
+        final boolean useRings = windowSizeX == windowSizeY;
+        final WindowStatistics stats = new WindowStatistics(sourceTile1, sourceTile2, noDataValue, isComplex);
+
         for (int y = y0; y < yMax; ++y) {
             final int yy = y - y0;
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
-
-                if (numSamples > 0) {
-                    filteredTile[yy][xx] = getFrostValue(neighborValues, numSamples, noDataValue, mask);
+                final int numSamples = stats.computeWindow(x, y, windowSizeX, windowSizeY);
+                if (!useRings || stats.hasNonFiniteSamples()) {
+                    final int n = getNeighborValues(
+                            x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
+                            windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                    filteredTile[yy][xx] = n > 0 ? getFrostValue(neighborValues, n, noDataValue, mask) : noDataValue;
+                } else if (numSamples > 0) {
+                    filteredTile[yy][xx] = getFrostValue(stats, x, y);
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
@@ -152,6 +158,30 @@ public class Frost implements SpeckleFilter {
         return filteredTile;
     }
 
+    /**
+     * Get the Frost filtered pixel intensity from the ring sums of a square window.
+     *
+     * @param stats The statistics of the window centred at the pixel.
+     * @param x     X coordinate of the pixel.
+     * @param y     Y coordinate of the pixel.
+     * @return val The Frost filtered value.
+     */
+    private double getFrostValue(final WindowStatistics stats, final int x, final int y) {
+
+        final double mean = stats.getMean();
+        if (mean <= Double.MIN_VALUE) {
+            return mean;
+        }
+
+        final double var = stats.getVariance();
+        if (var <= Double.MIN_VALUE) {
+            return mean;
+        }
+
+        final double k = dampingFactor * var / (mean * mean);
+        return stats.getDistanceWeightedMean(x, y, windowSizeX, k);
+    }
+
     /**
      * Get Frost mask for given Frost filter size.
      *
@@ -138,6 +138,7 @@ public class GammaMap implements SpeckleFilter {
 
         final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+        final WindowStatistics stats = new WindowStatistics(sourceTile1, sourceTile2, noDataValue, isComplex);
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
@@ -146,12 +147,15 @@ public class GammaMap implements SpeckleFilter {
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
-
-                if (numSamples > 0) {
-                    filteredTile[yy][xx] = getGammaMapValue(neighborValues, numSamples, noDataValue, cu, cu2, n);
+                final int numSamples = stats.computeWindow(x, y, windowSizeX, windowSizeY);
+                if (stats.hasNonFiniteSamples()) {
+                    final int num = getNeighborValues(
+                            x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
+                            windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                    filteredTile[yy][xx] = getGammaMapValue(neighborValues, num, noDataValue, cu, cu2, n);
+                } else if (numSamples > 0) {
+                    filteredTile[yy][xx] = getGammaMapValue(stats.getMean(), stats.getVariance(),
+                            stats.getCentreValue(x, y, windowSizeX, windowSizeY), cu, cu2, n);
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
@@ -174,11 +178,25 @@ public class GammaMap implements SpeckleFilter {
                                     final double cu, final double cu2, final double enl) {
 
         final double mean = getMeanValue(neighborValues, numSamples, noDataValue);
+        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+        return getGammaMapValue(mean, var, neighborValues[neighborValues.length / 2], cu, cu2, enl);
+    }
+
+    /**
+     * Get the Gamma filtered pixel intensity from the local statistics of a window.
+     *
+     * @param mean The mean of the window.
+     * @param var  The variance of the window.
+     * @param cp   The centre pixel value.
+     * @return val The Gamma filtered value.
+     */
+    private static double getGammaMapValue(final double mean, final double var, final double cp,
+                                           final double cu, final double cu2, final double enl) {
+
         if (mean <= Double.MIN_VALUE) {
             return mean;
         }
 
-        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
         if (var <= Double.MIN_VALUE) {
             return mean;
         }
@@ -188,8 +206,6 @@ public class GammaMap implements SpeckleFilter {
             return mean;
         }
 
-        final double cp = neighborValues[neighborValues.length / 2];
-
         if (cu < ci) {
             final double cmax = Math.sqrt(2) * cu;
             if (ci < cmax) {
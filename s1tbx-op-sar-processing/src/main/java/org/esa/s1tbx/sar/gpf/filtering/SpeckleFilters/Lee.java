@@ -138,6 +138,7 @@ public class Lee implements SpeckleFilter {
 
         final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+        final WindowStatistics stats = new WindowStatistics(sourceTile1, sourceTile2, noDataValue, isComplex);
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
@@ -146,12 +147,15 @@ public class Lee implements SpeckleFilter {
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
-
-                if (numSamples > 0) {
-                    filteredTile[yy][xx] = getLeeValue(neighborValues, numSamples, noDataValue, cu, cu2);
+                final int numSamples = stats.computeWindow(x, y, windowSizeX, windowSizeY);
+                if (stats.hasNonFiniteSamples()) {
+                    final int num = getNeighborValues(
+                            x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
+                            windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                    filteredTile[yy][xx] = getLeeValue(neighborValues, num, noDataValue, cu, cu2);
+                } else if (numSamples > 0) {
+                    filteredTile[yy][xx] = getLeeValue(stats.getMean(), stats.getVariance(),
+                            stats.getCentreValue(x, y, windowSizeX, windowSizeY), cu, cu2);
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
@@ -174,11 +178,25 @@ public class Lee implements SpeckleFilter {
                                final double cu, final double cu2) {
 
         final double mean = getMeanValue(neighborValues, numSamples, noDataValue);
+        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+        return getLeeValue(mean, var, neighborValues[neighborValues.length / 2], cu, cu2);
+    }
+
+    /**
+     * Get the Lee filtered pixel intensity from the local statistics of a window.
+     *
+     * @param mean The mean of the window.
+     * @param var  The variance of the window.
+     * @param cp   The centre pixel value.
+     * @return val The Lee filtered value.
+     */
+    private static double getLeeValue(final double mean, final double var, final double cp,
+                                      final double cu, final double cu2) {
+
         if (Double.compare(mean, Double.MIN_VALUE) <= 0) {
             return mean;
         }
 
-        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
         if (Double.compare(var, Double.MIN_VALUE) <= 0) {
             return mean;
         }
@@ -188,7 +206,6 @@ public class Lee implements SpeckleFilter {
             return mean;
         }
 
-        final double cp = neighborValues[neighborValues.length / 2];
         final double w = 1 - cu2 / (ci * ci);
 
         return cp * w + mean * (1 - w);
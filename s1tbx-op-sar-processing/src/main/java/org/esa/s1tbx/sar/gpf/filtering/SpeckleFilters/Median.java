@@ -20,14 +20,12 @@ import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.gpf.Operator;
-import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.Tile;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.TileIndex;
 
 import java.awt.*;
-import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -104,68 +102,25 @@ public class Median implements SpeckleFilter {
         Band sourceBand2 = null;
         Tile sourceTile1 = null;
         Tile sourceTile2 = null;
-        ProductData sourceData1 = null;
-        ProductData sourceData2 = null;
         if (srcBandNames.length == 1) {
             sourceBand1 = sourceProduct.getBand(srcBandNames[0]);
             sourceTile1 = operator.getSourceTile(sourceBand1, sourceTileRectangle);
-            sourceData1 = sourceTile1.getDataBuffer();
         } else {
             sourceBand1 = sourceProduct.getBand(srcBandNames[0]);
             sourceBand2 = sourceProduct.getBand(srcBandNames[1]);
             sourceTile1 = operator.getSourceTile(sourceBand1, sourceTileRectangle);
             sourceTile2 = operator.getSourceTile(sourceBand2, sourceTileRectangle);
-            sourceData1 = sourceTile1.getDataBuffer();
-            sourceData2 = sourceTile2.getDataBuffer();
         }
         final Unit.UnitType bandUnit = Unit.getUnitType(sourceBand1);
         final double noDataValue = sourceBand1.getNoDataValue();
-        final TileIndex srcIndex = new TileIndex(sourceTile1);
-        final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
-        final int xMax = x0 + w;
+        final WindowStatistics stats = new WindowStatistics(sourceTile1, sourceTile2, noDataValue, isComplex);
         final int yMax = y0 + h;
 
         for (int y = y0; y < yMax; ++y) {
-            final int yy = y - y0;
-            for (int x = x0; x < xMax; ++x) {
-                final int xx = x - x0;
-
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
-
-                if (numSamples > 0) {
-                    filteredTile[yy][xx] = getMedianValue(neighborValues, numSamples, noDataValue);
-                } else {
-                    filteredTile[yy][xx] = noDataValue;
-                }
-            }
+            stats.getMedians(x0, y, w, windowSizeX, windowSizeY, filteredTile[y - y0]);
         }
 
         return filteredTile;
     }
-
-    /**
-     * Get the median value of pixel intensities in a given rectangular region.
-     *
-     * @param neighborValues Array holding pixel values.
-     * @param numSamples     The number of samples.
-     * @param noDataValue    Place holder for no data value.
-     * @return median The median value.
-     * @throws OperatorException If an error occurs in computation of the median value.
-     */
-    private static double getMedianValue(
-            final double[] neighborValues, final int numSamples, final double noDataValue) {
-
-        double[] tmp = new double[numSamples];
-        int k = 0;
-        for (double v : neighborValues) {
-            if (Double.compare(v, noDataValue) != 0) {
-                tmp[k++] = v;
-            }
-        }
-        Arrays.sort(tmp);
-        return tmp[numSamples / 2];
-    }
 }
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters;
+
+import org.apache.commons.math3.util.FastMath;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Sliding window statistics of a source tile for the speckle filters.
+ * The pixel values of the tile (I^2 + Q^2 for complex data) are read once into primitive arrays and summed-area
+ * tables of the number, sum and sum of squares of the valid samples are built, so the mean and variance of any
+ * window take four table lookups instead of a pass over the window. Sums are taken about the first valid sample
+ * of the tile to keep the variance accurate for large intensities.
+ * <p>
+ * Samples that are not finite, including a NaN no data value, would spoil the tables. Windows containing them are
+ * reported by {@link #hasNonFiniteSamples()} so that the filters can handle them sample by sample.
+ * The median of a window moving along a line is kept in a sorted buffer that is updated column by column.
+ * <p>
+ * Windows are placed as in {@link SpeckleFilter#getNeighborValues}, the part of a window outside the source tile
+ * is outside the image.
+ */
+public final class WindowStatistics {
+
+    private final int sx0, sy0, sw, sh;
+    private final int tableWidth;
+    private final double noDataValue;
+    private final boolean noDataIsNaN;
+    private double offset = 0.0;
+
+    private final double[] values;
+    private final boolean[] valid;
+    private final int[] countTable;
+    private final int[] nonFiniteTable;
+    private final double[] sumTable;
+    private final double[] sumSqTable;
+    private double[] sorted = new double[0];
+
+    // statistics of the last window
+    private int windowSize;
+    private int count;
+    private int nonFinite;
+    private double sum;
+    private double sumSq;
+
+    /**
+     * @param sourceTile1 the source tile of the band or of the real part of complex data
+     * @param sourceTile2 the source tile of the imaginary part of complex data
+     * @param noDataValue the no data value
+     * @param isComplex   true if the tiles hold I and Q
+     */
+    public WindowStatistics(final Tile sourceTile1, final Tile sourceTile2, final double noDataValue,
+                            final boolean isComplex) {
+        final Rectangle rect = sourceTile1.getRectangle();
+        this.sx0 = rect.x;
+        this.sy0 = rect.y;
+        this.sw = rect.width;
+        this.sh = rect.height;
+        this.tableWidth = sw + 1;
+        this.noDataValue = noDataValue;
+        this.noDataIsNaN = Double.isNaN(noDataValue);
+
+        values = new double[sw * sh];
+        valid = new boolean[sw * sh];
+        readValues(sourceTile1, isComplex ? sourceTile2 : null);
+
+        final int tableSize = tableWidth * (sh + 1);
+        countTable = new int[tableSize];
+        nonFiniteTable = new int[tableSize];
+        sumTable = new double[tableSize];
+        sumSqTable = new double[tableSize];
+        buildTables();
+    }
+
+    private void readValues(final Tile sourceTile1, final Tile sourceTile2) {
+        final ProductData srcData1 = sourceTile1.getDataBuffer();
+        final ProductData srcData2 = sourceTile2 != null ? sourceTile2.getDataBuffer() : null;
+        final TileIndex srcIndex = new TileIndex(sourceTile1);
+
+        boolean hasOffset = false;
+        int k = 0;
+        for (int y = sy0; y < sy0 + sh; ++y) {
+            srcIndex.calculateStride(y);
+            for (int x = sx0; x < sx0 + sw; ++x, ++k) {
+                final int idx = srcIndex.getIndex(x);
+                final double v;
+                if (srcData2 != null) {
+                    final double I = srcData1.getElemDoubleAt(idx);
+                    final double Q = srcData2.getElemDoubleAt(idx);
+                    valid[k] = Double.compare(I, noDataValue) != 0 && Double.compare(Q, noDataValue) != 0;
+                    v = I * I + Q * Q;
+                } else {
+                    v = srcData1.getElemDoubleAt(idx);
+                    valid[k] = Double.compare(v, noDataValue) != 0;
+                }
+                values[k] = v;
+                if (!hasOffset && valid[k] && isFinite(v)) {
+                    offset = v;
+                    hasOffset = true;
+                }
+            }
+        }
+    }
+
+    private void buildTables() {
+        for (int j = 0; j < sh; ++j) {
+            int rowCount = 0, rowNonFinite = 0;
+            double rowSum = 0.0, rowSumSq = 0.0;
+            final int k0 = j * sw;
+            final int t0 = j * tableWidth;
+            final int t1 = t0 + tableWidth;
+            for (int i = 0; i < sw; ++i) {
+                final int k = k0 + i;
+                if (valid[k]) {
+                    final double v = values[k];
+                    if (isFinite(v)) {
+                        final double d = v - offset;
+                        rowCount++;
+                        rowSum += d;
+                        rowSumSq += d * d;
+                    } else {
+                        rowNonFinite++;
+                    }
+                }
+                countTable[t1 + i + 1] = countTable[t0 + i + 1] + rowCount;
+                nonFiniteTable[t1 + i + 1] = nonFiniteTable[t0 + i + 1] + rowNonFinite;
+                sumTable[t1 + i + 1] = sumTable[t0 + i + 1] + rowSum;
+                sumSqTable[t1 + i + 1] = sumSqTable[t0 + i + 1] + rowSumSq;
+            }
+        }
+    }
+
+    private static boolean isFinite(final double v) {
+        return !Double.isNaN(v) && !Double.isInfinite(v);
+    }
+
+    /**
+     * Compute the statistics of the valid samples in the window centred at the given pixel.
+     *
+     * @param x           X coordinate of the pixel.
+     * @param y           Y coordinate of the pixel.
+     * @param windowSizeX The sliding window width.
+     * @param windowSizeY The sliding window height.
+     * @return The number of valid samples.
+     */
+    public int computeWindow(final int x, final int y, final int windowSizeX, final int windowSizeY) {
+        final int xMin = x - windowSizeX / 2;
+        final int yMin = y - windowSizeY / 2;
+        windowSize = windowSizeX * windowSizeY;
+        computeBox(xMin, yMin, xMin + windowSizeX - 1, yMin + windowSizeY - 1);
+        return count + nonFinite;
+    }
+
+    private void computeBox(final int xMin, final int yMin, final int xMax, final int yMax) {
+        final int i0 = Math.max(xMin, sx0) - sx0;
+        final int i1 = Math.min(xMax, sx0 + sw - 1) - sx0 + 1;
+        final int j0 = Math.max(yMin, sy0) - sy0;
+        final int j1 = Math.min(yMax, sy0 + sh - 1) - sy0 + 1;
+        if (i0 >= i1 || j0 >= j1) {
+            count = 0;
+            nonFinite = 0;
+            sum = 0.0;
+            sumSq = 0.0;
+            return;
+        }
+
+        final int a = j1 * tableWidth + i1;
+        final int b = j1 * tableWidth + i0;
+        final int c = j0 * tableWidth + i1;
+        final int d = j0 * tableWidth + i0;
+        count = countTable[a] - countTable[b] - countTable[c] + countTable[d];
+        nonFinite = nonFiniteTable[a] - nonFiniteTable[b] - nonFiniteTable[c] + nonFiniteTable[d];
+        sum = sumTable[a] - sumTable[b] - sumTable[c] + sumTable[d];
+        sumSq = sumSqTable[a] - sumSqTable[b] - sumSqTable[c] + sumSqTable[d];
+    }
+
+    /**
+     * @return true if the last window contains valid samples that are NaN or infinite, or no data samples when the
+     * no data value is NaN
+     */
+    public boolean hasNonFiniteSamples() {
+        return nonFinite > 0 || (noDataIsNaN && count < windowSize);
+    }
+
+    /**
+     * @return the mean of the valid samples in the last window
+     */
+    public double getMean() {
+        return (sum + count * offset) / count;
+    }
+
+    /**
+     * @return the variance of the valid samples in the last window
+     */
+    public double getVariance() {
+        if (count < 2) {
+            return 0.0;
+        }
+        final double var = (sumSq - sum * sum / count) / (count - 1);
+        return var > 0.0 ? var : 0.0;
+    }
+
+    /**
+     * Get the sample at the centre of the window as placed in the window array of getNeighborValues.
+     *
+     * @return The sample or the no data value if it is outside the image or not valid.
+     */
+    public double getCentreValue(final int x, final int y, final int windowSizeX, final int windowSizeY) {
+        final int k = windowSizeX * windowSizeY / 2;
+        final int cx = x - windowSizeX / 2 + k % windowSizeX;
+        final int cy = y - windowSizeY / 2 + k / windowSizeX;
+        if (cx < sx0 || cx >= sx0 + sw || cy < sy0 || cy >= sy0 + sh) {
+            return noDataValue;
+        }
+        final int idx = (cy - sy0) * sw + cx - sx0;
+        return valid[idx] ? values[idx] : noDataValue;
+    }
+
+    /**
+     * Get the mean of the valid samples in a square window weighted by exp(-k * d), where d is the distance
+     * max(|dx|, |dy|) of a sample to the centre. The window is cut into rings of equal distance whose sums are
+     * the differences of nested boxes.
+     *
+     * @param x          X coordinate of the pixel.
+     * @param y          Y coordinate of the pixel.
+     * @param windowSize The sliding window width and height.
+     * @param k          The damping of the weights.
+     * @return The weighted mean, NaN if the window has no valid samples.
+     */
+    public double getDistanceWeightedMean(final int x, final int y, final int windowSize, final double k) {
+        final int halfSize = windowSize / 2;
+        final int maxOffset = windowSize - 1 - halfSize;
+
+        int prevCount = 0;
+        double prevSum = 0.0;
+        double totalWeight = 0.0;
+        double weightedSum = 0.0;
+        for (int r = 0; r <= halfSize; ++r) {
+            final int ro = Math.min(r, maxOffset);
+            computeBox(x - r, y - r, x + ro, y + ro);
+            final double weight = FastMath.exp(-k * r);
+            totalWeight += weight * (count - prevCount);
+            weightedSum += weight * (sum - prevSum);
+            prevCount = count;
+            prevSum = sum;
+        }
+        return offset + weightedSum / totalWeight;
+    }
+
+    /**
+     * Get the median of the valid samples of the windows centred on a part of a line.
+     * The window is moved along the line by removing and inserting one column of samples in a sorted buffer.
+     *
+     * @param x0          X coordinate of the first pixel.
+     * @param y           Y coordinate of the line.
+     * @param w           The number of pixels.
+     * @param windowSizeX The sliding window width.
+     * @param windowSizeY The sliding window height.
+     * @param medians     Array receiving the medians, the no data value for windows without valid samples.
+     */
+    public void getMedians(final int x0, final int y, final int w, final int windowSizeX, final int windowSizeY,
+                           final double[] medians) {
+        if (sorted.length < windowSizeX * windowSizeY) {
+            sorted = new double[windowSizeX * windowSizeY];
+        }
+        final int yMin = y - windowSizeY / 2;
+        final int j0 = Math.max(yMin, sy0) - sy0;
+        final int j1 = Math.min(yMin + windowSizeY - 1, sy0 + sh - 1) - sy0 + 1;
+
+        int n = 0;
+        final int xMin0 = x0 - windowSizeX / 2;
+        for (int x = xMin0; x < xMin0 + windowSizeX; ++x) {
+            n = insertColumn(x, j0, j1, n);
+        }
+        for (int xx = 0; xx < w; ++xx) {
+            if (xx > 0) {
+                n = removeColumn(xMin0 + xx - 1, j0, j1, n);
+                n = insertColumn(xMin0 + xx + windowSizeX - 1, j0, j1, n);
+            }
+            medians[xx] = n > 0 ? sorted[n / 2] : noDataValue;
+        }
+    }
+
+    private int insertColumn(final int x, final int j0, final int j1, int n) {
+        if (x < sx0 || x >= sx0 + sw) {
+            return n;
+        }
+        for (int j = j0; j < j1; ++j) {
+            final int idx = j * sw + x - sx0;
+            if (valid[idx]) {
+                final double v = values[idx];
+                int pos = Arrays.binarySearch(sorted, 0, n, v);
+                if (pos < 0) {
+                    pos = -pos - 1;
+                }
+                System.arraycopy(sorted, pos, sorted, pos + 1, n - pos);
+                sorted[pos] = v;
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    private int removeColumn(final int x, final int j0, final int j1, int n) {
+        if (x < sx0 || x >= sx0 + sw) {
+            return n;
+        }
+        for (int j = j0; j < j1; ++j) {
+            final int idx = j * sw + x - sx0;
+            if (valid[idx]) {
+                final int pos = Arrays.binarySearch(sorted, 0, n, values[idx]);
+                System.arraycopy(sorted, pos + 1, sorted, pos, n - pos - 1);
+                --n;
+            }
+        }
+        return n;
+    }
+}
@@ -25,10 +25,10 @@ import org.esa.s1tbx.commons.CRSGeoCodingHandler;
 import org.esa.s1tbx.commons.OrbitStateVectors;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.SARUtils;
+import org.esa.s1tbx.commons.ZeroDopplerSolver;
 import org.esa.s1tbx.insar.gpf.support.SARPosition;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
-import org.esa.snap.core.dataop.downloadable.StatusProgressMonitor;
 import org.esa.snap.core.dataop.resamp.Resampling;
 import org.esa.snap.core.dataop.resamp.ResamplingFactory;
 import org.esa.snap.core.gpf.Operator;
@@ -39,10 +39,9 @@ import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
-import org.esa.snap.core.util.ThreadExecutor;
-import org.esa.snap.core.util.ThreadRunnable;
 import org.esa.snap.dem.dataio.DEMFactory;
 import org.esa.snap.dem.dataio.EarthGravitationalModel96;
 import org.esa.snap.dem.dataio.FileElevationModel;
@@ -52,8 +51,8 @@ import org.esa.snap.engine_utilities.datamodel.PosVector;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
-import org.esa.snap.engine_utilities.eo.LocalGeometry;
 import org.esa.snap.engine_utilities.gpf.*;
+import org.esa.snap.runtime.Config;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.awt.*;
@@ -225,7 +224,7 @@ public class RangeDopplerGeocodingOp extends Operator {
     private GeoCoding targetGeoCoding = null;
 
     private boolean srgrFlag = false;
-    private boolean isElevationModelAvailable = false;
+    private volatile boolean isElevationModelAvailable = false;
     private boolean usePreCalibrationOp = false;
 
     private int sourceImageWidth = 0;
@@ -267,8 +266,21 @@ public class RangeDopplerGeocodingOp extends Operator {
     private String mission = null;
     private boolean skipBistaticCorrection = false;
 
-    private boolean isLayoverShadowMaskAvailable = false;
-    private byte[][] layoverShadowMask = null;
+    // the layover/shadow mask is computed from rows of the source geometry in tiles of this height
+    private static final int LAYOVER_SHADOW_ROW_TILE_HEIGHT = 10;
+    // mask blocks are a multiple of the row tile height and include rows of the neighbouring blocks
+    // because the terrain can move a point to a neighbouring azimuth line
+    private static final int LAYOVER_SHADOW_BLOCK_HEIGHT = 25 * LAYOVER_SHADOW_ROW_TILE_HEIGHT;
+    private static final int LAYOVER_SHADOW_BLOCK_OVERLAP = 2 * LAYOVER_SHADOW_ROW_TILE_HEIGHT;
+    // number of points per side of the grids used to size the mask cache and to check the DEM coverage
+    private static final int LAYOVER_SHADOW_SAMPLE_GRID = 32;
+    private static final boolean useZeroDopplerSolver = Config.instance().preferences().getBoolean(
+            "s1tbx.terrainCorrection.useZeroDopplerSolver", true);
+    // lower bound of the number of mask blocks kept, the cache is grown to hold the blocks of two target tile rows
+    private static final int MIN_LAYOVER_SHADOW_BLOCKS = Config.instance().preferences().getInt(
+            "s1tbx.terrainCorrection.layoverShadowMaskBlocks", Math.max(16, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private final LayoverShadowMask layoverShadowMask = new LayoverShadowMask();
 
     public static final String externalDEMStr = "External DEM";
     private static final String PRODUCT_SUFFIX = "_TC";
@@ -366,6 +378,11 @@ public class RangeDopplerGeocodingOp extends Operator {
         if (dem != null) {
             dem.dispose();
         }
+        if (layoverShadowMask.getNumRecomputedBlocks() > 0) {
+            SystemUtils.LOG.info(getId() + ": " + layoverShadowMask.getNumRecomputedBlocks() +
+                    " layover/shadow mask blocks were evicted and computed again");
+        }
+        layoverShadowMask.clear();
 
         if (!orthoDataProduced && processingStarted) {
             final String errMsg = getId() + " error: no valid output was produced. Please verify the DEM";
@@ -507,9 +524,79 @@ public class RangeDopplerGeocodingOp extends Operator {
             elevationBand.setNoDataValueUsed(true);
         }
 
+        if (saveLayoverShadowMask) {
+            initLayoverShadowMask();
+        }
+
         isElevationModelAvailable = true;
     }
 
+    /**
+     * Check that the DEM covers the scene and size the layover/shadow mask cache. This runs once before any
+     * tile is computed, so the mask is either produced for all tiles or for none.
+     *
+     * @throws Exception The exceptions.
+     */
+    private void initLayoverShadowMask() throws Exception {
+
+        final GeoCoding srcGeoCoding = sourceProduct.getSceneGeoCoding();
+        final GeoPos geoPos = new GeoPos();
+        boolean demAvailable = false;
+        for (int i = 0; i < LAYOVER_SHADOW_SAMPLE_GRID && !demAvailable; ++i) {
+            final double y = (i + 0.5) * sourceImageHeight / LAYOVER_SHADOW_SAMPLE_GRID;
+            for (int j = 0; j < LAYOVER_SHADOW_SAMPLE_GRID; ++j) {
+                final double x = (j + 0.5) * sourceImageWidth / LAYOVER_SHADOW_SAMPLE_GRID;
+                srcGeoCoding.getGeoPos(new PixelPos(x, y), geoPos);
+                if (geoPos.isValid() && !SARGeocoding.isNoDataValue(dem.getElevation(geoPos), demNoDataValue)) {
+                    demAvailable = true;
+                    break;
+                }
+            }
+        }
+        if (!demAvailable) {
+            saveLayoverShadowMask = false;
+            SystemUtils.LOG.warning(getId() + ": cannot create layover/shadow mask due to the absence of DEM");
+            return;
+        }
+
+        layoverShadowMask.setMaxBlocks(Math.max(MIN_LAYOVER_SHADOW_BLOCKS, 2 * getLayoverShadowBlocksPerTileRow()));
+    }
+
+    /**
+     * Get the largest number of mask blocks needed by one row of target tiles, found from the source lines
+     * seen by a grid of points along the top and the bottom of each row.
+     */
+    private int getLayoverShadowBlocksPerTileRow() {
+
+        final GeoCoding srcGeoCoding = sourceProduct.getSceneGeoCoding();
+        final int tileHeight = ImageManager.getPreferredTileSize(targetProduct).height;
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        int maxBlocks = 1;
+        for (int rowY = 0; rowY < targetImageHeight; rowY += tileHeight) {
+            double minLine = Double.MAX_VALUE;
+            double maxLine = -Double.MAX_VALUE;
+            for (int y : new int[]{rowY, Math.min(rowY + tileHeight, targetImageHeight)}) {
+                for (int i = 0; i <= LAYOVER_SHADOW_SAMPLE_GRID; ++i) {
+                    targetGeoCoding.getGeoPos(new PixelPos((double) i * targetImageWidth / LAYOVER_SHADOW_SAMPLE_GRID, y), geoPos);
+                    if (!geoPos.isValid()) {
+                        continue;
+                    }
+                    srcGeoCoding.getPixelPos(geoPos, pixelPos);
+                    if (pixelPos.isValid()) {
+                        minLine = Math.min(minLine, Math.max(0, Math.min(pixelPos.y, sourceImageHeight - 1)));
+                        maxLine = Math.max(maxLine, Math.max(0, Math.min(pixelPos.y, sourceImageHeight - 1)));
+                    }
+                }
+            }
+            if (minLine <= maxLine) {
+                final int numBlocks = (int) maxLine / LAYOVER_SHADOW_BLOCK_HEIGHT - (int) minLine / LAYOVER_SHADOW_BLOCK_HEIGHT + 1;
+                maxBlocks = Math.max(maxBlocks, numBlocks);
+            }
+        }
+        return maxBlocks;
+    }
+
     /**
      * Get source image width and height.
      */
@@ -868,10 +955,6 @@ public class RangeDopplerGeocodingOp extends Operator {
                 throw new OperatorException(e);
             }
 
-            if (saveLayoverShadowMask && !isLayoverShadowMaskAvailable) {
-                createLayoverShadowMask();
-            }
-
             final int x0 = targetRectangle.x;
             final int y0 = targetRectangle.y;
             final int w = targetRectangle.width;
@@ -904,6 +987,12 @@ public class RangeDopplerGeocodingOp extends Operator {
 
             final GeoPos geoPos = new GeoPos();
             final PositionData posData = new PositionData();
+            if (sourceRectangle != null && useZeroDopplerSolver) {
+                // the solver clamps the window to the scene lines, so points off the scene stay non valid
+                final double startTime = firstLineUTC + (sourceRectangle.y - margin) * lineTimeInterval;
+                final double endTime = firstLineUTC + (sourceRectangle.y + sourceRectangle.height + margin) * lineTimeInterval;
+                posData.solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, wavelength, startTime, endTime);
+            }
             final int srcMaxRange = sourceImageWidth - 1;
             final int srcMaxAzimuth = sourceImageHeight - 1;
             ProductData demBuffer = null, latBuffer = null, lonBuffer = null, localIncidenceAngleBuffer = null,
@@ -989,13 +1078,22 @@ public class RangeDopplerGeocodingOp extends Operator {
             final GeoPos posLast = targetProduct.getSceneGeoCoding().getGeoPos(new PixelPos(0,targetImageHeight), null);
             int diffLat = (int)Math.abs(posFirst.lat - posLast.lat);
 
+            // per tile scratch space, reset for every pixel
+            final double[] localIncidenceAngles = new double[2];
+            LayoverShadowMaskBlock maskBlock = null;
+            final int[] subSwathIndex = new int[1];
+            final SARGeocoding.LocalIncidenceAngleWorkspace liaWorkspace =
+                    saveLocalIncidenceAngle || saveProjectedLocalIncidenceAngle || saveSigmaNought ?
+                            new SARGeocoding.LocalIncidenceAngleWorkspace() : null;
+
             for (int y = y0; y < maxY; y++) {
                 final int yy = y - y0 + 1;
                 for (int x = x0; x < maxX; x++) {
                     final int index = tgtTiles[0].targetTile.getDataBufferIndex(x, y);
 
-                    Double alt = localDEM[yy][x - x0 + 1];
-                    if (alt.equals(demNoDataValue) && !useAvgSceneHeight) {
+                    double alt = localDEM[yy][x - x0 + 1];
+                    final boolean altIsNoData = SARGeocoding.isNoDataValue(alt, demNoDataValue);
+                    if (altIsNoData && !useAvgSceneHeight) {
                         if (nodataValueAtSea) {
                             saveNoDataValueToTarget(index, tgtTiles, demBuffer);
                             continue;
@@ -1009,8 +1107,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         lon -= 360.0;
                     }
 
-                    if (alt.equals(demNoDataValue) && !nodataValueAtSea) { // get corrected elevation for 0
-                        alt = (double) egm.getEGM(lat, lon);
+                    if (altIsNoData && !nodataValueAtSea) { // get corrected elevation for 0
+                        alt = egm.getEGM(lat, lon);
                     }
 
                     if (!getPosition(lat, lon, alt, posData)) {
@@ -1023,17 +1121,15 @@ public class RangeDopplerGeocodingOp extends Operator {
                         saveNoDataValueToTarget(index, tgtTiles, demBuffer);
                     } else {
 
-                        final double[] localIncidenceAngles = {SARGeocoding.NonValidIncidenceAngle,
-                                SARGeocoding.NonValidIncidenceAngle};
+                        localIncidenceAngles[0] = SARGeocoding.NonValidIncidenceAngle;
+                        localIncidenceAngles[1] = SARGeocoding.NonValidIncidenceAngle;
 
-                        if (saveLocalIncidenceAngle || saveProjectedLocalIncidenceAngle || saveSigmaNought) {
-
-                            final LocalGeometry localGeometry = new LocalGeometry(
-                                    x, y, tileGeoRef, posData.earthPoint, posData.sensorPos);
+                        if (liaWorkspace != null) {
 
                             SARGeocoding.computeLocalIncidenceAngle(
-                                    localGeometry, demNoDataValue, saveLocalIncidenceAngle, saveProjectedLocalIncidenceAngle,
-                                    saveSigmaNought, x0, y0, x, y, localDEM, localIncidenceAngles); // in degrees
+                                    x, y, tileGeoRef, posData.earthPoint, posData.sensorPos, demNoDataValue,
+                                    saveLocalIncidenceAngle, saveProjectedLocalIncidenceAngle, saveSigmaNought,
+                                    x0, y0, localDEM, localIncidenceAngles, liaWorkspace); // in degrees
 
                             if (saveLocalIncidenceAngle && localIncidenceAngles[0] != SARGeocoding.NonValidIncidenceAngle) {
                                 localIncidenceAngleBuffer.setElemDoubleAt(index, localIncidenceAngles[0]);
@@ -1059,8 +1155,12 @@ public class RangeDopplerGeocodingOp extends Operator {
                         }
 
                         if (saveLayoverShadowMask) {
+                            final int azIndex = (int)(posData.azimuthIndex + 0.5);
+                            if (maskBlock == null || !maskBlock.contains(azIndex)) {
+                                maskBlock = layoverShadowMask.getBlock(azIndex);
+                            }
                             layoverShadowMaskBuffer.setElemIntAt(index,
-                                    layoverShadowMask[(int)(posData.azimuthIndex + 0.5)][(int)(posData.rangeIndex + 0.5)]);
+                                    maskBlock.get(azIndex, (int)(posData.rangeIndex + 0.5)));
                         }
 
                         double satelliteHeight = 0;
@@ -1074,7 +1174,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         }
 
                         for (TileData tileData : tgtTiles) {
-                            int[] subSwathIndex = {INVALID_SUB_SWATH_INDEX};
+                            subSwathIndex[0] = INVALID_SUB_SWATH_INDEX;
                             double v = getPixelValue(posData.azimuthIndex, posData.rangeIndex, tileData, subSwathIndex);
 
                             if (v != tileData.noDataValue && tileData.applyRadiometricNormalization) {
@@ -1105,126 +1205,214 @@ public class RangeDopplerGeocodingOp extends Operator {
         }
     }
 
-    private synchronized void createLayoverShadowMask() {
+    /**
+     * Layover/shadow mask in source image geometry. Blocks of azimuth lines are computed on first use
+     * and kept in a bounded LRU cache so that target tiles can be produced without first computing
+     * the mask for the whole scene.
+     */
+    private final class LayoverShadowMask {
 
-        if (isLayoverShadowMaskAvailable) return;
+        private int maxBlocks = MIN_LAYOVER_SHADOW_BLOCKS;
+        private final Set<Integer> computedBlocks = new HashSet<>();
+        private int numRecomputedBlocks = 0;
 
-        final Dimension tileSize = new Dimension(sourceImageWidth, 10);
-        final Rectangle[] tileRectangles = OperatorUtils.getAllTileRectangles(sourceProduct, tileSize, 0);
-        final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
-        status.beginTask("Creating Layover/Shadow Mask... ", tileRectangles.length);
-        final ThreadExecutor executor = new ThreadExecutor();
+        private final Map<Integer, LayoverShadowMaskBlock> blocks =
+                new LinkedHashMap<Integer, LayoverShadowMaskBlock>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<Integer, LayoverShadowMaskBlock> eldest) {
+                        return size() > maxBlocks;
+                    }
+                };
 
-        layoverShadowMask = new byte[sourceImageHeight][sourceImageWidth];
+        void setMaxBlocks(final int maxBlocks) {
+            synchronized (blocks) {
+                this.maxBlocks = maxBlocks;
+            }
+        }
 
-        try {
-            for (final Rectangle rectangle : tileRectangles) {
-                final ThreadRunnable worker = new ThreadRunnable() {
+        /**
+         * Get the number of blocks computed again after they were evicted from the cache.
+         */
+        int getNumRecomputedBlocks() {
+            synchronized (blocks) {
+                return numRecomputedBlocks;
+            }
+        }
 
-                    @Override
-                    public void process() {
-                        final int x0 = rectangle.x;
-                        final int y0 = rectangle.y;
-                        final int w = rectangle.width;
-                        final int h = rectangle.height;
-                        final int xMax = x0 + w;
-                        final int yMax = y0 + h;
-
-                        final double[][] localDEM = new double[h + 2][w + 2];
-                        final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, y0, w, h);
-                        try {
-                            final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
-                                    tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
-
-                            if (!valid) {
-                                saveLayoverShadowMask = false;
-                                System.out.println("Cannot create layover/shadow mask due to the absent of DEM");
-                                return;
-                            }
-                        } catch (Throwable e) {
-                            OperatorUtils.catchOperatorException(getId(), e);
-                        }
+        /**
+         * Get the block holding the given azimuth line, computing it if needed.
+         */
+        LayoverShadowMaskBlock getBlock(final int y) {
+            final int blockIndex = Math.max(0, Math.min(y, sourceImageHeight - 1)) / LAYOVER_SHADOW_BLOCK_HEIGHT;
+            LayoverShadowMaskBlock block;
+            synchronized (blocks) {
+                block = blocks.get(blockIndex);
+                if (block == null) {
+                    final int y0 = blockIndex * LAYOVER_SHADOW_BLOCK_HEIGHT;
+                    block = new LayoverShadowMaskBlock(y0, Math.min(LAYOVER_SHADOW_BLOCK_HEIGHT, sourceImageHeight - y0));
+                    blocks.put(blockIndex, block);
+                    if (!computedBlocks.add(blockIndex)) {
+                        ++numRecomputedBlocks;
+                    }
+                }
+            }
+            block.compute();
+            return block;
+        }
 
-                        final SARPosition sarPosition = new SARPosition(
-                                firstLineUTC,
-                                lastLineUTC,
-                                lineTimeInterval,
-                                wavelength,
-                                rangeSpacing,
-                                sourceImageWidth,
-                                srgrFlag,
-                                nearEdgeSlantRange,
-                                nearRangeOnLeft,
-                                orbit,
-                                srgrConvParams
-                        );
-                        sarPosition.setTileConstraints(x0, y0, w, h);
-
-                        final SARPosition.PositionData posData = new SARPosition.PositionData();
-                        final GeoPos geoPos = new GeoPos();
-                        float[] slrs = new float[w];
-                        float[] elev = new float[w];
-                        float[] azIndex = new float[w];
-                        float[] rgIndex = new float[w];
-                        boolean[] savePixel = new boolean[w];
-
-                        for (int y = y0; y < yMax; ++y) {
-                            final int yy = y - y0;
-                            Arrays.fill(slrs, 0.0f);
-                            Arrays.fill(elev, 0.0f);
-                            Arrays.fill(azIndex, 0.0f);
-                            Arrays.fill(rgIndex, 0.0f);
-                            Arrays.fill(savePixel, Boolean.FALSE);
-
-                            for (int x = x0; x < xMax; ++x) {
-                                final int xx = x - x0;
-                                Double alt = localDEM[yy + 1][xx + 1];
-                                if (alt.equals(demNoDataValue))
-                                    continue;
+        void clear() {
+            synchronized (blocks) {
+                blocks.clear();
+                computedBlocks.clear();
+                numRecomputedBlocks = 0;
+            }
+        }
+    }
 
-                                tileGeoRef.getGeoPos(x, y, geoPos);
-                                if (!geoPos.isValid())
-                                    continue;
+    private final class LayoverShadowMaskBlock {
 
-                                double lat = geoPos.lat;
-                                double lon = geoPos.lon;
-                                if (lon >= 180.0) {
-                                    lon -= 360.0;
-                                }
+        private final int firstLine;
+        private final int height;
+        private final byte[][] mask;
+        private boolean computed = false;
 
-                                GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
-                                if (!sarPosition.getPosition(posData))
-                                    continue;
+        LayoverShadowMaskBlock(final int firstLine, final int height) {
+            this.firstLine = firstLine;
+            this.height = height;
+            this.mask = new byte[height][sourceImageWidth];
+        }
 
-                                int rIndex = (int) posData.rangeIndex;
-                                int aIndex = (int) posData.azimuthIndex;
-                                if (rIndex >= 0 && rIndex < sourceImageWidth && aIndex >= 0 && aIndex < sourceImageHeight) {
-                                    azIndex[xx] = (float)posData.azimuthIndex;
-                                    rgIndex[xx] = (float)posData.rangeIndex;
-                                    slrs[xx] = (float)posData.slantRange;
-                                    elev[xx] = computeElevationAngle(posData.slantRange, posData.earthPoint, posData.sensorPos);
-                                    savePixel[xx] = true;
-                                } else {
-                                    savePixel[xx] = false;
-                                }
-                            }
-                            computeLayoverShadow(x0, y0, w, h, savePixel, slrs, elev, azIndex, rgIndex);
-                        }
-                    }
-                };
-                executor.execute(worker);
-                status.worked(1);
+        boolean contains(final int y) {
+            return y >= firstLine && y < firstLine + height;
+        }
+
+        byte get(final int y, final int x) {
+            if (!contains(y) || x < 0 || x >= sourceImageWidth) {
+                return 0;
+            }
+            return mask[y - firstLine][x];
+        }
 
+        void set(final int y, final int x, final byte value) {
+            if (!contains(y)) {
+                return;
+            }
+            synchronized (mask) {
+                final byte[] line = mask[y - firstLine];
+                if (line[x] == 0) {
+                    line[x] = value;
+                } else if (line[x] == 1 && value == 2) {
+                    line[x] += value;
+                }
             }
-            executor.complete();
+        }
 
-        } catch (Throwable e) {
-            OperatorUtils.catchOperatorException(getId(), e);
-        } finally {
-            status.done();
+        /**
+         * Compute the mask for the lines of this block from the source rows of the block and its overlap.
+         * The rows are computed on the calling tile thread, other tiles needing the block wait for it.
+         */
+        synchronized void compute() {
+
+            if (computed) return;
+
+            final int rowStart = Math.max(0, firstLine - LAYOVER_SHADOW_BLOCK_OVERLAP);
+            final int rowEnd = Math.min(sourceImageHeight, firstLine + height + LAYOVER_SHADOW_BLOCK_OVERLAP);
+            for (int rowY = rowStart; rowY < rowEnd; rowY += LAYOVER_SHADOW_ROW_TILE_HEIGHT) {
+                computeRowTile(new Rectangle(0, rowY, sourceImageWidth,
+                        Math.min(LAYOVER_SHADOW_ROW_TILE_HEIGHT, sourceImageHeight - rowY)));
+            }
+
+            computed = true;
         }
 
-        isLayoverShadowMaskAvailable = true;
+        private void computeRowTile(final Rectangle rectangle) {
+            final int x0 = rectangle.x;
+            final int y0 = rectangle.y;
+            final int w = rectangle.width;
+            final int h = rectangle.height;
+            final int xMax = x0 + w;
+            final int yMax = y0 + h;
+
+            final double[][] localDEM = new double[h + 2][w + 2];
+            final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, y0, w, h);
+            try {
+                final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
+                        tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
+
+                if (!valid) {
+                    // no terrain under these rows, so nothing in layover or shadow
+                    return;
+                }
+            } catch (Throwable e) {
+                OperatorUtils.catchOperatorException(getId(), e);
+            }
+
+            final SARPosition sarPosition = new SARPosition(
+                    firstLineUTC,
+                    lastLineUTC,
+                    lineTimeInterval,
+                    wavelength,
+                    rangeSpacing,
+                    sourceImageWidth,
+                    srgrFlag,
+                    nearEdgeSlantRange,
+                    nearRangeOnLeft,
+                    orbit,
+                    srgrConvParams
+            );
+            sarPosition.setTileConstraints(x0, y0, w, h);
+
+            final SARPosition.PositionData posData = new SARPosition.PositionData();
+            final GeoPos geoPos = new GeoPos();
+            float[] slrs = new float[w];
+            float[] elev = new float[w];
+            float[] azIndex = new float[w];
+            float[] rgIndex = new float[w];
+            boolean[] savePixel = new boolean[w];
+
+            for (int y = y0; y < yMax; ++y) {
+                final int yy = y - y0;
+                Arrays.fill(slrs, 0.0f);
+                Arrays.fill(elev, 0.0f);
+                Arrays.fill(azIndex, 0.0f);
+                Arrays.fill(rgIndex, 0.0f);
+                Arrays.fill(savePixel, Boolean.FALSE);
+
+                for (int x = x0; x < xMax; ++x) {
+                    final int xx = x - x0;
+                    final double alt = localDEM[yy + 1][xx + 1];
+                    if (SARGeocoding.isNoDataValue(alt, demNoDataValue))
+                        continue;
+
+                    tileGeoRef.getGeoPos(x, y, geoPos);
+                    if (!geoPos.isValid())
+                        continue;
+
+                    double lat = geoPos.lat;
+                    double lon = geoPos.lon;
+                    if (lon >= 180.0) {
+                        lon -= 360.0;
+                    }
+
+                    GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
+                    if (!sarPosition.getPosition(posData))
+                        continue;
+
+                    int rIndex = (int) posData.rangeIndex;
+                    int aIndex = (int) posData.azimuthIndex;
+                    if (rIndex >= 0 && rIndex < sourceImageWidth && aIndex >= 0 && aIndex < sourceImageHeight) {
+                        azIndex[xx] = (float)posData.azimuthIndex;
+                        rgIndex[xx] = (float)posData.rangeIndex;
+                        slrs[xx] = (float)posData.slantRange;
+                        elev[xx] = computeElevationAngle(posData.slantRange, posData.earthPoint, posData.sensorPos);
+                        savePixel[xx] = true;
+                    } else {
+                        savePixel[xx] = false;
+                    }
+                }
+                computeLayoverShadow(this, x0, y0, w, h, savePixel, slrs, elev, azIndex, rgIndex);
+            }
+        }
     }
 
     private static float computeElevationAngle(
@@ -1237,7 +1425,8 @@ public class RangeDopplerGeocodingOp extends Operator {
     }
 
 
-    private void computeLayoverShadow(final int x0, final int y0, final int w, final int h,
+    private void computeLayoverShadow(final LayoverShadowMaskBlock block,
+                                      final int x0, final int y0, final int w, final int h,
                                       final boolean[] savePixel, final float[] slrs, final float[] elev,
                                       final float[] azIndex, final float[] rgIndex) {
 
@@ -1254,7 +1443,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] > maxSlantRange) {
                             maxSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
                         }
                     }
                 }
@@ -1266,7 +1455,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] <= minSlantRange) {
                             minSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
                         }
                     }
                 }
@@ -1278,7 +1467,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (elev[i] > maxElevAngle) {
                             maxElevAngle = elev[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
                         }
                     }
                 }
@@ -1292,7 +1481,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] > maxSlantRange) {
                             maxSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
                         }
                     }
                 }
@@ -1304,7 +1493,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] < minSlantRange) {
                             minSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
                         }
                     }
                 }
@@ -1316,7 +1505,7 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (elev[i] > maxElevAngle) {
                             maxElevAngle = elev[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
+                            saveLayoverShadow(block, x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
                         }
                     }
                 }
@@ -1326,8 +1515,9 @@ public class RangeDopplerGeocodingOp extends Operator {
         }
     }
 
-    private void saveLayoverShadow(final int x0, final int y0, final int w, final int h,
-                                   final float rgIndex, final float azIndex, final byte value) {
+    private static void saveLayoverShadow(final LayoverShadowMaskBlock block,
+                                          final int x0, final int y0, final int w, final int h,
+                                          final float rgIndex, final float azIndex, final byte value) {
 
         final int xMin = (int)rgIndex;
         final int xMax = Math.min(xMin + 1, x0 + w - 1);
@@ -1335,14 +1525,7 @@ public class RangeDopplerGeocodingOp extends Operator {
         final int yMax = Math.min(yMin + 1, y0 + h - 1);
         for (int y = yMin; y <= yMax; ++y) {
             for (int x = xMin; x <= xMax; ++x) {
-
-                synchronized (layoverShadowMask) {
-                    if (layoverShadowMask[y][x] == 0) {
-                        layoverShadowMask[y][x] = value;
-                    } else if (layoverShadowMask[y][x] == 1 && value == 2){
-                        layoverShadowMask[y][x] += value;
-                    }
-                }
+                block.set(y, x, value);
             }
         }
     }
@@ -1490,18 +1673,22 @@ public class RangeDopplerGeocodingOp extends Operator {
 
         GeoUtils.geo2xyzWGS84(lat, lon, alt, data.earthPoint);
 
-        double zeroDopplerTime = SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC,
-                                                                           lineTimeInterval, wavelength, data.earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
+        final ZeroDopplerSolver solver = data.solver;
+        double zeroDopplerTime = solver != null ? solver.getZeroDopplerTime(data.earthPoint) :
+                SARGeocoding.getEarthPointZeroDopplerTime(firstLineUTC,
+                                                          lineTimeInterval, wavelength, data.earthPoint, orbit.sensorPosition, orbit.sensorVelocity);
 
         if (Double.compare(zeroDopplerTime, SARGeocoding.NonValidZeroDopplerTime) == 0) {
             return false;
         }
 
-        data.slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
+        data.slantRange = solver != null ? solver.computeSlantRange(zeroDopplerTime, data.earthPoint, data.sensorPos) :
+                SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
 
         if (!skipBistaticCorrection) { // skip bistatic correction for COSMO, TerraSAR-X and RadarSAT-2
             zeroDopplerTime += data.slantRange / Constants.lightSpeedInMetersPerDay;
-            data.slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
+            data.slantRange = solver != null ? solver.computeSlantRange(zeroDopplerTime, data.earthPoint, data.sensorPos) :
+                    SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
         }
 
         data.rangeIndex = SARGeocoding.computeRangeIndex(srgrFlag, sourceImageWidth, firstLineUTC, lastLineUTC,
@@ -1827,6 +2014,7 @@ public class RangeDopplerGeocodingOp extends Operator {
     private static class PositionData {
         final PosVector earthPoint = new PosVector();
         final PosVector sensorPos = new PosVector();
+        ZeroDopplerSolver solver = null;
         double azimuthIndex;
         double rangeIndex;
         double slantRange;
@@ -26,6 +26,7 @@ import org.esa.s1tbx.insar.gpf.coregistration.WarpData;
 import org.esa.s1tbx.commons.CRSGeoCodingHandler;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.SARUtils;
+import org.esa.s1tbx.commons.ZeroDopplerSolver;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
 import org.esa.snap.core.dataop.dem.ElevationModelDescriptor;
@@ -55,6 +56,7 @@ import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
 import org.esa.snap.engine_utilities.gpf.TileGeoreferencing;
 import org.esa.snap.engine_utilities.util.ResourceUtils;
+import org.esa.snap.runtime.Config;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.awt.*;
@@ -241,6 +243,9 @@ public class SARSimTerrainCorrectionOp extends Operator {
 
     private static final double NonValidZeroDopplerTime = -99999.0;
     private static final int INVALID_SUB_SWATH_INDEX = -1;
+    private static final int ZERO_DOPPLER_SOLVER_MARGIN = 16;
+    private static final boolean useZeroDopplerSolver = Config.instance().preferences().getBoolean(
+            "s1tbx.terrainCorrection.useZeroDopplerSolver", true);
 
     private Resampling imgResampling = null;
     private CoordinateReferenceSystem targetCRS;
@@ -968,6 +973,9 @@ public class SARSimTerrainCorrectionOp extends Operator {
                 }
             }
 
+            final ZeroDopplerSolver solver = useZeroDopplerSolver ?
+                    createZeroDopplerSolver(x0, y0, w, h, tileGeoRef, localDEM) : null;
+
             for (int y = y0; y < ymax; y++) {
                 final int yy = y - y0 + 1;
 
@@ -996,7 +1004,8 @@ public class SARSimTerrainCorrectionOp extends Operator {
 
                     GeoUtils.geo2xyzWGS84(lat, lon, alt, earthPoint);
 
-                    final double zeroDopplerTime = getEarthPointZeroDopplerTime(earthPoint);
+                    final double zeroDopplerTime = solver != null ? solver.getZeroDopplerTime(earthPoint) :
+                            getEarthPointZeroDopplerTime(earthPoint);
 
                     if (Double.compare(zeroDopplerTime, NonValidZeroDopplerTime) == 0) {
                         if (saveDEM) {
@@ -1005,14 +1014,16 @@ public class SARSimTerrainCorrectionOp extends Operator {
                         continue;
                     }
 
-                    double slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, earthPoint, sensorPos);
+                    double slantRange = solver != null ? solver.computeSlantRange(zeroDopplerTime, earthPoint, sensorPos) :
+                            SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, earthPoint, sensorPos);
 
                     double zeroDoppler = zeroDopplerTime;
                     if (!skipBistaticCorrection) {
                         // skip bistatic correction for COSMO, TerraSAR-X and RadarSAT-2
                         zeroDoppler = zeroDopplerTime + slantRange / Constants.lightSpeedInMetersPerDay;
 
-                        slantRange = SARGeocoding.computeSlantRange(zeroDoppler, orbit, earthPoint, sensorPos);
+                        slantRange = solver != null ? solver.computeSlantRange(zeroDoppler, earthPoint, sensorPos) :
+                                SARGeocoding.computeSlantRange(zeroDoppler, orbit, earthPoint, sensorPos);
                     }
 
                     final double azimuthIndex = (zeroDoppler - firstLineUTC) / lineTimeInterval;
@@ -1134,6 +1145,45 @@ public class SARSimTerrainCorrectionOp extends Operator {
         }
     }
 
+    /**
+     * Create a zero Doppler solver fitted over the lines seeing the corners of the tile, with a margin for the
+     * terrain inside the tile.
+     *
+     * @return The solver or null if none of the corners is seen.
+     */
+    private ZeroDopplerSolver createZeroDopplerSolver(final int x0, final int y0, final int w, final int h,
+                                                      final TileGeoreferencing tileGeoRef, final double[][] localDEM) {
+
+        final int[][] corners = {{x0, y0}, {x0 + w - 1, y0}, {x0, y0 + h - 1}, {x0 + w - 1, y0 + h - 1}};
+        final GeoPos geoPos = new GeoPos();
+        final PosVector earthPoint = new PosVector();
+        double startTime = Double.MAX_VALUE;
+        double endTime = -Double.MAX_VALUE;
+        for (int[] corner : corners) {
+            final double alt = localDEM[corner[1] - y0 + 1][corner[0] - x0 + 1];
+            if (!useAvgSceneHeight && alt == demNoDataValue) {
+                continue;
+            }
+            tileGeoRef.getGeoPos(corner[0], corner[1], geoPos);
+            if (!geoPos.isValid()) {
+                continue;
+            }
+            GeoUtils.geo2xyzWGS84(geoPos.lat, geoPos.lon, alt, earthPoint);
+            final double time = getEarthPointZeroDopplerTime(earthPoint);
+            if (time != NonValidZeroDopplerTime) {
+                startTime = Math.min(startTime, time);
+                endTime = Math.max(endTime, time);
+            }
+        }
+        if (startTime > endTime) {
+            return null;
+        }
+
+        final double marginTime = ZERO_DOPPLER_SOLVER_MARGIN * Math.abs(lineTimeInterval);
+        return new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval, startTime - marginTime,
+                endTime + marginTime, this::getEarthPointZeroDopplerTime);
+    }
+
     /**
      * Compute zero Doppler time for given erath point.
      *
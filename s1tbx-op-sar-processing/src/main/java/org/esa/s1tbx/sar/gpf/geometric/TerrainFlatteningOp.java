@@ -21,6 +21,7 @@ import org.esa.s1tbx.calibration.gpf.CalibrationOp;
 import org.esa.s1tbx.commons.OrbitStateVectors;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.SARUtils;
+import org.esa.s1tbx.commons.ZeroDopplerSolver;
 import org.esa.s1tbx.commons.polsar.PolBandUtils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
@@ -46,6 +47,7 @@ import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
 import org.esa.snap.engine_utilities.gpf.*;
 import org.esa.snap.engine_utilities.util.Maths;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
 import java.io.File;
@@ -147,6 +149,8 @@ public final class TerrainFlatteningOp extends Operator {
     private boolean invalidSource = false;
 
     private static final String PRODUCT_SUFFIX = "_TF";
+    private static final boolean useZeroDopplerSolver = Config.instance().preferences().getBoolean(
+            "s1tbx.terrainCorrection.useZeroDopplerSolver", true);
 
     enum UnitType {AMPLITUDE, INTENSITY, COMPLEX, RATIO}
 
@@ -583,7 +587,13 @@ public final class TerrainFlatteningOp extends Operator {
             final int nLat = (int) (overSamplingFactor * rows);
             final int nLon = (int) (overSamplingFactor * cols);
 
+            // only points seen from the lines of the tile are kept, so the orbit is fitted over them
             final PositionData posData = new PositionData();
+            if (useZeroDopplerSolver) {
+                posData.solver = new ZeroDopplerSolver(orbit, firstLineUTC, lineTimeInterval,
+                        firstLineUTC + (y0 - 1) * lineTimeInterval, firstLineUTC + (y0 + h) * lineTimeInterval,
+                        earthPoint -> SARGeocoding.getZeroDopplerTime(lineTimeInterval, wavelength, earthPoint, orbit));
+            }
             for (int i = 1; i < nLat; i++) {
                 if (pm.isCanceled()) {
                     return false;
@@ -724,14 +734,16 @@ public final class TerrainFlatteningOp extends Operator {
     private boolean getPosition(final int x0, final int y0, final int w, final int h,
                                 final PositionData data) {
 
-        final double zeroDopplerTime = SARGeocoding.getZeroDopplerTime(
-                lineTimeInterval, wavelength, data.earthPoint, orbit);
+        final ZeroDopplerSolver solver = data.solver;
+        final double zeroDopplerTime = solver != null ? solver.getZeroDopplerTime(data.earthPoint) :
+                SARGeocoding.getZeroDopplerTime(lineTimeInterval, wavelength, data.earthPoint, orbit);
 
         if (zeroDopplerTime == SARGeocoding.NonValidZeroDopplerTime) {
             return false;
         }
 
-        data.slantRange = SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
+        data.slantRange = solver != null ? solver.computeSlantRange(zeroDopplerTime, data.earthPoint, data.sensorPos) :
+                SARGeocoding.computeSlantRange(zeroDopplerTime, orbit, data.earthPoint, data.sensorPos);
 
         data.azimuthIndex = (zeroDopplerTime - firstLineUTC) / lineTimeInterval;
 
@@ -1387,6 +1399,7 @@ public final class TerrainFlatteningOp extends Operator {
     private static class PositionData {
         PosVector earthPoint = new PosVector();
         final PosVector sensorPos = new PosVector();
+        ZeroDopplerSolver solver = null;
         double azimuthIndex;
         double rangeIndex;
         double slantRange;
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the summed-area and sorted-buffer statistics of WindowStatistics with the per-sample statistics of the
+ * window arrays of SpeckleFilter.getNeighborValues, on random tiles with no data, NaN and infinite samples.
+ */
+public class WindowStatisticsTest {
+
+    private static final int width = 37;
+    private static final int height = 29;
+    private static final double REL_EPS = 1.0e-9;
+
+    private static final int[][] windowSizes = {{3, 3}, {5, 5}, {4, 4}, {7, 3}, {3, 5}};
+
+    // the per-sample statistics of the speckle filters
+    private static final SpeckleFilter perSample = new SpeckleFilter() {
+        @Override
+        public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
+        }
+
+        @Override
+        public double[][] performFiltering(int x0, int y0, int w, int h, String[] srcBandNames) {
+            return null;
+        }
+    };
+
+    @Test
+    public void testZeroNoData() {
+        final Random random = new Random(1);
+        final Image image = randomImage(random, 1.0, 0.0, 0.0);
+        compareAll(image, null, 0.0);
+    }
+
+    @Test
+    public void testNaNNoData() {
+        final Random random = new Random(2);
+        final Image image = randomImage(random, 1.0, 0.0, Double.NaN);
+        compareAll(image, null, Double.NaN);
+    }
+
+    @Test
+    public void testComplex() {
+        final Random random = new Random(3);
+        final Image i = randomImage(random, 10.0, 0.0, 0.0);
+        final Image q = randomImage(random, 10.0, 0.0, 0.0);
+        compareAll(i, q, 0.0);
+    }
+
+    /**
+     * Intensities far from 0 and close together, where sums of squares about 0 lose the variance.
+     */
+    @Test
+    public void testLargeIntensities() {
+        final Random random = new Random(4);
+        final Image image = randomImage(random, 3.0, 1.0e8, 0.0);
+        compareAll(image, null, 0.0);
+    }
+
+    private static final class Image {
+        final double[] data = new double[width * height];
+    }
+
+    /**
+     * Exponentially distributed intensities with about 5% no data, 1% NaN and a few infinite samples.
+     */
+    private static Image randomImage(final Random random, final double scale, final double offset,
+                                     final double noDataValue) {
+        final Image image = new Image();
+        for (int i = 0; i < image.data.length; ++i) {
+            final double u = random.nextDouble();
+            if (u < 0.05) {
+                image.data[i] = noDataValue;
+            } else if (u < 0.06) {
+                image.data[i] = Double.NaN;
+            } else if (u < 0.063) {
+                image.data[i] = Double.POSITIVE_INFINITY;
+            } else {
+                image.data[i] = offset - scale * Math.log(1.0 - random.nextDouble());
+            }
+        }
+        return image;
+    }
+
+    private static Band createBand(final String name, final double[] data, final int w, final int h,
+                                   final double noDataValue, final String unit) {
+        final Product product = new Product(name, "type", w, h);
+        final Band band = product.addBand(name, ProductData.TYPE_FLOAT64);
+        band.setNoDataValue(noDataValue);
+        band.setNoDataValueUsed(true);
+        band.setUnit(unit);
+        band.setRasterData(ProductData.createInstance(data));
+        return band;
+    }
+
+    private static Tile createTile(final Band band, final Rectangle rect) {
+        return new TileImpl(band, band.getSourceImage().getData(rect));
+    }
+
+    private static double[] crop(final double[] data, final Rectangle rect) {
+        final double[] cropped = new double[rect.width * rect.height];
+        for (int y = 0; y < rect.height; ++y) {
+            System.arraycopy(data, (rect.y + y) * width + rect.x, cropped, y * rect.width, rect.width);
+        }
+        return cropped;
+    }
+
+    /**
+     * Compare on the whole image and on source tiles inside the image, where windows are clipped at the tile edge.
+     */
+    private static void compareAll(final Image i, final Image q, final double noDataValue) {
+        final Rectangle[] rects = {
+                new Rectangle(0, 0, width, height),
+                new Rectangle(5, 3, 20, 17),
+                new Rectangle(width - 9, height - 6, 9, 6)};
+        for (Rectangle rect : rects) {
+            for (int[] size : windowSizes) {
+                compare(i, q, noDataValue, rect, size[0], size[1]);
+            }
+        }
+    }
+
+    private static void compare(final Image i, final Image q, final double noDataValue, final Rectangle rect,
+                                final int windowSizeX, final int windowSizeY) {
+        final boolean isComplex = q != null;
+        final String unit = isComplex ? Unit.REAL : Unit.INTENSITY;
+
+        // the tile as part of the image
+        final Band band1 = createBand("i", i.data, width, height, noDataValue, unit);
+        final Band band2 = isComplex ? createBand("q", q.data, width, height, noDataValue, Unit.IMAGINARY) : null;
+        final WindowStatistics stats = new WindowStatistics(createTile(band1, rect),
+                isComplex ? createTile(band2, rect) : null, noDataValue, isComplex);
+
+        // the tile as an image of its own, so that getNeighborValues clips the windows at the tile edge
+        final Rectangle cropRect = new Rectangle(0, 0, rect.width, rect.height);
+        final Tile crop1 = createTile(createBand("i", crop(i.data, rect), rect.width, rect.height, noDataValue, unit),
+                cropRect);
+        final Tile crop2 = isComplex ? createTile(createBand("q", crop(q.data, rect), rect.width, rect.height,
+                noDataValue, Unit.IMAGINARY), cropRect) : null;
+        final ProductData srcData1 = crop1.getDataBuffer();
+        final ProductData srcData2 = isComplex ? crop2.getDataBuffer() : null;
+        final TileIndex srcIndex = new TileIndex(crop1);
+
+        final double[] neighborValues = new double[windowSizeX * windowSizeY];
+        final double[] medians = new double[rect.width];
+        final boolean square = windowSizeX == windowSizeY;
+        final double k = 0.3;
+        final String where = " at window " + windowSizeX + "x" + windowSizeY + " in " + rect;
+
+        for (int y = rect.y; y < rect.y + rect.height; ++y) {
+            stats.getMedians(rect.x, y, rect.width, windowSizeX, windowSizeY, medians);
+
+            for (int x = rect.x; x < rect.x + rect.width; ++x) {
+                final String pixel = " of (" + x + ", " + y + ")" + where;
+                final int n = perSample.getNeighborValues(x - rect.x, y - rect.y, srcData1, srcData2, srcIndex,
+                        noDataValue, isComplex, windowSizeX, windowSizeY, rect.width, rect.height, neighborValues);
+
+                assertEquals("median" + pixel, 0, Double.compare(median(neighborValues, n, noDataValue),
+                        medians[x - rect.x]));
+
+                final int numSamples = stats.computeWindow(x, y, windowSizeX, windowSizeY);
+                assertEquals("samples" + pixel, n, numSamples);
+                assertEquals("centre" + pixel, 0, Double.compare(neighborValues[neighborValues.length / 2],
+                        stats.getCentreValue(x, y, windowSizeX, windowSizeY)));
+
+                // the tables only hold finite samples, windows with others are left to the per-sample code
+                assertEquals("fallback" + pixel, needsFallback(neighborValues),
+                        stats.hasNonFiniteSamples());
+                if (stats.hasNonFiniteSamples() || n == 0) {
+                    continue;
+                }
+
+                final double mean = perSample.getMeanValue(neighborValues, n, noDataValue);
+                final double var = perSample.getVarianceValue(neighborValues, n, mean, noDataValue);
+                assertEquals("mean" + pixel, mean, stats.getMean(), REL_EPS * Math.abs(mean));
+                assertEquals("variance" + pixel, var, stats.getVariance(), REL_EPS * Math.max(var, 1.0e-12));
+
+                if (square) {
+                    final double weighted = distanceWeightedMean(neighborValues, windowSizeX, k, noDataValue);
+                    assertEquals("weighted mean" + pixel, weighted,
+                            stats.getDistanceWeightedMean(x, y, windowSizeX, k), REL_EPS * Math.abs(weighted));
+                }
+            }
+        }
+    }
+
+    private static boolean needsFallback(final double[] neighborValues) {
+        for (double v : neighborValues) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // as Median.getMedianValue before the sorted buffer
+    private static double median(final double[] neighborValues, final int numSamples, final double noDataValue) {
+        if (numSamples == 0) {
+            return noDataValue;
+        }
+        final double[] tmp = new double[numSamples];
+        int k = 0;
+        for (double v : neighborValues) {
+            if (Double.compare(v, noDataValue) != 0) {
+                tmp[k++] = v;
+            }
+        }
+        Arrays.sort(tmp);
+        return tmp[numSamples / 2];
+    }
+
+    // as Frost.getFrostValue with the Frost mask of a square window
+    private static double distanceWeightedMean(final double[] neighborValues, final int windowSize, final double k,
+                                               final double noDataValue) {
+        final int halfSize = windowSize / 2;
+        double sum = 0.0;
+        double totalWeight = 0.0;
+        for (int i = 0; i < neighborValues.length; ++i) {
+            if (neighborValues[i] != noDataValue) {
+                final int d = Math.max(Math.abs(i / windowSize - halfSize), Math.abs(i % windowSize - halfSize));
+                final double weight = Math.exp(-k * d);
+                sum += weight * neighborValues[i];
+                totalWeight += weight;
+            }
+        }
+        return sum / totalWeight;
+    }
+
+    /**
+     * Frost with square windows takes the ring sums, with other windows the per-sample code.
+     * Both must give the output of the per-sample Frost filter.
+     */
+    @Test
+    public void testFrost() {
+        final Random random = new Random(5);
+        final Image image = randomImage(random, 1.0, 0.0, 0.0);
+        final Band band = createBand("band1", image.data, width, height, 0.0, Unit.INTENSITY);
+        final Product product = band.getProduct();
+
+        final Operator op = new SourceTileOp();
+        op.setSourceProduct(product);
+        op.getTargetProduct();
+
+        final Map<String, String[]> bandNames = new HashMap<>();
+        bandNames.put("band1", new String[]{"band1"});
+        final Rectangle rect = new Rectangle(0, 0, width, height);
+        final Tile tile = createTile(band, rect);
+        final double[] neighborValues = new double[25];
+
+        for (int[] size : windowSizes) {
+            final int windowSizeX = size[0], windowSizeY = size[1];
+            final Frost frost = new Frost(op, product, null, windowSizeX, windowSizeY, bandNames, 2);
+            final double[][] filtered = frost.performFiltering(0, 0, width, height, new String[]{"band1"});
+
+            final double[] mask = frostMask(windowSizeX, windowSizeY);
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    final int n = perSample.getNeighborValues(x, y, tile.getDataBuffer(), null, new TileIndex(tile),
+                            0.0, false, windowSizeX, windowSizeY, width, height, neighborValues);
+                    final double expected = n > 0 ? frostValue(neighborValues, windowSizeX * windowSizeY, n,
+                            mask, 2) : 0.0;
+                    assertEquals("Frost of (" + x + ", " + y + ") at window " + windowSizeX + "x" + windowSizeY,
+                            expected, filtered[y][x], REL_EPS * Math.abs(expected));
+                }
+            }
+        }
+    }
+
+    /**
+     * Operator only giving the filter its source tiles
+     */
+    public static class SourceTileOp extends Operator {
+        @Override
+        public void initialize() {
+            setTargetProduct(new Product("target", "type", width, height));
+        }
+    }
+
+    // as Frost.getFrostMask
+    private static double[] frostMask(final int windowSizeX, final int windowSizeY) {
+        final double[] mask = new double[windowSizeX * windowSizeY];
+        for (int i = 0; i < windowSizeX; i++) {
+            final int s = i * windowSizeY;
+            final int dr = Math.abs(i - windowSizeX / 2);
+            for (int j = 0; j < windowSizeY; j++) {
+                mask[j + s] = Math.max(dr, Math.abs(j - windowSizeY / 2));
+            }
+        }
+        return mask;
+    }
+
+    // as the per-sample Frost.getFrostValue
+    private static double frostValue(final double[] neighborValues, final int length, final int numSamples,
+                                     final double[] mask, final int dampingFactor) {
+        final double[] values = Arrays.copyOf(neighborValues, length);
+        final double mean = perSample.getMeanValue(values, numSamples, 0.0);
+        if (mean <= Double.MIN_VALUE) {
+            return mean;
+        }
+        final double var = perSample.getVarianceValue(values, numSamples, mean, 0.0);
+        if (var <= Double.MIN_VALUE) {
+            return mean;
+        }
+        final double k = dampingFactor * var / (mean * mean);
+        double sum = 0.0;
+        double totalWeight = 0.0;
+        for (int i = 0; i < length; i++) {
+            if (values[i] != 0.0) {
+                final double weight = Math.exp(-k * mask[i]);
+                sum += weight * values[i];
+                totalWeight += weight;
+            }
+        }
+        return sum / totalWeight;
+    }
+}
@@ -19,6 +19,7 @@ import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.s1tbx.insar.gpf.coregistration.CreateStackOp;
 import org.esa.s1tbx.insar.gpf.coregistration.DEMAssistedCoregistrationOp;
+import org.esa.s1tbx.commons.DerampDemodPhase;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
@@ -33,6 +34,7 @@ import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProducts;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.StringUtils;
 import org.esa.snap.core.util.SystemUtils;
@@ -46,6 +48,7 @@ import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
 import org.esa.snap.engine_utilities.gpf.*;
+import org.esa.snap.runtime.Config;
 import org.jlinda.core.delaunay.TriangleInterpolator;
 
 import java.awt.*;
@@ -134,6 +137,13 @@ public final class BackGeocodingOp extends Operator {
 
     private boolean outputDEM = false;
 
+    // slave pixel positions of the DEM points are cached per block of a master burst
+    private static final boolean useBurstBlockCache = Config.instance().preferences().getBoolean(
+            "s1tbx.backGeocoding.burstBlockCache", true);
+    private static final int BURST_BLOCK_WIDTH = Config.instance().preferences().getInt(
+            "s1tbx.backGeocoding.burstBlockWidth", 2048);
+    private BurstBlockCache burstBlocks = null;
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -217,6 +227,22 @@ public final class BackGeocodingOp extends Operator {
 
             createTargetProduct();
 
+            // a block holds the tiles starting in it, so it extends by a tile width into the next block
+            final int width = masterProduct.getSceneRasterWidth();
+            final int burstBlockExtension = ImageManager.getPreferredTileSize(targetProduct).width;
+            final int numBlocksPerBurst = (width + BURST_BLOCK_WIDTH - 1) / BURST_BLOCK_WIDTH;
+            // the blocks of all slaves share one budget, with room for one block per slave so that the tiles of
+            // a block find the blocks of every slave
+            final int maxBurstBlocks = Config.instance().preferences().getInt(
+                    "s1tbx.backGeocoding.burstBlocks", 2 * numBlocksPerBurst);
+            for (int i = 0; i < slaveDataList.size(); ++i) {
+                slaveDataList.get(i).index = i;
+            }
+            burstBlocks = new BurstBlockCache(BURST_BLOCK_WIDTH, burstBlockExtension, width,
+                    Math.max(maxBurstBlocks, slaveDataList.size()),
+                    (slaveIndex, mBurstIndex, sBurstIndex, x0, blockWidth) -> computeBurstBlockGeometry(
+                            slaveDataList.get(slaveIndex), mBurstIndex, sBurstIndex, x0, blockWidth));
+
             final List<String> masterProductBands = new ArrayList<>();
             for (String bandName : masterProduct.getBandNames()) {
                 if (masterProduct.getBand(bandName) instanceof VirtualBand) {
@@ -808,20 +834,14 @@ public final class BackGeocodingOp extends Operator {
             return;
         }
 
-        final double[][] slvDerampDemodPhase = slaveData.sSU.computeDerampDemodPhase(slaveData.sSU.getSubSwath(),
-                subSwathIndex, sBurstIndex, sourceRectangle);
-
-        if (slvDerampDemodPhase == null) {
-            return;
-        }
+        // the slave phase is resampled for the reramp, the master phase is only needed without reramp
+        final DerampDemodPhase slvBurstPhase = slaveData.sSU.getDerampDemodPhase(subSwathIndex, sBurstIndex);
+        final double[][] slvDerampDemodPhase = slvBurstPhase.getPhase(sourceRectangle);
 
         final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] mstDerampDemodPhase = mSU.computeDerampDemodPhase(mSubSwath,
-                subSwathIndex, mBurstIndex, targetRectangle);
-
-        if (mstDerampDemodPhase == null) {
-            return;
-        }
+        final DerampDemodPhase mstBurstPhase = mSU.getDerampDemodPhase(subSwathIndex, mBurstIndex);
+        final double[][] mstDerampDemodPhase = disableReramp && outputDerampDemodPhase ?
+                mstBurstPhase.getPhase(targetRectangle) : null;
 
         for(String polarization : mSU.getPolarizations()) {
 
@@ -839,7 +859,7 @@ public final class BackGeocodingOp extends Operator {
                 final double[][] mstDerampDemodI = new double[targetRectangle.height][targetRectangle.width];
                 final double[][] mstDerampDemodQ = new double[targetRectangle.height][targetRectangle.width];
 
-                performDerampDemod(masterTileI, masterTileQ, targetRectangle, mstDerampDemodPhase,
+                performDerampDemod(masterTileI, masterTileQ, targetRectangle, mstBurstPhase,
                         mstDerampDemodI, mstDerampDemodQ);
 
                 saveMasterBands(x0, y0, w, h, targetTileMap, mstDerampDemodPhase, mstDerampDemodI,
@@ -859,7 +879,7 @@ public final class BackGeocodingOp extends Operator {
             final double[][] slvDerampDemodI = new double[sourceRectangle.height][sourceRectangle.width];
             final double[][] slvDerampDemodQ = new double[sourceRectangle.height][sourceRectangle.width];
 
-            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvDerampDemodPhase,
+            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvBurstPhase,
                     slvDerampDemodI, slvDerampDemodQ);
 
             performInterpolation(x0, y0, w, h, sourceRectangle, slaveTileI, slaveTileQ, targetTileMap, slvDerampDemodPhase,
@@ -880,84 +900,45 @@ public final class BackGeocodingOp extends Operator {
             final int ymax = y0 + h + (int)Math.abs(extendedAmount[0]);
             final int xmax = x0 + w + (int)Math.abs(extendedAmount[2]);
 
-            // Compute lat/lon boundaries (with extensions) for target tile
-            final double[] latLonMinMax = new double[4];
+            // Compute the DEM window (with extensions) for target tile
+            final int[] demWindow = getDEMWindow(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, 20);
+            final int latMaxIdx = demWindow[0];
+            final int lonMinIdx = demWindow[2];
+            final int numLines = demWindow[1] - demWindow[0];
+            final int numPixels = demWindow[3] - demWindow[2];
+
+            // Get the azimuth/range indices in target and slave image of the DEM points in the window,
+            // from the block of the burst if the window is inside it
+            DEMGeometry demGeometry = null;
+            if (useBurstBlockCache) {
+                demGeometry = burstBlocks.getGeometry(slaveData.index, mBurstIndex, sBurstIndex, x0).crop(
+                        latMaxIdx, lonMinIdx, numLines, numPixels);
+            }
+            if (demGeometry == null) {
+                demGeometry = computeDEMGeometry(
+                        subSwathIndex, mBurstIndex, sBurstIndex, slaveData, latMaxIdx, lonMinIdx, numLines, numPixels);
+            }
 
-            computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
+            if (!demGeometry.hasValidSlavePixPos) {
+                return false;
+            }
 
-            final double delta = Math.max(demSamplingLat, demSamplingLon);
-//            final double extralat = 1.5*delta + 4.0/25.0;
-//            final double extralon = 1.5*delta + 4.0/25.0;
-            final double extralat = 20*delta;
-            final double extralon = 20*delta;
-
-            final double latMin = latLonMinMax[0] - extralat;
-            final double latMax = latLonMinMax[1] + extralat;
-            final double lonMin = latLonMinMax[2] - extralon;
-            final double lonMax = latLonMinMax[3] + extralon;
-
-            // Compute lat/lon indices in DEM for the boundaries;
-            final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
-            final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
-            final int latMaxIdx = (int)Math.floor(upperLeft.getY());
-            final int latMinIdx = (int)Math.ceil(lowerRight.getY());
-            final int lonMinIdx = (int)Math.floor(upperLeft.getX());
-            final int lonMaxIdx = (int)Math.ceil(lowerRight.getX());
-
-            // Loop through all DEM points bounded by the indices computed above. For each point,
-            // get its lat/lon and its azimuth/range indices in target image;
-            final int numLines = latMinIdx - latMaxIdx;
-            final int numPixels = lonMaxIdx - lonMinIdx;
-            double[][] masterAz = new double[numLines][numPixels];
-            double[][] masterRg = new double[numLines][numPixels];
-            double[][] slaveAz = new double[numLines][numPixels];
-            double[][] slaveRg = new double[numLines][numPixels];
-            double[][] lat = new double[numLines][numPixels];
-            double[][] lon = new double[numLines][numPixels];
-            final PositionData posData = new PositionData();
+            final double[][] masterAz = demGeometry.masterAz;
+            final double[][] masterRg = demGeometry.masterRg;
+            final double[][] slaveAz = demGeometry.slaveAz;
+            final double[][] slaveRg = demGeometry.slaveRg;
+            final double[][] lat = new double[numLines][numPixels];
+            final double[][] lon = new double[numLines][numPixels];
             final PixelPos pix = new PixelPos();
-
-            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
-
-            boolean noValidSlavePixPos = true;
             for (int l = 0; l < numLines; l++) {
                 for (int p = 0; p < numPixels; p++) {
-
                     pix.setLocation(lonMinIdx + p, latMaxIdx + l);
                     GeoPos gp = dem.getGeoPos(pix);
                     lat[l][p] = gp.lat;
                     lon[l][p] = gp.lon;
-
-                    Double alt = dem.getElevation(gp);
-                    if (alt.equals(demNoDataValue) && !maskOutAreaWithoutElevation) { // get corrected elevation for 0
-                        alt = (double)egm.getEGM(gp.lat, gp.lon);
-                    }
-
-                    if (!alt.equals(demNoDataValue)) {
-                        GeoUtils.geo2xyzWGS84(gp.lat, gp.lon, alt, posData.earthPoint);
-                        if(getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
-
-                            masterAz[l][p] = posData.azimuthIndex;
-                            masterRg[l][p] = posData.rangeIndex;
-                            if (getPosition(subSwathIndex, sBurstIndex, slaveData.sSU, posData)) {
-
-                                slaveAz[l][p] = posData.azimuthIndex;
-                                slaveRg[l][p] = posData.rangeIndex;
-                                noValidSlavePixPos = false;
-                                continue;
-                            }
-                        }
-                    }
-
-                    masterAz[l][p] = invalidIndex;
-                    masterRg[l][p] = invalidIndex;
                 }
             }
 
-            if (noValidSlavePixPos) {
-                return false;
-            }
-
             // Compute azimuth/range offsets for pixels in target tile using Delaunay interpolation
             final org.jlinda.core.Window tileWindow = new org.jlinda.core.Window(y0, y0 + h - 1, x0, x0 + w - 1);
 
@@ -1020,6 +1001,103 @@ public final class BackGeocodingOp extends Operator {
         return false;
     }
 
+    /**
+     * Get the DEM indices [latMaxIdx, latMinIdx, lonMinIdx, lonMaxIdx] of the area covering the given master image
+     * rectangle with a margin of the given number of DEM samples.
+     */
+    private int[] getDEMWindow(final int subSwathIndex, final int mBurstIndex,
+                               final int xmin, final int xmax, final int ymin, final int ymax,
+                               final int demMargin) throws Exception {
+
+        // Compute lat/lon boundaries (with extensions)
+        final double[] latLonMinMax = new double[4];
+
+        computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
+
+        final double delta = Math.max(demSamplingLat, demSamplingLon);
+//            final double extralat = 1.5*delta + 4.0/25.0;
+//            final double extralon = 1.5*delta + 4.0/25.0;
+        final double extralat = demMargin*delta;
+        final double extralon = demMargin*delta;
+
+        final double latMin = latLonMinMax[0] - extralat;
+        final double latMax = latLonMinMax[1] + extralat;
+        final double lonMin = latLonMinMax[2] - extralon;
+        final double lonMax = latLonMinMax[3] + extralon;
+
+        // Compute lat/lon indices in DEM for the boundaries;
+        final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
+        final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
+        final int latMaxIdx = (int)Math.floor(upperLeft.getY());
+        final int latMinIdx = (int)Math.ceil(lowerRight.getY());
+        final int lonMinIdx = (int)Math.floor(upperLeft.getX());
+        final int lonMaxIdx = (int)Math.ceil(lowerRight.getX());
+        return new int[] {latMaxIdx, latMinIdx, lonMinIdx, lonMaxIdx};
+    }
+
+    /**
+     * Loop through all DEM points of a window. For each point, get its azimuth/range indices in target and
+     * slave image.
+     */
+    private DEMGeometry computeDEMGeometry(final int subSwathIndex, final int mBurstIndex, final int sBurstIndex,
+                                           final SlaveData slaveData, final int latMaxIdx, final int lonMinIdx,
+                                           final int numLines, final int numPixels) throws Exception {
+
+        final PositionData posData = new PositionData();
+        final PixelPos pix = new PixelPos();
+
+        final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
+
+        return DEMGeometry.compute(latMaxIdx, lonMinIdx, numLines, numPixels, (demLine, demPixel, position) -> {
+
+            pix.setLocation(demPixel, demLine);
+            GeoPos gp = dem.getGeoPos(pix);
+
+            Double alt = dem.getElevation(gp);
+            if (alt.equals(demNoDataValue) && !maskOutAreaWithoutElevation) { // get corrected elevation for 0
+                alt = (double)egm.getEGM(gp.lat, gp.lon);
+            }
+
+            if (!alt.equals(demNoDataValue)) {
+                GeoUtils.geo2xyzWGS84(gp.lat, gp.lon, alt, posData.earthPoint);
+                if(getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
+
+                    position[0] = posData.azimuthIndex;
+                    position[1] = posData.rangeIndex;
+                    if (getPosition(subSwathIndex, sBurstIndex, slaveData.sSU, posData)) {
+
+                        position[2] = posData.azimuthIndex;
+                        position[3] = posData.rangeIndex;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Compute the DEM geometry of a block of a master burst, the full burst height by the given width.
+     */
+    private DEMGeometry computeBurstBlockGeometry(final SlaveData slaveData, final int mBurstIndex,
+                                                  final int sBurstIndex, final int x0, final int width)
+            throws Exception {
+        final int linesPerBurst = mSubSwath[subSwathIndex - 1].linesPerBurst;
+        final int y0 = mBurstIndex * linesPerBurst;
+        final double[] extendedAmount = {0.0, 0.0, 0.0, 0.0};
+        computeExtendedAmount(x0, y0, width, linesPerBurst, extendedAmount);
+
+        final int xmin = x0 - (int)extendedAmount[3];
+        final int ymin = y0 - (int)extendedAmount[1];
+        final int ymax = y0 + linesPerBurst + (int)Math.abs(extendedAmount[0]);
+        final int xmax = x0 + width + (int)Math.abs(extendedAmount[2]);
+
+        // two more DEM samples than a tile for the curvature of the lat/lon boundaries
+        final int[] demWindow = getDEMWindow(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, 22);
+        return computeDEMGeometry(subSwathIndex, mBurstIndex, sBurstIndex, slaveData,
+                demWindow[0], demWindow[2], demWindow[1] - demWindow[0], demWindow[3] - demWindow[2]);
+    }
+
     /**
      * Compute source image geodetic boundary (minimum/maximum latitude/longitude) from the its corner
      * latitude/longitude.
@@ -1208,6 +1286,38 @@ public final class BackGeocodingOp extends Operator {
         }
     }
 
+    /**
+     * Deramp and demodulate the samples of a rectangle of I/Q tiles with the phase of their burst.
+     */
+    static void performDerampDemod(final Tile tileI, final Tile tileQ,
+                                   final Rectangle rectangle, final DerampDemodPhase derampDemodPhase,
+                                   final double[][] derampDemodI, final double[][] derampDemodQ) {
+
+        try {
+            final int x0 = rectangle.x;
+            final int y0 = rectangle.y;
+            final int xMax = x0 + rectangle.width;
+            final int yMax = y0 + rectangle.height;
+
+            final ProductData dataI = tileI.getDataBuffer();
+            final ProductData dataQ = tileQ.getDataBuffer();
+            final TileIndex index = new TileIndex(tileI);
+
+            for (int y = y0; y < yMax; y++) {
+                index.calculateStride(y);
+                final int yy = y - y0;
+                for (int x = x0; x < xMax; x++) {
+                    final int idx = index.getIndex(x);
+                    derampDemodI[yy][x - x0] = dataI.getElemDoubleAt(idx);
+                    derampDemodQ[yy][x - x0] = dataQ.getElemDoubleAt(idx);
+                }
+            }
+            derampDemodPhase.apply(rectangle, derampDemodI, derampDemodQ);
+        } catch (Throwable e) {
+            OperatorUtils.catchOperatorException("performDerampDemod", e);
+        }
+    }
+
     private void saveMasterBands(final int x0, final int y0, final int w, final int h,
                                  final Map<Band, Tile> targetTileMap, final double[][] mstDerampDemodPhase,
                                  final double[][] mstDerampDemodI, final double[][] mstDerampDemodQ,
@@ -1497,6 +1607,190 @@ public final class BackGeocodingOp extends Operator {
         return null;
     }
 
+    /**
+     * Gives the azimuth/range indices in target and slave image of a DEM point.
+     */
+    interface DEMPointPosition {
+
+        /**
+         * @param position set to the target azimuth, target range, slave azimuth and slave range indices
+         * @return false if the point has no position in the target or the slave image
+         */
+        boolean get(int demLine, int demPixel, double[] position) throws Exception;
+    }
+
+    /**
+     * Azimuth/range indices in target and slave image of a window of DEM points.
+     */
+    static class DEMGeometry {
+        final int latMaxIdx;
+        final int lonMinIdx;
+        final double[][] masterAz;
+        final double[][] masterRg;
+        final double[][] slaveAz;
+        final double[][] slaveRg;
+        boolean hasValidSlavePixPos = false;
+
+        DEMGeometry(final int latMaxIdx, final int lonMinIdx, final int numLines, final int numPixels) {
+            this.latMaxIdx = latMaxIdx;
+            this.lonMinIdx = lonMinIdx;
+            this.masterAz = new double[numLines][numPixels];
+            this.masterRg = new double[numLines][numPixels];
+            this.slaveAz = new double[numLines][numPixels];
+            this.slaveRg = new double[numLines][numPixels];
+        }
+
+        /**
+         * Loop through all DEM points of a window. For each point, get its azimuth/range indices in target and
+         * slave image.
+         */
+        static DEMGeometry compute(final int latMaxIdx, final int lonMinIdx, final int numLines,
+                                   final int numPixels, final DEMPointPosition pointPosition) throws Exception {
+            final DEMGeometry demGeometry = new DEMGeometry(latMaxIdx, lonMinIdx, numLines, numPixels);
+            final double[] position = new double[4];
+            for (int l = 0; l < numLines; l++) {
+                for (int p = 0; p < numPixels; p++) {
+                    if (pointPosition.get(latMaxIdx + l, lonMinIdx + p, position)) {
+                        demGeometry.masterAz[l][p] = position[0];
+                        demGeometry.masterRg[l][p] = position[1];
+                        demGeometry.slaveAz[l][p] = position[2];
+                        demGeometry.slaveRg[l][p] = position[3];
+                        demGeometry.hasValidSlavePixPos = true;
+                    } else {
+                        demGeometry.masterAz[l][p] = invalidIndex;
+                        demGeometry.masterRg[l][p] = invalidIndex;
+                    }
+                }
+            }
+            return demGeometry;
+        }
+
+        /**
+         * Copy of a window of this geometry, null if the window is not inside it.
+         */
+        DEMGeometry crop(final int latMaxIdx, final int lonMinIdx, final int numLines, final int numPixels) {
+            final int l0 = latMaxIdx - this.latMaxIdx;
+            final int p0 = lonMinIdx - this.lonMinIdx;
+            if (l0 < 0 || p0 < 0 || l0 + numLines > masterAz.length ||
+                    (masterAz.length > 0 && p0 + numPixels > masterAz[0].length)) {
+                return null;
+            }
+
+            final DEMGeometry window = new DEMGeometry(latMaxIdx, lonMinIdx, numLines, numPixels);
+            for (int l = 0; l < numLines; l++) {
+                System.arraycopy(masterAz[l0 + l], p0, window.masterAz[l], 0, numPixels);
+                System.arraycopy(masterRg[l0 + l], p0, window.masterRg[l], 0, numPixels);
+                System.arraycopy(slaveAz[l0 + l], p0, window.slaveAz[l], 0, numPixels);
+                System.arraycopy(slaveRg[l0 + l], p0, window.slaveRg[l], 0, numPixels);
+                if (!window.hasValidSlavePixPos) {
+                    for (int p = 0; p < numPixels; p++) {
+                        if (window.masterAz[l][p] != invalidIndex) {
+                            window.hasValidSlavePixPos = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            return window;
+        }
+    }
+
+    /**
+     * Computes the DEM geometry of a block of a master burst for a slave.
+     */
+    interface BurstBlockComputer {
+        DEMGeometry compute(int slaveIndex, int mBurstIndex, int sBurstIndex, int x0, int width) throws Exception;
+    }
+
+    /**
+     * The DEM geometry of the blocks of the master bursts for all slaves, in one bounded LRU. The DEM windows of
+     * neighbouring tiles overlap by their margins, and every DEM point needs a zero Doppler time in master and
+     * slave orbit, so a block is computed once on first use and the tiles of the block crop their window from it.
+     */
+    static final class BurstBlockCache {
+        private final int blockWidth;
+        private final int blockExtension;
+        private final int sceneWidth;
+        private final int numBlocksPerBurst;
+        private final BurstBlockComputer computer;
+        private final Map<Long, BurstBlock> blocks;
+
+        /**
+         * @param blockWidth     width of the blocks
+         * @param blockExtension width by which a block extends into the next one
+         * @param sceneWidth     width of the master image
+         * @param maxBlocks      number of blocks to keep over all slaves
+         * @param computer       computes the geometry of a block
+         */
+        BurstBlockCache(final int blockWidth, final int blockExtension, final int sceneWidth, final int maxBlocks,
+                        final BurstBlockComputer computer) {
+            this.blockWidth = blockWidth;
+            this.blockExtension = blockExtension;
+            this.sceneWidth = sceneWidth;
+            this.numBlocksPerBurst = (sceneWidth + blockWidth - 1) / blockWidth;
+            this.computer = computer;
+            this.blocks = new LinkedHashMap<Long, BurstBlock>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Long, BurstBlock> eldest) {
+                    return size() > maxBlocks;
+                }
+            };
+        }
+
+        /**
+         * Get the geometry of the block of a master burst holding the tiles starting at the given pixel.
+         */
+        DEMGeometry getGeometry(final int slaveIndex, final int mBurstIndex, final int sBurstIndex, final int x0)
+                throws Exception {
+            final int blockIndex = x0 / blockWidth;
+            final long key = ((long) slaveIndex << 32) | (mBurstIndex * numBlocksPerBurst + blockIndex);
+            BurstBlock block;
+            synchronized (blocks) {
+                block = blocks.get(key);
+                if (block == null) {
+                    final int bx0 = blockIndex * blockWidth;
+                    final int bx1 = Math.min(bx0 + blockWidth + blockExtension, sceneWidth);
+                    block = new BurstBlock(slaveIndex, mBurstIndex, sBurstIndex, bx0, bx1 - bx0);
+                    blocks.put(key, block);
+                }
+            }
+            return block.getGeometry(computer);
+        }
+
+        /**
+         * @return the number of blocks kept
+         */
+        int getNumBlocks() {
+            synchronized (blocks) {
+                return blocks.size();
+            }
+        }
+    }
+
+    private static final class BurstBlock {
+        private final int slaveIndex;
+        private final int mBurstIndex;
+        private final int sBurstIndex;
+        private final int x0;
+        private final int width;
+        private DEMGeometry demGeometry = null;
+
+        BurstBlock(final int slaveIndex, final int mBurstIndex, final int sBurstIndex, final int x0, final int width) {
+            this.slaveIndex = slaveIndex;
+            this.mBurstIndex = mBurstIndex;
+            this.sBurstIndex = sBurstIndex;
+            this.x0 = x0;
+            this.width = width;
+        }
+
+        synchronized DEMGeometry getGeometry(final BurstBlockComputer computer) throws Exception {
+            if (demGeometry == null) {
+                demGeometry = computer.compute(slaveIndex, mBurstIndex, sBurstIndex, x0, width);
+            }
+            return demGeometry;
+        }
+    }
+
     private static class PositionData {
         final PosVector earthPoint = new PosVector();
         final PosVector sensorPos = new PosVector();
@@ -1570,6 +1864,7 @@ public final class BackGeocodingOp extends Operator {
         Sentinel1Utils sSU;
         int burstOffset = -9999;
         String slvSuffix;
+        int index;
 
         SlaveData(final Product product) throws Exception {
             this.slaveProduct = product;
@@ -17,6 +17,7 @@ package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s1tbx.commons.Sentinel1Utils;
+import org.esa.snap.core.dataio.ProductReader;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.barithm.BandArithmetic;
 import org.esa.snap.core.dataop.barithm.RasterDataSymbol;
@@ -41,9 +42,10 @@ import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.gpf.InputProductValidator;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
-import org.esa.snap.engine_utilities.gpf.TileIndex;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
+import java.io.IOException;
 import java.util.*;
 import java.util.List;
 
@@ -100,6 +102,10 @@ public final class SliceAssemblyOp extends Operator {
 
     private static final String PRODUCT_SUFFIX = "_Asm";
 
+    // band data is read from the readers of the slice products instead of through the tile cache
+    private static final boolean useDirectRead = Config.instance().preferences().getBoolean(
+            "s1tbx.sliceAssembly.directRead", true);
+
     private double version = 0.0f;
 
     /**
@@ -1895,21 +1901,23 @@ public final class SliceAssemblyOp extends Operator {
             for (Product srcProduct : sliceProducts) {
                 final Band srcBand = srcProduct.getBand(targetBand.getName());
                 int start = height;
+                int linesPerBurst = 0;
                 if (productType.equals("GRD")) {
                     height += srcBand.getRasterHeight();
                 } else {
                     final String swath = getSwathFromBandName(srcBand.getName());
                     height += sliceBandBurstDimMap.get(srcBand).count * targetSwathBurstDimMap.get(swath).linesPerBurst;
+                    linesPerBurst = sliceBandBurstDimMap.get(srcBand).linesPerBurst;
                 }
                 int end = height;
-                bandLineList.add(new BandLines(srcBand, start, end));
+                bandLineList.add(new BandLines(srcBand, start, end, linesPerBurst));
             }
             final BandLines[] lines = bandLineList.toArray(new BandLines[0]);
             bandLineMap.put(targetBand, lines);
         }
     }
 
-    private int getSourceProductLineIndex(
+    private static int getSourceProductLineIndex(
             final int y, final BandLines line, final int targetLinesPerBurst, final int sourceLinesPerBurst) {
 
         if (targetLinesPerBurst == sourceLinesPerBurst) {
@@ -1940,19 +1948,12 @@ public final class SliceAssemblyOp extends Operator {
 
         try {
             final Rectangle targetTileRectangle = targetTile.getRectangle();
-            final int tx0 = targetTileRectangle.x;
-            final int ty0 = targetTileRectangle.y;
-            final int maxY = ty0 + targetTileRectangle.height;
-            final int maxX = tx0 + targetTileRectangle.width;
 
             if (targetTileRectangle.width < 2)
                 return;
 
             final BandLines[] lines = bandLineMap.get(targetBand);
-            final ProductData trgData = targetTile.getDataBuffer();
-
-            final TileIndex trgIndex = new TileIndex(targetTile);
-            final Rectangle srcRect = new Rectangle();
+            final ProductData trgData = targetTile.getRawSamples();
 
             int targetLinesPerBurst = 0;
             if (!productType.equals("GRD")) {
@@ -1960,54 +1961,162 @@ public final class SliceAssemblyOp extends Operator {
                 targetLinesPerBurst = targetSwathBurstDimMap.get(swath).linesPerBurst;
             }
 
-            BandLines line = lines[0];
-            for (int y = ty0; y < maxY; ++y) {
+            assembleTile(targetTileRectangle, lines, targetLinesPerBurst, trgData, sliceReader);
+            targetTile.setRawSamples(trgData);
+        } catch (Throwable e) {
+            throw new OperatorException(e.getMessage());
+        }
+    }
 
-                for (BandLines l : lines) {
-                    if (y >= l.start && y < l.end) {
-                        line = l;
-                        break;
-                    }
-                }
+    /**
+     * Copy the lines of the slices covering a target tile into the tile's samples.
+     *
+     * @param targetTileRectangle the target tile
+     * @param lines               the target lines of each slice
+     * @param targetLinesPerBurst lines per burst of the assembled product, 0 for GRD products
+     * @param trgData             the raw samples of the target tile
+     * @param reader              the source of the slice band data
+     */
+    static void assembleTile(final Rectangle targetTileRectangle, final BandLines[] lines,
+                             final int targetLinesPerBurst, final ProductData trgData,
+                             final SliceReader reader) throws IOException {
+        final int tx0 = targetTileRectangle.x;
+        final int ty0 = targetTileRectangle.y;
+        final int tw = targetTileRectangle.width;
+        final int maxY = ty0 + targetTileRectangle.height;
+        final int maxX = tx0 + tw;
+
+        // a tile is covered by one or two slices, each giving runs of consecutive source lines
+        for (BandLines line : lines) {
+            final int yStart = Math.max(ty0, line.start);
+            final int yEnd = Math.min(maxY, line.end);
+            final int sxMax = Math.min(maxX, line.band.getRasterWidth() - 1);
+            final int w = sxMax - tx0;
+            if (yStart >= yEnd || w <= 0) {
+                continue;
+            }
 
-                // convert target product line index y to source product line index yy
-                int yy = 0;
-                if (productType.equals("GRD")) {
-                    yy = y - line.start;
-                } else {
-                    final int sourceLinesPerBurst = sliceBandBurstDimMap.get(line.band).linesPerBurst;
-                    yy = getSourceProductLineIndex(y, line, targetLinesPerBurst, sourceLinesPerBurst);
-                    if (yy == -1) {
+            int linesPerBurst = 0;
+            if (targetLinesPerBurst > 0 && line.linesPerBurst != targetLinesPerBurst) {
+                linesPerBurst = Math.min(line.linesPerBurst, targetLinesPerBurst);
+            }
+
+            int y = yStart;
+            while (y < yEnd) {
+                int yy = y - line.start;
+                int h = yEnd - y;
+                if (linesPerBurst > 0) {
+                    // target burst lines beyond the source burst are left empty
+                    final int burstIdx = yy / targetLinesPerBurst;
+                    final int lineIdxInBurst = yy - burstIdx * targetLinesPerBurst;
+                    if (lineIdxInBurst >= linesPerBurst) {
+                        y += targetLinesPerBurst - lineIdxInBurst;
                         continue;
                     }
+                    yy = getSourceProductLineIndex(y, line, targetLinesPerBurst, line.linesPerBurst);
+                    h = Math.min(h, linesPerBurst - lineIdxInBurst);
                 }
 
-                final int sxMax = Math.min(maxX, line.band.getRasterWidth() - 1);
-                srcRect.setBounds(tx0, yy, sxMax - tx0 + 1, 1);
-                final Tile sourceRaster = getSourceTile(line.band, srcRect);
-                final ProductData srcData = sourceRaster.getDataBuffer();
-                final TileIndex srcIndex = new TileIndex(sourceRaster);
-                trgIndex.calculateStride(y);
-                srcIndex.calculateStride(yy);
+                if (w == tw && h == targetTileRectangle.height && reader.readInto(line.band, tx0, yy, w, h, trgData)) {
+                    break;
+                }
+                final ProductData srcData = reader.readLines(line.band, tx0, yy, w, h);
+                copyLines(srcData, w, h, trgData, tw, (y - ty0) * tw);
+                y += h;
+            }
+        }
+    }
+
+    /**
+     * Read source lines straight from the reader of the slice product, bypassing the tile cache.
+     * <p>
+     * Tiles are computed concurrently, so this relies on the slice product readers allowing concurrent calls of
+     * readBandRasterData, as the Sentinel-1 reader does. The tile cache path makes the same calls from the JAI tile
+     * threads when it computes the source tiles of a reader.
+     *
+     * @return false if the slice product has no reader
+     */
+    private static boolean readDirect(final Band srcBand, final int x, final int y, final int w, final int h,
+                                      final ProductData destBuffer) throws IOException {
+        final ProductReader reader = srcBand.getProductReader();
+        if (!useDirectRead || reader == null || destBuffer.getType() != srcBand.getDataType()) {
+            return false;
+        }
+        reader.readBandRasterData(srcBand, x, y, w, h, destBuffer, ProgressMonitor.NULL);
+        return true;
+    }
+
+    private final SliceReader sliceReader = new SliceReader() {
+
+        @Override
+        public boolean readInto(final Band srcBand, final int x, final int y, final int w, final int h,
+                                final ProductData destBuffer) throws IOException {
+            return readDirect(srcBand, x, y, w, h, destBuffer);
+        }
+
+        @Override
+        public ProductData readLines(final Band srcBand, final int x, final int y, final int w, final int h)
+                throws IOException {
+            final ProductData buffer = ProductData.createInstance(srcBand.getDataType(), w * h);
+            if (readDirect(srcBand, x, y, w, h, buffer)) {
+                return buffer;
+            }
+            return getSourceTile(srcBand, new Rectangle(x, y, w, h)).getRawSamples();
+        }
+    };
 
-                for (int x = tx0; x < sxMax; ++x) {
-                    trgData.setElemDoubleAt(trgIndex.getIndex(x), srcData.getElemDoubleAt(srcIndex.getIndex(x)));
+    private static void copyLines(final ProductData srcData, final int w, final int h,
+                                  final ProductData trgData, final int trgWidth, final int trgOffset) {
+        if (srcData.getType() == trgData.getType()) {
+            final Object src = srcData.getElems();
+            final Object trg = trgData.getElems();
+            for (int i = 0; i < h; ++i) {
+                System.arraycopy(src, i * w, trg, trgOffset + i * trgWidth, w);
+            }
+        } else {
+            for (int i = 0; i < h; ++i) {
+                for (int x = 0; x < w; ++x) {
+                    trgData.setElemDoubleAt(trgOffset + i * trgWidth + x, srcData.getElemDoubleAt(i * w + x));
                 }
             }
-        } catch (Throwable e) {
-            throw new OperatorException(e.getMessage());
         }
     }
 
-    private static class BandLines {
+    /**
+     * Source of the band data of the slices.
+     */
+    interface SliceReader {
+
+        /**
+         * Read source lines into the given buffer, if that is possible.
+         *
+         * @return false if the lines were not read
+         */
+        boolean readInto(Band srcBand, int x, int y, int w, int h, ProductData destBuffer) throws IOException;
+
+        /**
+         * @return the source lines, w samples per line
+         */
+        ProductData readLines(Band srcBand, int x, int y, int w, int h) throws IOException;
+    }
+
+    static class BandLines {
         final int start;
         final int end;
         final Band band;
+        final int linesPerBurst;
 
-        BandLines(final Band band, final int s, final int e) {
+        /**
+         * @param band          the slice band
+         * @param s             first target line of the slice
+         * @param e             end of the target lines of the slice
+         * @param linesPerBurst lines per burst of the slice, 0 for GRD products
+         */
+        BandLines(final Band band, final int s, final int e, final int linesPerBurst) {
             this.band = band;
             this.start = s;
             this.end = e;
+            this.linesPerBurst = linesPerBurst;
         }
     }
 
@@ -19,6 +19,7 @@ package org.esa.s1tbx.sentinel1.gpf;
 import com.bc.ceres.core.ProgressMonitor;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.DerampDemodPhase;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.s1tbx.sentinel1.gpf.util.ArcDataIntegration;
 import org.esa.s1tbx.sentinel1.gpf.util.GraphUtils;
@@ -41,15 +42,12 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
-import org.esa.snap.core.util.ThreadExecutor;
-import org.esa.snap.core.util.ThreadRunnable;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.gpf.InputProductValidator;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
 import org.esa.snap.engine_utilities.gpf.StackUtils;
-import org.esa.snap.engine_utilities.gpf.TileIndex;
 import org.esa.snap.engine_utilities.util.ResourceUtils;
 import org.jblas.ComplexDoubleMatrix;
 import org.jlinda.core.SLCImage;
@@ -57,6 +55,7 @@ import org.jlinda.core.coregistration.utils.CoregistrationUtils;
 import org.jlinda.core.utils.BandUtilsDoris;
 import org.jlinda.core.utils.CplxContainer;
 import org.jlinda.core.utils.ProductContainer;
+import org.jlinda.core.utils.SpectralUtils;
 import org.jlinda.core.utils.TileUtilsDoris;
 import org.json.simple.JSONObject;
 
@@ -74,7 +73,10 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
 
 /**
  * Estimate range and azimuth offsets for each burst using cross-correlation with a 512x512 block in
@@ -846,6 +848,7 @@ public class SpectralDiversityOp extends Operator {
             return;
         }
 
+        final ForkJoinPool pool = new ForkJoinPool();
         try {
             final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
 
@@ -865,25 +868,23 @@ public class SpectralDiversityOp extends Operator {
                     List<CplxContainer> complexImages = this.complexImages.get(imagesKey);
                     SystemUtils.LOG.fine("Estimating range offset for: " + imagesKey);
 
-                    // estimate range shift image pair
-                    status.beginTask("Range shift: Cross-correlation for image pairs (" + imagesKey + ")...", arcs.length);
+                    // estimate range shift for all image pairs using cross-correlation
+                    status.beginTask("Range shift: Cross-correlation for image pairs (" + imagesKey + ")...",
+                                     subSwath[subSwathIndex - 1].numOfBursts);
+                    final ShiftData[] rangeShifts = crossCorrelateArcs(complexImages, pool, status);
+                    status.done();
+
                     for (int arcIndex = 0; arcIndex < arcs.length; arcIndex++) {  // for each pair
-                        // estimate range shift for each pair using cross-correlation
-                        CplxContainer image1 = complexImages.get(arcs[arcIndex][0]);
-                        CplxContainer image2 = complexImages.get(arcs[arcIndex][1]);
-                        String pairKey = getCanonicalId(image1) + "_" + getCanonicalId(image2);
-                        SystemUtils.LOG.fine("Estimating range shift for pair " + pairKey +
-                                                     "\t arc:" + arcs[arcIndex][0] + " -> " + arcs[arcIndex][1]);
-                        ShiftData rangeShift = crossCorrelatePair(image1, image2);
+                        SystemUtils.LOG.fine("Range shift for pair " + getImagePairTag(
+                                complexImages.get(arcs[arcIndex][0]), complexImages.get(arcs[arcIndex][1])) +
+                                                     "\t arc:" + arcs[arcIndex][0] + " -> " + arcs[arcIndex][1] +
+                                                     " = " + rangeShifts[arcIndex].shift);
 
                         // save network data
                         arcsList.add(arcs[arcIndex]);
-                        arcShiftsList.add(rangeShift);
+                        arcShiftsList.add(rangeShifts[arcIndex]);
                         arcPolarizationsList.add(polarization);
-
-                        status.worked(1);
                     }
-                    status.done();
                 }
 
                 // 2. integration of arcs
@@ -940,34 +941,29 @@ public class SpectralDiversityOp extends Operator {
 
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException("estimateRangeOffset", e);
+        } finally {
+            pool.shutdownNow();
         }
 
         isRangeOffsetAvailable = true;
     }
 
-    private void estimateAzRgOffsets(final Band mBandI, final Band mBandQ, final Band sBandI, final Band sBandQ,
-                                     final int burstIndex, final double[] offset) {
+    /**
+     * Read the cross-correlation window in the centre of a burst of an image.
+     */
+    private ComplexDoubleMatrix getBurstCentreWindow(final CplxContainer image, final int burstIndex) {
 
         final int burstHeight = subSwath[subSwathIndex - 1].linesPerBurst;
         final int burstWidth = subSwath[subSwathIndex - 1].samplesPerBurst;
         final int x0 = burstWidth / 2;
         final int y0 = burstHeight / 2 + burstIndex * burstHeight;
-        final PixelPos mGCP = new PixelPos(x0, y0);
-        final PixelPos sGCP = new PixelPos(x0, y0);
 
-        getFineOffsets(mBandI, mBandQ, sBandI, sBandQ, mGCP, sGCP, offset);
+        return getComplexDoubleMatrix(image.realBand, image.imagBand, new PixelPos(x0, y0), fineWinWidth, fineWinHeight);
     }
 
-    private void getFineOffsets(final Band mBandI, final Band mBandQ, final Band sBandI, final Band sBandQ,
-                                final PixelPos mGCPPixelPos, final PixelPos sGCPPixelPos, final double[] offset) {
+    private void getFineOffsets(final ComplexDoubleMatrix mI, final ComplexDoubleMatrix sI, final double[] offset) {
 
         try {
-            ComplexDoubleMatrix mI = getComplexDoubleMatrix(
-                    mBandI, mBandQ, mGCPPixelPos, fineWinWidth, fineWinHeight);
-
-            ComplexDoubleMatrix sI = getComplexDoubleMatrix(
-                    sBandI, sBandQ, sGCPPixelPos, fineWinWidth, fineWinHeight);
-
             final double[] fineOffset = {0, 0};
 
             final double coherence = CoregistrationUtils.crossCorrelateFFT(
@@ -1018,6 +1014,7 @@ public class SpectralDiversityOp extends Operator {
             return;
         }
 
+        final ForkJoinPool pool = new ForkJoinPool();
         try {
             final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
 
@@ -1046,12 +1043,12 @@ public class SpectralDiversityOp extends Operator {
                     List<CplxContainer> complexImages = this.complexImages.get(imagesKey);
                     SystemUtils.LOG.fine("Estimating azimuth offset for: " + imagesKey);
 
-                    // estimate shift for each overlap
+                    // estimate shift for each block stack of each overlap
+                    SystemUtils.LOG.info("Estimating azimuth offset for " + numBlocksPerOverlap + " blocks in " +
+                                                 numOverlaps + " overlaps");
                     status.beginTask("Azimuth shift: ESD for overlap blocks (" + imagesKey + ")...", numOverlaps * numBlocksPerOverlap);
+                    final List<ForkJoinTask<?>> tasks = new ArrayList<>(numOverlaps * numBlocksPerOverlap);
                     for (int i = 0; i < numOverlaps; i++) {
-                        final ThreadExecutor executor = new ThreadExecutor();
-                        SystemUtils.LOG.info("Estimating azimuth offset for blocks in overlap: " +
-                                                     (i + 1) + "/" + numOverlaps);
                         final Rectangle overlapInBurstOneRectangle = new Rectangle();
                         final Rectangle overlapInBurstTwoRectangle = new Rectangle();
 
@@ -1068,36 +1065,29 @@ public class SpectralDiversityOp extends Operator {
                         final double[] spectralSeparation = computeSpectralSeparation(i);
                         final double searchBoundary = getSearchSpaceBoundary(spectralSeparation);
 
-                        // estimate shift for each block stack
                         for (int j = 0; j < numBlocksPerOverlap; j++) {
                             final int x0 = x0BurstOne + j * w;
                             final int blockIndex = j;
                             final Rectangle blockRectangle1 = new Rectangle(x0, y0BurstOne, w, h);
                             final Rectangle blockRectangle2 = new Rectangle(x0, y0BurstTwo, w, h);
 
-                            // apply ESD for pairs in this block stack
-                            final ThreadRunnable worker = new ThreadRunnable() {
-                                @Override
-                                public void process() {
-                                    ShiftData[] azimuthShiftsPerBlock = applyESDToBlockStack(
-                                            swath,
-                                            polarization,
-                                            overlapIndex,
-                                            blockIndex,
-                                            blockRectangle1,
-                                            blockRectangle2,
-                                            spectralSeparation,
-                                            searchBoundary,
-                                            usePeriodogram);
-                                    synchronized (shiftAllBlocks) {
-                                        shiftAllBlocks[overlapIndex][blockIndex] = azimuthShiftsPerBlock;
-                                    }
-                                }
-                            };
-                            executor.execute(worker);
-                            status.worked(1);
+                            // apply ESD for pairs in this block stack, each task writes its own slot
+                            tasks.add(pool.submit(() -> {
+                                shiftAllBlocks[overlapIndex][blockIndex] = applyESDToBlockStack(
+                                        complexImages,
+                                        overlapIndex,
+                                        blockIndex,
+                                        blockRectangle1,
+                                        blockRectangle2,
+                                        spectralSeparation,
+                                        searchBoundary,
+                                        usePeriodogram);
+                            }));
                         }
-                        executor.complete();
+                    }
+                    for (ForkJoinTask<?> task : tasks) {
+                        task.join();
+                        status.worked(1);
                     }
                     status.done();
 
@@ -1241,6 +1231,8 @@ public class SpectralDiversityOp extends Operator {
 
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException("estimateAzimuthOffset", e);
+        } finally {
+            pool.shutdownNow();
         }
 
         isAzimuthOffsetAvailable = true;
@@ -1269,10 +1261,9 @@ public class SpectralDiversityOp extends Operator {
     /**
      * Estimate azimuth offset of a block in the second image with respect to the same block in the first one using the
      * ESD approach. This method is applied to all the pairs of images (blocks) according to the arcs in the integration
-     * network.
+     * network. The block of an image is read once and used for all the arcs of the image.
      *
-     * @param swath              swath name.
-     * @param polarization       polarization name.
+     * @param complexImages      images of the network.
      * @param overlapIndex       index of this overlap.
      * @param blockIndex         index of this block in the overlap.
      * @param blockRectangle1    rectangle for this block in the first burst.
@@ -1282,47 +1273,38 @@ public class SpectralDiversityOp extends Operator {
      * @param usePeriodogram     flag to indicate the ESD estimation method: Periodogram (true) | Average (false).
      * @return an array of ShiftData objects describing the offsets for all the image (block) pairs
      */
-    private ShiftData[] applyESDToBlockStack(String swath, String polarization, int overlapIndex, int blockIndex, Rectangle blockRectangle1, Rectangle blockRectangle2, double[] spectralSeparation, double searchBoundary, boolean usePeriodogram) {
+    private ShiftData[] applyESDToBlockStack(List<CplxContainer> complexImages, int overlapIndex, int blockIndex, Rectangle blockRectangle1, Rectangle blockRectangle2, double[] spectralSeparation, double searchBoundary, boolean usePeriodogram) {
         ShiftData[] azimuthShifts = new ShiftData[arcs.length];
         final int w = blockRectangle1.width;
         final int h = blockRectangle1.height;
 
         try {
+            final ArcDataCache<OverlapBlock> blocks = new ArcDataCache<>(arcs, complexImages.size(),
+                    image -> new OverlapBlock(complexImages.get(image), blockRectangle1, blockRectangle2));
+
+            // Chop spectralSeparation to fit the block
+            final double[] blockSpectralSeparation = chopSpectralSeparation(blockIndex, w, h, spectralSeparation);
+
             for (int i = 0; i < arcs.length; i++) {  // for each pair
                 final int arcIndex = i;
 
                 checkForCancellation();
 
-                // get images and bands for this arc
-                String imagesKey = polarization.toUpperCase() + "_" + swath.toUpperCase();
-                List<CplxContainer> complexImages = this.complexImages.get(imagesKey);
-                CplxContainer image1 = complexImages.get(arcs[i][0]);
-                CplxContainer image2 = complexImages.get(arcs[i][1]);
-
-                final Band mBandI = image1.realBand;
-                final Band mBandQ = image1.imagBand;
-                final Band sBandI = image2.realBand;
-                final Band sBandQ = image2.imagBand;
+                // get image blocks for this arc
+                final OverlapBlock mBlock = blocks.acquire(arcs[i][0]);
+                final OverlapBlock sBlock = blocks.acquire(arcs[i][1]);
 
                 try {
 
-                    // Chop spectralSeparation to fit the block
-                    double[] blockSpectralSeparation = chopSpectralSeparation(blockIndex,
-                                                                              w, h,
-                                                                              spectralSeparation);
-
-                    // Transform 2D coherence to 1D coherence only for the block
-                    final double[] blockCoherence = ravel(computeCoherence(blockRectangle1,
-                                                                           mBandI, mBandQ, sBandI, sBandQ,
-                                                                           cohWin));
+                    // 1D coherence of the block
+                    final double[] blockCoherence = computeCoherence(mBlock, sBlock, w, h, cohWin);
 
                     // Transform coherence into weights
                     final double[] blockWeight = getBlockWeight(blockCoherence, weightFunction);
                     double avgBlockWeight = getAverageBlockWeight(blockWeight);
 
                     // Calculate ESD phase
-                    final double[] esdPhase = estimateESDPhase(mBandI, mBandQ, sBandI, sBandQ,
-                                                               blockRectangle2, blockRectangle1);
+                    final double[] esdPhase = estimateESDPhase(mBlock, sBlock);
 
                     // Estimate the shift
                     double azShift;
@@ -1347,6 +1329,9 @@ public class SpectralDiversityOp extends Operator {
                 } catch (Throwable e) {
                     OperatorUtils.catchOperatorException("estimateOffset", e);
                 }
+
+                blocks.release(arcs[i][0]);
+                blocks.release(arcs[i][1]);
             }
 
         } catch (Throwable e) {
@@ -1402,19 +1387,71 @@ public class SpectralDiversityOp extends Operator {
 
 
     /**
-     * Estimate range offset of the second image with respect to the first one using the average cross-correlation.
+     * Estimate range offsets of the second image with respect to the first one of every arc using the average
+     * cross-correlation of the bursts.
+     * <p>
+     * There is one task for each burst. A task reads the window of an image once and uses it for all the arcs
+     * of the image. The offsets are stored in a slot per arc and burst, so the tasks share no lock.
      *
-     * @param image1 first image used as reference.
-     * @param image2 second image.
-     * @return range shift and weights for each pair of images.
+     * @param complexImages images of the network.
+     * @param pool          the pool running the burst tasks.
+     * @param status        progress of the bursts.
+     * @return range shift and weights for each arc.
      */
-    private ShiftData crossCorrelatePair(CplxContainer image1, CplxContainer image2) {
-
-        double rgOffset = Double.NaN;
+    private ShiftData[] crossCorrelateArcs(final List<CplxContainer> complexImages, final ForkJoinPool pool,
+                                           final StatusProgressMonitor status) {
 
         final int numBursts = subSwath[subSwathIndex - 1].numOfBursts;
 
-        // SystemUtils.LOG.info("crossCorrelatePair numBursts = " + numBursts);
+        // az/rg offset for each arc and burst, shape: (arcs, bursts, 2)
+        final double[][][] offsets = new double[arcs.length][numBursts][2];
+
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(numBursts);
+        for (int i = 0; i < numBursts; i++) {
+            final int burstIndex = i;
+            tasks.add(pool.submit(() -> {
+                final ArcDataCache<ComplexDoubleMatrix> windows = new ArcDataCache<>(
+                        arcs, complexImages.size(), image -> getBurstCentreWindow(complexImages.get(image), burstIndex));
+
+                for (int arcIndex = 0; arcIndex < arcs.length; arcIndex++) {
+                    checkForCancellation();
+                    final ComplexDoubleMatrix mI = windows.acquire(arcs[arcIndex][0]);
+                    final ComplexDoubleMatrix sI = windows.acquire(arcs[arcIndex][1]);
+
+                    getFineOffsets(mI, sI, offsets[arcIndex][burstIndex]);
+
+                    windows.release(arcs[arcIndex][0]);
+                    windows.release(arcs[arcIndex][1]);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+            status.worked(1);
+        }
+
+        final ShiftData[] rangeShifts = new ShiftData[arcs.length];
+        for (int arcIndex = 0; arcIndex < arcs.length; arcIndex++) {
+            rangeShifts[arcIndex] = averageRangeOffset(complexImages.get(arcs[arcIndex][0]),
+                                                       complexImages.get(arcs[arcIndex][1]), offsets[arcIndex]);
+        }
+        return rangeShifts;
+    }
+
+    /**
+     * Average the range offsets of the bursts of an image pair.
+     *
+     * @param image1  first image used as reference.
+     * @param image2  second image.
+     * @param offsets az/rg offset of each burst.
+     * @return range shift and weights for the pair of images.
+     */
+    private ShiftData averageRangeOffset(final CplxContainer image1, final CplxContainer image2,
+                                         final double[][] offsets) {
+
+        double rgOffset = Double.NaN;
+
+        final int numBursts = offsets.length;
 
         final String imagePairTag = getImagePairTag(image1, image2);
 
@@ -1422,34 +1459,11 @@ public class SpectralDiversityOp extends Operator {
             final List<Double> azOffsetArray = new ArrayList<>(numBursts);
             final List<Double> rgOffsetArray = new ArrayList<>(numBursts);
             final List<Integer> burstIndexArray = new ArrayList<>(numBursts);
-
-            final ThreadExecutor executor = new ThreadExecutor();
-            for (int i = 0; i < numBursts; i++) {
-                checkForCancellation();
-                final int burstIndex = i;
-
-                final ThreadRunnable worker = new ThreadRunnable() {
-                    @Override
-                    public void process() {
-                        try {
-                            final double[] offset = new double[2]; // az/rg offset
-
-                            estimateAzRgOffsets(image1.realBand, image1.imagBand, image2.realBand, image2.imagBand,
-                                                burstIndex, offset);
-
-                            synchronized (azOffsetArray) {
-                                azOffsetArray.add(offset[0]);
-                                rgOffsetArray.add(offset[1]);
-                                burstIndexArray.add(burstIndex);
-                            }
-                        } catch (Throwable e) {
-                            OperatorUtils.catchOperatorException("estimateOffset", e);
-                        }
-                    }
-                };
-                executor.execute(worker);
+            for (int burstIndex = 0; burstIndex < numBursts; burstIndex++) {
+                azOffsetArray.add(offsets[burstIndex][0]);
+                rgOffsetArray.add(offsets[burstIndex][1]);
+                burstIndexArray.add(burstIndex);
             }
-            executor.complete();
 
             double sumRgOffset = 0.0;
             int count = 0;
@@ -1487,7 +1501,7 @@ public class SpectralDiversityOp extends Operator {
 
             SystemUtils.LOG.fine("SpectralDiversity (range shift): Overall range shift = " + rgOffset);
         } catch (Throwable e) {
-            OperatorUtils.catchOperatorException("estimateRangeOffset (crossCorrelatePair)", e);
+            OperatorUtils.catchOperatorException("estimateRangeOffset (averageRangeOffset)", e);
         }
 
         // validate and return azimuth shift
@@ -1543,20 +1557,6 @@ public class SpectralDiversityOp extends Operator {
         return choppedSpectralSeparation;
     }
 
-    private static double[] ravel(double[][] matrix) {
-        int height = matrix.length;
-        int width = matrix[0].length;
-        final double[] vector = new double[height * width];
-
-        for (int i = 0; i < vector.length; i++) {
-            final int r = i / width;
-            final int c = i - r * width;
-            vector[i] = matrix[r][c];
-        }
-
-        return vector;
-    }
-
     private static double[] getBlockCoherence(final int blockIndex, final int blockWidth, final int blockHeight,
                                               final double[][] coherence) {
 
@@ -1774,12 +1774,33 @@ public class SpectralDiversityOp extends Operator {
 
         final MetadataElement esdMeasurement = absTgt.getElement("ESD Measurement");
 
+        // residuals of the integration
+        final double[] residuals = ArcDataIntegration.computeResiduals(arcs, relativeShifts, integratedShifts);
+        double sumWeightedSquares = 0.0, sumWeights = 0.0, maxAbsResidual = 0.0;
+        int maxResidualArc = -1;
+        for (int i = 0; i < noOfArcs; i++) {
+            sumWeightedSquares += weights[i] * residuals[i] * residuals[i];
+            sumWeights += weights[i];
+            if (Math.abs(residuals[i]) > maxAbsResidual) {
+                maxAbsResidual = Math.abs(residuals[i]);
+                maxResidualArc = i;
+            }
+        }
+        final double rmsResidual = sumWeights > 0.0 ? Math.sqrt(sumWeightedSquares / sumWeights) : 0.0;
+        SystemUtils.LOG.info("Network integration (" + shiftType + "): " + noOfArcs + " arcs, weighted RMS residual = " +
+                                     rmsResidual + ", max residual = " + maxAbsResidual + " at arc " + maxResidualArc);
+
         // network
         final MetadataElement networkRootElem = getOrCreateElement(esdMeasurement, "Network");
         networkRootElem.setAttributeString("temporalBaselineType", temporalBaselineType);
         networkRootElem.setAttributeInt("maxTemporalBaseline", maxTemporalBaseline);
         networkRootElem.setAttributeInt("noOfNodes", noOfNodes);
         networkRootElem.setAttributeInt("noOfArcs", noOfArcs);
+        networkRootElem.setAttributeString(shiftType + "IntegrationMethod", integrationMethod);
+        networkRootElem.setAttributeDouble(shiftType + "RmsResidual", rmsResidual);
+        networkRootElem.getAttribute(shiftType + "RmsResidual").setDescription("Weighted RMS of the arc residuals");
+        networkRootElem.setAttributeDouble(shiftType + "MaxResidual", maxAbsResidual);
+        networkRootElem.getAttribute(shiftType + "MaxResidual").setDescription("Largest absolute arc residual");
 
         // arcs
         final MetadataElement arcsElem = getOrCreateElement(networkRootElem, "Arcs");
@@ -1795,6 +1816,8 @@ public class SpectralDiversityOp extends Operator {
             arcElem.getAttribute(shiftType).setDescription(shiftDescription);
             arcElem.setAttributeDouble(weightType, weights[i]);
             arcElem.getAttribute(weightType).setDescription("Arc weight");
+            arcElem.setAttributeDouble(shiftType + "Residual", residuals[i]);
+            arcElem.getAttribute(shiftType + "Residual").setDescription("Integrated shift of the arc minus arc shift");
         }
 
         // nodes
@@ -1859,43 +1882,30 @@ public class SpectralDiversityOp extends Operator {
      * \phi_\textup{ESD} = \arg{\left \{ (m_i \cdot s^*_i) (m_{i+1} \cdot s^*_{i+1})^* \right \}}
      * </code>
      *
-     * @param mBandI            The band with the real part of the master image.
-     * @param mBandQ            The band with the imaginary part of the master image.
-     * @param sBandI            The band with the real part of the slave image.
-     * @param sBandQ            The band with the imaginary part of the slave image.
-     * @param backwardRectangle First burst rectangle.
-     * @param forwardRectangle  Second burst rectangle.
+     * @param mBlock The block of the master image in the overlap.
+     * @param sBlock The block of the slave image in the overlap.
      * @return ESD phase.
      */
-    private double[] estimateESDPhase(final Band mBandI, final Band mBandQ, final Band sBandI, final Band sBandQ,
-                                      final Rectangle backwardRectangle, final Rectangle forwardRectangle) {
-
-        final double[] mIBackArray = getSourceData(mBandI, backwardRectangle);
-        final double[] mQBackArray = getSourceData(mBandQ, backwardRectangle);
-        final double[] sIBackArray = getSourceData(sBandI, backwardRectangle);
-        final double[] sQBackArray = getSourceData(sBandQ, backwardRectangle);
-
-        final double[] mIForArray = getSourceData(mBandI, forwardRectangle);
-        final double[] mQForArray = getSourceData(mBandQ, forwardRectangle);
-        final double[] sIForArray = getSourceData(sBandI, forwardRectangle);
-        final double[] sQForArray = getSourceData(sBandQ, forwardRectangle);
-
-        final int arrayLength = mIBackArray.length;
-        final double[] backIntReal = new double[arrayLength];
-        final double[] backIntImag = new double[arrayLength];
-        complexArrayMultiplication(mIBackArray, mQBackArray, sIBackArray, sQBackArray, backIntReal, backIntImag);
-
-        final double[] forIntReal = new double[arrayLength];
-        final double[] forIntImag = new double[arrayLength];
-        complexArrayMultiplication(mIForArray, mQForArray, sIForArray, sQForArray, forIntReal, forIntImag);
-
-        final double[] diffIntReal = new double[arrayLength];
-        final double[] diffIntImag = new double[arrayLength];
-        complexArrayMultiplication(forIntReal, forIntImag, backIntReal, backIntImag, diffIntReal, diffIntImag);
+    private static double[] estimateESDPhase(final OverlapBlock mBlock, final OverlapBlock sBlock) {
 
+        final int arrayLength = mBlock.iBurstOne.length;
         final double[] phase = new double[arrayLength];
         for (int i = 0; i < arrayLength; i++) {
-            phase[i] = Math.atan2(diffIntImag[i], diffIntReal[i]);
+            // backward interferogram from the second burst
+            final double mIBack = mBlock.iBurstTwo[i], mQBack = mBlock.qBurstTwo[i];
+            final double sIBack = sBlock.iBurstTwo[i], sQBack = sBlock.qBurstTwo[i];
+            final double backIntReal = mIBack * sIBack + mQBack * sQBack;
+            final double backIntImag = mQBack * sIBack - mIBack * sQBack;
+
+            // forward interferogram from the first burst
+            final double mIFor = mBlock.iBurstOne[i], mQFor = mBlock.qBurstOne[i];
+            final double sIFor = sBlock.iBurstOne[i], sQFor = sBlock.qBurstOne[i];
+            final double forIntReal = mIFor * sIFor + mQFor * sQFor;
+            final double forIntImag = mQFor * sIFor - mIFor * sQFor;
+
+            final double diffIntReal = forIntReal * backIntReal + forIntImag * backIntImag;
+            final double diffIntImag = forIntImag * backIntReal - forIntReal * backIntImag;
+            phase[i] = Math.atan2(diffIntImag, diffIntReal);
         }
 
         return phase;
@@ -2099,45 +2109,18 @@ public class SpectralDiversityOp extends Operator {
         return azShift;
     }
 
-    private double[] getSourceData(final Band srcBand, final Rectangle rectangle) {
-
-        final int dataType = srcBand.getDataType();
-        final Tile srcTile = getSourceTile(srcBand, rectangle);
-
-        double[] dataArray;
-        if (dataType == ProductData.TYPE_INT16) {
-            final short[] dataArrayShort = (short[]) srcTile.getDataBuffer().getElems();
-            dataArray = new double[dataArrayShort.length];
-            for (int i = 0; i < dataArrayShort.length; i++) {
-                dataArray[i] = (double) dataArrayShort[i];
-            }
-        } else if (dataType == ProductData.TYPE_FLOAT32) {
-            final float[] dataArrayFloat = (float[]) srcTile.getDataBuffer().getElems();
-            dataArray = new double[dataArrayFloat.length];
-            for (int i = 0; i < dataArrayFloat.length; i++) {
-                dataArray[i] = (double) dataArrayFloat[i];
-            }
-        } else {
-            dataArray = (double[]) srcTile.getDataBuffer().getElems();
-        }
-
-        return dataArray;
-    }
-
-    private static void complexArrayMultiplication(final double[] realArray1, final double[] imagArray1,
-                                                   final double[] realArray2, final double[] imagArray2,
-                                                   final double[] realOutput, final double[] imagOutput) {
+    private float[] getSourceSamples(final Band srcBand, final Rectangle rectangle) {
 
-        final int arrayLength = realArray1.length;
-        if (imagArray1.length != arrayLength || realArray2.length != arrayLength || imagArray2.length != arrayLength ||
-                realOutput.length != arrayLength || imagOutput.length != arrayLength) {
-            throw new OperatorException("Arrays of the same length are expected.");
+        final ProductData samples = getSourceTile(srcBand, rectangle).getRawSamples();
+        if (samples.getElems() instanceof float[]) {
+            return (float[]) samples.getElems();
         }
 
-        for (int i = 0; i < arrayLength; i++) {
-            realOutput[i] = realArray1[i] * realArray2[i] + imagArray1[i] * imagArray2[i];
-            imagOutput[i] = imagArray1[i] * realArray2[i] - realArray1[i] * imagArray2[i];
+        final float[] dataArray = new float[samples.getNumElems()];
+        for (int i = 0; i < dataArray.length; i++) {
+            dataArray[i] = samples.getElemFloatAt(i);
         }
+        return dataArray;
     }
 
     private Band getBand(final String suffix, final String prefix, final String swathIndexStr, final String polarization) {
@@ -2188,45 +2171,29 @@ public class SpectralDiversityOp extends Operator {
         }
     }
 
-    private double[][] computeCoherence(final Rectangle rectangle, final Band mBandI, final Band mBandQ,
-                                        final Band sBandI, final Band sBandQ, final int cohWin) {
+    private static double[] computeCoherence(final OverlapBlock mBlock, final OverlapBlock sBlock,
+                                             final int w, final int h, final int cohWin) {
 
-        final int x0 = rectangle.x;
-        final int y0 = rectangle.y;
-        final int w = rectangle.width;
-        final int h = rectangle.height;
-        final int xMax = x0 + w;
-        final int yMax = y0 + h;
         final int halfWindowSize = cohWin / 2;
-        final double[][] coherence = new double[h][w];
-
-        final Tile mstTileI = getSourceTile(mBandI, rectangle);
-        final Tile mstTileQ = getSourceTile(mBandQ, rectangle);
-        final ProductData mstDataBufferI = mstTileI.getDataBuffer();
-        final ProductData mstDataBufferQ = mstTileQ.getDataBuffer();
+        final double[] coherence = new double[h * w];
 
-        final Tile slvTileI = getSourceTile(sBandI, rectangle);
-        final Tile slvTileQ = getSourceTile(sBandQ, rectangle);
-        final ProductData slvDataBufferI = slvTileI.getDataBuffer();
-        final ProductData slvDataBufferQ = slvTileQ.getDataBuffer();
-
-        final TileIndex srcIndex = new TileIndex(mstTileI);
+        final float[] mstDataI = mBlock.iBurstOne;
+        final float[] mstDataQ = mBlock.qBurstOne;
+        final float[] slvDataI = sBlock.iBurstOne;
+        final float[] slvDataQ = sBlock.qBurstOne;
 
         final double[][] cohReal = new double[h][w];
         final double[][] cohImag = new double[h][w];
         final double[][] mstPower = new double[h][w];
         final double[][] slvPower = new double[h][w];
-        for (int y = y0; y < yMax; ++y) {
-            srcIndex.calculateStride(y);
-            final int yy = y - y0;
-            for (int x = x0; x < xMax; ++x) {
-                final int srcIdx = srcIndex.getIndex(x);
-                final int xx = x - x0;
-
-                final float mI = mstDataBufferI.getElemFloatAt(srcIdx);
-                final float mQ = mstDataBufferQ.getElemFloatAt(srcIdx);
-                final float sI = slvDataBufferI.getElemFloatAt(srcIdx);
-                final float sQ = slvDataBufferQ.getElemFloatAt(srcIdx);
+        for (int yy = 0; yy < h; ++yy) {
+            for (int xx = 0; xx < w; ++xx) {
+                final int srcIdx = yy * w + xx;
+
+                final float mI = mstDataI[srcIdx];
+                final float mQ = mstDataQ[srcIdx];
+                final float sI = slvDataI[srcIdx];
+                final float sQ = slvDataQ[srcIdx];
 
                 cohReal[yy][xx] = mI * sI + mQ * sQ;
                 cohImag[yy][xx] = mQ * sI - mI * sQ;
@@ -2235,10 +2202,8 @@ public class SpectralDiversityOp extends Operator {
             }
         }
 
-        for (int y = y0; y < yMax; ++y) {
-            final int yy = y - y0;
-            for (int x = x0; x < xMax; ++x) {
-                final int xx = x - x0;
+        for (int yy = 0; yy < h; ++yy) {
+            for (int xx = 0; xx < w; ++xx) {
 
                 final int rowSt = Math.max(yy - halfWindowSize, 0);
                 final int rowEd = Math.min(yy + halfWindowSize, h - 1);
@@ -2262,8 +2227,8 @@ public class SpectralDiversityOp extends Operator {
                     final double cohImagMean = cohImagSum / (double) count;
                     final double mstPowerMean = mstPowerSum / (double) count;
                     final double slvPowerMean = slvPowerSum / (double) count;
-                    coherence[yy][xx] = Math.sqrt((cohRealMean * cohRealMean + cohImagMean * cohImagMean) /
-                                                          (mstPowerMean * slvPowerMean));
+                    coherence[yy * w + xx] = Math.sqrt((cohRealMean * cohRealMean + cohImagMean * cohImagMean) /
+                                                               (mstPowerMean * slvPowerMean));
                 }
             }
         }
@@ -2290,7 +2255,7 @@ public class SpectralDiversityOp extends Operator {
 
         final double[] line = new double[2 * w];
         final double[] phaseRg = new double[2 * w];
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(w);
+        final DoubleFFT_1D row_fft = SpectralUtils.getFFT1D(w);
         final double[][] rangeShiftedI = new double[h][w];
         final double[][] rangeShiftedQ = new double[h][w];
 
@@ -2320,17 +2285,11 @@ public class SpectralDiversityOp extends Operator {
         // Perform azimuth Shift
 
         // get deramp/demodulation phase and perform deramp and demodulation
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-        final double[][] derampDemodI = new double[h][w];
-        final double[][] derampDemodQ = new double[h][w];
-        for (int r = 0; r < h; r++) {
-            for (int c = 0; c < w; c++) {
-                final double cosPhase = FastMath.cos(derampDemodPhase[r][c]);
-                final double sinPhase = FastMath.sin(derampDemodPhase[r][c]);
-                derampDemodI[r][c] = rangeShiftedI[r][c] * cosPhase - rangeShiftedQ[r][c] * sinPhase;
-                derampDemodQ[r][c] = rangeShiftedI[r][c] * sinPhase + rangeShiftedQ[r][c] * cosPhase;
-            }
-        }
+        final DerampDemodPhase burstPhase = su.getDerampDemodPhase(subSwathIndex, burstIndex);
+        final double[][] derampDemodPhase = burstPhase.getPhase(targetRectangle);
+        burstPhase.apply(targetRectangle, rangeShiftedI, rangeShiftedQ);
+        final double[][] derampDemodI = rangeShiftedI;
+        final double[][] derampDemodQ = rangeShiftedQ;
 
         // compute shift phase
         final double[] phaseAz = new double[2 * h];
@@ -2346,7 +2305,7 @@ public class SpectralDiversityOp extends Operator {
 
         final double[] col1 = new double[2 * h];
         final double[] col2 = new double[2 * h];
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(h);
+        final DoubleFFT_1D col_fft = SpectralUtils.getFFT1D(h);
         for (int c = 0; c < w; c++) {
             final int x = x0 + c;
             for (int r = 0; r < h; r++) {
@@ -2476,6 +2435,57 @@ public class SpectralDiversityOp extends Operator {
         }
     }
 
+    /**
+     * Samples of an image in a block of a burst overlap.
+     */
+    private final class OverlapBlock {
+        final float[] iBurstOne;
+        final float[] qBurstOne;
+        final float[] iBurstTwo;
+        final float[] qBurstTwo;
+
+        OverlapBlock(final CplxContainer image, final Rectangle blockRectangle1, final Rectangle blockRectangle2) {
+            iBurstOne = getSourceSamples(image.realBand, blockRectangle1);
+            qBurstOne = getSourceSamples(image.imagBand, blockRectangle1);
+            iBurstTwo = getSourceSamples(image.realBand, blockRectangle2);
+            qBurstTwo = getSourceSamples(image.imagBand, blockRectangle2);
+        }
+    }
+
+    /**
+     * Data of the images of the network, read once for all the arcs of an image. The data of an image is dropped
+     * after its last arc, so only the images of the arcs in progress are held. Used by one task at a time.
+     */
+    private static class ArcDataCache<T> {
+        private final IntFunction<T> reader;
+        private final int[] remainingArcs;
+        private final Map<Integer, T> data = new HashMap<>();
+
+        ArcDataCache(final int[][] arcs, final int numImages, final IntFunction<T> reader) {
+            this.reader = reader;
+            this.remainingArcs = new int[numImages];
+            for (int[] arc : arcs) {
+                remainingArcs[arc[0]]++;
+                remainingArcs[arc[1]]++;
+            }
+        }
+
+        T acquire(final int image) {
+            T value = data.get(image);
+            if (value == null) {
+                value = reader.apply(image);
+                data.put(image, value);
+            }
+            return value;
+        }
+
+        void release(final int image) {
+            if (--remainingArcs[image] == 0) {
+                data.remove(image);
+            }
+        }
+    }
+
     private static class AzRgOffsets {
         double azOffset;
         double rgOffset;
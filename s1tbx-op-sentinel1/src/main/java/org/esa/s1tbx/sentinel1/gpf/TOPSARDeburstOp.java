@@ -120,8 +120,7 @@ public final class TOPSARDeburstOp extends Operator {
             getAcquisitionMode();
 
             su = new Sentinel1Utils(sourceProduct);
-            subSwath = su.getSubSwath();
-            numOfSubSwath = su.getNumOfSubSwath();
+            setSubSwaths(su.getSubSwath());
 
             //checkIfSplitProduct();
 
@@ -129,12 +128,6 @@ public final class TOPSARDeburstOp extends Operator {
                 selectedPolarisations = su.getPolarizations();
             }
 
-            computeTargetStartEndTime();
-
-            computeTargetSlantRangeTimeToFirstAndLastPixels();
-
-            computeTargetWidthAndHeight();
-
             createTargetProduct();
 
             computeSubSwathEffectStartEndPixels();
@@ -160,6 +153,20 @@ public final class TOPSARDeburstOp extends Operator {
         acquisitionMode = absRoot.getAttributeString(AbstractMetadata.ACQUISITION_MODE);
     }
 
+    /**
+     * Set the sub-swaths and compute the line times, slant range times and dimension of the target product.
+     */
+    void setSubSwaths(final Sentinel1Utils.SubSwathInfo[] subSwath) {
+        this.subSwath = subSwath;
+        numOfSubSwath = subSwath.length;
+
+        computeTargetStartEndTime();
+
+        computeTargetSlantRangeTimeToFirstAndLastPixels();
+
+        computeTargetWidthAndHeight();
+    }
+
     /**
      * Compute azimuth time for the first and last line in the target product.
      */
@@ -794,6 +801,10 @@ public final class TOPSARDeburstOp extends Operator {
             final int txMax = tx0 + tw;
             final int tyMax = ty0 + th;
 
+            // the source position of every pixel is the same for all bands
+            final DeburstTileTable table = tileInOneSubSwath ? null :
+                    new DeburstTileTable(tx0, ty0, txMax, tyMax, firstSubSwathIndex, lastSubSwathIndex);
+
             final Band[] tgtBands = targetProduct.getBands();
             for (Band tgtBand:tgtBands) {
                 if (tgtBand instanceof VirtualBand) {
@@ -814,11 +825,9 @@ public final class TOPSARDeburstOp extends Operator {
 
                 } else {
                     if (dataType == ProductData.TYPE_INT16) {
-                        computeMultipleSubSwathsShort(tx0, ty0, txMax, tyMax, firstSubSwathIndex, lastSubSwathIndex,
-                                sourceRectangle, tgtBandName, tgtTile, burstInfo);
+                        computeMultipleSubSwathsShort(table, sourceRectangle, tgtBandName, tgtTile);
                     } else {
-                        computeMultipleSubSwathsFloat(tx0, ty0, txMax, tyMax, firstSubSwathIndex, lastSubSwathIndex,
-                                sourceRectangle, tgtBandName, tgtTile, burstInfo);
+                        computeMultipleSubSwathsFloat(table, sourceRectangle, tgtBandName, tgtTile);
                     }
                 }
             }
@@ -929,164 +938,139 @@ public final class TOPSARDeburstOp extends Operator {
         }
     }
 
-    private void computeMultipleSubSwathsShort(final int tx0, final int ty0, final int txMax, final int tyMax,
-                                               final int firstSubSwathIndex, final int lastSubSwathIndex,
-                                               final Rectangle[] sourceRectangle, final String tgtBandName,
-                                               final Tile tgtTile, final BurstInfo burstInfo) {
+    private Tile[] getSourceTiles(final int firstSubSwathIndex, final int lastSubSwathIndex,
+                                  final Rectangle[] sourceRectangle, final String tgtBandName) {
 
-        final int numOfSourceTiles = lastSubSwathIndex - firstSubSwathIndex + 1;
-        final TileIndex tgtIndex = new TileIndex(tgtTile);
-        final Tile[] srcTiles = new Tile[numOfSourceTiles];
+        final Tile[] srcTiles = new Tile[lastSubSwathIndex - firstSubSwathIndex + 1];
+        for (int k = 0; k < srcTiles.length; k++) {
+            final String srcBandName = getSourceBandNameFromTargetBandName(
+                    tgtBandName, acquisitionMode, String.valueOf(firstSubSwathIndex + k));
+            final Band srcBand = sourceProduct.getBand(srcBandName);
+            srcTiles[k] = getSourceTile(srcBand, sourceRectangle[k]);
+        }
+        return srcTiles;
+    }
 
-        final short[][] srcArray = new short[numOfSourceTiles][];
-        final short[] tgtArray = (short[]) tgtTile.getDataBuffer().getElems();
+    private void computeMultipleSubSwathsShort(final DeburstTileTable table, final Rectangle[] sourceRectangle,
+                                               final String tgtBandName, final Tile tgtTile) {
 
-        int k = 0;
-        for (int i = firstSubSwathIndex; i <= lastSubSwathIndex; i++) {
-            final String srcBandName =
-                    getSourceBandNameFromTargetBandName(tgtBandName, acquisitionMode, String.valueOf(i));
-            final Band srcBand = sourceProduct.getBand(srcBandName);
-            final Tile srcRaster = getSourceTile(srcBand, sourceRectangle[k]);
-            srcTiles[k] = srcRaster;
-            srcArray[k] = (short[]) srcRaster.getDataBuffer().getElems();
-            k++;
+        final Tile[] srcTiles = getSourceTiles(table.firstSubSwathIndex, table.lastSubSwathIndex,
+                sourceRectangle, tgtBandName);
+        final short[][] srcArray = new short[srcTiles.length][];
+        for (int k = 0; k < srcTiles.length; k++) {
+            srcArray[k] = (short[]) srcTiles[k].getDataBuffer().getElems();
         }
+        final TileIndex tgtIndex = new TileIndex(tgtTile);
+        final short[] tgtArray = (short[]) tgtTile.getDataBuffer().getElems();
 
-        int sy;
-        for (int y = ty0; y < tyMax; y++) {
+        for (int y = table.ty0; y < table.tyMax; y++) {
+            final ColumnRuns runs = table.getColumnRuns(y);
+            if (runs == null) {
+                continue;
+            }
             final int tgtOffset = tgtIndex.calculateStride(y);
+            final int yy = y - table.ty0;
 
-            for (int x = tx0; x < txMax; x++) {
-
-                int subswathIndex = getSubSwathIndex(x, y, firstSubSwathIndex, lastSubSwathIndex, burstInfo);
-                if (subswathIndex == -1) {
-                    continue;
-                }
-                if (!getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo)) {
+            for (int r = 0; r < runs.numRuns; r++) {
+                final int k = runs.swath[r];
+                final int sy = table.sourceLine[k][yy];
+                if (sy == -1) {
                     continue;
                 }
-
-                short val = 0;
-                k = subswathIndex - firstSubSwathIndex;
-
-                int sx = getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
-                if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
-                    sy = burstInfo.sy1;
-                } else {
-                    sy = burstInfo.sy0;
-                }
-                int idx = srcTiles[k].getDataBufferIndex(sx, sy);
-
-                if (idx >= 0) {
-                    val = srcArray[k][idx];
-                }
-
-                if(burstInfo.swath1 != -1 && val == 0) {
-                    // edge of swaths found therefore use other swath
-                    if (subswathIndex == burstInfo.swath0) {
-                        subswathIndex = burstInfo.swath1;
+                final int x0 = runs.start[r];
+                final int[] sx = table.sourceSample[k];
+                final int other = runs.otherSwath[r];
+
+                if (other == -1) {
+                    final int idx0 = srcTiles[k].getDataBufferIndex(sx[x0 - table.tx0], sy);
+                    if (idx0 >= 0) {
+                        System.arraycopy(srcArray[k], idx0, tgtArray, x0 - tgtOffset, runs.end[r] - x0);
                     } else {
-                        subswathIndex = burstInfo.swath0;
-                    }
-
-                    getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo);
-
-                    k = subswathIndex - firstSubSwathIndex;
-
-                    sx = getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
-                    if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
-                        sy = burstInfo.sy1;
-                    } else {
-                        sy = burstInfo.sy0;
+                        for (int x = x0; x < runs.end[r]; x++) {
+                            final int idx = idx0 + x - x0;
+                            tgtArray[x - tgtOffset] = idx >= 0 ? srcArray[k][idx] : 0;
+                        }
                     }
-                    idx = srcTiles[k].getDataBufferIndex(sx, sy);
+                    continue;
+                }
 
-                    if (idx >= 0 && !(srcArray[k][idx] == 0)) {
-                        val = srcArray[k][idx];
+                // overlap of two sub-swaths, zeros at the edge of one are filled from the other
+                final int otherSy = table.sourceLine[other][yy];
+                final int[] otherSx = table.sourceSample[other];
+                for (int x = x0; x < runs.end[r]; x++) {
+                    final int xx = x - table.tx0;
+                    int idx = srcTiles[k].getDataBufferIndex(sx[xx], sy);
+                    short val = idx >= 0 ? srcArray[k][idx] : 0;
+                    if (val == 0) {
+                        idx = srcTiles[other].getDataBufferIndex(otherSx[xx], otherSy);
+                        if (idx >= 0 && !(srcArray[other][idx] == 0)) {
+                            val = srcArray[other][idx];
+                        }
                     }
+                    tgtArray[x - tgtOffset] = val;
                 }
-                tgtArray[x - tgtOffset] = val;
             }
         }
     }
 
-    private void computeMultipleSubSwathsFloat(final int tx0, final int ty0, final int txMax, final int tyMax,
-                                               final int firstSubSwathIndex, final int lastSubSwathIndex,
-                                               final Rectangle[] sourceRectangle, final String tgtBandName,
-                                               final Tile tgtTile, final BurstInfo burstInfo) {
+    private void computeMultipleSubSwathsFloat(final DeburstTileTable table, final Rectangle[] sourceRectangle,
+                                               final String tgtBandName, final Tile tgtTile) {
 
-        final int numOfSourceTiles = lastSubSwathIndex - firstSubSwathIndex + 1;
+        final Tile[] srcTiles = getSourceTiles(table.firstSubSwathIndex, table.lastSubSwathIndex,
+                sourceRectangle, tgtBandName);
+        final float[][] srcArray = new float[srcTiles.length][];
+        for (int k = 0; k < srcTiles.length; k++) {
+            srcArray[k] = (float[]) srcTiles[k].getDataBuffer().getElems();
+        }
         final TileIndex tgtIndex = new TileIndex(tgtTile);
-        final Tile[] srcTiles = new Tile[numOfSourceTiles];
-
-        final float[][] srcArray = new float[numOfSourceTiles][];
         final float[] tgtArray = (float[]) tgtTile.getDataBuffer().getElems();
 
-        int k = 0;
-        for (int i = firstSubSwathIndex; i <= lastSubSwathIndex; i++) {
-            final String srcBandName =
-                    getSourceBandNameFromTargetBandName(tgtBandName, acquisitionMode, String.valueOf(i));
-            final Band srcBand = sourceProduct.getBand(srcBandName);
-            final Tile srcRaster = getSourceTile(srcBand, sourceRectangle[k]);
-            srcTiles[k] = srcRaster;
-            srcArray[k] = (float[]) srcRaster.getDataBuffer().getElems();
-            k++;
-        }
-
-        int sy;
-        for (int y = ty0; y < tyMax; y++) {
+        for (int y = table.ty0; y < table.tyMax; y++) {
+            final ColumnRuns runs = table.getColumnRuns(y);
+            if (runs == null) {
+                continue;
+            }
             final int tgtOffset = tgtIndex.calculateStride(y);
+            final int yy = y - table.ty0;
 
-            for (int x = tx0; x < txMax; x++) {
-
-                int subswathIndex = getSubSwathIndex(x, y, firstSubSwathIndex, lastSubSwathIndex, burstInfo);
-                if (subswathIndex == -1) {
+            for (int r = 0; r < runs.numRuns; r++) {
+                final int k = runs.swath[r];
+                final int sy = table.sourceLine[k][yy];
+                if (sy == -1) {
                     continue;
                 }
-                if (!getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo)) {
-                    continue;
-                }
-
-                float val = 0;
-                k = subswathIndex - firstSubSwathIndex;
-
-                int sx = getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
-                if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
-                    sy = burstInfo.sy1;
-                } else {
-                    sy = burstInfo.sy0;
-                }
-                int idx = srcTiles[k].getDataBufferIndex(sx, sy);
-
-                if (idx >= 0) {
-                    val = srcArray[k][idx];
-                }
-
-                if(burstInfo.swath1 != -1 && val == 0) {
-                    // edge of swaths found therefore use other swath
-                    if (subswathIndex == burstInfo.swath0) {
-                        subswathIndex = burstInfo.swath1;
+                final int x0 = runs.start[r];
+                final int[] sx = table.sourceSample[k];
+                final int other = runs.otherSwath[r];
+
+                if (other == -1) {
+                    final int idx0 = srcTiles[k].getDataBufferIndex(sx[x0 - table.tx0], sy);
+                    if (idx0 >= 0) {
+                        System.arraycopy(srcArray[k], idx0, tgtArray, x0 - tgtOffset, runs.end[r] - x0);
                     } else {
-                        subswathIndex = burstInfo.swath0;
-                    }
-
-                    getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo);
-
-                    k = subswathIndex - firstSubSwathIndex;
-
-                    sx = getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
-                    if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
-                        sy = burstInfo.sy1;
-                    } else {
-                        sy = burstInfo.sy0;
+                        for (int x = x0; x < runs.end[r]; x++) {
+                            final int idx = idx0 + x - x0;
+                            tgtArray[x - tgtOffset] = idx >= 0 ? srcArray[k][idx] : 0;
+                        }
                     }
-                    idx = srcTiles[k].getDataBufferIndex(sx, sy);
+                    continue;
+                }
 
-                    if (idx >= 0 && !(srcArray[k][idx] == 0)) {
-                        val = srcArray[k][idx];
+                // overlap of two sub-swaths, zeros at the edge of one are filled from the other
+                final int otherSy = table.sourceLine[other][yy];
+                final int[] otherSx = table.sourceSample[other];
+                for (int x = x0; x < runs.end[r]; x++) {
+                    final int xx = x - table.tx0;
+                    int idx = srcTiles[k].getDataBufferIndex(sx[xx], sy);
+                    float val = idx >= 0 ? srcArray[k][idx] : 0;
+                    if (val == 0) {
+                        idx = srcTiles[other].getDataBufferIndex(otherSx[xx], otherSy);
+                        if (idx >= 0 && !(srcArray[other][idx] == 0)) {
+                            val = srcArray[other][idx];
+                        }
                     }
+                    tgtArray[x - tgtOffset] = val;
                 }
-                tgtArray[x - tgtOffset] = val;
             }
         }
     }
@@ -1131,13 +1115,13 @@ public final class TOPSARDeburstOp extends Operator {
         return new Rectangle(x0, y0, w, h);
     }
 
-    private int getSampleIndexInSourceProduct(final int tx, final Sentinel1Utils.SubSwathInfo subSwath) {
+    int getSampleIndexInSourceProduct(final int tx, final Sentinel1Utils.SubSwathInfo subSwath) {
         final int sx = (int)((((targetSlantRangeTimeToFirstPixel + tx * targetDeltaSlantRangeTime)
                 - subSwath.slrTimeToFirstPixel) / targetDeltaSlantRangeTime)+0.5);
         return sx < 0 ? 0 : sx > subSwath.numOfSamples - 1 ? subSwath.numOfSamples - 1 : sx;
     }
 
-    private boolean getLineIndicesInSourceProduct(
+    boolean getLineIndicesInSourceProduct(
             final int ty, final Sentinel1Utils.SubSwathInfo subSwath, final BurstInfo burstTimes) {
 
         final double targetLineTime = targetFirstLineTime + ty * targetLineTimeInterval;
@@ -1190,8 +1174,8 @@ public final class TOPSARDeburstOp extends Operator {
         return (int) ((subSwath.slrTimeToLastValidPixel - targetSlantRangeTimeToFirstPixel) / targetDeltaSlantRangeTime);
     }
 
-    private int getSubSwathIndex(final int tx, final int ty, final int firstSubSwathIndex, final int lastSubSwathIndex,
-                                 final BurstInfo burstInfo) {
+    int getSubSwathIndex(final int tx, final int ty, final int firstSubSwathIndex, final int lastSubSwathIndex,
+                         final BurstInfo burstInfo) {
 
         final double targetSampleSlrTime = targetSlantRangeTimeToFirstPixel + tx * targetDeltaSlantRangeTime;
         final double targetLineTime = targetFirstLineTime + ty * targetLineTimeInterval;
@@ -1315,7 +1299,7 @@ public final class TOPSARDeburstOp extends Operator {
                 dx, dy);
     }
 
-    private static class BurstInfo {
+    static class BurstInfo {
         public int sy0 = -1;
         public int sy1 = -1;
         public int swath0;
@@ -1330,6 +1314,137 @@ public final class TOPSARDeburstOp extends Operator {
         }
     }
 
+    /**
+     * Source positions of the pixels of a target tile that covers several sub-swaths, shared by all bands of the tile.
+     * The source line of each sub-swath is found once per target line and the source sample once per target column.
+     * The sub-swath of a pixel only depends on the line through the sub-swaths valid at that line, so for each such
+     * set the columns are cut once into runs from one sub-swath with consecutive source samples, which are copied
+     * with System.arraycopy.
+     */
+    final class DeburstTileTable {
+        final int tx0, ty0, txMax, tyMax;
+        final int firstSubSwathIndex, lastSubSwathIndex;
+
+        // source line per [sub-swath][target line], -1 outside of the bursts
+        final int[][] sourceLine;
+        // source sample per [sub-swath][target column]
+        final int[][] sourceSample;
+        // bit mask of the sub-swaths valid at each target line
+        private final int[] lineMask;
+        private final ColumnRuns[] runsPerMask;
+
+        DeburstTileTable(final int tx0, final int ty0, final int txMax, final int tyMax,
+                         final int firstSubSwathIndex, final int lastSubSwathIndex) {
+            this.tx0 = tx0;
+            this.ty0 = ty0;
+            this.txMax = txMax;
+            this.tyMax = tyMax;
+            this.firstSubSwathIndex = firstSubSwathIndex;
+            this.lastSubSwathIndex = lastSubSwathIndex;
+
+            final int numSwaths = lastSubSwathIndex - firstSubSwathIndex + 1;
+            final int tw = txMax - tx0;
+            final int th = tyMax - ty0;
+            sourceLine = new int[numSwaths][th];
+            sourceSample = new int[numSwaths][tw];
+            lineMask = new int[th];
+            runsPerMask = new ColumnRuns[1 << numSwaths];
+
+            final BurstInfo burstInfo = new BurstInfo();
+            for (int k = 0; k < numSwaths; k++) {
+                final Sentinel1Utils.SubSwathInfo sw = subSwath[firstSubSwathIndex + k - 1];
+                for (int x = tx0; x < txMax; x++) {
+                    sourceSample[k][x - tx0] = getSampleIndexInSourceProduct(x, sw);
+                }
+                for (int y = ty0; y < tyMax; y++) {
+                    getLineIndicesInSourceProduct(y, sw, burstInfo);
+                    if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
+                        sourceLine[k][y - ty0] = burstInfo.sy1;
+                    } else {
+                        sourceLine[k][y - ty0] = burstInfo.sy0;
+                    }
+
+                    final double targetLineTime = targetFirstLineTime + y * targetLineTimeInterval;
+                    if (targetLineTime >= sw.firstValidLineTime && targetLineTime <= sw.lastValidLineTime) {
+                        lineMask[y - ty0] |= 1 << k;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the column runs of a target line or null if no sub-swath is valid at the line
+         */
+        ColumnRuns getColumnRuns(final int y) {
+            final int mask = lineMask[y - ty0];
+            if (mask == 0) {
+                return null;
+            }
+            ColumnRuns runs = runsPerMask[mask];
+            if (runs == null) {
+                runs = createColumnRuns(y);
+                runsPerMask[mask] = runs;
+            }
+            return runs;
+        }
+
+        private ColumnRuns createColumnRuns(final int y) {
+            final ColumnRuns runs = new ColumnRuns(txMax - tx0);
+            final BurstInfo burstInfo = new BurstInfo();
+            int runSwath = -1, runOther = -1;
+            for (int x = tx0; x < txMax; x++) {
+                final int subswathIndex = getSubSwathIndex(x, y, firstSubSwathIndex, lastSubSwathIndex, burstInfo);
+                int k = -1, other = -1;
+                if (subswathIndex != -1) {
+                    k = subswathIndex - firstSubSwathIndex;
+                    if (burstInfo.swath1 != -1) {
+                        other = (subswathIndex == burstInfo.swath0 ? burstInfo.swath1 : burstInfo.swath0)
+                                - firstSubSwathIndex;
+                    }
+                }
+
+                final int xx = x - tx0;
+                final boolean sameRun = k == runSwath && other == runOther &&
+                        (k == -1 || other != -1 || sourceSample[k][xx] == sourceSample[k][xx - 1] + 1);
+                if (!sameRun) {
+                    if (runSwath != -1) {
+                        runs.end[runs.numRuns++] = x;
+                    }
+                    if (k != -1) {
+                        runs.start[runs.numRuns] = x;
+                        runs.swath[runs.numRuns] = k;
+                        runs.otherSwath[runs.numRuns] = other;
+                    }
+                    runSwath = k;
+                    runOther = other;
+                }
+            }
+            if (runSwath != -1) {
+                runs.end[runs.numRuns++] = txMax;
+            }
+            return runs;
+        }
+    }
+
+    /**
+     * Runs of target columns [start, end) taken from one sub-swath, with the sub-swath filling in its zeros
+     * in the overlap of two sub-swaths or -1.
+     */
+    static final class ColumnRuns {
+        final int[] start;
+        final int[] end;
+        final int[] swath;
+        final int[] otherSwath;
+        int numRuns = 0;
+
+        ColumnRuns(final int maxRuns) {
+            start = new int[maxRuns];
+            end = new int[maxRuns];
+            swath = new int[maxRuns];
+            otherSwath = new int[maxRuns];
+        }
+    }
+
     private static class SubSwathEffectStartEndPixels {
         public int xMin;
         public int xMax;
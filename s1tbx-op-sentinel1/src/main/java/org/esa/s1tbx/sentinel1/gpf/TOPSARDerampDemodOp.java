@@ -16,7 +16,7 @@
 package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.DerampDemodPhase;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
@@ -227,14 +227,10 @@ public final class TOPSARDerampDemodOp extends Operator {
                                     final Map<Band, Tile> targetTileMap) throws Exception {
 
         final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-
-        if (derampDemodPhase == null) {
-            return;
-        }
+        final DerampDemodPhase derampDemodPhase = su.getDerampDemodPhase(subSwathIndex, burstIndex);
 
         if (outputDerampDemodPhase) {
-            saveDrampDemodPhase(x0, y0, w, h, targetTileMap, derampDemodPhase);
+            saveDrampDemodPhase(x0, y0, w, h, targetTileMap, derampDemodPhase.getPhase(targetRectangle));
         }
 
         for(String polarization : su.getPolarizations()) {
@@ -257,36 +253,10 @@ public final class TOPSARDerampDemodOp extends Operator {
     }
 
     private static void performDerampDemod(final Tile tileI, final Tile tileQ,
-                                           final Rectangle targetRectangle, final double[][] derampDemodPhase,
+                                           final Rectangle targetRectangle, final DerampDemodPhase derampDemodPhase,
                                            final double[][] derampDemodI, final double[][] derampDemodQ) {
 
-        try {
-            final int x0 = targetRectangle.x;
-            final int y0 = targetRectangle.y;
-            final int xMax = x0 + targetRectangle.width;
-            final int yMax = y0 + targetRectangle.height;
-
-            final ProductData dataI = tileI.getDataBuffer();
-            final ProductData dataQ = tileQ.getDataBuffer();
-            final TileIndex index = new TileIndex(tileI);
-
-            for (int y = y0; y < yMax; y++) {
-                index.calculateStride(y);
-                final int yy = y - y0;
-                for (int x = x0; x < xMax; x++) {
-                    final int idx = index.getIndex(x);
-                    final int xx = x - x0;
-                    final double valueI = dataI.getElemDoubleAt(idx);
-                    final double valueQ = dataQ.getElemDoubleAt(idx);
-                    final double cosPhase = FastMath.cos(derampDemodPhase[yy][xx]);
-                    final double sinPhase = FastMath.sin(derampDemodPhase[yy][xx]);
-                    derampDemodI[yy][xx] = valueI*cosPhase - valueQ*sinPhase;
-                    derampDemodQ[yy][xx] = valueI*sinPhase + valueQ*cosPhase;
-                }
-            }
-        } catch (Throwable e) {
-            OperatorUtils.catchOperatorException("performDerampDemod", e);
-        }
+        BackGeocodingOp.performDerampDemod(tileI, tileQ, targetRectangle, derampDemodPhase, derampDemodI, derampDemodQ);
     }
 
     private void saveTargetBands(final int x0, final int y0, final int w, final int h,
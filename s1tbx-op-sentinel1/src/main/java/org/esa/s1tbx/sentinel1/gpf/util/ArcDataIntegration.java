@@ -15,28 +15,14 @@
  */
 package org.esa.s1tbx.sentinel1.gpf.util;
 
-import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
-import org.apache.commons.math3.analysis.MultivariateVectorFunction;
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.optim.ConvergenceChecker;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.PointVectorValuePair;
-import org.apache.commons.math3.optim.SimplePointChecker;
 import org.apache.commons.math3.optim.linear.LinearConstraint;
 import org.apache.commons.math3.optim.linear.LinearConstraintSet;
 import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
 import org.apache.commons.math3.optim.linear.Relationship;
 import org.apache.commons.math3.optim.linear.SimplexSolver;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
-import org.apache.commons.math3.optim.nonlinear.vector.ModelFunction;
-import org.apache.commons.math3.optim.nonlinear.vector.ModelFunctionJacobian;
-import org.apache.commons.math3.optim.nonlinear.vector.Target;
-import org.apache.commons.math3.optim.nonlinear.vector.Weight;
-import org.apache.commons.math3.optim.nonlinear.vector.jacobian.LevenbergMarquardtOptimizer;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.util.MathArrays;
 import org.esa.snap.core.util.SystemUtils;
@@ -56,6 +42,17 @@ public class ArcDataIntegration {
 
     public static boolean referenceNodeIsLast = false;
 
+    /**
+     * Networks with more arcs are integrated with L1 norm by iteratively reweighted least squares instead of the
+     * linear program.
+     */
+    public static int maxSimplexArcs = 500;
+
+    private static final double CG_TOLERANCE = 1e-12;
+    private static final int CG_MIN_ITERATIONS = 100;
+    private static final double IRLS_EPSILON = 1e-6;
+    private static final int IRLS_MAX_ITERATIONS = 200;
+
     /**
      * Integrates arc data to node data using weighted least squares (L2 norm).
      *     This function integrates arc `data` by finding `point_data` (the returned
@@ -69,6 +66,7 @@ public class ArcDataIntegration {
      *             b = diag(weights) * data
      *         2. Minimize
      *             ||A*x - b||_2
+     *            by solving the sparse normal equations A' W A x = A' W b with conjugate gradients.
      *
      * @param arcs every row should contain two indices corresponding to the end nodes of a specific arc.
      * @param data data to be integrated.
@@ -86,59 +84,16 @@ public class ArcDataIntegration {
         SystemUtils.LOG.fine("Number of nodes: " + noOfNodes);
         SystemUtils.LOG.fine("Number of arcs: " + noOfArcs);
 
-        // A: coefficients matrix
-        double[][] incidenceMatrix = new double[noOfArcs][noOfNodes];
-        int[] sourceNodes = getColumnVector(arcs, 0);  // get column and set to zero reference node occurrences
-        int[] targetNodes = getColumnVector(arcs, 1);  // get column and set to zero reference node occurrences
-        setValues(incidenceMatrix, repeat(-1.0, noOfArcs), null, sourceNodes);  // source nodes
-        setValues(incidenceMatrix, repeat(1.0, noOfArcs), null, targetNodes);  // target nodes
+        // normal equations A' W A x = A' W b, without the reference node
+        int referenceNode = referenceNodeIsLast ? noOfNodes - 1 : 0;
+        NetworkNormalEquations normalEquations =
+                new NetworkNormalEquations(arcs, data, weights, noOfNodes, referenceNode);
 
-        // remove reference node column
-        if (!referenceNodeIsLast) {
-            // remove first column
-            shiftColumnsLeft(incidenceMatrix, 1);
-        }
-        dropLastColumn(incidenceMatrix);
-
-        // problem
-        ModelFunction problem = new ModelFunction(new MultivariateVectorFunction() {
-            RealMatrix jacobian = new Array2DRowRealMatrix(incidenceMatrix);
-
-            public double[] value(double[] params) {
-                double[] values = jacobian.operate(params);
-
-                return values;
-            }
-        });
-
-        ModelFunctionJacobian problemJacobian =  new ModelFunctionJacobian(new MultivariateMatrixFunction() {
-            double[][] jacobian = incidenceMatrix;
-
-            public double[][] value(double[] params) {
-                return jacobian;
-            }
-        });
-
-        // optimization
-        ConvergenceChecker<PointVectorValuePair> checker = new SimplePointChecker(0.00001, -1.0);
-        LevenbergMarquardtOptimizer optimizer = new LevenbergMarquardtOptimizer(checker);
-        int maxIterations = 10000;
-        PointVectorValuePair solution = optimizer.optimize(new MaxEval(maxIterations),
-                                                           problem,
-                                                           problemJacobian,
-                                                           new Target(data),
-                                                           new Weight(weights),
-                                                           new InitialGuess(new double[noOfNodes - 1]));
-
-        // return solution
-        double[] nodeData;
-        if (referenceNodeIsLast) {
-            nodeData = Arrays.copyOf(solution.getPoint(), noOfNodes);
-            nodeData[noOfNodes - 1] = 0;  // add reference node back (last)
-        } else {
-            nodeData = new double[noOfNodes];
-            System.arraycopy(solution.getPoint(), 0, nodeData, 1, noOfNodes - 1);  // reference node (first) is 0
-        }
+        // solve
+        double[] nodeData = normalEquations.solve(CG_TOLERANCE, Math.max(CG_MIN_ITERATIONS, 10 * noOfNodes));
+        SystemUtils.LOG.fine("Conjugate gradients: " + normalEquations.getNumNonZeros() + " non zeros, " +
+                                     normalEquations.getIterations() + " iterations, relative residual " +
+                                     normalEquations.getRelativeResidual());
 
         return nodeData;
     }
@@ -175,6 +130,10 @@ public class ArcDataIntegration {
      * @return an array with the integrated node data.
      */
     public static double[] integrateArcsL1(int[][] arcs, double[] data, double[] weights) {
+        if (arcs.length > maxSimplexArcs) {
+            return integrateArcsL1IRLS(arcs, data, weights);
+        }
+
         // graph size
         int noOfNodes = Arrays.stream(arcs)
                 .flatMapToInt(Arrays::stream)
@@ -249,6 +208,67 @@ public class ArcDataIntegration {
         return nodeData;
     }
 
+    /**
+     * Integrates arc data to node data using L1 norm by iteratively reweighted least squares. Each iteration solves
+     * the weighted L2 problem with the weights divided by the absolute residuals of the previous iteration.
+     * The linear program grows with the square of the number of arcs, this is used for large networks instead.
+     *
+     * @param arcs every row should contain two indices corresponding to the end nodes of a specific arc.
+     * @param data data to be integrated.
+     * @param weights quality of arc data.
+     * @return an array with the integrated node data.
+     */
+    static double[] integrateArcsL1IRLS(int[][] arcs, double[] data, double[] weights) {
+        double scale = 0;
+        for (double value : data) {
+            scale = Math.max(scale, Math.abs(value));
+        }
+        double epsilon = (scale > 0 ? scale : 1.0) * IRLS_EPSILON;
+
+        double[] absWeights = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            absWeights[i] = Math.abs(weights[i]);
+        }
+
+        double[] nodeData = integrateArcsL2(arcs, data, absWeights);
+        double[] irlsWeights = new double[weights.length];
+        for (int iteration = 0; iteration < IRLS_MAX_ITERATIONS; iteration++) {
+            double[] residuals = computeResiduals(arcs, data, nodeData);
+            for (int i = 0; i < irlsWeights.length; i++) {
+                irlsWeights[i] = absWeights[i] / Math.max(Math.abs(residuals[i]), epsilon);
+            }
+
+            double[] newNodeData = integrateArcsL2(arcs, data, irlsWeights);
+            double change = 0;
+            for (int i = 0; i < nodeData.length; i++) {
+                change = Math.max(change, Math.abs(newNodeData[i] - nodeData[i]));
+            }
+            nodeData = newNodeData;
+            if (change <= epsilon) {
+                SystemUtils.LOG.fine("IRLS converged after " + (iteration + 1) + " iterations");
+                break;
+            }
+        }
+
+        return nodeData;
+    }
+
+    /**
+     * Computes the residual of every arc, the arc data computed from the node data minus the arc data.
+     *
+     * @param arcs every row should contain two indices corresponding to the end nodes of a specific arc.
+     * @param data arc data.
+     * @param nodeData integrated node data.
+     * @return the residual of each arc.
+     */
+    public static double[] computeResiduals(int[][] arcs, double[] data, double[] nodeData) {
+        double[] residuals = new double[arcs.length];
+        for (int i = 0; i < arcs.length; i++) {
+            residuals[i] = nodeData[arcs[i][1]] - nodeData[arcs[i][0]] - data[i];
+        }
+        return residuals;
+    }
+
     /**
      * Integrates arc data to node data using L1 and L2 norms. Steps are the following:
      * <p><ol>
@@ -295,12 +315,8 @@ public class ArcDataIntegration {
     }
 
     private static List<Integer> flagNonOutlierArcs(int[][] arcs, double[] data, double[] nodeData) {
-        // differences
-        double[] arcDifferences = new double[arcs.length];
-        for (int i = 0; i < arcs.length; i++) {
-            double integratedArcData = nodeData[arcs[i][1]] - nodeData[arcs[i][0]];  // arc data computed from the nodes
-            arcDifferences[i] = integratedArcData - data[i];  // difference with actual arc data
-        }
+        // differences of the arc data computed from the nodes with the actual arc data
+        double[] arcDifferences = computeResiduals(arcs, data, nodeData);
 
         // get outlier flags for every element in input array
         return getNonOutlierIndicesIQR(arcDifferences);
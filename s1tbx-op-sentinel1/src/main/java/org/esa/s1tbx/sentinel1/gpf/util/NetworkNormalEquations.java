@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf.util;
+
+import java.util.Arrays;
+
+/**
+ * Normal equations of the weighted least squares integration of arc data to node data,
+ * <code>N = A' W A</code> and <code>r = A' W b</code>, where <code>A</code> is the incidence matrix of the network.
+ * <code>N</code> is the weighted Laplacian of the graph: a row only holds the node and its neighbours, so it is stored
+ * in compressed sparse row form and grows with the number of arcs, not with the square of the number of nodes.
+ * The reference node is held at 0 and the system is solved with Jacobi preconditioned conjugate gradients.
+ */
+final class NetworkNormalEquations {
+
+    private final int noOfNodes;
+    private final int referenceNode;
+
+    // CSR storage of N without the row and column of the reference node
+    private final int[] rowStart;
+    private final int[] columns;
+    private final double[] values;
+    private final double[] rhs;
+
+    private int iterations;
+    private double relativeResidual;
+
+    /**
+     * @param arcs          every row contains the source and target node of an arc.
+     * @param data          arc data, the target node minus the source node.
+     * @param weights       arc weights.
+     * @param noOfNodes     number of nodes.
+     * @param referenceNode the node held at 0.
+     */
+    NetworkNormalEquations(final int[][] arcs, final double[] data, final double[] weights,
+                           final int noOfNodes, final int referenceNode) {
+        this.noOfNodes = noOfNodes;
+        this.referenceNode = referenceNode;
+        final int n = noOfNodes - 1;
+
+        // neighbours of each unknown, the unknown itself first
+        final int[] count = new int[n];
+        Arrays.fill(count, 1);
+        for (int[] arc : arcs) {
+            final int s = unknown(arc[0]), t = unknown(arc[1]);
+            if (s >= 0 && t >= 0 && s != t) {
+                count[s]++;
+                count[t]++;
+            }
+        }
+        final int[][] neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            neighbours[i] = new int[count[i]];
+            neighbours[i][0] = i;
+            count[i] = 1;
+        }
+        for (int[] arc : arcs) {
+            final int s = unknown(arc[0]), t = unknown(arc[1]);
+            if (s >= 0 && t >= 0 && s != t) {
+                neighbours[s][count[s]++] = t;
+                neighbours[t][count[t]++] = s;
+            }
+        }
+
+        // sorted unique columns of each row
+        rowStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            final int[] row = neighbours[i];
+            Arrays.sort(row);
+            int unique = 0;
+            for (int k = 0; k < row.length; k++) {
+                if (k == 0 || row[k] != row[k - 1]) {
+                    row[unique++] = row[k];
+                }
+            }
+            neighbours[i] = Arrays.copyOf(row, unique);
+            rowStart[i + 1] = rowStart[i] + unique;
+        }
+        columns = new int[rowStart[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(neighbours[i], 0, columns, rowStart[i], neighbours[i].length);
+        }
+
+        // accumulate A' W A and A' W b, arc i contributes x[target] - x[source] = data[i]
+        values = new double[columns.length];
+        rhs = new double[n];
+        for (int i = 0; i < arcs.length; i++) {
+            if (arcs[i][0] == arcs[i][1]) {
+                continue;
+            }
+            final int s = unknown(arcs[i][0]), t = unknown(arcs[i][1]);
+            final double w = weights[i];
+            if (s >= 0) {
+                add(s, s, w);
+                rhs[s] -= w * data[i];
+            }
+            if (t >= 0) {
+                add(t, t, w);
+                rhs[t] += w * data[i];
+            }
+            if (s >= 0 && t >= 0) {
+                add(s, t, -w);
+                add(t, s, -w);
+            }
+        }
+    }
+
+    private int unknown(final int node) {
+        if (node == referenceNode) {
+            return -1;
+        }
+        return node < referenceNode ? node : node - 1;
+    }
+
+    private void add(final int row, final int column, final double value) {
+        final int k = Arrays.binarySearch(columns, rowStart[row], rowStart[row + 1], column);
+        values[k] += value;
+    }
+
+    private void multiply(final double[] x, final double[] y) {
+        for (int i = 0; i < y.length; i++) {
+            double sum = 0.0;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                sum += values[k] * x[columns[k]];
+            }
+            y[i] = sum;
+        }
+    }
+
+    private static double dot(final double[] a, final double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Solve the normal equations.
+     *
+     * @param tolerance     relative residual at which to stop.
+     * @param maxIterations maximum number of iterations.
+     * @return the node data, 0 for the reference node.
+     */
+    double[] solve(final double tolerance, final int maxIterations) {
+        final int n = rhs.length;
+        final double[] x = new double[n];
+        final double[] r = rhs.clone();
+        final double[] z = new double[n];
+        final double[] p = new double[n];
+        final double[] q = new double[n];
+
+        final double[] invDiagonal = new double[n];
+        for (int i = 0; i < n; i++) {
+            final double d = values[Arrays.binarySearch(columns, rowStart[i], rowStart[i + 1], i)];
+            invDiagonal[i] = d > 0.0 ? 1.0 / d : 0.0;
+            z[i] = invDiagonal[i] * r[i];
+        }
+        System.arraycopy(z, 0, p, 0, n);
+
+        final double rhsNorm = Math.sqrt(dot(rhs, rhs));
+        double rz = dot(r, z);
+        iterations = 0;
+        while (rhsNorm > 0.0 && iterations < maxIterations) {
+            if (Math.sqrt(dot(r, r)) <= tolerance * rhsNorm) {
+                break;
+            }
+            multiply(p, q);
+            final double pq = dot(p, q);
+            if (pq <= 0.0) {
+                break;
+            }
+            final double alpha = rz / pq;
+            for (int i = 0; i < n; i++) {
+                x[i] += alpha * p[i];
+                r[i] -= alpha * q[i];
+                z[i] = invDiagonal[i] * r[i];
+            }
+            final double rzNext = dot(r, z);
+            final double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < n; i++) {
+                p[i] = z[i] + beta * p[i];
+            }
+            iterations++;
+        }
+        relativeResidual = rhsNorm > 0.0 ? Math.sqrt(dot(r, r)) / rhsNorm : 0.0;
+
+        final double[] nodeData = new double[noOfNodes];
+        for (int node = 0; node < noOfNodes; node++) {
+            final int i = unknown(node);
+            nodeData[node] = i < 0 ? 0.0 : x[i];
+        }
+        return nodeData;
+    }
+
+    /**
+     * @return the number of non zero elements stored for N.
+     */
+    int getNumNonZeros() {
+        return values.length;
+    }
+
+    /**
+     * @return the number of conjugate gradient iterations of the last solve.
+     */
+    int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the relative residual of the normal equations at the end of the last solve.
+     */
+    double getRelativeResidual() {
+        return relativeResidual;
+    }
+}
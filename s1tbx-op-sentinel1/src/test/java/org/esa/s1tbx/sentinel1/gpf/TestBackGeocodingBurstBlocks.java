@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the DEM geometry cropped from the burst block cache of BackGeocodingOp with the geometry computed
+ * per tile, on a synthetic DEM and orbit.
+ */
+public class TestBackGeocodingBurstBlocks {
+
+    private static final int SCENE_WIDTH = 100;
+    private static final int LINES_PER_BURST = 20;
+    private static final int NUM_BURSTS = 3;
+    private static final int BLOCK_WIDTH = 32;
+    private static final int TILE_SIZE = 16;
+    private static final int SLAVE_BURST_OFFSET = 2;
+
+    // extension of the DEM window of a tile or block, as by computeExtendedAmount
+    private static final int EXTENDED_AMOUNT = 3;
+
+    private int numBlockComputations;
+
+    /**
+     * Synthetic DEM window of an image rectangle of a burst, in the order of BackGeocodingOp.getDEMWindow:
+     * latMaxIdx, latMinIdx, lonMinIdx, lonMaxIdx.
+     */
+    private static int[] getDEMWindow(final int burstIndex, final int xmin, final int xmax,
+                                      final int ymin, final int ymax, final int margin) {
+        return new int[]{Math.floorDiv(ymin, 2) + burstIndex - margin, Math.floorDiv(ymax + 1, 2) + burstIndex + margin,
+                Math.floorDiv(xmin, 3) - margin, Math.floorDiv(xmax + 2, 3) + margin};
+    }
+
+    /**
+     * Synthetic azimuth/range indices of a DEM point. Some points have no position in the target image and
+     * others only in the target image.
+     */
+    private static BackGeocodingOp.DEMPointPosition pointPosition(final int mBurstIndex, final int sBurstIndex) {
+        return (demLine, demPixel, position) -> {
+            final int hash = Math.floorMod(demLine * 7 + demPixel * 3 + mBurstIndex, 11);
+            if (hash == 0) {
+                return false;
+            }
+            position[0] = demLine * 2.0 - mBurstIndex * 0.25 + demPixel * 0.01;
+            position[1] = demPixel * 3.0 + demLine * 0.02;
+            if (hash == 5) {
+                return false;
+            }
+            position[2] = position[0] + sBurstIndex * 0.5 + 0.125;
+            position[3] = position[1] - 0.75 + sBurstIndex * 0.001;
+            return true;
+        };
+    }
+
+    /**
+     * Same as BackGeocodingOp.computeBurstBlockGeometry: the full burst height by the width of the block,
+     * with a DEM margin of 22. The slave index is folded into the slave burst index of the synthetic positions.
+     */
+    private BackGeocodingOp.DEMGeometry computeBurstBlock(final int slaveIndex, final int mBurstIndex,
+                                                          final int sBurstIndex, final int x0, final int width)
+            throws Exception {
+        ++numBlockComputations;
+        final int y0 = mBurstIndex * LINES_PER_BURST;
+        final int[] demWindow = getDEMWindow(mBurstIndex, x0 - EXTENDED_AMOUNT, x0 + width + EXTENDED_AMOUNT,
+                y0 - EXTENDED_AMOUNT, y0 + LINES_PER_BURST + EXTENDED_AMOUNT, 22);
+        return BackGeocodingOp.DEMGeometry.compute(demWindow[0], demWindow[2], demWindow[1] - demWindow[0],
+                demWindow[3] - demWindow[2], pointPosition(mBurstIndex, sBurstIndex + slaveIndex));
+    }
+
+    private static void assertGeometryEquals(final String msg, final BackGeocodingOp.DEMGeometry expected,
+                                             final BackGeocodingOp.DEMGeometry actual) {
+        assertEquals(msg, expected.latMaxIdx, actual.latMaxIdx);
+        assertEquals(msg, expected.lonMinIdx, actual.lonMinIdx);
+        assertEquals(msg, expected.hasValidSlavePixPos, actual.hasValidSlavePixPos);
+        assertEquals(msg, expected.masterAz.length, actual.masterAz.length);
+        for (int l = 0; l < expected.masterAz.length; l++) {
+            assertArrayEquals(msg, expected.masterAz[l], actual.masterAz[l], 0.0);
+            assertArrayEquals(msg, expected.masterRg[l], actual.masterRg[l], 0.0);
+            assertArrayEquals(msg, expected.slaveAz[l], actual.slaveAz[l], 0.0);
+            assertArrayEquals(msg, expected.slaveRg[l], actual.slaveRg[l], 0.0);
+        }
+    }
+
+    /**
+     * Goes through the tiles in rows like the tile scheduler. A tile crossing a burst boundary is split into one
+     * part per burst, as in BackGeocodingOp.computeTileStack, and the geometry of each part is compared for
+     * every slave.
+     *
+     * @return the number of tile parts
+     */
+    private int checkAllTiles(final BackGeocodingOp.BurstBlockCache cache, final int numSlaves) throws Exception {
+        final int height = NUM_BURSTS * LINES_PER_BURST;
+        int numParts = 0;
+        for (int ty = 0; ty < height; ty += TILE_SIZE) {
+            for (int tx = 0; tx < SCENE_WIDTH; tx += TILE_SIZE) {
+                final int w = Math.min(TILE_SIZE, SCENE_WIDTH - tx);
+                final int tyMax = Math.min(ty + TILE_SIZE, height);
+                for (int y0 = ty; y0 < tyMax; ) {
+                    final int mBurstIndex = y0 / LINES_PER_BURST;
+                    final int yMax = Math.min(tyMax, (mBurstIndex + 1) * LINES_PER_BURST);
+                    final int sBurstIndex = mBurstIndex + SLAVE_BURST_OFFSET;
+                    final String msg = "tile " + tx + ',' + ty + " burst " + mBurstIndex;
+
+                    final int[] demWindow = getDEMWindow(mBurstIndex, tx - EXTENDED_AMOUNT, tx + w + EXTENDED_AMOUNT,
+                            y0 - EXTENDED_AMOUNT, yMax + EXTENDED_AMOUNT, 20);
+                    final int latMaxIdx = demWindow[0];
+                    final int lonMinIdx = demWindow[2];
+                    final int numLines = demWindow[1] - demWindow[0];
+                    final int numPixels = demWindow[3] - demWindow[2];
+
+                    for (int slaveIndex = 0; slaveIndex < numSlaves; ++slaveIndex) {
+                        final BackGeocodingOp.DEMGeometry expected = BackGeocodingOp.DEMGeometry.compute(
+                                latMaxIdx, lonMinIdx, numLines, numPixels,
+                                pointPosition(mBurstIndex, sBurstIndex + slaveIndex));
+                        final BackGeocodingOp.DEMGeometry actual = cache.getGeometry(
+                                slaveIndex, mBurstIndex, sBurstIndex, tx).crop(latMaxIdx, lonMinIdx, numLines, numPixels);
+
+                        // the window of every tile is inside the block holding it
+                        assertNotNull(msg + " slave " + slaveIndex, actual);
+                        assertGeometryEquals(msg + " slave " + slaveIndex, expected, actual);
+                    }
+
+                    ++numParts;
+                    y0 = yMax;
+                }
+            }
+        }
+        return numParts;
+    }
+
+    @Test
+    public void testCropIsSameAsTileGeometry() throws Exception {
+        final BackGeocodingOp.BurstBlockCache cache = new BackGeocodingOp.BurstBlockCache(
+                BLOCK_WIDTH, TILE_SIZE, SCENE_WIDTH, 8, this::computeBurstBlock);
+
+        // the two middle tile rows cross a burst boundary
+        final int numParts = checkAllTiles(cache, 1);
+        assertEquals(7 * 4 + 7 * 2, numParts);
+
+        // the default size holds the blocks of the two bursts of a tile row, so every block is computed once
+        final int numBlocks = NUM_BURSTS * 4;
+        assertEquals(numBlocks, numBlockComputations);
+    }
+
+    @Test
+    public void testCacheSmallerThanBlocks() throws Exception {
+        final BackGeocodingOp.BurstBlockCache cache = new BackGeocodingOp.BurstBlockCache(
+                BLOCK_WIDTH, TILE_SIZE, SCENE_WIDTH, 1, this::computeBurstBlock);
+
+        checkAllTiles(cache, 1);
+
+        // evicted blocks are computed again
+        final int numBlocks = NUM_BURSTS * 4;
+        assertTrue(numBlockComputations > numBlocks);
+    }
+
+    @Test
+    public void testSlavesShareTheCache() throws Exception {
+        final int numSlaves = 3;
+        final int numBlocks = NUM_BURSTS * 4;
+
+        // room for the blocks of the two bursts of a tile row of every slave
+        final BackGeocodingOp.BurstBlockCache cache = new BackGeocodingOp.BurstBlockCache(
+                BLOCK_WIDTH, TILE_SIZE, SCENE_WIDTH, numSlaves * 8, this::computeBurstBlock);
+        checkAllTiles(cache, numSlaves);
+        assertEquals(numSlaves * numBlocks, numBlockComputations);
+        assertTrue(cache.getNumBlocks() <= numSlaves * 8);
+
+        // the budget is for all slaves, not for each of them
+        numBlockComputations = 0;
+        final BackGeocodingOp.BurstBlockCache smallCache = new BackGeocodingOp.BurstBlockCache(
+                BLOCK_WIDTH, TILE_SIZE, SCENE_WIDTH, 8, this::computeBurstBlock);
+        checkAllTiles(smallCache, numSlaves);
+        assertEquals(8, smallCache.getNumBlocks());
+        assertTrue(numBlockComputations > numSlaves * numBlocks);
+    }
+
+    @Test
+    public void testCropOutsideBlock() throws Exception {
+        final BackGeocodingOp.DEMGeometry block = computeBurstBlock(0, 0, SLAVE_BURST_OFFSET, 0, BLOCK_WIDTH);
+        final int numLines = block.masterAz.length;
+        final int numPixels = block.masterAz[0].length;
+
+        assertGeometryEquals("whole block", block,
+                block.crop(block.latMaxIdx, block.lonMinIdx, numLines, numPixels));
+        assertEquals(null, block.crop(block.latMaxIdx - 1, block.lonMinIdx, numLines, numPixels));
+        assertEquals(null, block.crop(block.latMaxIdx, block.lonMinIdx + 1, numLines, numPixels));
+        assertEquals(null, block.crop(block.latMaxIdx + 1, block.lonMinIdx, numLines, numPixels));
+    }
+
+    @Test
+    public void testNoValidSlavePosition() throws Exception {
+        final BackGeocodingOp.DEMGeometry geometry = BackGeocodingOp.DEMGeometry.compute(
+                5, 7, 3, 4, (demLine, demPixel, position) -> false);
+        assertEquals(false, geometry.hasValidSlavePixPos);
+        assertEquals(false, geometry.crop(6, 8, 2, 2).hasValidSlavePixPos);
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf;
+
+import org.esa.s1tbx.commons.Sentinel1Utils;
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the deburst of tiles over several sub-swaths through the DeburstTileTable of TOPSARDeburstOp with the
+ * previous per-pixel getSubSwathIndex and getLineIndicesInSourceProduct, on synthetic burst timing.
+ */
+public class TestDeburstTileTable {
+
+    private static final double AZIMUTH_TIME_INTERVAL = 0.002055556;
+    private static final double RANGE_PIXEL_SPACING = 2.329562;
+    private static final double DELTA_SLANT_RANGE_TIME = RANGE_PIXEL_SPACING / Constants.lightSpeed;
+    private static final int NUM_BURSTS = 3;
+    private static final int LINES_PER_BURST = 20;
+    private static final int NUM_SAMPLES = 50;
+    private static final short NO_VALUE = -1;
+
+    private TOPSARDeburstOp op;
+    private Sentinel1Utils.SubSwathInfo[] subSwath;
+    private short[][] srcData;
+    private int targetWidth;
+    private int targetHeight;
+
+    private int numOverlapRuns;
+    private int numCopiedRuns;
+    private int numEmptyLines;
+
+    /**
+     * Three sub-swaths shifted in azimuth with invalid lines at their start and end. The first two overlap in
+     * range, the last two have a gap in range between them, and the bursts of the second one have gaps in azimuth
+     * while the bursts of the others overlap. The valid range of the last one starts before its first sample, where
+     * the source sample is clamped to it.
+     */
+    @Before
+    public void setUp() {
+        final double[] azimuthOffset = {0.0, -3.5, 2.25};
+        final double[] burstCycle = {17.6, 21.0, 18.3};
+        final double[] rangeOffset = {0.0, 40.3, 95.7};
+        final double[] firstValidPixel = {2.0, 2.0, -3.0};
+        final double t0 = 4.3e4;
+        final double slr0 = 5.3e-3;
+
+        subSwath = new Sentinel1Utils.SubSwathInfo[3];
+        srcData = new short[subSwath.length][];
+        for (int i = 0; i < subSwath.length; ++i) {
+            final Sentinel1Utils.SubSwathInfo sw = new Sentinel1Utils.SubSwathInfo();
+            sw.azimuthTimeInterval = AZIMUTH_TIME_INTERVAL;
+            sw.rangePixelSpacing = RANGE_PIXEL_SPACING;
+            sw.numOfBursts = NUM_BURSTS;
+            sw.linesPerBurst = LINES_PER_BURST;
+            sw.numOfLines = NUM_BURSTS * LINES_PER_BURST;
+            sw.numOfSamples = NUM_SAMPLES;
+
+            sw.firstLineTime = t0 + azimuthOffset[i] * AZIMUTH_TIME_INTERVAL;
+            sw.burstFirstLineTime = new double[NUM_BURSTS];
+            sw.burstLastLineTime = new double[NUM_BURSTS];
+            sw.burstFirstValidLineTime = new double[NUM_BURSTS];
+            for (int b = 0; b < NUM_BURSTS; ++b) {
+                sw.burstFirstLineTime[b] = sw.firstLineTime + b * burstCycle[i] * AZIMUTH_TIME_INTERVAL;
+                sw.burstLastLineTime[b] = sw.burstFirstLineTime[b] + (LINES_PER_BURST - 1) * AZIMUTH_TIME_INTERVAL;
+                sw.burstFirstValidLineTime[b] = sw.burstFirstLineTime[b] + 2 * AZIMUTH_TIME_INTERVAL;
+            }
+            sw.lastLineTime = sw.burstLastLineTime[NUM_BURSTS - 1];
+            sw.firstValidLineTime = sw.firstLineTime + 2.5 * AZIMUTH_TIME_INTERVAL;
+            sw.lastValidLineTime = sw.lastLineTime - 3.0 * AZIMUTH_TIME_INTERVAL;
+
+            sw.slrTimeToFirstPixel = slr0 + rangeOffset[i] * DELTA_SLANT_RANGE_TIME;
+            sw.slrTimeToLastPixel = sw.slrTimeToFirstPixel + (NUM_SAMPLES - 1) * DELTA_SLANT_RANGE_TIME;
+            sw.slrTimeToFirstValidPixel = sw.slrTimeToFirstPixel + firstValidPixel[i] * DELTA_SLANT_RANGE_TIME;
+            sw.slrTimeToLastValidPixel = sw.slrTimeToFirstPixel + (NUM_SAMPLES - 3) * DELTA_SLANT_RANGE_TIME;
+            subSwath[i] = sw;
+
+            // zeros at the edges of the lines in the overlap are filled from the other sub-swath
+            srcData[i] = new short[sw.numOfLines * NUM_SAMPLES];
+            for (int sy = 0; sy < sw.numOfLines; ++sy) {
+                for (int sx = 0; sx < NUM_SAMPLES; ++sx) {
+                    final boolean zero = (i == 1 && sx < 4) || sx >= NUM_SAMPLES - 4 || (sx + sy) % 13 == 0;
+                    srcData[i][sy * NUM_SAMPLES + sx] = zero ? 0 : (short) (1 + i * 5000 + sy * 60 + sx);
+                }
+            }
+        }
+
+        op = new TOPSARDeburstOp();
+        op.setSubSwaths(subSwath);
+
+        targetHeight = (int) ((subSwath[2].lastLineTime - subSwath[1].firstLineTime) / AZIMUTH_TIME_INTERVAL);
+        targetWidth = (int) ((subSwath[2].slrTimeToLastPixel - subSwath[0].slrTimeToFirstPixel) /
+                DELTA_SLANT_RANGE_TIME);
+    }
+
+    /**
+     * Index of a sample in the source data of a sub-swath, as Tile.getDataBufferIndex of a source tile
+     * covering the sub-swath.
+     */
+    private static int getDataBufferIndex(final int sx, final int sy) {
+        return sy * NUM_SAMPLES + sx;
+    }
+
+    /**
+     * TOPSARDeburstOp.computeMultipleSubSwathsShort before the tile table: the sub-swath, source line and source
+     * sample are found for every pixel.
+     */
+    private void deburstPerPixel(final int tx0, final int ty0, final int txMax, final int tyMax,
+                                 final int firstSubSwathIndex, final int lastSubSwathIndex, final short[] tgtArray) {
+
+        final TOPSARDeburstOp.BurstInfo burstInfo = new TOPSARDeburstOp.BurstInfo();
+        final int tw = txMax - tx0;
+        int sy;
+        for (int y = ty0; y < tyMax; y++) {
+            for (int x = tx0; x < txMax; x++) {
+
+                int subswathIndex = op.getSubSwathIndex(x, y, firstSubSwathIndex, lastSubSwathIndex, burstInfo);
+                if (subswathIndex == -1) {
+                    continue;
+                }
+                if (!op.getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo)) {
+                    continue;
+                }
+
+                short val = 0;
+                int k = subswathIndex - firstSubSwathIndex;
+
+                int sx = op.getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
+                if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
+                    sy = burstInfo.sy1;
+                } else {
+                    sy = burstInfo.sy0;
+                }
+                int idx = getDataBufferIndex(sx, sy);
+
+                if (idx >= 0) {
+                    val = srcData[firstSubSwathIndex - 1 + k][idx];
+                }
+
+                if (burstInfo.swath1 != -1 && val == 0) {
+                    // edge of swaths found therefore use other swath
+                    if (subswathIndex == burstInfo.swath0) {
+                        subswathIndex = burstInfo.swath1;
+                    } else {
+                        subswathIndex = burstInfo.swath0;
+                    }
+
+                    op.getLineIndicesInSourceProduct(y, subSwath[subswathIndex - 1], burstInfo);
+
+                    k = subswathIndex - firstSubSwathIndex;
+
+                    sx = op.getSampleIndexInSourceProduct(x, subSwath[subswathIndex - 1]);
+                    if (burstInfo.sy1 != -1 && burstInfo.targetTime > burstInfo.midTime) {
+                        sy = burstInfo.sy1;
+                    } else {
+                        sy = burstInfo.sy0;
+                    }
+                    idx = getDataBufferIndex(sx, sy);
+
+                    if (idx >= 0 && !(srcData[firstSubSwathIndex - 1 + k][idx] == 0)) {
+                        val = srcData[firstSubSwathIndex - 1 + k][idx];
+                    }
+                }
+
+                tgtArray[(y - ty0) * tw + x - tx0] = val;
+            }
+        }
+    }
+
+    /**
+     * Same as TOPSARDeburstOp.computeMultipleSubSwathsShort: runs from one sub-swath are copied from their
+     * first source sample on, runs in the overlap of two sub-swaths are filled pixel by pixel.
+     */
+    private void deburstWithTable(final TOPSARDeburstOp.DeburstTileTable table, final short[] tgtArray) {
+        final int tw = table.txMax - table.tx0;
+        for (int y = table.ty0; y < table.tyMax; y++) {
+            final TOPSARDeburstOp.ColumnRuns runs = table.getColumnRuns(y);
+            if (runs == null) {
+                ++numEmptyLines;
+                continue;
+            }
+            final int yy = y - table.ty0;
+            final int tgtOffset = yy * tw - table.tx0;
+
+            for (int r = 0; r < runs.numRuns; r++) {
+                final int k = runs.swath[r];
+                final short[] src = srcData[table.firstSubSwathIndex - 1 + k];
+                final int sy = table.sourceLine[k][yy];
+                if (sy == -1) {
+                    continue;
+                }
+                final int x0 = runs.start[r];
+                final int[] sx = table.sourceSample[k];
+                final int other = runs.otherSwath[r];
+
+                if (other == -1) {
+                    ++numCopiedRuns;
+                    final int idx0 = getDataBufferIndex(sx[x0 - table.tx0], sy);
+                    for (int x = x0; x < runs.end[r]; x++) {
+                        final int idx = idx0 + x - x0;
+                        tgtArray[x + tgtOffset] = idx >= 0 ? src[idx] : 0;
+                    }
+                    continue;
+                }
+
+                ++numOverlapRuns;
+                final short[] otherSrc = srcData[table.firstSubSwathIndex - 1 + other];
+                final int otherSy = table.sourceLine[other][yy];
+                final int[] otherSx = table.sourceSample[other];
+                for (int x = x0; x < runs.end[r]; x++) {
+                    final int xx = x - table.tx0;
+                    int idx = getDataBufferIndex(sx[xx], sy);
+                    short val = idx >= 0 ? src[idx] : 0;
+                    if (val == 0) {
+                        idx = getDataBufferIndex(otherSx[xx], otherSy);
+                        if (idx >= 0 && !(otherSrc[idx] == 0)) {
+                            val = otherSrc[idx];
+                        }
+                    }
+                    tgtArray[x + tgtOffset] = val;
+                }
+            }
+        }
+    }
+
+    private void checkAllTiles(final int tileWidth, final int tileHeight,
+                               final int firstSubSwathIndex, final int lastSubSwathIndex) {
+        for (int ty0 = 0; ty0 < targetHeight; ty0 += tileHeight) {
+            for (int tx0 = 0; tx0 < targetWidth; tx0 += tileWidth) {
+                final int txMax = Math.min(tx0 + tileWidth, targetWidth);
+                final int tyMax = Math.min(ty0 + tileHeight, targetHeight);
+                final int size = (txMax - tx0) * (tyMax - ty0);
+
+                final short[] expected = new short[size];
+                Arrays.fill(expected, NO_VALUE);
+                deburstPerPixel(tx0, ty0, txMax, tyMax, firstSubSwathIndex, lastSubSwathIndex, expected);
+
+                final short[] actual = new short[size];
+                Arrays.fill(actual, NO_VALUE);
+                deburstWithTable(op.new DeburstTileTable(tx0, ty0, txMax, tyMax,
+                        firstSubSwathIndex, lastSubSwathIndex), actual);
+
+                assertArrayEquals("tile " + tx0 + ',' + ty0 + ' ' + (txMax - tx0) + 'x' + (tyMax - ty0) +
+                        " sub-swaths " + firstSubSwathIndex + '-' + lastSubSwathIndex, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsPerPixel() {
+        for (int last = 2; last <= 3; ++last) {
+            for (int first = 1; first < last; ++first) {
+                checkAllTiles(16, 16, first, last);
+                checkAllTiles(7, 13, first, last);
+                checkAllTiles(targetWidth, targetHeight, first, last);
+            }
+        }
+
+        assertTrue(numOverlapRuns > 0);
+        assertTrue(numCopiedRuns > 0);
+        assertTrue(numEmptyLines > 0);
+    }
+}
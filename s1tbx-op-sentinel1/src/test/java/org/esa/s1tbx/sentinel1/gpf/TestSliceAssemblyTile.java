@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the tile assembly of SliceAssemblyOp with the previous line by line copy, on synthetic slices.
+ */
+public class TestSliceAssemblyTile {
+
+    private static final int NO_VALUE = -1;
+
+    private final Map<Band, ProductData> sliceData = new HashMap<>();
+    private int numDirectReads;
+
+    private SliceAssemblyOp.BandLines[] createSlices(final int[] widths, final int[] heights,
+                                                     final int[] linesPerBurst, final int targetLinesPerBurst) {
+        final SliceAssemblyOp.BandLines[] lines = new SliceAssemblyOp.BandLines[widths.length];
+        int start = 0;
+        for (int s = 0; s < widths.length; ++s) {
+            final Band band = new Band("i_IW1_VV", ProductData.TYPE_INT16, widths[s], heights[s]);
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, widths[s] * heights[s]);
+            for (int i = 0; i < data.getNumElems(); ++i) {
+                data.setElemIntAt(i, s * 10000 + i);
+            }
+            sliceData.put(band, data);
+
+            // the target lines of an SLC slice are its bursts at the target burst length
+            final int end = start + (targetLinesPerBurst > 0 ?
+                    heights[s] / linesPerBurst[s] * targetLinesPerBurst : heights[s]);
+            lines[s] = new SliceAssemblyOp.BandLines(band, start, end, linesPerBurst[s]);
+            start = end;
+        }
+        return lines;
+    }
+
+    private SliceAssemblyOp.SliceReader reader(final boolean direct) {
+        return new SliceAssemblyOp.SliceReader() {
+
+            @Override
+            public boolean readInto(final Band srcBand, final int x, final int y, final int w, final int h,
+                                    final ProductData destBuffer) {
+                if (!direct) {
+                    return false;
+                }
+                read(srcBand, x, y, w, h, destBuffer);
+                ++numDirectReads;
+                return true;
+            }
+
+            @Override
+            public ProductData readLines(final Band srcBand, final int x, final int y, final int w, final int h) {
+                final ProductData buffer = ProductData.createInstance(srcBand.getDataType(), w * h);
+                read(srcBand, x, y, w, h, buffer);
+                return buffer;
+            }
+        };
+    }
+
+    private void read(final Band srcBand, final int x, final int y, final int w, final int h,
+                      final ProductData destBuffer) {
+        assertTrue(x >= 0 && y >= 0 && x + w <= srcBand.getRasterWidth() && y + h <= srcBand.getRasterHeight());
+        final ProductData data = sliceData.get(srcBand);
+        for (int j = 0; j < h; ++j) {
+            for (int i = 0; i < w; ++i) {
+                destBuffer.setElemIntAt(j * w + i, data.getElemIntAt((y + j) * srcBand.getRasterWidth() + x + i));
+            }
+        }
+    }
+
+    /**
+     * SliceAssemblyOp.computeTile before the line runs: every target line is copied sample by sample from the
+     * slice covering it.
+     */
+    private void assembleLineByLine(final Rectangle targetTileRectangle, final SliceAssemblyOp.BandLines[] lines,
+                                    final int targetLinesPerBurst, final ProductData trgData) {
+        final int tx0 = targetTileRectangle.x;
+        final int ty0 = targetTileRectangle.y;
+        final int maxY = ty0 + targetTileRectangle.height;
+        final int maxX = tx0 + targetTileRectangle.width;
+
+        SliceAssemblyOp.BandLines line = lines[0];
+        for (int y = ty0; y < maxY; ++y) {
+
+            for (SliceAssemblyOp.BandLines l : lines) {
+                if (y >= l.start && y < l.end) {
+                    line = l;
+                    break;
+                }
+            }
+
+            // convert target product line index y to source product line index yy
+            int yy;
+            if (targetLinesPerBurst == 0) {
+                yy = y - line.start;
+            } else {
+                yy = getSourceProductLineIndex(y, line, targetLinesPerBurst, line.linesPerBurst);
+                if (yy == -1) {
+                    continue;
+                }
+            }
+
+            final int sxMax = Math.min(maxX, line.band.getRasterWidth() - 1);
+            final ProductData srcData = sliceData.get(line.band);
+            for (int x = tx0; x < sxMax; ++x) {
+                trgData.setElemIntAt((y - ty0) * targetTileRectangle.width + x - tx0,
+                                     srcData.getElemIntAt(yy * line.band.getRasterWidth() + x));
+            }
+        }
+    }
+
+    private static int getSourceProductLineIndex(
+            final int y, final SliceAssemblyOp.BandLines line, final int targetLinesPerBurst,
+            final int sourceLinesPerBurst) {
+
+        if (targetLinesPerBurst == sourceLinesPerBurst) {
+            return y - line.start;
+        }
+
+        final int yy = y - line.start;
+        final int burstIdx = yy / targetLinesPerBurst;
+        final int lineIdxInBurst = yy - burstIdx * targetLinesPerBurst;
+        if (lineIdxInBurst >= sourceLinesPerBurst) {
+            return -1;
+        } else {
+            return burstIdx * sourceLinesPerBurst + lineIdxInBurst;
+        }
+    }
+
+    private static ProductData createTileData(final Rectangle rect) {
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, rect.width * rect.height);
+        for (int i = 0; i < data.getNumElems(); ++i) {
+            data.setElemIntAt(i, NO_VALUE);
+        }
+        return data;
+    }
+
+    private void checkAllTiles(final SliceAssemblyOp.BandLines[] slices, final int targetWidth,
+                               final int targetLinesPerBurst, final int tileWidth, final int tileHeight)
+            throws Exception {
+        final int targetHeight = slices[slices.length - 1].end;
+        for (boolean direct : new boolean[]{true, false}) {
+            for (int ty = 0; ty < targetHeight; ty += tileHeight) {
+                for (int tx = 0; tx < targetWidth; tx += tileWidth) {
+                    final Rectangle rect = new Rectangle(tx, ty, Math.min(tileWidth, targetWidth - tx),
+                                                         Math.min(tileHeight, targetHeight - ty));
+                    if (rect.width < 2) {
+                        continue;
+                    }
+
+                    final ProductData expected = createTileData(rect);
+                    assembleLineByLine(rect, slices, targetLinesPerBurst, expected);
+
+                    final ProductData actual = createTileData(rect);
+                    SliceAssemblyOp.assembleTile(rect, slices, targetLinesPerBurst, actual, reader(direct));
+
+                    assertArrayEquals(rect.toString(), (short[]) expected.getElems(), (short[]) actual.getElems());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGRD() throws Exception {
+        // the second slice is narrower than the target
+        final SliceAssemblyOp.BandLines[] slices = createSlices(new int[]{37, 33}, new int[]{23, 30}, new int[]{0, 0}, 0);
+        checkAllTiles(slices, 37, 0, 16, 16);
+        checkAllTiles(slices, 37, 0, 8, 23);
+        checkAllTiles(slices, 37, 0, 37, 7);
+        assertTrue(numDirectReads > 0);
+    }
+
+    @Test
+    public void testSLCWithShorterBursts() throws Exception {
+        // the bursts of the first slice are shorter than the target bursts, which leaves empty lines in them
+        final int targetLinesPerBurst = 7;
+        final SliceAssemblyOp.BandLines[] slices = createSlices(new int[]{29, 29}, new int[]{3 * 5, 2 * 7}, new int[]{5, 7},
+                                              targetLinesPerBurst);
+        checkAllTiles(slices, 29, targetLinesPerBurst, 8, 8);
+        checkAllTiles(slices, 29, targetLinesPerBurst, 10, 3);
+        checkAllTiles(slices, 29, targetLinesPerBurst, 29, 35);
+        assertTrue(numDirectReads > 0);
+    }
+
+    @Test
+    public void testSLCWithEqualBursts() throws Exception {
+        final int targetLinesPerBurst = 6;
+        final SliceAssemblyOp.BandLines[] slices = createSlices(new int[]{21, 21, 21}, new int[]{2 * 6, 3 * 6, 6}, new int[]{6, 6, 6},
+                                              targetLinesPerBurst);
+        checkAllTiles(slices, 21, targetLinesPerBurst, 8, 8);
+        checkAllTiles(slices, 21, targetLinesPerBurst, 5, 13);
+        assertTrue(numDirectReads > 0);
+    }
+}
@@ -19,6 +19,9 @@ import org.apache.commons.math3.optim.PointValuePair;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 /**
  * Unit test for ArcDataIntegration.
@@ -123,6 +126,64 @@ public class TestArcDataIntegration {
         assertDoubleArrays(SOLUTION_L2_WEIGHTS1, nodes, TOLERANCE);
     }
 
+    /**
+     * Test arc integration using L1 norm by iteratively reweighted least squares, used for large networks.
+     */
+    @Test
+    public void testIntegrateArcsL1IRLS() {
+        ArcDataIntegration.referenceNodeIsLast = true;
+
+        double[] nodes = ArcDataIntegration.integrateArcsL1IRLS(ARCS, ARC_DATA_L1, WEIGHTS1);
+        assertDoubleArrays(SOLUTION_L1_WEIGHTS1, nodes, TOLERANCE);
+
+        // the linear program is replaced above the arc limit
+        int maxSimplexArcs = ArcDataIntegration.maxSimplexArcs;
+        try {
+            ArcDataIntegration.maxSimplexArcs = ARCS.length - 1;
+            nodes = ArcDataIntegration.integrateArcsL1(ARCS, ARC_DATA_L1, WEIGHTS1);
+            assertDoubleArrays(SOLUTION_L1_WEIGHTS1, nodes, TOLERANCE);
+        } finally {
+            ArcDataIntegration.maxSimplexArcs = maxSimplexArcs;
+        }
+    }
+
+    /**
+     * Test arc integration using L2 norm on a large sparse network with exact arc data.
+     */
+    @Test
+    public void testIntegrateArcsL2_largeNetwork() {
+        ArcDataIntegration.referenceNodeIsLast = false;
+
+        int noOfNodes = 1000;
+        int maxBaseline = 4;
+        List<int[]> arcList = new ArrayList<>();
+        for (int i = 0; i < noOfNodes; i++) {
+            for (int j = i + 1; j <= Math.min(noOfNodes - 1, i + maxBaseline); j++) {
+                arcList.add(new int[]{i, j});
+            }
+        }
+        int[][] arcs = arcList.toArray(new int[0][]);
+
+        double[] expected = new double[noOfNodes];
+        for (int i = 1; i < noOfNodes; i++) {
+            expected[i] = Math.sin(i * 0.01) * 0.05;
+        }
+        double[] data = new double[arcs.length];
+        double[] weights = new double[arcs.length];
+        for (int i = 0; i < arcs.length; i++) {
+            data[i] = expected[arcs[i][1]] - expected[arcs[i][0]];
+            weights[i] = 0.5 + (i % 7) * 0.1;
+        }
+
+        double[] nodes = ArcDataIntegration.integrateArcsL2(arcs, data, weights);
+        assertDoubleArrays(expected, nodes, 1e-9);
+
+        double[] residuals = ArcDataIntegration.computeResiduals(arcs, data, nodes);
+        for (double residual : residuals) {
+            Assert.assertEquals(0.0, residual, 1e-9);
+        }
+    }
+
     /**
      * Test some array operations.
      */
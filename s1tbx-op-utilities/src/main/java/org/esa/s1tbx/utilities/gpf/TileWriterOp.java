@@ -17,6 +17,7 @@ package org.esa.s1tbx.utilities.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.s1tbx.commons.io.ProductWriterQueue;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.dataio.ProductSubsetBuilder;
 import org.esa.snap.core.dataio.ProductSubsetDef;
@@ -34,18 +35,21 @@ import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.subset.PixelSubsetRegion;
+import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.core.util.io.FileUtils;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Split a product into several tiles
+ * Split a product into several tiles.
+ * Every output product is written by a queue of its own, so the outputs are written in parallel and
+ * computing threads never wait for one another.
  */
 @OperatorMetadata(alias = "TileWriter",
         authors = "Jun Lu, Luis Veci",
@@ -86,9 +90,9 @@ public class TileWriterOp extends Operator {
     @Parameter(description = "Tile overlap", label = "Overlap", defaultValue = "0")
     private int overlap = 0;
 
-    private final Map<MultiLevelImage, List<Point>> todoLists = new HashMap<>();
+    private static final int MAX_PENDING_WRITES = 4;
 
-    private boolean productFileWritten;
+    private final Map<MultiLevelImage, Set<Point>> todoLists = new ConcurrentHashMap<>();
 
     private SubsetInfo[] subsetInfo = null;
 
@@ -141,6 +145,7 @@ public class TileWriterOp extends Operator {
                     subsetInfo[n].productWriter.setIncrementalMode(false);
                     subsetInfo[n].productWriter.setFormatName(formatName);
                     subsetInfo[n].product.setProductWriter(subsetInfo[n].productWriter);
+                    subsetInfo[n].writerQueue = new ProductWriterQueue(subsetInfo[n].file.getName(), MAX_PENDING_WRITES);
 
                     final Band[] bands = subsetInfo[n].product.getBands();
                     for (Band b : bands) {
@@ -162,19 +167,11 @@ public class TileWriterOp extends Operator {
     @Override
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
         try {
-            synchronized (this) {
-                if (!productFileWritten) {
-                    for (SubsetInfo info : subsetInfo) {
-                        info.productWriter.writeProductNodes(info.product, info.file);
-                    }
-                    productFileWritten = true;
-                }
-            }
             final Rectangle rect = targetTile.getRectangle();
 
             for (SubsetInfo info : subsetInfo) {
                 final Rectangle trgRect = info.subsetBuilder.getSubsetDef().getRegion();
-                if (rect.intersects(trgRect)) {
+                if (rect.intersects(trgRect) && info.writtenBands.add(targetBand.getName())) {
                     writeTile(info, targetBand.getName(), trgRect);
                 }
             }
@@ -188,43 +185,50 @@ public class TileWriterOp extends Operator {
         }
     }
 
-    private synchronized void writeTile(final SubsetInfo info, final String bandName, final Rectangle trgRect)
+    private void writeTile(final SubsetInfo info, final String bandName, final Rectangle trgRect)
             throws IOException {
 
         final Tile sourceTile = getSourceTile(sourceProduct.getBand(bandName), trgRect);
         final ProductData rawSamples = sourceTile.getRawSamples();
 
         final Band trgBand = info.product.getBand(bandName);
-        info.productWriter.writeBandRasterData(trgBand,
-                0, 0, trgBand.getRasterWidth(), trgBand.getRasterHeight(), rawSamples, ProgressMonitor.NULL);
+        final long numBytes = (long) rawSamples.getNumElems() * rawSamples.getElemSize();
+        info.writerQueue.submit(numBytes, () -> {
+            // the queue runs one write at a time, so the header is written before the first band
+            if (!info.headerWritten) {
+                info.productWriter.writeProductNodes(info.product, info.file);
+                info.headerWritten = true;
+            }
+            info.productWriter.writeBandRasterData(trgBand,
+                    0, 0, trgBand.getRasterWidth(), trgBand.getRasterHeight(), rawSamples, ProgressMonitor.NULL);
+        });
     }
 
     private void markTileDone(Band targetBand, Tile targetTile) throws IOException {
-        boolean done;
-        synchronized (todoLists) {
-            MultiLevelImage sourceImage = targetBand.getSourceImage();
+        final MultiLevelImage sourceImage = targetBand.getSourceImage();
 
-            final List<Point> currentTodoList = getTodoList(sourceImage);
-            currentTodoList.remove(new Point(sourceImage.XToTileX(targetTile.getMinX()),
-                    sourceImage.YToTileY(targetTile.getMinY())));
+        final Set<Point> currentTodoList = getTodoList(sourceImage);
+        currentTodoList.remove(new Point(sourceImage.XToTileX(targetTile.getMinX()),
+                sourceImage.YToTileY(targetTile.getMinY())));
 
-            done = isDone();
-        }
-        if (done) {
-            // If we get here all tiles are written
+        if (isDone()) {
+            // If we get here all tiles are written. Threads finishing the last tiles together may all get here,
+            // so only one of them finishes each output
             for (SubsetInfo info : subsetInfo) {
-                if (info.productWriter instanceof DimapProductWriter) {
-                    // if we can update the header (only DIMAP) rewrite it!
-                    synchronized (info.productWriter) {
-                        info.productWriter.writeProductNodes(info.product, info.file);
+                if (info.finished.compareAndSet(false, true)) {
+                    if (info.productWriter instanceof DimapProductWriter) {
+                        // if we can update the header (only DIMAP) rewrite it after the queued bands!
+                        info.writerQueue.submit(0, () -> info.productWriter.writeProductNodes(info.product, info.file));
                     }
+                    // wait for the output so that a failed write fails the operator
+                    info.writerQueue.flush();
                 }
             }
         }
     }
 
     private boolean isDone() {
-        for (List<Point> todoList : todoLists.values()) {
+        for (Set<Point> todoList : todoLists.values()) {
             if (!todoList.isEmpty()) {
                 return false;
             }
@@ -232,32 +236,44 @@ public class TileWriterOp extends Operator {
         return true;
     }
 
-    private List<Point> getTodoList(MultiLevelImage sourceImage) {
-        List<Point> todoList = todoLists.get(sourceImage);
-        if (todoList == null) {
-            final int numXTiles = sourceImage.getNumXTiles();
-            final int numYTiles = sourceImage.getNumYTiles();
-            todoList = new ArrayList<>(numXTiles * numYTiles);
+    private Set<Point> getTodoList(MultiLevelImage sourceImage) {
+        return todoLists.computeIfAbsent(sourceImage, image -> {
+            final int numXTiles = image.getNumXTiles();
+            final int numYTiles = image.getNumYTiles();
+            final Set<Point> todoList = ConcurrentHashMap.newKeySet(numXTiles * numYTiles);
             for (int y = 0; y < numYTiles; y++) {
                 for (int x = 0; x < numXTiles; x++) {
                     todoList.add(new Point(x, y));
                 }
             }
-            todoLists.put(sourceImage, todoList);
-        }
-        return todoList;
+            return todoList;
+        });
     }
 
     @Override
     public void dispose() {
-        try {
+        IOException failure = null;
+        if (subsetInfo != null) {
             for (SubsetInfo info : subsetInfo) {
-                info.productWriter.close();
+                try {
+                    info.writerQueue.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                SystemUtils.LOG.info(info.writerQueue.getStatistics().toString());
+                try {
+                    info.productWriter.close();
+                } catch (IOException ignore) {
+                }
             }
-        } catch (IOException ignore) {
         }
         todoLists.clear();
         super.dispose();
+        if (failure != null) {
+            throw new OperatorException(failure);
+        }
     }
 
     private static class SubsetInfo {
@@ -265,6 +281,10 @@ public class TileWriterOp extends Operator {
         ProductSubsetBuilder subsetBuilder;
         File file;
         ProductWriter productWriter;
+        ProductWriterQueue writerQueue;
+        boolean headerWritten;      // only accessed by the writer queue
+        final AtomicBoolean finished = new AtomicBoolean();
+        final Set<String> writtenBands = ConcurrentHashMap.newKeySet();
     }
 
     public static class Spi extends OperatorSpi {
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.utilities.gpf;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Unit test for TileWriterOp.
+ */
+public class TileWriterOpTest {
+
+    /**
+     * A write failing on the writer queue must fail the operator, not only be logged.
+     */
+    @Test
+    public void testFailedWriteFailsOperator() throws Exception {
+        // the outputs go into a regular file, so the writer can not create them
+        final File notADirectory = File.createTempFile("TileWriterOpTest", ".tmp");
+        notADirectory.deleteOnExit();
+
+        final TileWriterOp op = new TileWriterOp();
+        op.setSourceProduct(createSourceProduct());
+        op.setParameter("file", new File(notADirectory, "tiles.dim"));
+        op.setParameter("numberOfTiles", "4");
+
+        final Product targetProduct = op.getTargetProduct();
+        final Band band = targetProduct.getBand("b1");
+        final Rectangle rect = new Rectangle(0, 0, band.getRasterWidth(), band.getRasterHeight());
+        try {
+            // the only tile of the product, the outputs are finished before it returns
+            op.computeTile(band, new TileImpl(band, band.getSourceImage().getData(rect)), ProgressMonitor.NULL);
+            fail("OperatorException expected");
+        } catch (OperatorException expected) {
+        }
+        try {
+            op.dispose();
+            fail("OperatorException expected");
+        } catch (OperatorException expected) {
+        }
+    }
+
+    private static Product createSourceProduct() {
+        final int w = 20, h = 20;
+        final Product product = new Product("test", "type", w, h);
+        product.setPreferredTileSize(w, h);
+        final Band band = product.addBand("b1", ProductData.TYPE_FLOAT32);
+        final float[] data = new float[w * h];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = i;
+        }
+        band.setRasterData(ProductData.createInstance(data));
+        return product;
+    }
+}